@@ -0,0 +1,113 @@
+package com.destinity.erp.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Despliega el WAR en Payara Micro como proceso aparte, para que la
+ * aplicación se ejecute con el mismo contenedor que en producción y sus
+ * pausas de GC no se mezclen con las del generador de carga. La salida del
+ * servidor se guarda junto al archivo de resultados.
+ */
+final class AppServer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AppServer.class.getName());
+    static final String CONTEXT_ROOT = "destinity-erp";
+
+    private final Process process;
+    private final URI baseUri;
+
+    private AppServer(Process process, URI baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Inicia Payara Micro y espera a que /api/health/ready responda 200
+     *
+     * @param config opciones de la prueba
+     * @param mongoUri MongoDb al que se conecta la aplicación
+     * @return servidor listo
+     */
+    static AppServer start(LoadTestConfig config, String mongoUri) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(config.war()))
+            throw new IllegalStateException("No existe el WAR " + config.war().toAbsolutePath() + "; ejecuta mvn package");
+        if (!Files.isRegularFile(config.payaraJar()))
+            throw new IllegalStateException("No existe Payara Micro en " + config.payaraJar().toAbsolutePath());
+
+        URI baseUri = URI.create("http://localhost:" + config.port() + "/" + CONTEXT_ROOT + "/api/");
+        Path log = config.output().toAbsolutePath().resolveSibling("payara.log");
+        Files.createDirectories(log.getParent());
+
+        ProcessBuilder builder = new ProcessBuilder(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", config.payaraJar().toAbsolutePath().toString(),
+                "--deploy", config.war().toAbsolutePath().toString(),
+                "--contextroot", CONTEXT_ROOT,
+                "--port", String.valueOf(config.port()),
+                "--nocluster"));
+        Map<String, String> env = builder.environment();
+        env.put("MONGO_URI", mongoUri);
+        env.put("MONGO_DATABASE", config.database());
+        env.put("SECRET_KEY", "loadtest-secret-key-0123456789abcdef");
+        env.put("WARMUP_BASE_URL", baseUri.toString());
+        builder.redirectErrorStream(true).redirectOutput(log.toFile());
+
+        LOGGER.log(Level.INFO, "Iniciando Payara Micro en el puerto {0}, salida en {1}",
+                new Object[]{config.port(), log});
+        AppServer server = new AppServer(builder.start(), baseUri);
+        try {
+            server.awaitReady(config.startupTimeout());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    private void awaitReady(Duration timeout) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        HttpRequest ready = HttpRequest.newBuilder(baseUri.resolve("health/ready")).timeout(Duration.ofSeconds(5)).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive())
+                throw new IllegalStateException("Payara Micro terminó con código " + process.exitValue());
+            try {
+                if (client.send(ready, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    LOGGER.info("Aplicación lista");
+                    return;
+                }
+            } catch (IOException e) {
+                // El puerto aún no acepta conexiones
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("La aplicación no estuvo lista en " + timeout);
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
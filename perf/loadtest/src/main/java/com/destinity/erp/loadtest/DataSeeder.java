@@ -0,0 +1,157 @@
+package com.destinity.erp.loadtest;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Borra la base de datos de prueba y la llena con productos, empleados y
+ * ventas con la misma forma que escriben los repositorios. Usa una semilla
+ * fija para que dos ejecuciones sobre commits distintos vean los mismos datos.
+ */
+final class DataSeeder {
+
+    private static final Logger LOGGER = Logger.getLogger(DataSeeder.class.getName());
+    static final String PASSWORD = "LoadTest-123";
+    private static final int BATCH_SIZE = 5_000;
+    private static final int SALE_HISTORY_DAYS = 180;
+
+    private static final String[] CATEGORIES = {"ABARROTES", "BEBIDAS", "LÁCTEOS", "LIMPIEZA", "ELECTRÓNICA",
+        "PANADERÍA", "CARNES", "FRUTAS Y VERDURAS", "HIGIENE", "MASCOTAS"};
+    private static final String[] NOUNS = {"Arroz", "Frijol", "Leche", "Queso", "Jabón", "Detergente", "Pan",
+        "Refresco", "Agua", "Café", "Galletas", "Atún", "Aceite", "Cereal", "Yogur", "Cable", "Audífonos",
+        "Croquetas", "Shampoo", "Papel"};
+    private static final String[] BRANDS = {"Del Valle", "La Costeña", "Lala", "Bimbo", "Nestlé", "Genérico",
+        "Premium", "Económico", "Selecto", "Natural"};
+    private static final String[] FIRST_NAMES = {"María", "José", "Juan", "Guadalupe", "Luis", "Ana", "Carlos",
+        "Fernanda", "Miguel", "Sofía"};
+    private static final String[] LAST_NAMES = {"Hernández", "García", "Martínez", "López", "González",
+        "Pérez", "Rodríguez", "Sánchez", "Ramírez", "Cruz"};
+    private static final String[] PAYMENT_METHODS = {"Efectivo", "Tarjeta", "Transferencia"};
+
+    /**
+     * Datos sembrados que usa el generador de tráfico
+     *
+     * @param productIds IDs de los productos
+     * @param productNames nombres de los productos, para armar ventas
+     * @param productPrices precios de los productos
+     * @param searchTerms términos de búsqueda con resultados
+     * @param emails correos de los empleados, todos con PASSWORD
+     */
+    record SeedData(List<String> productIds, List<String> productNames, List<Double> productPrices,
+            List<String> searchTerms, List<String> emails) {
+    }
+
+    static SeedData seed(String mongoUri, LoadTestConfig config) {
+        Random random = new Random(20240601L);
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoDatabase database = client.getDatabase(config.database());
+            database.drop();
+            LocalDateTime now = LocalDateTime.now();
+
+            List<String> productIds = new ArrayList<>(config.products());
+            List<String> productNames = new ArrayList<>(config.products());
+            List<Double> productPrices = new ArrayList<>(config.products());
+            List<Document> products = new ArrayList<>(config.products());
+            for (int i = 0; i < config.products(); i++) {
+                ObjectId id = new ObjectId();
+                String name = NOUNS[random.nextInt(NOUNS.length)] + " " + BRANDS[random.nextInt(BRANDS.length)]
+                        + " " + (100 + random.nextInt(900)) + "g";
+                double price = Math.round((10 + random.nextDouble() * 2_000) * 100) / 100.0;
+                productIds.add(id.toHexString());
+                productNames.add(name);
+                productPrices.add(price);
+                products.add(new Document("_id", id)
+                        .append("name", name)
+                        .append("price", price)
+                        .append("stock", random.nextInt(500))
+                        .append("category", CATEGORIES[random.nextInt(CATEGORIES.length)])
+                        .append("description", "Producto " + name + " de la línea " + BRANDS[random.nextInt(BRANDS.length)]
+                                + ", presentación individual para venta en piso.")
+                        .append("image", "https://res.cloudinary.com/destinity/image/upload/products/" + id + ".webp")
+                        .append("provider", new ObjectId().toHexString())
+                        .append("status", "Activo")
+                        .append("createdAt", toDate(now.minusDays(random.nextInt(365))))
+                        .append("updatedAt", toDate(now.minusDays(random.nextInt(30)))));
+            }
+            insert(database.getCollection("inventory"), products);
+
+            String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(10));
+            List<String> emails = new ArrayList<>(config.users());
+            List<Document> users = new ArrayList<>(config.users());
+            for (int i = 0; i < config.users(); i++) {
+                String email = "empleado" + i + "@loadtest.destinity.mx";
+                emails.add(email);
+                users.add(new Document("_id", new ObjectId())
+                        .append("firstName", FIRST_NAMES[random.nextInt(FIRST_NAMES.length)])
+                        .append("lastName", LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                        .append("middleName", LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                        .append("email", email)
+                        .append("password", hash)
+                        .append("userType", "employee")
+                        .append("status", "Activo")
+                        .append("createdAt", toDate(now.minusDays(400)))
+                        .append("updatedAt", toDate(now.minusDays(10)))
+                        .append("employeeData", new Document("role", i == 0 ? "Administrador" : "Cajero")
+                                .append("department", "Ventas")
+                                .append("salary", 12_000.0 + random.nextInt(8_000))));
+            }
+            insert(database.getCollection("hr"), users);
+
+            MongoCollection<Document> salesCollection = database.getCollection("sales");
+            List<Document> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < config.sales(); i++) {
+                int product = random.nextInt(productIds.size());
+                int quantity = 1 + random.nextInt(5);
+                double price = productPrices.get(product);
+                LocalDateTime saleDate = now.minusMinutes(random.nextInt(SALE_HISTORY_DAYS * 24 * 60));
+                String customer = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                        + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                batch.add(new Document("_id", new ObjectId())
+                        .append("paymentMethod", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)])
+                        .append("totalAmount", price * quantity)
+                        .append("status", random.nextInt(50) == 0 ? "Cancelada" : "Completada")
+                        .append("saleDate", toDate(saleDate))
+                        .append("createdAt", toDate(saleDate))
+                        .append("updatedAt", toDate(saleDate))
+                        .append("customerInfo", new Document("id", "C" + random.nextInt(20_000))
+                                .append("name", customer)
+                                .append("email", customer.toLowerCase().replace(' ', '.') + "@correo.mx"))
+                        .append("productSold", new Document("id", productIds.get(product))
+                                .append("name", productNames.get(product))
+                                .append("price", price)
+                                .append("quantity", quantity)
+                                .append("subTotal", price * quantity)));
+                if (batch.size() == BATCH_SIZE) {
+                    insert(salesCollection, batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            insert(salesCollection, batch);
+
+            LOGGER.log(Level.INFO, "Datos sembrados: {0} productos, {1} empleados, {2} ventas",
+                    new Object[]{config.products(), config.users(), config.sales()});
+            return new SeedData(productIds, productNames, productPrices, List.of(NOUNS), emails);
+        }
+    }
+
+    private static void insert(MongoCollection<Document> collection, List<Document> documents) {
+        if (!documents.isEmpty()) collection.insertMany(documents);
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
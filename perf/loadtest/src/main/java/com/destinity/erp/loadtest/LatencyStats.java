@@ -0,0 +1,83 @@
+package com.destinity.erp.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencias por operación con HdrHistogram (3 dígitos significativos, hasta
+ * 60 s). Las respuestas con error cuentan aparte y no entran al histograma.
+ */
+final class LatencyStats {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String operation, long nanos, boolean success) {
+        if (success) {
+            recorders.computeIfAbsent(operation, o -> new Recorder(MAX_LATENCY_NANOS, 3))
+                    .recordValue(Math.min(nanos, MAX_LATENCY_NANOS));
+        } else {
+            errors.computeIfAbsent(operation, o -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Descarta lo registrado hasta ahora, al terminar el calentamiento
+     */
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Resumen por operación y total del periodo medido
+     *
+     * @param elapsed duración real del periodo medido
+     * @return operación -> métricas, con la entrada "total" al final
+     */
+    Map<String, Map<String, Object>> summary(Duration elapsed) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        long totalErrors = 0;
+        for (TrafficMix.Operation operation : TrafficMix.OPERATIONS) {
+            Recorder recorder = recorders.get(operation.name());
+            Histogram histogram = recorder != null ? recorder.getIntervalHistogram() : new Histogram(MAX_LATENCY_NANOS, 3);
+            long failed = errors.containsKey(operation.name()) ? errors.get(operation.name()).sum() : 0;
+            total.add(histogram);
+            totalErrors += failed;
+            result.put(operation.name(), metrics(histogram, failed, elapsed));
+        }
+        result.put("total", metrics(total, totalErrors, elapsed));
+        return result;
+    }
+
+    private static Map<String, Object> metrics(Histogram histogram, long failed, Duration elapsed) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long count = histogram.getTotalCount();
+        metrics.put("requests", count + failed);
+        metrics.put("errors", failed);
+        metrics.put("throughputPerSec", round((count + failed) / Math.max(0.001, elapsed.toMillis() / 1000.0)));
+        metrics.put("meanMs", count > 0 ? millis(histogram.getMean()) : null);
+        metrics.put("p50Ms", count > 0 ? millis(histogram.getValueAtPercentile(50)) : null);
+        metrics.put("p99Ms", count > 0 ? millis(histogram.getValueAtPercentile(99)) : null);
+        metrics.put("p999Ms", count > 0 ? millis(histogram.getValueAtPercentile(99.9)) : null);
+        metrics.put("maxMs", count > 0 ? millis(histogram.getMaxValue()) : null);
+        return metrics;
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,140 @@
+package com.destinity.erp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prueba de carga de la API REST sin depender de Atlas.
+ * Inicia (o usa) un MongoDb, siembra datos, despliega el WAR en Payara Micro
+ * y reproduce la mezcla de tráfico de TrafficMix con clientes concurrentes.
+ * Cada cliente espera su respuesta antes de enviar la siguiente (carga
+ * cerrada), así que el throughput reportado es la capacidad con esa
+ * concurrencia. Tras el calentamiento se miden throughput y p50/p99/p999
+ * por operación y se escriben en JSON junto con el commit, para comparar
+ * resultados entre versiones.
+ */
+public final class LoadTest {
+
+    private static final Logger LOGGER = Logger.getLogger(LoadTest.class.getName());
+    private static final int MAX_LOGGED_ERRORS = 20;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load();
+        try (LocalMongo mongo = LocalMongo.start(config.mongoUri())) {
+            DataSeeder.SeedData data = DataSeeder.seed(mongo.uri(), config);
+            try (AppServer server = AppServer.start(config, mongo.uri())) {
+                Map<String, Map<String, Object>> results = run(config, server.baseUri(), data);
+                writeReport(config, results);
+            }
+        }
+    }
+
+    private static Map<String, Map<String, Object>> run(LoadTestConfig config, URI baseUri, DataSeeder.SeedData data)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyStats stats = new LatencyStats();
+        AtomicInteger loggedErrors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        long measureStart = start + config.warmup().toNanos();
+        long end = measureStart + config.duration().toNanos();
+        LOGGER.log(Level.INFO, "Calentamiento de {0} y medición de {1} con {2} clientes",
+                new Object[]{config.warmup(), config.duration(), config.concurrency()});
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.concurrency(); i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        TrafficMix.Operation operation = TrafficMix.next();
+                        HttpRequest request = operation.request().apply(baseUri, data);
+                        long sent = System.nanoTime();
+                        boolean success;
+                        try {
+                            HttpResponse<String> response = client.send(request,
+                                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+                            success = response.statusCode() / 100 == 2;
+                            if (!success && loggedErrors.incrementAndGet() <= MAX_LOGGED_ERRORS)
+                                LOGGER.log(Level.WARNING, "{0} respondió {1}: {2}", new Object[]{
+                                    operation.name(), response.statusCode(), abbreviate(response.body())});
+                        } catch (IOException e) {
+                            success = false;
+                            if (loggedErrors.incrementAndGet() <= MAX_LOGGED_ERRORS)
+                                LOGGER.log(Level.WARNING, "{0} falló: {1}", new Object[]{operation.name(), e.getMessage()});
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (sent >= measureStart) stats.record(operation.name(), System.nanoTime() - sent, success);
+                    }
+                });
+            }
+            long untilMeasure = measureStart - System.nanoTime();
+            if (untilMeasure > 0) TimeUnit.NANOSECONDS.sleep(untilMeasure);
+            stats.reset();
+            LOGGER.info("Calentamiento terminado, midiendo");
+        }
+        return stats.summary(Duration.ofNanos(System.nanoTime() - measureStart));
+    }
+
+    private static void writeReport(LoadTestConfig config, Map<String, Map<String, Object>> results) throws IOException {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", config.concurrency());
+        settings.put("warmupSeconds", config.warmup().toSeconds());
+        settings.put("durationSeconds", config.duration().toSeconds());
+        settings.put("products", config.products());
+        settings.put("users", config.users());
+        settings.put("sales", config.sales());
+        settings.put("externalMongo", config.mongoUri() != null);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("commit", gitCommit());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("cpus", Runtime.getRuntime().availableProcessors());
+        report.put("settings", settings);
+        report.put("operations", results);
+
+        Files.createDirectories(config.output().toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(config.output().toFile(), report);
+        LOGGER.log(Level.INFO, "Resultados en {0}", config.output().toAbsolutePath());
+        results.forEach((name, metrics) -> LOGGER.log(Level.INFO, "{0}: {1}", new Object[]{name, metrics}));
+    }
+
+    private static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) return "";
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+}
@@ -0,0 +1,80 @@
+package com.destinity.erp.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Opciones de la prueba de carga. Cada opción se lee de la propiedad del
+ * sistema loadtest.* o, si no existe, de la variable de entorno LOADTEST_*.
+ *
+ * @param mongoUri MongoDb externo; si es null se inicia un mongod local
+ * @param database base de datos que se borra y se vuelve a sembrar
+ * @param war WAR de la aplicación a desplegar
+ * @param payaraJar Payara Micro usado como contenedor
+ * @param port puerto HTTP del contenedor
+ * @param warmup tiempo de tráfico que no se mide
+ * @param duration tiempo de tráfico medido
+ * @param concurrency clientes simultáneos (cada uno espera su respuesta)
+ * @param products productos a sembrar
+ * @param users empleados a sembrar
+ * @param sales ventas a sembrar
+ * @param output archivo JSON de resultados
+ * @param startupTimeout tiempo máximo para que la aplicación esté lista
+ */
+record LoadTestConfig(
+        String mongoUri,
+        String database,
+        Path war,
+        Path payaraJar,
+        int port,
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        int products,
+        int users,
+        int sales,
+        Path output,
+        Duration startupTimeout) {
+
+    static LoadTestConfig load() {
+        // exec:java fija loadtest.home al directorio del módulo; sin él se asume la raíz del proyecto
+        Path home = Path.of(System.getProperty("loadtest.home", "perf/loadtest"));
+        Path root = home.resolve("../..").normalize();
+        return new LoadTestConfig(
+                get("mongo.uri", null),
+                get("database", "destinity_loadtest"),
+                root.resolve(get("war", "target/destinity-1.0.0.war")),
+                home.resolve(get("payara.jar", "target/payara-micro.jar")),
+                Integer.parseInt(get("port", "8090")),
+                parseDuration(get("warmup", "20s")),
+                parseDuration(get("duration", "60s")),
+                Integer.parseInt(get("concurrency", "32")),
+                Integer.parseInt(get("products", "5000")),
+                Integer.parseInt(get("users", "50")),
+                Integer.parseInt(get("sales", "100000")),
+                home.resolve(get("output", "target/loadtest-results.json")),
+                parseDuration(get("startup.timeout", "5m")));
+    }
+
+    private static String get(String name, String defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        if (value == null || value.isBlank())
+            value = System.getenv("LOADTEST_" + name.toUpperCase().replace('.', '_'));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Interpreta duraciones como 500ms, 30s, 5m o 1h
+     */
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> Duration.ofSeconds(Long.parseLong(text));
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.destinity.erp.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MongoDb para la prueba de carga: el indicado en LOADTEST_MONGO_URI o un
+ * mongod 7.0 local descargado e iniciado con flapdoodle, que se detiene al
+ * cerrar.
+ */
+final class LocalMongo implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(LocalMongo.class.getName());
+
+    private final String uri;
+    private final TransitionWalker.ReachedState<RunningMongodProcess> process;
+
+    private LocalMongo(String uri, TransitionWalker.ReachedState<RunningMongodProcess> process) {
+        this.uri = uri;
+        this.process = process;
+    }
+
+    static LocalMongo start(String externalUri) {
+        if (externalUri != null) {
+            LOGGER.log(Level.INFO, "Usando MongoDb externo");
+            return new LocalMongo(externalUri, null);
+        }
+        TransitionWalker.ReachedState<RunningMongodProcess> process = Mongod.instance().start(Version.Main.V7_0);
+        ServerAddress address = process.current().getServerAddress();
+        String uri = "mongodb://" + address.getHost() + ":" + address.getPort();
+        LOGGER.log(Level.INFO, "mongod local iniciado en {0}", uri);
+        return new LocalMongo(uri, process);
+    }
+
+    String uri() {
+        return uri;
+    }
+
+    @Override
+    public void close() {
+        if (process != null) process.close();
+    }
+}
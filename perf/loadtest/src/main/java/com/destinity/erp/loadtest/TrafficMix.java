@@ -0,0 +1,147 @@
+package com.destinity.erp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Mezcla de peticiones de un punto de venta. Cada operación tiene un peso
+ * relativo; el login es poco frecuente porque un cajero inicia sesión una
+ * vez por turno, y las consultas de productos dominan el tráfico.
+ */
+final class TrafficMix {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> CUSTOMER_TERMS = List.of("Hernández", "García", "López", "Cruz", "Ana");
+
+    /**
+     * Operación del tráfico
+     *
+     * @param name nombre con el que se reporta
+     * @param weight peso relativo dentro de la mezcla
+     * @param request construye la petición a partir de la URI base y los datos sembrados
+     */
+    record Operation(String name, int weight, BiFunction<URI, DataSeeder.SeedData, HttpRequest> request) {
+    }
+
+    static final List<Operation> OPERATIONS = List.of(
+            new Operation("auth.login", 2, TrafficMix::login),
+            new Operation("products.byId", 30, TrafficMix::productById),
+            new Operation("products.search", 12, TrafficMix::productSearch),
+            new Operation("products.page", 12, TrafficMix::productPage),
+            new Operation("sales.create", 18, TrafficMix::createSale),
+            new Operation("sales.page", 10, TrafficMix::salePage),
+            new Operation("sales.range", 8, TrafficMix::saleRange),
+            new Operation("sales.search", 8, TrafficMix::saleSearch));
+
+    private static final int[] CUMULATIVE = new int[OPERATIONS.size()];
+
+    static {
+        int total = 0;
+        for (int i = 0; i < OPERATIONS.size(); i++) {
+            total += OPERATIONS.get(i).weight();
+            CUMULATIVE[i] = total;
+        }
+    }
+
+    /**
+     * Elige una operación al azar según su peso
+     *
+     * @return operación a ejecutar
+     */
+    static Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(CUMULATIVE[CUMULATIVE.length - 1]);
+        for (int i = 0; i < CUMULATIVE.length; i++) {
+            if (pick < CUMULATIVE[i]) return OPERATIONS.get(i);
+        }
+        return OPERATIONS.get(OPERATIONS.size() - 1);
+    }
+
+    private static HttpRequest login(URI base, DataSeeder.SeedData data) {
+        Map<String, String> body = Map.of("email", pick(data.emails()), "password", DataSeeder.PASSWORD);
+        return post(base.resolve("auth/login"), body);
+    }
+
+    private static HttpRequest productById(URI base, DataSeeder.SeedData data) {
+        return get(base.resolve("products?id=" + pick(data.productIds())));
+    }
+
+    private static HttpRequest productSearch(URI base, DataSeeder.SeedData data) {
+        return get(base.resolve("products/search?name=" + encode(pick(data.searchTerms()))));
+    }
+
+    private static HttpRequest productPage(URI base, DataSeeder.SeedData data) {
+        return get(base.resolve("products/all?page=" + ThreadLocalRandom.current().nextInt(20) + "&size=20"));
+    }
+
+    private static HttpRequest createSale(URI base, DataSeeder.SeedData data) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int product = random.nextInt(data.productIds().size());
+        int quantity = 1 + random.nextInt(5);
+        double price = data.productPrices().get(product);
+
+        Map<String, Object> customer = new LinkedHashMap<>();
+        customer.put("id", "C" + random.nextInt(20_000));
+        customer.put("name", "Cliente Prueba");
+        customer.put("email", "cliente" + random.nextInt(20_000) + "@correo.mx");
+        Map<String, Object> productSold = new LinkedHashMap<>();
+        productSold.put("id", data.productIds().get(product));
+        productSold.put("name", data.productNames().get(product));
+        productSold.put("price", price);
+        productSold.put("quantity", quantity);
+        productSold.put("subTotal", price * quantity);
+        Map<String, Object> sale = new LinkedHashMap<>();
+        sale.put("customerInfo", customer);
+        sale.put("productSold", productSold);
+        sale.put("paymentMethod", random.nextBoolean() ? "Tarjeta" : "Efectivo");
+        sale.put("totalAmount", price * quantity);
+        return post(base.resolve("sales"), sale);
+    }
+
+    private static HttpRequest salePage(URI base, DataSeeder.SeedData data) {
+        return get(base.resolve("sales/all?page=" + ThreadLocalRandom.current().nextInt(10) + "&size=20"));
+    }
+
+    private static HttpRequest saleRange(URI base, DataSeeder.SeedData data) {
+        LocalDate to = LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(90));
+        return get(base.resolve("sales/range?from=" + to.minusDays(7) + "&to=" + to + "&size=50"));
+    }
+
+    private static HttpRequest saleSearch(URI base, DataSeeder.SeedData data) {
+        return get(base.resolve("sales/search?name=" + encode(pick(CUSTOMER_TERMS))));
+    }
+
+    private static HttpRequest get(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest post(URI uri, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo serializar la petición", e);
+        }
+    }
+
+    private static <T> T pick(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package com.destinity.erp.bench;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.JwtUtil;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mide la generación y verificación de tokens JWT. Cada helper por claim
+ * (getUserIdFromToken, getRoleFromToken, ...) vuelve a verificar la firma,
+ * así que perClaimHelpers muestra el costo de leer los cuatro claims por
+ * separado frente a getAllClaims. Las variantes *Contended ejecutan lo mismo
+ * en todos los núcleos para detectar contención.
+ *
+ * Uso: mvn -Pbench test-compile exec:exec@jmh -Djmh.args="JwtBenchmark -prof gc"
+ * La clave de firma se pasa al fork como propiedad del sistema SECRET_KEY.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-DSECRET_KEY=benchmark-secret-key-0123456789abcdef")
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil(new ConfigService());
+        token = jwtUtil.generateToken("665f1c2e9b1e8a3d4c5b6a79", "Administrador",
+                "maria.hernandez@destinity.mx", "María José Hernández López");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("665f1c2e9b1e8a3d4c5b6a79", "Administrador",
+                "maria.hernandez@destinity.mx", "María José Hernández López");
+    }
+
+    @Benchmark
+    public DecodedJWT verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public Map<String, String> getAllClaims() {
+        return jwtUtil.getAllClaims(token);
+    }
+
+    /**
+     * Los cuatro claims con un helper cada uno: cuatro verificaciones
+     */
+    @Benchmark
+    public void perClaimHelpers(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.getUserIdFromToken(token));
+        blackhole.consume(jwtUtil.getRoleFromToken(token));
+        blackhole.consume(jwtUtil.getEmailFromToken(token));
+        blackhole.consume(jwtUtil.getNameFromToken(token));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public DecodedJWT verifyTokenContended() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Map<String, String> getAllClaimsContended() {
+        return jwtUtil.getAllClaims(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateTokenContended() {
+        return jwtUtil.generateToken("665f1c2e9b1e8a3d4c5b6a79", "Administrador",
+                "maria.hernandez@destinity.mx", "María José Hernández López");
+    }
+}
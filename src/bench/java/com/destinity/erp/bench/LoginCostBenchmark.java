@@ -0,0 +1,48 @@
+package com.destinity.erp.bench;
+
+import com.destinity.erp.utils.PasswordHasher;
+import java.util.Arrays;
+
+/**
+ * Mide la latencia de la verificación de contraseñas en el login para cada
+ * costo de BCrypt y reporta p50/p99, para elegir el valor de BCRYPT_COST.
+ * La consulta del usuario en MongoDb no se incluye: el costo del login está
+ * dominado por BCrypt.checkpw.
+ *
+ * Uso: mvn -Pbench test-compile exec:java -Dexec.args="8 14 200"
+ * (costo mínimo, costo máximo, iteraciones por costo).
+ */
+public class LoginCostBenchmark {
+
+    private static final String PASSWORD = "Contraseña-De-Prueba-123";
+
+    public static void main(String[] args) {
+        int minCost = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int maxCost = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        System.out.printf("%-6s %10s %10s %10s%n", "cost", "p50 (ms)", "p99 (ms)", "login/s");
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            String hash = PasswordHasher.hashPassword(PASSWORD, cost);
+            int warmup = Math.max(3, iterations / 10);
+            for (int i = 0; i < warmup; i++) PasswordHasher.checkPassword(PASSWORD, hash);
+
+            long[] samples = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                if (!PasswordHasher.checkPassword(PASSWORD, hash))
+                    throw new IllegalStateException("La verificación falló para el costo " + cost);
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            double p50 = percentile(samples, 0.50) / 1_000_000.0;
+            double p99 = percentile(samples, 0.99) / 1_000_000.0;
+            System.out.printf("%-6d %10.2f %10.2f %10.1f%n", cost, p50, p99, 1000.0 / p50);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,210 @@
+package com.destinity.erp.bench;
+
+import com.destinity.erp.hr.UserDTO;
+import com.destinity.erp.hr.UserModel;
+import com.destinity.erp.hr.UserRepository;
+import com.destinity.erp.inventory.ProductDTO;
+import com.destinity.erp.inventory.ProductModel;
+import com.destinity.erp.inventory.ProductRepository;
+import com.destinity.erp.sales.SaleDTO;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ToDate;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la conversión entre documentos de MongoDb, modelos y DTOs de
+ * productos, ventas y usuarios, además de ToDate. Los documentos de entrada
+ * pasan por el codec BSON del driver para que tengan los mismos tipos que
+ * devuelve una consulta real. Los convertidores de los repositorios son
+ * privados y se invocan con MethodHandles, sin modificar el código.
+ *
+ * Uso: mvn -Pbench test-compile exec:exec@jmh -Djmh.args="MapperBenchmark -prof gc"
+ * El perfilador gc reporta gc.alloc.rate.norm (bytes por operación).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    private static final MethodHandle DOCUMENT_TO_PRODUCT = mapper(ProductRepository.class, "documentToProduct",
+            ProductModel.class, Document.class);
+    private static final MethodHandle PRODUCT_TO_DOCUMENT = mapper(ProductRepository.class, "productToDocument",
+            Document.class, ProductModel.class);
+    private static final MethodHandle DOCUMENT_TO_SALE = mapper(SaleRepository.class, "documentToSale",
+            SaleModel.class, Document.class);
+    private static final MethodHandle SALE_TO_DOCUMENT = mapper(SaleRepository.class, "saleToDocument",
+            Document.class, SaleModel.class);
+    private static final MethodHandle DOCUMENT_TO_USER = mapper(UserRepository.class, "documentToUser",
+            UserModel.class, Document.class);
+    private static final MethodHandle USER_TO_DOCUMENT = mapper(UserRepository.class, "userToDocument",
+            Document.class, UserModel.class);
+
+    private final ProductRepository productRepository = new ProductRepository();
+    private final SaleRepository saleRepository = new SaleRepository();
+    private final UserRepository userRepository = new UserRepository();
+
+    private ProductModel product;
+    private SaleModel sale;
+    private UserModel user;
+    private Document productDoc;
+    private Document saleDoc;
+    private Document userDoc;
+    private List<Document> salePage;
+    private LocalDateTime dateTime;
+    private Date date;
+
+    @Setup
+    public void setup() throws Throwable {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2025, 3, 14, 10, 30, 15);
+
+        product = new ProductModel(new ObjectId(), "Audífonos inalámbricos con cancelación de ruido", 1899.90, 37,
+                "ELECTRÓNICA",
+                "Audífonos over-ear con Bluetooth 5.3, cancelación activa de ruido, 30 horas de batería, "
+                        + "carga rápida por USB-C y estuche rígido de transporte incluido.",
+                "https://res.cloudinary.com/destinity/image/upload/v1710000000/products/audifonos-anc.webp",
+                "665f1c2e9b1e8a3d4c5b6a79", "Activo", now.minusDays(120), now.minusDays(3));
+        productDoc = decoded((Document) PRODUCT_TO_DOCUMENT.invokeExact(productRepository, product));
+
+        sale = randomSale(random, now);
+        saleDoc = decoded((Document) SALE_TO_DOCUMENT.invokeExact(saleRepository, sale));
+        salePage = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            salePage.add(decoded((Document) SALE_TO_DOCUMENT.invokeExact(saleRepository, randomSale(random, now))));
+        }
+
+        user = new UserModel(new ObjectId(), "María José", "Hernández", "López", "maria.hernandez@destinity.mx",
+                "$2a$12$C6UzMDM.H6dfI/f/IKcEeO6rY8T0s9Xl2xJ2sCkqv1dJm1Qm3kX1G", "employee", "Activo",
+                new UserModel.EmployeeData("Cajera", "Ventas", 14500.0), null, now.minusYears(1), now.minusDays(10));
+        userDoc = decoded((Document) USER_TO_DOCUMENT.invokeExact(userRepository, user));
+
+        dateTime = now;
+        date = ToDate.toDate(now);
+    }
+
+    @Benchmark
+    public ProductModel productFromDocument() throws Throwable {
+        return (ProductModel) DOCUMENT_TO_PRODUCT.invokeExact(productRepository, productDoc);
+    }
+
+    @Benchmark
+    public Document productToDocument() throws Throwable {
+        return (Document) PRODUCT_TO_DOCUMENT.invokeExact(productRepository, product);
+    }
+
+    @Benchmark
+    public ProductDTO productToDto() {
+        return new ProductDTO(product);
+    }
+
+    @Benchmark
+    public SaleModel saleFromDocument() throws Throwable {
+        return (SaleModel) DOCUMENT_TO_SALE.invokeExact(saleRepository, saleDoc);
+    }
+
+    @Benchmark
+    public Document saleToDocument() throws Throwable {
+        return (Document) SALE_TO_DOCUMENT.invokeExact(saleRepository, sale);
+    }
+
+    @Benchmark
+    public SaleDTO saleToDto() {
+        return new SaleDTO(sale);
+    }
+
+    /**
+     * Una página de la lista de ventas: documento a modelo a DTO
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<SaleDTO> salePageToDtos() throws Throwable {
+        List<SaleDTO> page = new ArrayList<>(PAGE_SIZE);
+        for (Document doc : salePage) {
+            page.add(new SaleDTO((SaleModel) DOCUMENT_TO_SALE.invokeExact(saleRepository, doc)));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public UserModel userFromDocument() throws Throwable {
+        return (UserModel) DOCUMENT_TO_USER.invokeExact(userRepository, userDoc);
+    }
+
+    @Benchmark
+    public Document userToDocument() throws Throwable {
+        return (Document) USER_TO_DOCUMENT.invokeExact(userRepository, user);
+    }
+
+    @Benchmark
+    public UserDTO userToDto() {
+        return new UserDTO(user);
+    }
+
+    @Benchmark
+    public Date toDate() {
+        return ToDate.toDate(dateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime toLocalDateTime() {
+        return ToDate.toLocalDateTime(date);
+    }
+
+    private static SaleModel randomSale(Random random, LocalDateTime now) {
+        int quantity = 1 + random.nextInt(4);
+        double price = 50 + random.nextInt(3000) + 0.9;
+        return new SaleModel(new ObjectId(),
+                new SaleModel.CustomerInfo(new ObjectId().toHexString(), "Cliente " + random.nextInt(10_000),
+                        "cliente" + random.nextInt(10_000) + "@correo.mx"),
+                new SaleModel.ProductSold(new ObjectId().toHexString(), "Producto " + random.nextInt(500),
+                        price, quantity, price * quantity),
+                random.nextBoolean() ? "Tarjeta" : "Efectivo", price * quantity, SaleModel.STATUS_COMPLETED,
+                now.minusMinutes(random.nextInt(60 * 24 * 30)), now.minusDays(1), now.minusDays(1));
+    }
+
+    /**
+     * Codifica y decodifica el documento con el codec del driver, como si
+     * viniera de una consulta
+     */
+    private static Document decoded(Document doc) {
+        return new RawBsonDocument(doc, CODEC).decode(CODEC);
+    }
+
+    private static MethodHandle mapper(Class<?> owner, String name, Class<?> returnType, Class<?> parameterType) {
+        try {
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findVirtual(owner, name, MethodType.methodType(returnType, parameterType));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se encontró " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+}
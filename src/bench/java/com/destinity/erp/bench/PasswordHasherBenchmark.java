@@ -0,0 +1,61 @@
+package com.destinity.erp.bench;
+
+import com.destinity.erp.utils.PasswordHasher;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide hashPassword y checkPassword para varios costos de BCrypt, en un
+ * hilo y en todos los núcleos. checkPasswordContended aproxima cuántos
+ * logins por segundo soporta el servidor con cada costo; complementa a
+ * LoginCostBenchmark con las estadísticas y el control de JIT de JMH.
+ *
+ * Uso: mvn -Pbench test-compile exec:exec@jmh -Djmh.args="PasswordHasherBenchmark -p cost=10,12"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "Contraseña-De-Prueba-123";
+
+    @Param({"8", "10", "12"})
+    private int cost;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hash = PasswordHasher.hashPassword(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordHasher.hashPassword(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return PasswordHasher.checkPassword(PASSWORD, hash);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean checkPasswordContended() {
+        return PasswordHasher.checkPassword(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,233 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST encargado de las peticiones de analíticas.
+ * Expone los endpoint de la API con las ventas agregadas en el
+ * servidor para las gráficas de la página de analíticas.
+ */
+@Path("/analytics")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class AnalyticsController {
+
+    @Inject
+    private AnalyticsService analyticsService;
+
+    /**
+     * Obtiene ingresos y unidades por periodo
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @param granularity day, week o month
+     * @return respuesta con los grupos por periodo
+     */
+    @GET
+    @Path("/revenue")
+    public Response getRevenue(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("granularity") String granularity) {
+        try {
+            List<SalesBucketDTO> revenue = analyticsService.getRevenue(from, to, granularity);
+            return Response.ok(revenue).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene las categorías más vendidas
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @param limit número máximo de categorías
+     * @return respuesta con las categorías
+     */
+    @GET
+    @Path("/categories")
+    public Response getTopCategories(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("limit") int limit) {
+        try {
+            List<SalesBucketDTO> categories = analyticsService.getTopCategories(from, to, limit);
+            return Response.ok(categories).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene el desglose de ventas por método de pago
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @return respuesta con los métodos de pago
+     */
+    @GET
+    @Path("/payments")
+    public Response getPaymentBreakdown(@QueryParam("from") String from, @QueryParam("to") String to) {
+        try {
+            List<SalesBucketDTO> payments = analyticsService.getPaymentBreakdown(from, to);
+            return Response.ok(payments).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene los productos más vendidos de la última hora, día o semana
+     *
+     * @param window hour, day o week
+     * @param limit número de productos
+     * @return respuesta con los productos más vendidos
+     */
+    @GET
+    @Path("/best-sellers")
+    public Response getBestSellers(@QueryParam("window") String window, @QueryParam("limit") int limit) {
+        try {
+            List<BestSellerDTO> products = analyticsService.getBestSellers(window, limit);
+            return Response.ok(products).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene el número estimado de clientes únicos del rango y por periodo
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @param granularity day, week o month
+     * @return respuesta con el total y el desglose por periodo
+     */
+    @GET
+    @Path("/customers/unique")
+    public Response getUniqueCustomers(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("granularity") String granularity) {
+        try {
+            UniqueCustomersDTO customers = analyticsService.getUniqueCustomers(from, to, granularity);
+            return Response.ok(customers).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene los percentiles del importe o de las unidades por venta
+     *
+     * @param metric amount o quantity
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @param percentiles percentiles separados por comas (por defecto 50,90,99)
+     * @return respuesta con el número de ventas y los percentiles
+     */
+    @GET
+    @Path("/sales/distribution")
+    public Response getSaleDistribution(@QueryParam("metric") String metric, @QueryParam("from") String from,
+            @QueryParam("to") String to, @QueryParam("percentiles") String percentiles) {
+        try {
+            SaleDistributionDTO distribution = analyticsService.getSaleDistribution(metric, from, to, percentiles);
+            return Response.ok(distribution).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Filtra y agrupa las ventas recientes en el cubo en memoria
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @param groupBy dimensión de agrupación
+     * @param product ID del producto (opcional)
+     * @param category categoría (opcional)
+     * @param status estatus (opcional)
+     * @param payment método de pago (opcional)
+     * @return respuesta con los grupos
+     */
+    @GET
+    @Path("/cube")
+    public Response queryCube(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("groupBy") String groupBy, @QueryParam("product") String product,
+            @QueryParam("category") String category, @QueryParam("status") String status,
+            @QueryParam("payment") String payment) {
+        try {
+            List<SalesBucketDTO> buckets = analyticsService.queryCube(from, to, groupBy,
+                    new SalesCube.Filter(null, null, product, category, status, payment));
+            return Response.ok(buckets).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Reconstruye el agregado diario de ventas (backfill)
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @return respuesta de éxito o error
+     */
+    @POST
+    @Path("/rollup/rebuild")
+    public Response rebuildDailyRollup(@QueryParam("from") String from, @QueryParam("to") String to) {
+        try {
+            long replaced = analyticsService.rebuildDailyRollup(from, to);
+            return Response.ok(Map.of(
+                    "message", "Agregado diario reconstruido satisfactoriamente",
+                    "replaced", replaced))
+                    .build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Reconstruye los resúmenes de clientes únicos (backfill)
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final (yyyy-MM-dd)
+     * @return respuesta de éxito o error
+     */
+    @POST
+    @Path("/customers/unique/rebuild")
+    public Response rebuildUniqueCustomers(@QueryParam("from") String from, @QueryParam("to") String to) {
+        try {
+            long sales = analyticsService.rebuildUniqueCustomers(from, to);
+            return Response.ok(Map.of(
+                    "message", "Clientes únicos reconstruidos satisfactoriamente",
+                    "sales", sales))
+                    .build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+}
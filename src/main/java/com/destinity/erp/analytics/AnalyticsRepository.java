@@ -0,0 +1,290 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.DeleteResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio encargado de las agregaciones analíticas sobre las ventas.
+ * Las consultas leen la colección sales_daily, un agregado por día, categoría
+ * y método de pago que se mantiene con $inc en cada venta; así el costo depende
+ * del número de días y no del número de ventas. La colección de ventas solo se
+ * recorre para reconstruir el agregado.
+ */
+@Traced
+@ApplicationScoped
+public class AnalyticsRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsRepository.class);
+    private static final String DAILY_COLLECTION = "sales_daily";
+    private static final String INVENTORY_COLLECTION = "inventory";
+    private static final String UNKNOWN_CATEGORY = "SIN CATEGORÍA";
+    private static final String UNKNOWN_PAYMENT = "SIN MÉTODO";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    /**
+     * Crea el índice único del agregado diario, usado por los $inc, el $merge
+     * de la reconstrucción y los filtros por rango de días
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getDailyCollection().createIndex(Indexes.ascending("day", "category", "paymentMethod"),
+                    new IndexOptions().unique(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de sales_daily: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de ventas activa según SALES_STORAGE_MODE
+     *
+     * @return MongoCollection de ventas
+     */
+    private MongoCollection<Document> getSaleCollection() {
+        return dbConnection.getDatabase().getCollection(saleRepository.getCollectionName());
+    }
+
+    /**
+     * Obtiene la colección del agregado diario
+     *
+     * @return MongoCollection de sales_daily
+     */
+    private MongoCollection<Document> getDailyCollection() {
+        return dbConnection.getDatabase().getCollection(DAILY_COLLECTION);
+    }
+
+    /**
+     * Suma (o resta) una venta al agregado de su día, categoría y método de pago
+     *
+     * @param day inicio del día de la venta
+     * @param category categoría del producto vendido
+     * @param paymentMethod método de pago
+     * @param count ventas a sumar (1 o -1)
+     * @param units unidades a sumar
+     * @param revenue ingresos a sumar
+     */
+    public void incrementDaily(Date day, String category, String paymentMethod, int count, long units, double revenue) {
+        try {
+            getDailyCollection().updateOne(
+                    Filters.and(
+                            Filters.eq("day", day),
+                            Filters.eq("category", category != null ? category : UNKNOWN_CATEGORY),
+                            Filters.eq("paymentMethod", paymentMethod != null ? paymentMethod : UNKNOWN_PAYMENT)),
+                    Updates.combine(
+                            Updates.inc("count", count),
+                            Updates.inc("units", units),
+                            Updates.inc("revenue", revenue)),
+                    new UpdateOptions().upsert(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al actualizar sales_daily: {}", e.getMessage());
+            throw CustomException.dbError("Error al actualizar el agregado diario de ventas.");
+        }
+    }
+
+    /**
+     * Reconstruye el agregado diario a partir de las ventas del rango. Borra
+     * los días del rango y los vuelve a escribir con $merge en el servidor.
+     * Se llama desde SalesDailyRollup.rebuild, que retiene los eventos de
+     * esos días para que ningún $inc se mezcle con la reconstrucción.
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @return número de documentos eliminados antes de reconstruir
+     */
+    public long rebuildDaily(Date from, Date to) {
+        try {
+            DeleteResult deleted = getDailyCollection().deleteMany(Filters.and(
+                    Filters.gte("day", from), Filters.lt("day", to)));
+
+            Document day = new Document("$dateTrunc", new Document("date", "$saleDate")
+                    .append("unit", "day")
+                    .append("timezone", ZoneId.systemDefault().getId()));
+            List<Bson> pipeline = List.of(
+                    dateRangeMatch("saleDate", from, to),
+                    Aggregates.match(Filters.ne("status", SaleModel.STATUS_CANCELLED)),
+                    new Document("$group", new Document("_id", new Document("day", day)
+                            .append("productId", "$productSold.id")
+                            .append("paymentMethod", "$paymentMethod"))
+                            .append("revenue", new Document("$sum", "$totalAmount"))
+                            .append("units", new Document("$sum", "$productSold.quantity"))
+                            .append("count", new Document("$sum", 1))),
+                    new Document("$lookup", new Document("from", INVENTORY_COLLECTION)
+                            .append("let", new Document("productId", new Document("$convert",
+                                    new Document("input", "$_id.productId").append("to", "objectId").append("onError", null))))
+                            .append("pipeline", List.of(
+                                    new Document("$match", new Document("$expr",
+                                            new Document("$eq", List.of("$_id", "$$productId")))),
+                                    new Document("$project", new Document("category", 1))))
+                            .append("as", "product")),
+                    new Document("$group", new Document("_id", new Document("day", "$_id.day")
+                            .append("category", new Document("$ifNull",
+                                    List.of(new Document("$first", "$product.category"), UNKNOWN_CATEGORY)))
+                            .append("paymentMethod", new Document("$ifNull",
+                                    List.of("$_id.paymentMethod", UNKNOWN_PAYMENT))))
+                            .append("revenue", new Document("$sum", "$revenue"))
+                            .append("units", new Document("$sum", "$units"))
+                            .append("count", new Document("$sum", "$count"))),
+                    new Document("$project", new Document("_id", 0)
+                            .append("day", "$_id.day")
+                            .append("category", "$_id.category")
+                            .append("paymentMethod", "$_id.paymentMethod")
+                            .append("revenue", 1)
+                            .append("units", 1)
+                            .append("count", 1)),
+                    new Document("$merge", new Document("into", DAILY_COLLECTION)
+                            .append("on", List.of("day", "category", "paymentMethod"))
+                            .append("whenMatched", "replace")
+                            .append("whenNotMatched", "insert")));
+            getSaleCollection().aggregate(pipeline).toCollection();
+            return deleted.getDeletedCount();
+        } catch (MongoException e) {
+            LOGGER.error("Error al reconstruir sales_daily: {}", e.getMessage());
+            throw CustomException.dbError("Error al reconstruir el agregado diario de ventas.");
+        }
+    }
+
+    /**
+     * Ingresos, unidades y número de ventas agrupados por periodo
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @param unit unidad de agrupación: day, week o month
+     * @return grupos ordenados por periodo
+     */
+    public List<SalesBucketDTO> revenueByPeriod(Date from, Date to, String unit) {
+        Object period = "day".equals(unit)
+                ? "$day"
+                : new Document("$dateTrunc", new Document("date", "$day")
+                        .append("unit", unit)
+                        .append("timezone", ZoneId.systemDefault().getId())
+                        .append("startOfWeek", "monday"));
+        List<Bson> pipeline = List.of(
+                dateRangeMatch("day", from, to),
+                sumBy(period),
+                Aggregates.sort(Sorts.ascending("_id")));
+        return aggregate(pipeline, "periodo");
+    }
+
+    /**
+     * Categorías con mayores ingresos
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @param limit número máximo de categorías
+     * @return categorías ordenadas por ingresos
+     */
+    public List<SalesBucketDTO> topCategories(Date from, Date to, int limit) {
+        List<Bson> pipeline = List.of(
+                dateRangeMatch("day", from, to),
+                sumBy("$category"),
+                Aggregates.sort(Sorts.descending("revenue")),
+                Aggregates.limit(limit));
+        return aggregate(pipeline, "categoría");
+    }
+
+    /**
+     * Ingresos y número de ventas por método de pago
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @return métodos de pago ordenados por ingresos
+     */
+    public List<SalesBucketDTO> paymentBreakdown(Date from, Date to) {
+        List<Bson> pipeline = List.of(
+                dateRangeMatch("day", from, to),
+                sumBy("$paymentMethod"),
+                Aggregates.sort(Sorts.descending("revenue")));
+        return aggregate(pipeline, "método de pago");
+    }
+
+    /**
+     * Filtro por rango de fechas sobre un campo indexado
+     *
+     * @param field campo de fecha
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @return etapa $match
+     */
+    private Bson dateRangeMatch(String field, Date from, Date to) {
+        return Aggregates.match(Filters.and(Filters.gte(field, from), Filters.lt(field, to)));
+    }
+
+    /**
+     * Etapa $group que suma los contadores del agregado diario
+     *
+     * @param groupKey expresión de agrupación
+     * @return etapa $group
+     */
+    private Bson sumBy(Object groupKey) {
+        return new Document("$group", new Document("_id", groupKey)
+                .append("revenue", new Document("$sum", "$revenue"))
+                .append("units", new Document("$sum", "$units"))
+                .append("count", new Document("$sum", "$count")));
+    }
+
+    /**
+     * Ejecuta un pipeline sobre el agregado diario y convierte cada resultado en un grupo
+     *
+     * @param pipeline etapas de agregación
+     * @param groupName nombre del agrupamiento para el log
+     * @return lista de grupos
+     */
+    private List<SalesBucketDTO> aggregate(List<Bson> pipeline, String groupName) {
+        try {
+            List<SalesBucketDTO> buckets = new ArrayList<>();
+            for (Document doc : getDailyCollection().aggregate(pipeline)) buckets.add(documentToBucket(doc));
+            return buckets;
+        } catch (MongoException e) {
+            LOGGER.error("Error al agregar ventas por {}: {}", groupName, e.getMessage());
+            throw CustomException.dbError("Error al agregar ventas por " + groupName + ".");
+        }
+    }
+
+    /**
+     * Convierte un resultado de agregación a un SalesBucketDTO
+     *
+     * @param doc Document con _id, revenue, units y count
+     * @return SalesBucketDTO
+     */
+    private SalesBucketDTO documentToBucket(Document doc) {
+        Object id = doc.get("_id");
+        String key = id instanceof Date date
+                ? date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString()
+                : String.valueOf(id);
+        return new SalesBucketDTO(
+                key,
+                ((Number) doc.get("revenue", 0.0)).doubleValue(),
+                ((Number) doc.get("units", 0)).longValue(),
+                ((Number) doc.get("count", 0)).longValue());
+    }
+}
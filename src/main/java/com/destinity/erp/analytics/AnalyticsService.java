@@ -0,0 +1,260 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio encargado de la lógica de negocio de las analíticas de ventas.
+ * Valida los rangos de fechas y parámetros antes de delegar las
+ * agregaciones al repositorio.
+ */
+@Traced
+@ApplicationScoped
+public class AnalyticsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsService.class);
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_RANGE_DAYS = 366 * 5;
+    private static final int DEFAULT_LIMIT = 5;
+    private static final List<String> VALID_GRANULARITIES = List.of("day", "week", "month");
+    private static final List<Double> DEFAULT_PERCENTILES = List.of(50.0, 90.0, 99.0);
+
+    @Inject
+    private AnalyticsRepository analyticsRepository;
+
+    @Inject
+    private SalesCube salesCube;
+
+    @Inject
+    private BestSellers bestSellers;
+
+    @Inject
+    private CustomerSketches customerSketches;
+
+    @Inject
+    private SaleHistograms saleHistograms;
+
+    @Inject
+    private SalesDailyRollup salesDailyRollup;
+
+    /**
+     * Ingresos y unidades por día, semana o mes
+     *
+     * @param from fecha inicial ISO (yyyy-MM-dd), por defecto hace 30 días
+     * @param to fecha final ISO inclusive, por defecto hoy
+     * @param granularity day, week o month
+     * @return grupos por periodo
+     */
+    public List<SalesBucketDTO> getRevenue(String from, String to, String granularity) {
+        String unit = (granularity == null || granularity.isBlank()) ? "day" : granularity.toLowerCase();
+        if (!VALID_GRANULARITIES.contains(unit))
+            throw CustomException.business("La granularidad no es válida. Usa: " + String.join(", ", VALID_GRANULARITIES));
+
+        LocalDate[] range = parseRange(from, to);
+        List<SalesBucketDTO> buckets = analyticsRepository.revenueByPeriod(
+                startOf(range[0]), startOf(range[1].plusDays(1)), unit);
+        LOGGER.info("Ingresos por {} obtenidos: {}", unit, buckets.size());
+        return buckets;
+    }
+
+    /**
+     * Categorías más vendidas en el rango
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @param limit número máximo de categorías
+     * @return categorías ordenadas por ingresos
+     */
+    public List<SalesBucketDTO> getTopCategories(String from, String to, int limit) {
+        LocalDate[] range = parseRange(from, to);
+        List<SalesBucketDTO> buckets = analyticsRepository.topCategories(
+                startOf(range[0]), startOf(range[1].plusDays(1)), limit > 0 ? limit : DEFAULT_LIMIT);
+        LOGGER.info("Categorías obtenidas: {}", buckets.size());
+        return buckets;
+    }
+
+    /**
+     * Desglose por método de pago en el rango
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @return métodos de pago ordenados por ingresos
+     */
+    public List<SalesBucketDTO> getPaymentBreakdown(String from, String to) {
+        LocalDate[] range = parseRange(from, to);
+        List<SalesBucketDTO> buckets = analyticsRepository.paymentBreakdown(
+                startOf(range[0]), startOf(range[1].plusDays(1)));
+        LOGGER.info("Métodos de pago obtenidos: {}", buckets.size());
+        return buckets;
+    }
+
+    /**
+     * Productos más vendidos en la ventana indicada, calculados en memoria
+     *
+     * @param window hour, day o week (por defecto day)
+     * @param limit número de productos
+     * @return productos ordenados por unidades vendidas
+     */
+    public List<BestSellerDTO> getBestSellers(String window, int limit) {
+        String name = (window == null || window.isBlank()) ? "day" : window.toLowerCase();
+        List<BestSellerDTO> top = bestSellers.top(name, limit > 0 ? Math.min(limit, 100) : 10);
+        if (top == null)
+            throw CustomException.business("La ventana no es válida. Usa: hour, day, week");
+        return top;
+    }
+
+    /**
+     * Clientes únicos estimados del rango y por periodo, combinando los
+     * resúmenes HyperLogLog diarios
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @param granularity day, week o month
+     * @return total del rango y desglose por periodo
+     */
+    public UniqueCustomersDTO getUniqueCustomers(String from, String to, String granularity) {
+        String unit = (granularity == null || granularity.isBlank()) ? "day" : granularity.toLowerCase();
+        if (!VALID_GRANULARITIES.contains(unit))
+            throw CustomException.business("La granularidad no es válida. Usa: " + String.join(", ", VALID_GRANULARITIES));
+
+        LocalDate[] range = parseRange(from, to);
+        long start = System.nanoTime();
+        UniqueCustomersDTO result = customerSketches.uniqueCustomers(range[0], range[1], unit);
+        LOGGER.debug("Clientes únicos calculados en {} µs", (System.nanoTime() - start) / 1_000);
+        return result;
+    }
+
+    /**
+     * Percentiles del importe o de las unidades por venta en el rango,
+     * combinando los histogramas diarios
+     *
+     * @param metric amount o quantity
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @param percentiles lista separada por comas, por defecto 50,90,99
+     * @return ventas del rango y valor de cada percentil
+     */
+    public SaleDistributionDTO getSaleDistribution(String metric, String from, String to, String percentiles) {
+        String name = (metric == null || metric.isBlank()) ? SaleHistograms.METRIC_AMOUNT : metric.toLowerCase();
+        if (!SaleHistograms.METRIC_AMOUNT.equals(name) && !SaleHistograms.METRIC_QUANTITY.equals(name))
+            throw CustomException.business("La métrica no es válida. Usa: amount, quantity");
+        List<Double> requested = parsePercentiles(percentiles);
+
+        LocalDate[] range = parseRange(from, to);
+        LogHistogram histogram = saleHistograms.histogram(name, range[0], range[1]);
+        double scale = SaleHistograms.METRIC_AMOUNT.equals(name) ? 100.0 : 1.0;
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Double percentile : requested) {
+            String key = "p" + (percentile == Math.rint(percentile) ? String.valueOf(percentile.intValue()) : percentile.toString());
+            values.put(key, histogram.valueAtPercentile(percentile) / scale);
+        }
+        return new SaleDistributionDTO(name, range[0].toString(), range[1].toString(), histogram.getTotalCount(), values);
+    }
+
+    private List<Double> parsePercentiles(String percentiles) {
+        if (percentiles == null || percentiles.isBlank()) return DEFAULT_PERCENTILES;
+        List<Double> values = new ArrayList<>();
+        try {
+            for (String value : percentiles.split(",")) {
+                double percentile = Double.parseDouble(value.trim());
+                if (percentile < 0 || percentile > 100) throw new NumberFormatException(value);
+                values.add(percentile);
+            }
+        } catch (NumberFormatException e) {
+            throw CustomException.business("Los percentiles deben ser números entre 0 y 100 separados por comas");
+        }
+        return values;
+    }
+
+    /**
+     * Consulta ad hoc sobre el cubo columnar en memoria, sin acceder a MongoDb
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @param groupBy dimensión: product, category, status, payment, customer, hour o day
+     * @param filter filtros opcionales por producto, categoría, estatus y método de pago
+     * @return grupos resultantes
+     */
+    public List<SalesBucketDTO> queryCube(String from, String to, String groupBy, SalesCube.Filter filter) {
+        SalesCube.GroupBy dimension;
+        try {
+            dimension = SalesCube.GroupBy.valueOf((groupBy == null || groupBy.isBlank() ? "category" : groupBy).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw CustomException.business("La dimensión no es válida. Usa: product, category, status, payment, customer, hour, day");
+        }
+        LocalDate[] range = parseRange(from, to);
+        SalesCube.Filter rangeFilter = new SalesCube.Filter(range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay(),
+                filter.product(), filter.category(), filter.status(), filter.payment());
+        long start = System.nanoTime();
+        List<SalesBucketDTO> buckets = salesCube.query(rangeFilter, dimension);
+        LOGGER.debug("Consulta al cubo por {} en {} µs", dimension, (System.nanoTime() - start) / 1_000);
+        return buckets;
+    }
+
+    /**
+     * Reconstruye el agregado diario de ventas para el rango indicado
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @return número de documentos del agregado reemplazados
+     */
+    public long rebuildDailyRollup(String from, String to) {
+        LocalDate[] range = parseRange(from, to);
+        long replaced = salesDailyRollup.rebuild(startOf(range[0]), startOf(range[1].plusDays(1)));
+        LOGGER.info("Agregado diario reconstruido del {} al {}", range[0], range[1]);
+        return replaced;
+    }
+
+    /**
+     * Reconstruye los resúmenes de clientes únicos para el rango indicado
+     *
+     * @param from fecha inicial ISO
+     * @param to fecha final ISO inclusive
+     * @return número de ventas agregadas a los resúmenes
+     */
+    public long rebuildUniqueCustomers(String from, String to) {
+        LocalDate[] range = parseRange(from, to);
+        long added = customerSketches.rebuild(range[0], range[1]);
+        LOGGER.info("Clientes únicos reconstruidos del {} al {} con {} ventas", range[0], range[1], added);
+        return added;
+    }
+
+    /**
+     * Interpreta y valida el rango de fechas
+     *
+     * @param from fecha inicial ISO o null
+     * @param to fecha final ISO o null
+     * @return arreglo con la fecha inicial y final (inclusive)
+     * @throws CustomException si las fechas no son válidas
+     */
+    private LocalDate[] parseRange(String from, String to) {
+        try {
+            LocalDate end = (to == null || to.isBlank()) ? LocalDate.now() : LocalDate.parse(to);
+            LocalDate start = (from == null || from.isBlank()) ? end.minusDays(DEFAULT_RANGE_DAYS - 1) : LocalDate.parse(from);
+            if (start.isAfter(end))
+                throw CustomException.business("La fecha inicial no puede ser posterior a la final");
+            if (ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS)
+                throw CustomException.business("El rango máximo es de " + MAX_RANGE_DAYS + " días");
+            return new LocalDate[]{start, end};
+        } catch (DateTimeParseException e) {
+            throw CustomException.business("Las fechas deben tener el formato yyyy-MM-dd");
+        }
+    }
+
+    private Date startOf(LocalDate date) {
+        return ToDate.toDate(date.atStartOfDay());
+    }
+}
@@ -0,0 +1,21 @@
+package com.destinity.erp.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone un producto más vendido a traves de la API.
+ * Las unidades son una estimación que sobreestima el valor real
+ * como máximo en "error" unidades.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestSellerDTO {
+
+    private String productId;
+    private String name;
+    private long units;
+    private long error;
+}
@@ -0,0 +1,108 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.health.WarmupTask;
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Productos más vendidos de la última hora, día y semana, calculados en
+ * memoria a partir de cada venta creada, sin consultar la base de datos.
+ * Cada ventana usa un RollingTopN con memoria acotada por BEST_SELLERS_CAPACITY.
+ * Durante el calentamiento se siembran con las ventas de la última semana,
+ * para que un reinicio no deje las ventanas vacías.
+ * Las cancelaciones no se descuentan: el resumen solo admite incrementos.
+ */
+@ApplicationScoped
+public class BestSellers implements WarmupTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BestSellers.class);
+    private static final int DEFAULT_CAPACITY = 200;
+    private static final int WEEK_SLOTS = 28;
+    private static final long WEEK_SLOT_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    @Inject
+    private ConfigService config;
+
+    private volatile Map<String, RollingTopN> windows;
+
+    @PostConstruct
+    public void init() {
+        windows = newWindows();
+    }
+
+    @Override
+    public String name() {
+        return "best-sellers";
+    }
+
+    /**
+     * Reinicia las ventanas y las siembra con las ventas guardadas desde el
+     * inicio de la ventana semanal hasta este momento; las ventas posteriores
+     * llegan por evento. Si se repite tras un fallo, vuelve a empezar desde
+     * ventanas vacías, por lo que no cuenta dos veces.
+     */
+    @Override
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        Map<String, RollingTopN> seeded = newWindows();
+        windows = seeded;
+        long count = saleRepository.forEachSaleInRange(new Date(start - WEEK_SLOTS * WEEK_SLOT_MILLIS), new Date(start),
+                sale -> {
+            if (SaleEvent.isCounted(sale.getStatus()) && sale.getSaleDate() != null)
+                add(seeded, sale.getProductSold(), ToDate.toDate(sale.getSaleDate()).getTime());
+        });
+        LOGGER.info("Más vendidos sembrados con {} ventas en {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Registra las unidades de cada venta creada en todas las ventanas
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        if (event.getType() != SaleEvent.Type.CREATED || event.getSale() == null) return;
+        add(windows, event.getSale().getProductSold(), System.currentTimeMillis());
+    }
+
+    /**
+     * Productos más vendidos en una ventana
+     *
+     * @param window hour, day o week
+     * @param limit número de productos
+     * @return productos ordenados por unidades o null si la ventana no existe
+     */
+    public List<BestSellerDTO> top(String window, int limit) {
+        RollingTopN topN = windows.get(window);
+        return topN != null ? topN.top(limit, System.currentTimeMillis()) : null;
+    }
+
+    private Map<String, RollingTopN> newWindows() {
+        int capacity = config.getInt("BEST_SELLERS_CAPACITY", DEFAULT_CAPACITY);
+        return Map.of(
+                "hour", new RollingTopN(12, TimeUnit.MINUTES.toMillis(5), capacity),
+                "day", new RollingTopN(24, TimeUnit.HOURS.toMillis(1), capacity),
+                "week", new RollingTopN(WEEK_SLOTS, WEEK_SLOT_MILLIS, capacity));
+    }
+
+    private void add(Map<String, RollingTopN> target, SaleModel.ProductSold product, long timeMillis) {
+        if (product == null || product.getId() == null) return;
+        long units = product.getQuantity() != null ? product.getQuantity() : 1;
+        for (RollingTopN window : target.values()) window.add(product.getId(), product.getName(), units, timeMillis);
+    }
+}
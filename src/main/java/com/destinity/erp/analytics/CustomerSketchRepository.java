@@ -0,0 +1,137 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio de los resúmenes HyperLogLog de clientes por día.
+ * Cada documento de customer_hll guarda los 4096 registros del día como un
+ * binario y un número de versión; las escrituras combinan los registros con
+ * el valor almacenado y usan la versión como control de concurrencia, para
+ * que varias instancias puedan escribir el mismo día sin perder datos.
+ */
+@Traced
+@ApplicationScoped
+public class CustomerSketchRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerSketchRepository.class);
+    private static final String COLLECTION_NAME = "customer_hll";
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getCollection().createIndex(Indexes.ascending("day"), new IndexOptions().unique(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de customer_hll: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de resúmenes de clientes
+     *
+     * @return MongoCollection de customer_hll
+     */
+    private MongoCollection<Document> getCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Obtiene los resúmenes almacenados en un rango de días
+     *
+     * @param from día inicial (inclusive)
+     * @param to día final (exclusivo)
+     * @return resúmenes por día; los días sin ventas no aparecen
+     */
+    public Map<Date, HyperLogLog> findByRange(Date from, Date to) {
+        try {
+            Map<Date, HyperLogLog> sketches = new HashMap<>();
+            for (Document doc : getCollection()
+                    .find(Filters.and(Filters.gte("day", from), Filters.lt("day", to)))
+                    .projection(Projections.include("day", "registers"))) {
+                Binary registers = doc.get("registers", Binary.class);
+                sketches.put(doc.getDate("day"), HyperLogLog.fromBytes(registers != null ? registers.getData() : null));
+            }
+            return sketches;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener los resúmenes de clientes: {}", e.getMessage());
+            throw CustomException.dbError("Error al obtener los clientes únicos.");
+        }
+    }
+
+    /**
+     * Combina un resumen con el almacenado para el día. Lee el documento,
+     * combina los registros y escribe solo si la versión no cambió; si otra
+     * instancia escribió primero, reintenta con el valor nuevo.
+     *
+     * @param day inicio del día
+     * @param sketch registros a combinar
+     */
+    public void merge(Date day, HyperLogLog sketch) {
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                Document current = getCollection().find(Filters.eq("day", day)).first();
+                if (current == null) {
+                    if (insert(day, sketch)) return;
+                    continue;
+                }
+                HyperLogLog merged = HyperLogLog.fromBytes(current.get("registers", Binary.class).getData());
+                merged.merge(sketch);
+                long version = ((Number) current.get("version", 0)).longValue();
+                UpdateResult result = getCollection().updateOne(
+                        Filters.and(Filters.eq("day", day), Filters.eq("version", version)),
+                        Updates.combine(
+                                Updates.set("registers", new Binary(merged.toBytes())),
+                                Updates.inc("version", 1)));
+                if (result.getMatchedCount() > 0) return;
+            }
+            LOGGER.warn("No se pudo combinar el resumen de clientes del día {}", day);
+            throw CustomException.dbError("Error al guardar los clientes únicos.");
+        } catch (MongoException e) {
+            LOGGER.error("Error al guardar el resumen de clientes: {}", e.getMessage());
+            throw CustomException.dbError("Error al guardar los clientes únicos.");
+        }
+    }
+
+    /**
+     * Inserta el primer resumen del día
+     *
+     * @return false si otra instancia lo insertó primero
+     */
+    private boolean insert(Date day, HyperLogLog sketch) {
+        try {
+            getCollection().insertOne(new Document("day", day)
+                    .append("registers", new Binary(sketch.toBytes()))
+                    .append("version", 0L));
+            return true;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) return false;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cuenta clientes únicos por día con resúmenes HyperLogLog.
+ * Cada venta creada actualiza en memoria el resumen de su día; los cambios
+ * se escriben en customer_hll cada CUSTOMER_HLL_FLUSH_INTERVAL y al detener
+ * la aplicación. Las consultas combinan los días del rango desde una caché
+ * LRU, por lo que solo leen de MongoDb los días que no se han consultado.
+ * Las ventas eliminadas no se descuentan: el resumen solo admite altas.
+ * Los días anteriores a la instalación se llenan con {@link #rebuild}.
+ */
+@ApplicationScoped
+public class CustomerSketches {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerSketches.class);
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(30);
+    private static final int DEFAULT_CACHE_DAYS = 800;
+
+    @Inject
+    private CustomerSketchRepository repository;
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<LocalDate, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final Map<LocalDate, HyperLogLog> stored = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, HyperLogLog> eldest) {
+            return size() > cacheDays;
+        }
+    };
+
+    private volatile int cacheDays = DEFAULT_CACHE_DAYS;
+    private ScheduledFuture<?> flushTask;
+
+    @PostConstruct
+    public void init() {
+        cacheDays = config.getInt("CUSTOMER_HLL_CACHE_DAYS", DEFAULT_CACHE_DAYS);
+        long interval = config.getDuration("CUSTOMER_HLL_FLUSH_INTERVAL", DEFAULT_FLUSH_INTERVAL).toMillis();
+        flushTask = scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flushTask != null) flushTask.cancel(false);
+        flush();
+    }
+
+    /**
+     * Agrega el cliente de cada venta creada al resumen de su día
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        SaleModel sale = event.getSale();
+        if (event.getType() != SaleEvent.Type.CREATED || sale == null || sale.getSaleDate() == null) return;
+        if (!SaleEvent.isCounted(sale.getStatus())) return;
+
+        String customer = customerKey(sale.getCustomerInfo());
+        if (customer == null) return;
+
+        // compute es atómico frente al remove de flush, así no se pierden altas
+        pending.compute(sale.getSaleDate().toLocalDate(), (day, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            synchronized (target) {
+                target.add(customer);
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Escribe en MongoDb los resúmenes pendientes y los combina en la caché.
+     * Si la escritura de un día falla, sus registros vuelven a quedar pendientes.
+     */
+    public void flush() {
+        for (LocalDate day : new ArrayList<>(pending.keySet())) {
+            HyperLogLog snapshot = pending.remove(day);
+            if (snapshot == null) continue;
+            try {
+                repository.merge(ToDate.toDate(day.atStartOfDay()), snapshot);
+                synchronized (stored) {
+                    HyperLogLog cached = stored.get(day);
+                    if (cached != null) cached.merge(snapshot);
+                }
+            } catch (RuntimeException e) {
+                pending.merge(day, snapshot, (current, failed) -> {
+                    synchronized (current) {
+                        current.merge(failed);
+                    }
+                    return current;
+                });
+                LOGGER.warn("No se pudo guardar el resumen de clientes del {}: {}", day, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reconstruye los resúmenes del rango a partir de las ventas guardadas
+     * (backfill). Combinar un cliente que ya estaba en el resumen no lo
+     * cambia, así que se puede repetir y convive con las ventas que llegan
+     * mientras se ejecuta.
+     *
+     * @param from día inicial (inclusive)
+     * @param to día final (inclusive)
+     * @return número de ventas agregadas a los resúmenes
+     */
+    public long rebuild(LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> days = new LinkedHashMap<>();
+        long[] added = new long[1];
+        saleRepository.forEachSaleInRange(ToDate.toDate(from.atStartOfDay()),
+                ToDate.toDate(to.plusDays(1).atStartOfDay()), sale -> {
+            if (sale.getSaleDate() == null || !SaleEvent.isCounted(sale.getStatus())) return;
+            String customer = customerKey(sale.getCustomerInfo());
+            if (customer == null) return;
+            days.computeIfAbsent(sale.getSaleDate().toLocalDate(), day -> new HyperLogLog()).add(customer);
+            added[0]++;
+        });
+
+        for (Map.Entry<LocalDate, HyperLogLog> entry : days.entrySet()) {
+            repository.merge(ToDate.toDate(entry.getKey().atStartOfDay()), entry.getValue());
+        }
+        synchronized (stored) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) stored.remove(day);
+        }
+        return added[0];
+    }
+
+    /**
+     * Clientes únicos del rango y de cada periodo dentro de él
+     *
+     * @param from día inicial (inclusive)
+     * @param to día final (inclusive)
+     * @param unit periodo: day, week o month
+     * @return total del rango y desglose por periodo
+     */
+    public UniqueCustomersDTO uniqueCustomers(LocalDate from, LocalDate to, String unit) {
+        Map<LocalDate, HyperLogLog> days = load(from, to);
+        HyperLogLog total = new HyperLogLog();
+        Map<LocalDate, HyperLogLog> periods = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            HyperLogLog period = periods.computeIfAbsent(periodStart(day, unit), p -> new HyperLogLog());
+            HyperLogLog sketch = days.get(day);
+            if (sketch != null) period.merge(sketch);
+            HyperLogLog recent = pending.get(day);
+            if (recent != null) {
+                synchronized (recent) {
+                    period.merge(recent);
+                }
+            }
+        }
+        List<UniqueCustomersDTO.Period> items = new ArrayList<>(periods.size());
+        periods.forEach((start, sketch) -> {
+            total.merge(sketch);
+            items.add(new UniqueCustomersDTO.Period(start.toString(), sketch.estimate()));
+        });
+        return new UniqueCustomersDTO(from.toString(), to.toString(), total.estimate(), items);
+    }
+
+    /**
+     * Obtiene los resúmenes almacenados del rango, consultando MongoDb una
+     * sola vez para los días que no están en caché
+     */
+    private Map<LocalDate, HyperLogLog> load(LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> days = new LinkedHashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        synchronized (stored) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                HyperLogLog cached = stored.get(day);
+                if (cached != null) {
+                    days.put(day, cached.copy());
+                } else {
+                    if (firstMissing == null) firstMissing = day;
+                    lastMissing = day;
+                }
+            }
+        }
+        if (firstMissing == null) return days;
+
+        Map<Date, HyperLogLog> found = repository.findByRange(
+                ToDate.toDate(firstMissing.atStartOfDay()), ToDate.toDate(lastMissing.plusDays(1).atStartOfDay()));
+        Map<LocalDate, HyperLogLog> loaded = new LinkedHashMap<>();
+        found.forEach((date, sketch) -> loaded.put(ToDate.toLocalDateTime(date).toLocalDate(), sketch));
+
+        LocalDate today = LocalDate.now();
+        synchronized (stored) {
+            for (LocalDate day = firstMissing; !day.isAfter(lastMissing); day = day.plusDays(1)) {
+                if (days.containsKey(day)) continue;
+                HyperLogLog sketch = loaded.getOrDefault(day, new HyperLogLog());
+                days.put(day, sketch.copy());
+                // El día en curso no se guarda: otras instancias siguen escribiendo en él
+                if (day.isBefore(today)) stored.put(day, sketch);
+            }
+        }
+        return days;
+    }
+
+    private LocalDate periodStart(LocalDate day, String unit) {
+        return switch (unit) {
+            case "week" -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> day.withDayOfMonth(1);
+            default -> day;
+        };
+    }
+
+    /**
+     * Identificador del cliente: su ID o, si no tiene, su correo en minúsculas
+     */
+    private String customerKey(SaleModel.CustomerInfo customer) {
+        if (customer == null) return null;
+        if (customer.getId() != null && !customer.getId().isBlank()) return "id:" + customer.getId();
+        if (customer.getEmail() != null && !customer.getEmail().isBlank())
+            return "email:" + customer.getEmail().trim().toLowerCase();
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.destinity.erp.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de valores enteros no negativos con cubetas logarítmicas,
+ * al estilo HdrHistogram. Los valores menores a 128 tienen cubeta propia;
+ * a partir de ahí cada potencia de dos se divide en 64 cubetas, por lo que
+ * el error relativo de cualquier percentil es menor al 1% en todo el rango
+ * de long con 3,712 contadores (~29 KB).
+ *
+ * Registrar y drenar son operaciones sin bloqueo sobre un AtomicLongArray;
+ * los percentiles se calculan sobre una lectura no atómica de los contadores,
+ * suficiente para consultas estadísticas.
+ */
+public final class LogHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    static final int BUCKETS = (65 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Registra un valor
+     *
+     * @param value valor; los negativos se registran como 0
+     */
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(value));
+    }
+
+    /**
+     * Suma (o resta, con count negativo) ocurrencias de un valor
+     *
+     * @param value valor; los negativos se registran como 0
+     * @param count ocurrencias a sumar
+     */
+    public void record(long value, long count) {
+        counts.addAndGet(indexOf(value), count);
+    }
+
+    /**
+     * Suma ocurrencias directamente a una cubeta, para reconstruir
+     * histogramas serializados con {@link #toSparse()} o {@link #drain()}
+     *
+     * @param index índice de cubeta
+     * @param count ocurrencias a sumar
+     */
+    public void addToBucket(int index, long count) {
+        if (index >= 0 && index < BUCKETS) counts.addAndGet(index, count);
+    }
+
+    /**
+     * Combina otro histograma en este
+     *
+     * @param other histograma a sumar
+     */
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) counts.addAndGet(i, count);
+        }
+    }
+
+    /**
+     * Toma y pone en cero los contadores. Cada ocurrencia registrada aparece
+     * exactamente en un drenado, aunque se registre en paralelo.
+     *
+     * @return cubetas con ocurrencias desde el drenado anterior
+     */
+    public Map<Integer, Long> drain() {
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) == 0) continue;
+            long count = counts.getAndSet(i, 0);
+            if (count != 0) deltas.put(i, count);
+        }
+        return deltas;
+    }
+
+    /**
+     * Cubetas con ocurrencias, sin modificar el histograma
+     *
+     * @return índice de cubeta y ocurrencias
+     */
+    public Map<Integer, Long> toSparse() {
+        Map<Integer, Long> sparse = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count != 0) sparse.put(i, count);
+        }
+        return sparse;
+    }
+
+    /**
+     * Total de ocurrencias registradas
+     *
+     * @return suma de todas las cubetas
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        return total;
+    }
+
+    /**
+     * Ocurrencias con valor menor o igual al indicado. La cubeta que contiene
+     * el valor se cuenta completa, así que el límite es aproximado con el
+     * mismo error relativo que los percentiles.
+     *
+     * @param value límite superior
+     * @return ocurrencias acumuladas hasta la cubeta del valor
+     */
+    public long countAtOrBelow(long value) {
+        long total = 0;
+        int last = indexOf(value);
+        for (int i = 0; i <= last; i++) total += counts.get(i);
+        return total;
+    }
+
+    /**
+     * Valor en el percentil indicado, representado por el punto medio de su
+     * cubeta
+     *
+     * @param percentile percentil entre 0 y 100
+     * @return valor aproximado o 0 si el histograma está vacío
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = Math.max(0, counts.get(i));
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return midpointOf(i);
+        }
+        return midpointOf(BUCKETS - 1);
+    }
+
+    /**
+     * Cubeta de un valor: los primeros 128 valores son exactos y después se
+     * conservan los 7 bits más significativos
+     */
+    static int indexOf(long value) {
+        if (value <= 0) return 0;
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < 2 * HALF) return index;
+        int shift = index / HALF - 1;
+        return (long) (index - shift * HALF) << shift;
+    }
+
+    static long midpointOf(int index) {
+        if (index < 2 * HALF) return index;
+        int shift = index / HALF - 1;
+        return lowestValueOf(index) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,75 @@
+package com.destinity.erp.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ventana deslizante de elementos más frecuentes. La ventana se divide en
+ * "slots" de duración fija, cada uno con su propio resumen Space-Saving; al
+ * avanzar el tiempo el slot más antiguo se reutiliza. La consulta combina los
+ * slots vigentes, por lo que la memoria queda acotada a slots x capacidad.
+ */
+final class RollingTopN {
+
+    private final long slotMillis;
+    private final SpaceSaving[] slots;
+    private final long[] slotEpochs;
+
+    RollingTopN(int slotCount, long slotMillis, int capacity) {
+        this.slotMillis = slotMillis;
+        this.slots = new SpaceSaving[slotCount];
+        this.slotEpochs = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new SpaceSaving(capacity);
+            slotEpochs[i] = -1;
+        }
+    }
+
+    /**
+     * Registra un elemento en el slot del instante indicado. Un instante más
+     * antiguo que el del slot se ignora, para que sembrar ventas pasadas no
+     * borre las que ya llegaron en tiempo real.
+     *
+     * @param key identificador del elemento
+     * @param label etiqueta legible
+     * @param weight peso a sumar
+     * @param nowMillis instante de la venta
+     */
+    synchronized void add(String key, String label, long weight, long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slots.length);
+        if (epoch < slotEpochs[index]) return;
+        if (slotEpochs[index] != epoch) {
+            slots[index].clear();
+            slotEpochs[index] = epoch;
+        }
+        slots[index].add(key, label, weight);
+    }
+
+    /**
+     * Combina los slots vigentes y devuelve los elementos con mayor conteo
+     *
+     * @param limit número de elementos
+     * @param nowMillis instante actual
+     * @return elementos ordenados por conteo descendente
+     */
+    synchronized List<BestSellerDTO> top(int limit, long nowMillis) {
+        long currentEpoch = nowMillis / slotMillis;
+        Map<String, BestSellerDTO> merged = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slotEpochs[i] < 0 || currentEpoch - slotEpochs[i] >= slots.length) continue;
+            slots[i].forEach((key, counter) -> {
+                BestSellerDTO item = merged.computeIfAbsent(key, k -> new BestSellerDTO(k, counter.label, 0, 0));
+                item.setUnits(item.getUnits() + counter.count);
+                item.setError(item.getError() + counter.error);
+                if (item.getName() == null) item.setName(counter.label);
+            });
+        }
+        List<BestSellerDTO> items = new ArrayList<>(merged.values());
+        items.sort(Comparator.comparingLong(BestSellerDTO::getUnits).reversed());
+        return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+    }
+}
@@ -0,0 +1,23 @@
+package com.destinity.erp.analytics;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone la distribución de una métrica de ventas a traves de la API.
+ * Los percentiles se indexan como "p50", "p90", etc. y su error relativo
+ * es menor al 1%.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleDistributionDTO {
+
+    private String metric;
+    private String from;
+    private String to;
+    private long count;
+    private Map<String, Double> percentiles;
+}
@@ -0,0 +1,109 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio de los histogramas diarios de ventas.
+ * Cada documento de sales_histograms guarda, para una métrica y un día, las
+ * cubetas con ocurrencias como un subdocumento {índice: conteo}. Las
+ * escrituras son $inc por cubeta, así que varias instancias pueden sumar
+ * al mismo día sin coordinarse.
+ */
+@Traced
+@ApplicationScoped
+public class SaleHistogramRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleHistogramRepository.class);
+    private static final String COLLECTION_NAME = "sales_histograms";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getCollection().createIndex(Indexes.ascending("metric", "day"), new IndexOptions().unique(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de sales_histograms: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de histogramas
+     *
+     * @return MongoCollection de sales_histograms
+     */
+    private MongoCollection<Document> getCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Suma ocurrencias a las cubetas de un día, creando el documento si no existe
+     *
+     * @param metric métrica del histograma
+     * @param day inicio del día
+     * @param deltas índice de cubeta y ocurrencias a sumar
+     */
+    public void increment(String metric, Date day, Map<Integer, Long> deltas) {
+        if (deltas.isEmpty()) return;
+        try {
+            List<Bson> updates = new ArrayList<>(deltas.size());
+            deltas.forEach((index, count) -> updates.add(Updates.inc("counts." + index, count)));
+            getCollection().updateOne(
+                    Filters.and(Filters.eq("metric", metric), Filters.eq("day", day)),
+                    Updates.combine(updates),
+                    new UpdateOptions().upsert(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al guardar el histograma {}: {}", metric, e.getMessage());
+            throw CustomException.dbError("Error al guardar el histograma de ventas.");
+        }
+    }
+
+    /**
+     * Combina los histogramas diarios de un rango
+     *
+     * @param metric métrica del histograma
+     * @param from día inicial (inclusive)
+     * @param to día final (exclusivo)
+     * @return histograma con la suma de todos los días
+     */
+    public LogHistogram findMerged(String metric, Date from, Date to) {
+        try {
+            LogHistogram merged = new LogHistogram();
+            for (Document doc : getCollection()
+                    .find(Filters.and(Filters.eq("metric", metric), Filters.gte("day", from), Filters.lt("day", to)))
+                    .projection(Projections.include("counts"))) {
+                Document counts = doc.get("counts", Document.class);
+                if (counts == null) continue;
+                counts.forEach((index, count) ->
+                        merged.addToBucket(Integer.parseInt(index), ((Number) count).longValue()));
+            }
+            return merged;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener el histograma {}: {}", metric, e.getMessage());
+            throw CustomException.dbError("Error al obtener la distribución de ventas.");
+        }
+    }
+}
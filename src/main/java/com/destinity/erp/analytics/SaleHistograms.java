@@ -0,0 +1,157 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distribución del importe por venta y de las unidades por venta.
+ * Cada venta suma (o resta, si se elimina o cancela) una ocurrencia en el
+ * histograma de su día sin bloqueos; cada SALE_HISTOGRAM_FLUSH_INTERVAL los
+ * contadores se drenan y se suman en sales_histograms. Los percentiles de un
+ * rango se obtienen combinando los histogramas diarios, sin leer las ventas.
+ * El importe se registra en centavos.
+ */
+@ApplicationScoped
+public class SaleHistograms {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleHistograms.class);
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(30);
+    private static final int KEEP_DAYS = 2;
+
+    public static final String METRIC_AMOUNT = "amount";
+    public static final String METRIC_QUANTITY = "quantity";
+
+    @Inject
+    private SaleHistogramRepository repository;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<String, Map<LocalDate, LogHistogram>> pending = Map.of(
+            METRIC_AMOUNT, new ConcurrentHashMap<>(),
+            METRIC_QUANTITY, new ConcurrentHashMap<>());
+    private final List<Retired> retired = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * Histograma de un día que ya no recibe ventas nuevas; se drena una vez
+     * más en el siguiente ciclo por si algún hilo registró después de retirarlo
+     */
+    private record Retired(String metric, LocalDate day, LogHistogram histogram) {
+    }
+
+    @PostConstruct
+    public void init() {
+        long interval = config.getDuration("SALE_HISTOGRAM_FLUSH_INTERVAL", DEFAULT_FLUSH_INTERVAL).toMillis();
+        flushTask = scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flushTask != null) flushTask.cancel(false);
+        flush();
+    }
+
+    /**
+     * Registra el importe y las unidades de la venta con el mismo criterio
+     * que el agregado diario: suma al crear, resta al eliminar y ajusta al
+     * cancelar o reactivar
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        SaleModel sale = event.getSale();
+        if (sale == null || sale.getSaleDate() == null) return;
+
+        int delta = switch (event.getType()) {
+            case CREATED -> SaleEvent.isCounted(sale.getStatus()) ? 1 : 0;
+            case DELETED -> SaleEvent.isCounted(sale.getStatus()) ? -1 : 0;
+            case UPDATED -> {
+                boolean wasCounted = SaleEvent.isCounted(event.getPreviousStatus());
+                boolean isCounted = SaleEvent.isCounted(sale.getStatus());
+                yield wasCounted == isCounted ? 0 : (isCounted ? 1 : -1);
+            }
+        };
+        if (delta == 0) return;
+
+        LocalDate day = sale.getSaleDate().toLocalDate();
+        if (sale.getTotalAmount() != null)
+            histogram(METRIC_AMOUNT, day).record(Math.round(sale.getTotalAmount() * 100), delta);
+        if (sale.getProductSold() != null && sale.getProductSold().getQuantity() != null)
+            histogram(METRIC_QUANTITY, day).record(sale.getProductSold().getQuantity(), delta);
+    }
+
+    private LogHistogram histogram(String metric, LocalDate day) {
+        return pending.get(metric).computeIfAbsent(day, d -> new LogHistogram());
+    }
+
+    /**
+     * Suma en MongoDb lo registrado desde el último ciclo. Si la escritura
+     * falla, las ocurrencias vuelven al histograma en memoria.
+     */
+    public synchronized void flush() {
+        List<Retired> previous = new ArrayList<>(retired);
+        retired.clear();
+        for (Retired entry : previous) {
+            write(entry.metric(), entry.day(), entry.histogram());
+        }
+
+        LocalDate oldest = LocalDate.now().minusDays(KEEP_DAYS);
+        pending.forEach((metric, days) -> days.forEach((day, histogram) -> {
+            write(metric, day, histogram);
+            if (day.isBefore(oldest) && days.remove(day, histogram))
+                retired.add(new Retired(metric, day, histogram));
+        }));
+    }
+
+    private void write(String metric, LocalDate day, LogHistogram histogram) {
+        Map<Integer, Long> deltas = histogram.drain();
+        if (deltas.isEmpty()) return;
+        try {
+            repository.increment(metric, ToDate.toDate(day.atStartOfDay()), deltas);
+        } catch (RuntimeException e) {
+            deltas.forEach((index, count) -> histogram(metric, day).addToBucket(index, count));
+            LOGGER.warn("No se pudo guardar el histograma {} del {}: {}", metric, day, e.getMessage());
+        }
+    }
+
+    /**
+     * Histograma combinado de un rango: lo almacenado más lo que aún no se
+     * ha escrito
+     *
+     * @param metric amount o quantity
+     * @param from día inicial (inclusive)
+     * @param to día final (inclusive)
+     * @return histograma del rango
+     */
+    public LogHistogram histogram(String metric, LocalDate from, LocalDate to) {
+        LogHistogram merged = repository.findMerged(metric,
+                ToDate.toDate(from.atStartOfDay()), ToDate.toDate(to.plusDays(1).atStartOfDay()));
+        pending.get(metric).forEach((day, histogram) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) merged.merge(histogram);
+        });
+        return merged;
+    }
+}
@@ -0,0 +1,21 @@
+package com.destinity.erp.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone un grupo agregado de ventas a traves de la API.
+ * La clave depende de la consulta: periodo (fecha ISO), categoría
+ * o método de pago.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBucketDTO {
+
+    private String key;
+    private double revenue;
+    private long units;
+    private long count;
+}
@@ -0,0 +1,619 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.health.WarmupTask;
+import com.destinity.erp.inventory.ProductCategoryCache;
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Almacén columnar en memoria con las ventas recientes (SALES_CUBE_DAYS).
+ * Cada atributo vive en un arreglo primitivo y los textos (producto, categoría,
+ * estatus, método de pago y cliente) se codifican con diccionarios, de modo que
+ * los filtros y agrupaciones son recorridos secuenciales sobre enteros que se
+ * dividen en tareas fork-join. Permite analíticas interactivas sin consultar MongoDb.
+ *
+ * Un solo escritor agrega filas y publica una instantánea inmutable de tamaño;
+ * los lectores solo leen filas dentro de su instantánea. La carga y la
+ * compactación construyen columnas nuevas sin bloquear a los escritores y las
+ * publican al terminar; los eventos que llegan mientras tanto se guardan y se
+ * vuelven a aplicar sobre las columnas nuevas, sin duplicar filas.
+ *
+ * Mientras el cubo no está cargado las consultas responden 503 y la carga se
+ * inicia en segundo plano, sin bloquear la petición. Un rango que empieza
+ * antes de la ventana cargada se rechaza en lugar de devolver totales parciales.
+ */
+@ApplicationScoped
+public class SalesCube implements WarmupTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SalesCube.class);
+    private static final int DEFAULT_DAYS = 90;
+    private static final int INITIAL_CAPACITY = 16_384;
+    private static final int SPLIT_THRESHOLD = 32_768;
+    private static final String DELETED = "__ELIMINADA__";
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    @Inject
+    private ProductCategoryCache categoryCache;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Dictionary products = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private final Dictionary payments = new Dictionary();
+    private final Dictionary customers = new Dictionary();
+    private final int deletedCode = statuses.encode(DELETED);
+    private final Object writeLock = new Object();
+    private final Object rebuildLock = new Object();
+
+    private volatile Rows live = new Rows(new Columns(INITIAL_CAPACITY), new HashMap<>());
+    private List<SaleEvent> buffered;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile boolean loaded;
+    private volatile LocalDate loadedFrom;
+    private ForkJoinPool pool;
+    private ScheduledFuture<?> compaction;
+
+    /**
+     * Dimensiones por las que se puede agrupar
+     */
+    public enum GroupBy {
+        PRODUCT,
+        CATEGORY,
+        STATUS,
+        PAYMENT,
+        CUSTOMER,
+        HOUR,
+        DAY
+    }
+
+    /**
+     * Filtros opcionales de una consulta; los valores null no filtran
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @param product ID del producto
+     * @param category categoría
+     * @param status estatus de la venta
+     * @param payment método de pago
+     */
+    public record Filter(LocalDateTime from, LocalDateTime to, String product, String category,
+            String status, String payment) {
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), threadFactory, null, false);
+        compaction = scheduler.scheduleAtFixedRate(this::compact, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (compaction != null) compaction.cancel(false);
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Override
+    public String name() {
+        return "sales-cube";
+    }
+
+    @Override
+    public void warmUp() {
+        load();
+    }
+
+    /**
+     * Carga las ventas de los últimos SALES_CUBE_DAYS días desde MongoDb en
+     * columnas nuevas y las publica en lugar del contenido actual
+     */
+    public void load() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            int days = config.getInt("SALES_CUBE_DAYS", DEFAULT_DAYS);
+            LocalDate from = LocalDate.now().minusDays(days);
+            synchronized (writeLock) {
+                buffered = new ArrayList<>();
+            }
+            Rows rebuilt = new Rows(new Columns(INITIAL_CAPACITY), new HashMap<>());
+            long count;
+            try {
+                count = saleRepository.forEachSaleSince(ToDate.toDate(from.atStartOfDay()), rebuilt::append);
+            } catch (RuntimeException e) {
+                synchronized (writeLock) {
+                    buffered = null;
+                }
+                throw e;
+            }
+            loadedFrom = from;
+            publish(rebuilt);
+            LOGGER.info("Cubo de ventas cargado: {} filas en {} ms", count, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Aplica a las columnas reconstruidas los eventos recibidos durante la
+     * reconstrucción y las publica
+     *
+     * @param rebuilt columnas nuevas
+     */
+    private void publish(Rows rebuilt) {
+        synchronized (writeLock) {
+            for (SaleEvent event : buffered) apply(rebuilt, event);
+            buffered = null;
+            live = rebuilt;
+            loaded = true;
+        }
+    }
+
+    /**
+     * Inicia la carga en el ejecutor administrado si no hay una en curso
+     */
+    private void loadInBackground() {
+        if (!loading.compareAndSet(false, true)) return;
+        try {
+            scheduler.execute(() -> {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("No se pudo cargar el cubo de ventas: {}", e.getMessage());
+                } finally {
+                    loading.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            loading.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Primer día completo en el cubo: el inicio de la carga o, si la ventana
+     * ya avanzó, el inicio de la ventana actual de SALES_CUBE_DAYS
+     *
+     * @return primer día consultable
+     */
+    public LocalDate firstDay() {
+        LocalDate window = LocalDate.now().minusDays(config.getInt("SALES_CUBE_DAYS", DEFAULT_DAYS));
+        LocalDate from = loadedFrom;
+        return from == null || window.isAfter(from) ? window : from;
+    }
+
+    /**
+     * Descarta las filas fuera de la ventana de SALES_CUBE_DAYS días y las
+     * ventas eliminadas, copiando las filas vigentes a columnas nuevas
+     */
+    public void compact() {
+        if (!loaded) return;
+        synchronized (rebuildLock) {
+            compactRows();
+        }
+    }
+
+    private void compactRows() {
+        int days = config.getInt("SALES_CUBE_DAYS", DEFAULT_DAYS);
+        long cutoff = LocalDate.now().minusDays(days).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Columns current;
+        Map<Integer, ObjectId> idsByRow;
+        synchronized (writeLock) {
+            buffered = new ArrayList<>();
+            current = live.columns;
+            idsByRow = new HashMap<>(live.rowsById.size() * 2);
+            live.rowsById.forEach((id, row) -> idsByRow.put(row, id));
+        }
+        Columns target = new Columns(Math.max(INITIAL_CAPACITY, current.capacity));
+        Map<ObjectId, Integer> rowsById = new HashMap<>(idsByRow.size() * 2);
+
+        int kept = 0;
+        for (int row = 0; row < current.size; row++) {
+            if (current.saleDate[row] < cutoff || current.status[row] == deletedCode) continue;
+            target.saleDate[kept] = current.saleDate[row];
+            target.day[kept] = current.day[row];
+            target.hour[kept] = current.hour[row];
+            target.totalAmount[kept] = current.totalAmount[row];
+            target.quantity[kept] = current.quantity[row];
+            target.product[kept] = current.product[row];
+            target.category[kept] = current.category[row];
+            target.status[kept] = current.status[row];
+            target.payment[kept] = current.payment[row];
+            target.customer[kept] = current.customer[row];
+            ObjectId id = idsByRow.get(row);
+            if (id != null) rowsById.put(id, kept);
+            kept++;
+        }
+        publish(new Rows(target.withSize(kept), rowsById));
+        if (kept != current.size)
+            LOGGER.info("Cubo de ventas compactado: {} -> {} filas", current.size, kept);
+    }
+
+    /**
+     * Mantiene el cubo sincronizado con las ventas nuevas, actualizadas o
+     * eliminadas. Durante una carga o compactación el evento también se guarda
+     * para aplicarlo a las columnas nuevas.
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        if (event.getSale() == null) return;
+        try {
+            synchronized (writeLock) {
+                if (buffered != null) buffered.add(event);
+                if (loaded) apply(live, event);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo actualizar el cubo de ventas: {}", e.getMessage());
+        }
+    }
+
+    private void apply(Rows rows, SaleEvent event) {
+        switch (event.getType()) {
+            case CREATED -> rows.append(event.getSale());
+            case UPDATED -> rows.setStatus(event.getSale().getId(), event.getSale().getStatus());
+            case DELETED -> rows.setStatus(event.getSale().getId(), DELETED);
+        }
+    }
+
+    /**
+     * Agrega una venta como nueva fila de las columnas indicadas, salvo que ya exista
+     *
+     * @param current columnas actuales
+     * @param rowsById fila de cada venta
+     * @param sale venta a agregar
+     * @return columnas con la fila agregada
+     */
+    private Columns appendRow(Columns current, Map<ObjectId, Integer> rowsById, SaleModel sale) {
+        if (sale == null || sale.getSaleDate() == null) return current;
+        if (sale.getId() != null && rowsById.containsKey(sale.getId())) return current;
+
+        Columns target = current.size < current.capacity ? current : current.grow();
+        int row = target.size;
+        LocalDateTime date = sale.getSaleDate();
+        SaleModel.ProductSold product = sale.getProductSold();
+        String productId = product != null ? product.getId() : null;
+
+        target.saleDate[row] = date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        target.day[row] = (int) date.toLocalDate().toEpochDay();
+        target.hour[row] = (byte) date.getHour();
+        target.totalAmount[row] = sale.getTotalAmount() != null ? sale.getTotalAmount() : 0.0;
+        target.quantity[row] = product != null && product.getQuantity() != null ? product.getQuantity() : 0;
+        target.product[row] = products.encode(productId);
+        target.category[row] = categories.encode(categoryCache.getCategory(productId));
+        target.status[row] = statuses.encode(sale.getStatus());
+        target.payment[row] = payments.encode(sale.getPaymentMethod());
+        target.customer[row] = customers.encode(sale.getCustomerInfo() != null ? sale.getCustomerInfo().getId() : null);
+
+        if (sale.getId() != null) rowsById.put(sale.getId(), row);
+        return target.withSize(row + 1);
+    }
+
+    /**
+     * Filtra y agrupa las filas del cubo con un recorrido paralelo
+     *
+     * @param filter filtros de la consulta
+     * @param groupBy dimensión de agrupación
+     * @return grupos con ventas, unidades e ingresos
+     * @throws CustomException si el cubo aún se está cargando o el rango
+     * empieza antes de la ventana cargada
+     */
+    public List<SalesBucketDTO> query(Filter filter, GroupBy groupBy) {
+        if (!loaded) {
+            loadInBackground();
+            throw CustomException.unavailable("El cubo de ventas se está cargando, intenta de nuevo en unos segundos");
+        }
+        LocalDate firstAvailable = firstDay();
+        if (filter.from() != null && filter.from().toLocalDate().isBefore(firstAvailable)) {
+            throw CustomException.business("El cubo solo contiene las ventas desde " + firstAvailable
+                    + "; para rangos anteriores usa /analytics/revenue");
+        }
+        Columns snapshot = live.columns;
+
+        int firstDay = filter.from() != null
+                ? (int) filter.from().toLocalDate().toEpochDay()
+                : Arrays.stream(snapshot.day, 0, snapshot.size).min().orElse(0);
+        int lastDay = filter.to() != null
+                ? (int) filter.to().toLocalDate().toEpochDay()
+                : Arrays.stream(snapshot.day, 0, snapshot.size).max().orElse(0);
+        int groups = switch (groupBy) {
+            case PRODUCT -> products.size();
+            case CATEGORY -> categories.size();
+            case STATUS -> statuses.size();
+            case PAYMENT -> payments.size();
+            case CUSTOMER -> customers.size();
+            case HOUR -> 24;
+            case DAY -> Math.max(1, lastDay - firstDay + 1);
+        };
+
+        Scan scan = new Scan(snapshot, groupBy, groups, firstDay, deletedCode,
+                filter.from() != null ? filter.from().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MIN_VALUE,
+                filter.to() != null ? filter.to().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MAX_VALUE,
+                products.lookup(filter.product()), categories.lookup(filter.category()),
+                statuses.lookup(filter.status()), payments.lookup(filter.payment()));
+        Accumulator result = pool.invoke(new ScanTask(scan, 0, snapshot.size));
+
+        List<SalesBucketDTO> buckets = new ArrayList<>();
+        for (int g = 0; g < groups; g++) {
+            if (result.count[g] == 0) continue;
+            buckets.add(new SalesBucketDTO(groupKey(groupBy, g, firstDay), result.revenue[g], result.units[g], result.count[g]));
+        }
+        if (groupBy == GroupBy.HOUR || groupBy == GroupBy.DAY) {
+            buckets.sort(Comparator.comparing(SalesBucketDTO::getKey));
+        } else {
+            buckets.sort(Comparator.comparingDouble(SalesBucketDTO::getRevenue).reversed());
+        }
+        return buckets;
+    }
+
+    public int size() {
+        return live.columns.size;
+    }
+
+    /**
+     * Columnas publicadas y la fila de cada venta. Las columnas en vivo solo
+     * se modifican con writeLock; las que se están reconstruyendo pertenecen
+     * al hilo de la carga hasta que se publican.
+     */
+    private final class Rows {
+
+        private volatile Columns columns;
+        private final Map<ObjectId, Integer> rowsById;
+
+        Rows(Columns columns, Map<ObjectId, Integer> rowsById) {
+            this.columns = columns;
+            this.rowsById = rowsById;
+        }
+
+        void append(SaleModel sale) {
+            columns = appendRow(columns, rowsById, sale);
+        }
+
+        void setStatus(ObjectId id, String status) {
+            Integer row = id != null ? rowsById.get(id) : null;
+            if (row != null) columns.status[row] = statuses.encode(status);
+        }
+    }
+
+    private String groupKey(GroupBy groupBy, int code, int firstDay) {
+        return switch (groupBy) {
+            case PRODUCT -> products.decode(code);
+            case CATEGORY -> categories.decode(code);
+            case STATUS -> statuses.decode(code);
+            case PAYMENT -> payments.decode(code);
+            case CUSTOMER -> customers.decode(code);
+            case HOUR -> String.format("%02d", code);
+            case DAY -> LocalDate.ofEpochDay(firstDay + code).toString();
+        };
+    }
+
+    /**
+     * Diccionario que asigna un código entero a cada texto distinto.
+     * null se codifica como un valor más.
+     */
+    private static final class Dictionary {
+
+        private static final String NULL_KEY = "\u0000";
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[64];
+        private volatile int size;
+
+        int encode(String value) {
+            String key = value != null ? value : NULL_KEY;
+            Integer code = codes.get(key);
+            if (code != null) return code;
+            synchronized (this) {
+                code = codes.get(key);
+                if (code != null) return code;
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size] = value;
+                code = size;
+                size = size + 1;
+                codes.put(key, code);
+                return code;
+            }
+        }
+
+        /**
+         * @return código del valor, -1 si no se filtra (null) o -2 si no existe
+         */
+        int lookup(String value) {
+            if (value == null || value.isBlank()) return -1;
+            Integer code = codes.get(value);
+            return code != null ? code : -2;
+        }
+
+        String decode(int code) {
+            String value = values[code];
+            return value != null ? value : "N/D";
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Columnas del cubo. Los arreglos se comparten entre instantáneas; solo
+     * cambia el tamaño visible o, al crecer, se copian a arreglos nuevos.
+     */
+    private static final class Columns {
+
+        final int capacity;
+        final int size;
+        final long[] saleDate;
+        final int[] day;
+        final byte[] hour;
+        final double[] totalAmount;
+        final int[] quantity;
+        final int[] product;
+        final int[] category;
+        final int[] status;
+        final int[] payment;
+        final int[] customer;
+
+        Columns(int capacity) {
+            this(capacity, 0, new long[capacity], new int[capacity], new byte[capacity], new double[capacity],
+                    new int[capacity], new int[capacity], new int[capacity], new int[capacity],
+                    new int[capacity], new int[capacity]);
+        }
+
+        private Columns(int capacity, int size, long[] saleDate, int[] day, byte[] hour, double[] totalAmount,
+                int[] quantity, int[] product, int[] category, int[] status, int[] payment, int[] customer) {
+            this.capacity = capacity;
+            this.size = size;
+            this.saleDate = saleDate;
+            this.day = day;
+            this.hour = hour;
+            this.totalAmount = totalAmount;
+            this.quantity = quantity;
+            this.product = product;
+            this.category = category;
+            this.status = status;
+            this.payment = payment;
+            this.customer = customer;
+        }
+
+        Columns withSize(int newSize) {
+            return new Columns(capacity, newSize, saleDate, day, hour, totalAmount, quantity,
+                    product, category, status, payment, customer);
+        }
+
+        Columns grow() {
+            int newCapacity = capacity * 2;
+            return new Columns(newCapacity, size,
+                    Arrays.copyOf(saleDate, newCapacity), Arrays.copyOf(day, newCapacity),
+                    Arrays.copyOf(hour, newCapacity), Arrays.copyOf(totalAmount, newCapacity),
+                    Arrays.copyOf(quantity, newCapacity), Arrays.copyOf(product, newCapacity),
+                    Arrays.copyOf(category, newCapacity), Arrays.copyOf(status, newCapacity),
+                    Arrays.copyOf(payment, newCapacity), Arrays.copyOf(customer, newCapacity));
+        }
+    }
+
+    /**
+     * Parámetros de un recorrido ya traducidos a códigos del diccionario
+     */
+    private record Scan(Columns columns, GroupBy groupBy, int groups, int firstDay, int deletedCode,
+            long from, long to, int product, int category, int status, int payment) {
+    }
+
+    /**
+     * Acumuladores densos indexados por código de grupo
+     */
+    private static final class Accumulator {
+
+        final long[] count;
+        final long[] units;
+        final double[] revenue;
+
+        Accumulator(int groups) {
+            count = new long[groups];
+            units = new long[groups];
+            revenue = new double[groups];
+        }
+
+        Accumulator merge(Accumulator other) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += other.count[g];
+                units[g] += other.units[g];
+                revenue[g] += other.revenue[g];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Tarea fork-join que divide el rango de filas hasta SPLIT_THRESHOLD y
+     * combina los acumuladores parciales
+     */
+    @SuppressWarnings("serial")
+    private static final class ScanTask extends RecursiveTask<Accumulator> {
+
+        private final Scan scan;
+        private final int start;
+        private final int end;
+
+        ScanTask(Scan scan, int start, int end) {
+            this.scan = scan;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (end - start > SPLIT_THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                ScanTask left = new ScanTask(scan, start, mid);
+                left.fork();
+                Accumulator right = new ScanTask(scan, mid, end).compute();
+                return left.join().merge(right);
+            }
+            Accumulator acc = new Accumulator(scan.groups());
+            if (scan.product() == -2 || scan.category() == -2 || scan.status() == -2 || scan.payment() == -2)
+                return acc;
+
+            Columns c = scan.columns();
+            for (int row = start; row < end; row++) {
+                long date = c.saleDate[row];
+                if (date < scan.from() || date >= scan.to()) continue;
+                int status = c.status[row];
+                if (status == scan.deletedCode()) continue;
+                if (scan.status() >= 0 && status != scan.status()) continue;
+                if (scan.product() >= 0 && c.product[row] != scan.product()) continue;
+                if (scan.category() >= 0 && c.category[row] != scan.category()) continue;
+                if (scan.payment() >= 0 && c.payment[row] != scan.payment()) continue;
+
+                int group = switch (scan.groupBy()) {
+                    case PRODUCT -> c.product[row];
+                    case CATEGORY -> c.category[row];
+                    case STATUS -> status;
+                    case PAYMENT -> c.payment[row];
+                    case CUSTOMER -> c.customer[row];
+                    case HOUR -> c.hour[row];
+                    case DAY -> c.day[row] - scan.firstDay();
+                };
+                if (group < 0 || group >= acc.count.length) continue;
+                acc.count[group]++;
+                acc.units[group] += c.quantity[row];
+                acc.revenue[group] += c.totalAmount[row];
+            }
+            return acc;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.destinity.erp.analytics;
+
+import com.destinity.erp.inventory.ProductCategoryCache;
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleService;
+import com.destinity.erp.utils.ToDate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mantiene el agregado sales_daily sincronizado con cada venta.
+ * Suma al crear, resta al eliminar y ajusta cuando una venta se cancela o
+ * se reactiva. Si una actualización falla, la venta no se revierte: el
+ * agregado se corrige con la reconstrucción.
+ *
+ * Mientras se reconstruye un rango, los eventos de sus días no se aplican:
+ * solo marcan el día para recalcularlo desde las ventas, porque no se sabe
+ * si la agregación ya leyó esa venta. Ver {@link #rebuild(Date, Date)}.
+ */
+@ApplicationScoped
+public class SalesDailyRollup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SalesDailyRollup.class);
+    private static final int MAX_REBUILD_PASSES = 10;
+
+    @Inject
+    private AnalyticsRepository analyticsRepository;
+
+    @Inject
+    private ProductCategoryCache categoryCache;
+
+    @Inject
+    private SaleService saleService;
+
+    private final Object rebuildLock = new Object();
+    private final Object holdLock = new Object();
+    private final SortedSet<Date> dirtyDays = new TreeSet<>();
+    private Date holdFrom;
+    private Date holdTo;
+
+    /**
+     * Aplica el cambio de una venta al agregado diario
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        SaleModel sale = event.getSale();
+        if (sale == null || sale.getSaleDate() == null) return;
+
+        int delta = switch (event.getType()) {
+            case CREATED -> SaleEvent.isCounted(sale.getStatus()) ? 1 : 0;
+            case DELETED -> SaleEvent.isCounted(sale.getStatus()) ? -1 : 0;
+            case UPDATED -> {
+                boolean wasCounted = SaleEvent.isCounted(event.getPreviousStatus());
+                boolean isCounted = SaleEvent.isCounted(sale.getStatus());
+                yield wasCounted == isCounted ? 0 : (isCounted ? 1 : -1);
+            }
+        };
+        if (delta == 0) return;
+
+        Date day = ToDate.toDate(sale.getSaleDate().toLocalDate().atStartOfDay());
+        synchronized (holdLock) {
+            if (holdFrom != null && !day.before(holdFrom) && day.before(holdTo)) {
+                dirtyDays.add(day);
+                return;
+            }
+        }
+
+        try {
+            String productId = sale.getProductSold() != null ? sale.getProductSold().getId() : null;
+            long units = sale.getProductSold() != null && sale.getProductSold().getQuantity() != null
+                    ? sale.getProductSold().getQuantity() : 0;
+            double revenue = sale.getTotalAmount() != null ? sale.getTotalAmount() : 0.0;
+
+            analyticsRepository.incrementDaily(
+                    day,
+                    categoryCache.getCategory(productId),
+                    sale.getPaymentMethod(),
+                    delta, delta * units, delta * revenue);
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo actualizar sales_daily para la venta {}: {}", sale.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el agregado diario del rango sin perder ni duplicar las
+     * ventas que cambian mientras tanto. Los eventos de los días del rango
+     * se retienen y solo marcan el día; al terminar la agregación, un paso
+     * en la cadena de eventos de SaleService (que ya procesó las ventas
+     * guardadas hasta ese momento) revisa los días marcados. Si no hay, deja
+     * de retener y los eventos siguientes se aplican con normalidad, porque
+     * esas ventas se guardaron después de la agregación. Si hay, esos días
+     * se vuelven a calcular y se repite la revisión.
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @return número de documentos eliminados antes de reconstruir
+     */
+    public long rebuild(Date from, Date to) {
+        synchronized (rebuildLock) {
+            synchronized (holdLock) {
+                holdFrom = from;
+                holdTo = to;
+                dirtyDays.clear();
+            }
+            try {
+                long replaced = analyticsRepository.rebuildDaily(from, to);
+                for (int pass = 1; ; pass++) {
+                    boolean last = pass >= MAX_REBUILD_PASSES;
+                    List<Date> days = saleService.afterPublished(() -> takeDirtyDays(last)).toCompletableFuture().join();
+                    if (days.isEmpty()) return replaced;
+                    if (last) {
+                        LOGGER.warn("Días de sales_daily con ventas nuevas durante la reconstrucción, "
+                                + "vuelve a reconstruirlos: {}", days);
+                        return replaced;
+                    }
+                    for (Date day : days) {
+                        analyticsRepository.rebuildDaily(day, ToDate.toDate(
+                                ToDate.toLocalDateTime(day).plusDays(1)));
+                    }
+                }
+            } finally {
+                synchronized (holdLock) {
+                    if (holdFrom != null && !dirtyDays.isEmpty())
+                        LOGGER.warn("Reconstrucción interrumpida; días de sales_daily por reconstruir: {}", dirtyDays);
+                    holdFrom = null;
+                    holdTo = null;
+                    dirtyDays.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Toma los días marcados. Sin días, o en la última pasada, deja de
+     * retener los eventos del rango.
+     */
+    private List<Date> takeDirtyDays(boolean release) {
+        synchronized (holdLock) {
+            List<Date> days = new ArrayList<>(dirtyDays);
+            dirtyDays.clear();
+            if (days.isEmpty() || release) {
+                holdFrom = null;
+                holdTo = null;
+            }
+            return days;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.destinity.erp.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Resumen Space-Saving ponderado para encontrar los elementos más frecuentes
+ * con memoria acotada a "capacity" contadores. Los contadores viven en un
+ * min-heap indexado; cada actualización cuesta O(log capacity), constante
+ * para una capacidad fija. El conteo de cada elemento sobreestima el real
+ * como máximo en su "error".
+ *
+ * No es seguro para hilos; la sincronización queda a cargo de quien lo usa.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Counter[] heap;
+    private final Map<String, Counter> counters;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Contador de un elemento con su posición en el heap
+     */
+    static final class Counter {
+
+        final String key;
+        String label;
+        long count;
+        long error;
+        int position;
+
+        Counter(String key, String label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Suma un peso al elemento; si no hay espacio reemplaza al de menor conteo
+     *
+     * @param key identificador del elemento
+     * @param label etiqueta legible del elemento
+     * @param weight peso a sumar
+     */
+    void add(String key, String label, long weight) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            if (label != null) counter.label = label;
+            siftDown(counter.position);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(key, label, weight, 0);
+            counter.position = size;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.position);
+            return;
+        }
+        Counter min = heap[0];
+        counters.remove(min.key);
+        counter = new Counter(key, label, min.count + weight, min.count);
+        counter.position = 0;
+        heap[0] = counter;
+        counters.put(key, counter);
+        siftDown(0);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) heap[i] = null;
+        counters.clear();
+        size = 0;
+    }
+
+    /**
+     * Recorre los contadores actuales
+     *
+     * @param action acción por contador
+     */
+    void forEach(BiConsumer<String, Counter> action) {
+        for (int i = 0; i < size; i++) action.accept(heap[i].key, heap[i]);
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) break;
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) child = right;
+            if (counter.count <= heap[child].count) break;
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.position = index;
+    }
+}
@@ -0,0 +1,34 @@
+package com.destinity.erp.analytics;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone el número estimado de clientes únicos de un rango y de cada
+ * periodo dentro de él. El total no es la suma de los periodos: un cliente
+ * que compra en varios periodos se cuenta una sola vez.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueCustomersDTO {
+
+    private String from;
+    private String to;
+    private long total;
+    private List<Period> periods;
+
+    /**
+     * Clientes únicos estimados de un día, semana o mes
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Period {
+
+        private String key;
+        private long customers;
+    }
+}
@@ -13,7 +13,7 @@ import java.util.Map;
 
 /**
  * Controlador REST encargado de las peticiones con la autenticación.
- *  Expone el endpoint del API de autenticación y devuelve un token.
+ *  Expone los endpoint del API de autenticación, renovación y cierre de sesión.
  */
 @Path("/auth")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -41,4 +41,43 @@ public class AuthController {
             return RestExceptionHandler.unexpectedCustomException(e);
         }
     }
+
+    /**
+     * Renueva el token de acceso usando el refresh token. El refresh token
+     * se rota: el cliente debe guardar el que viene en la respuesta.
+     *
+     * @param credentials Objeto con el refresh token del usuario
+     * @return nuevo token JWT y nuevo refresh token, o mensaje de error si la sesión no es válida
+     */
+    @POST
+    @Path("/refresh")
+    public Response refresh(AuthDTO credentials) {
+        try {
+            Map<String, String> token = authService.refresh(credentials.refreshToken);
+            return Response.ok(token).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Cierra la sesión revocando el refresh token.
+     *
+     * @param credentials Objeto con el refresh token del usuario
+     * @return respuesta de éxito o error
+     */
+    @POST
+    @Path("/logout")
+    public Response logout(AuthDTO credentials) {
+        try {
+            authService.logout(credentials.refreshToken);
+            return Response.ok(Map.of("message", "Sesión cerrada satisfactoriamente")).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
 }
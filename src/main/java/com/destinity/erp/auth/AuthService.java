@@ -2,56 +2,249 @@ package com.destinity.erp.auth;
 
 import com.destinity.erp.hr.UserModel;
 import com.destinity.erp.hr.UserRepository;
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.JwtUtil;
 import com.destinity.erp.utils.PasswordHasher;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Servicio encargado de manejar la lógica de negocio del inicio de sesión.
  * Verifica credenciales del usuario, genera el token JWT y encapsula la
- * respuesta para el controlador.
+ * respuesta para el controlador. Los tokens de acceso son de corta duración
+ * y se renuevan con un refresh token almacenado como sesión.
  */
+@Traced
 @ApplicationScoped
 public class AuthService {
 
-    private static final Logger LOGGER = Logger.getLogger(AuthService.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthService.class);
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    private static final long REFRESH_TOKEN_DAYS = 7;
+    private static final String STATUS_INACTIVE = "Inactivo";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Set<ObjectId> pendingRehashes = ConcurrentHashMap.newKeySet();
+
+    @Resource
+    private ManagedExecutorService executor;
 
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private SessionRepository sessionRepository;
+
+    @Inject
+    private SessionCache sessionCache;
+
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    @Inject
+    private JwtUtil jwtUtil;
+
     /**
-     * Crea un token JWT si las credenciales son válidas.
+     * Crea un token JWT y un refresh token si las credenciales son válidas.
      *
      * @param email correo electrónico proporcionado por el usuario
      * @param password contraseña proporcionada por el usuario
-     * @return Mapa con clave "token" que contiene el JWT generado
+     * @return Mapa con las claves "token" (JWT) y "refreshToken"
      * @throws CustomException si las credenciales son inválidas
      */
     public Map<String, String> login(String email, String password) {
         Optional<UserModel> user = userRepository.findUserByEmail(email);
 
         if (user.isEmpty() || !PasswordHasher.checkPassword(password, user.get().getPassword())) {
-            LOGGER.log(Level.WARNING, "Credenciales inválidas, usuario con correo: {0}", email);
+            LOGGER.warn("Credenciales inválidas, usuario con correo: {}", email);
             throw CustomException.notFound("Credenciales inválidas, correo o contraseña incorrectas");
         }
+        if (STATUS_INACTIVE.equalsIgnoreCase(user.get().getStatus())) {
+            LOGGER.warn("Inicio de sesión de un usuario inactivo: {}", user.get().getId());
+            throw CustomException.business("El usuario está inactivo");
+        }
+
+        LOGGER.info("Usuario encontrado: {}", user.get().getId());
+        if (passwordHasher.needsRehash(user.get().getPassword()))
+            scheduleRehash(user.get().getId(), user.get().getPassword(), password);
+
+        SessionModel session = new SessionModel();
+        session.setId(new ObjectId());
+        session.setUserId(user.get().getId().toHexString());
+        session.setRole(user.get().getEmployeeData() != null ? user.get().getEmployeeData().getRole() : null);
+        session.setEmail(user.get().getEmail());
+        session.setName(user.get().getFirstName() + " " + user.get().getLastName() + " " + user.get().getMiddleName());
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(session.getCreatedAt().plusDays(REFRESH_TOKEN_DAYS));
+
+        String refreshToken = generateRefreshToken();
+        session.setTokenHash(hashToken(refreshToken));
+        sessionRepository.saveSession(session);
+        sessionCache.put(session);
 
-        LOGGER.log(Level.INFO, "Usuario encontrado: {0}", user.get().getId());
+        Map<String, String> response = new HashMap<>();
+        response.put("token", generateAccessToken(session));
+        response.put("refreshToken", refreshToken);
+        return response;
+    }
+
+    /**
+     * Emite un nuevo token de acceso y un nuevo refresh token a partir de un
+     * refresh token vigente, sin volver a consultar al usuario ni verificar su
+     * contraseña. El refresh token se rota en cada renovación: el recibido
+     * deja de ser válido, así que uno robado solo sirve hasta que el cliente
+     * legítimo renueva. Una sesión expirada en la caché se rechaza sin
+     * consultar MongoDb; la rotación siempre se hace en MongoDb, que es la
+     * fuente de verdad, por lo que una sesión revocada en otra instancia
+     * deja de renovarse de inmediato.
+     *
+     * @param refreshToken refresh token vigente
+     * @return Mapa con las claves "token" (nuevo JWT) y "refreshToken" (nuevo refresh token)
+     * @throws CustomException si la sesión no existe o ya expiró
+     */
+    public Map<String, String> refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank())
+            throw CustomException.invalidInput("Refresh token", "inicio de sesión");
 
-        String token = JwtUtil.generateToken(
-                user.get().getId().toHexString(),
-                user.get().getEmployeeData().getRole(),
-                user.get().getEmail(),
-                user.get().getFirstName() + " " + user.get().getLastName() + " " + user.get().getMiddleName());
+        String tokenHash = hashToken(refreshToken);
+        SessionModel cached = sessionCache.get(tokenHash);
+        if (cached != null && cached.isExpired()) {
+            sessionCache.remove(tokenHash);
+            LOGGER.warn("Refresh token expirado");
+            throw CustomException.notFound("La sesión no existe o ha expirado");
+        }
+
+        String newRefreshToken = generateRefreshToken();
+        SessionModel session = sessionRepository.rotateTokenHash(tokenHash, hashToken(newRefreshToken))
+                .filter(s -> !s.isExpired())
+                .orElseThrow(() -> {
+                    sessionCache.remove(tokenHash);
+                    LOGGER.warn("Refresh token inválido, expirado o ya utilizado");
+                    return CustomException.notFound("La sesión no existe o ha expirado");
+                });
+        sessionCache.remove(tokenHash);
+        sessionCache.put(session);
 
         Map<String, String> response = new HashMap<>();
-        response.put("token", token);
+        response.put("token", generateAccessToken(session));
+        response.put("refreshToken", newRefreshToken);
         return response;
     }
+
+    /**
+     * Cierra la sesión revocando el refresh token
+     *
+     * @param refreshToken refresh token a revocar
+     * @return true si la sesión existía y fue eliminada
+     */
+    public boolean logout(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank())
+            throw CustomException.invalidInput("Refresh token", "inicio de sesión");
+
+        String tokenHash = hashToken(refreshToken);
+        sessionCache.remove(tokenHash);
+        boolean deleted = sessionRepository.deleteSessionByTokenHash(tokenHash);
+        LOGGER.info("Sesión cerrada: {}", deleted);
+        return deleted;
+    }
+
+    /**
+     * Revoca todas las sesiones de un usuario. Se usa al eliminarlo,
+     * desactivarlo o cambiar los datos que la sesión copia (rol, nombre y
+     * correo): el usuario debe iniciar sesión de nuevo para obtener un token
+     * con los datos vigentes.
+     *
+     * @param userId identificador del usuario
+     * @return número de sesiones revocadas
+     */
+    public long revokeUserSessions(String userId) {
+        sessionCache.removeUser(userId);
+        long revoked = sessionRepository.deleteSessionsByUserId(userId);
+        if (revoked > 0) LOGGER.info("Sesiones revocadas del usuario {}: {}", userId, revoked);
+        return revoked;
+    }
+
+    /**
+     * Vuelve a hashear la contraseña con el costo configurado fuera del hilo
+     * de la petición. La actualización solo se aplica si el hash almacenado no
+     * cambió mientras tanto.
+     *
+     * @param userId identificador del usuario
+     * @param currentHash hash almacenado con el costo anterior
+     * @param plainPassword contraseña ya verificada
+     */
+    private void scheduleRehash(ObjectId userId, String currentHash, String plainPassword) {
+        if (!pendingRehashes.add(userId)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    String newHash = passwordHasher.hashPassword(plainPassword);
+                    if (userRepository.updatePasswordHash(userId, currentHash, newHash))
+                        LOGGER.info("Contraseña migrada al costo {} para el usuario: {}",
+                                passwordHasher.getCost(), userId);
+                } catch (Exception e) {
+                    LOGGER.warn("No se pudo migrar la contraseña del usuario: {}", userId);
+                } finally {
+                    pendingRehashes.remove(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingRehashes.remove(userId);
+            LOGGER.warn("No se pudo programar la migración de la contraseña: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Genera el token de acceso con los datos guardados en la sesión
+     *
+     * @param session sesión vigente
+     * @return token JWT
+     */
+    private String generateAccessToken(SessionModel session) {
+        return jwtUtil.generateToken(session.getUserId(), session.getRole(), session.getEmail(), session.getName());
+    }
+
+    /**
+     * Genera un refresh token aleatorio y opaco
+     *
+     * @return refresh token en Base64 URL-safe
+     */
+    private String generateRefreshToken() {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Calcula el hash SHA-256 del refresh token; el token en claro nunca se almacena
+     *
+     * @param token refresh token
+     * @return hash en hexadecimal
+     */
+    private String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package com.destinity.erp.auth;
+
+import com.destinity.erp.utils.ConfigService;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché en memoria de las sesiones activas, indexada por el hash del refresh token.
+ * Permite rechazar sin consultar MongoDb la renovación de una sesión que ya
+ * expiró. La colección de sesiones sigue siendo la fuente de verdad: cada
+ * renovación rota el refresh token en MongoDb y vuelve a guardar la sesión
+ * aquí con el hash nuevo.
+ *
+ * Cada entrada vale SESSION_CACHE_TTL (30 s por defecto); con 0 no se guarda
+ * ninguna sesión.
+ */
+@ApplicationScoped
+public class SessionCache {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+    private volatile long ttlNanos = DEFAULT_TTL.toNanos();
+
+    @Inject
+    private ConfigService config;
+
+    @PostConstruct
+    public void init() {
+        configure(config);
+        config.onChange(this::configure, "SESSION_CACHE_MAX_SIZE", "SESSION_CACHE_TTL");
+    }
+
+    private void configure(ConfigService c) {
+        setMaxSize(c.getInt("SESSION_CACHE_MAX_SIZE", DEFAULT_MAX_SIZE));
+        ttlNanos = Math.max(0, c.getDuration("SESSION_CACHE_TTL", DEFAULT_TTL).toNanos());
+    }
+
+    /**
+     * Obtiene una sesión vigente de la caché
+     *
+     * @param tokenHash hash del refresh token
+     * @return sesión encontrada o null si no existe, ya expiró o hay que
+     * volver a comprobarla en MongoDb
+     */
+    public SessionModel get(String tokenHash) {
+        Entry entry = sessions.get(tokenHash);
+        if (entry == null) return null;
+        if (entry.session().isExpired() || System.nanoTime() - entry.cachedAt() >= ttlNanos) {
+            sessions.remove(tokenHash, entry);
+            return null;
+        }
+        return entry.session();
+    }
+
+    /**
+     * Agrega una sesión a la caché, liberando espacio si se alcanzó el límite
+     *
+     * @param session sesión a almacenar
+     */
+    public void put(SessionModel session) {
+        if (ttlNanos == 0) return;
+        if (sessions.size() >= maxSize) evict();
+        sessions.put(session.getTokenHash(), new Entry(session, System.nanoTime()));
+    }
+
+    /**
+     * Elimina una sesión de la caché
+     *
+     * @param tokenHash hash del refresh token
+     */
+    public void remove(String tokenHash) {
+        sessions.remove(tokenHash);
+    }
+
+    /**
+     * Elimina de la caché todas las sesiones de un usuario
+     *
+     * @param userId identificador del usuario
+     */
+    public void removeUser(String userId) {
+        sessions.values().removeIf(entry -> userId.equals(entry.session().getUserId()));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Elimina primero las sesiones expiradas y, si no es suficiente, descarta
+     * entradas arbitrarias; se recargarán desde MongoDb cuando se necesiten.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(entry -> entry.session().isExpired() || now - entry.cachedAt() >= ttlNanos);
+        Iterator<String> keys = sessions.keySet().iterator();
+        while (sessions.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry(SessionModel session, long cachedAt) {
+    }
+}
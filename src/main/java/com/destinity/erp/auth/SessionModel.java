@@ -0,0 +1,36 @@
+package com.destinity.erp.auth;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+/**
+ * Modelo que representa una sesión activa asociada a un refresh token.
+ * Solo se almacena el hash del token, junto con los datos del usuario
+ * necesarios para emitir nuevos tokens de acceso sin consultar al usuario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionModel {
+
+    private ObjectId id;
+    private String tokenHash;
+    private String userId;
+    private String role;
+    private String email;
+    private String name;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    /**
+     * Indica si la sesión ya expiró
+     *
+     * @return true si la fecha de expiración ya pasó
+     */
+    public boolean isExpired() {
+        return expiresAt == null || expiresAt.isBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,175 @@
+package com.destinity.erp.auth;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.InsertOneResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio encargado de la interacción directa con MongoDb.
+ * Administra las sesiones de refresh token en una colección con índice TTL,
+ * de modo que MongoDb elimina automáticamente las sesiones expiradas.
+ */
+@Traced
+@ApplicationScoped
+public class SessionRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionRepository.class);
+    private static final String COLLECTION_NAME = "sessions";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Crea los índices de la colección: TTL sobre la fecha de expiración,
+     * único sobre el hash del token y por usuario para revocar sus sesiones.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getSessionCollection().createIndex(Indexes.ascending("expiresAt"),
+                    new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+            getSessionCollection().createIndex(Indexes.ascending("tokenHash"),
+                    new IndexOptions().unique(true));
+            getSessionCollection().createIndex(Indexes.ascending("userId"));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de sesiones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de sesiones
+     *
+     * @return MongoCollection de sesiones
+     */
+    private MongoCollection<Document> getSessionCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Guarda una nueva sesión en la base de datos
+     *
+     * @param session modelo de sesión a guardar
+     * @return ID de la sesión guardada
+     */
+    public String saveSession(SessionModel session) {
+        try {
+            InsertOneResult result = getSessionCollection().insertOne(sessionToDocument(session));
+            return result.getInsertedId().asObjectId().getValue().toString();
+        } catch (MongoException e) {
+            LOGGER.error("Error al guardar la sesión: {}", e.getMessage());
+            throw CustomException.dbError("Error al guardar la sesión.");
+        }
+    }
+
+    /**
+     * Reemplaza el refresh token de una sesión vigente en una sola operación,
+     * de modo que el token anterior deja de servir y dos renovaciones
+     * simultáneas con el mismo token no pueden tener éxito las dos
+     *
+     * @param tokenHash hash del refresh token actual
+     * @param newTokenHash hash del nuevo refresh token
+     * @return Optional con la sesión actualizada o vacío si no existe o ya expiró
+     */
+    public Optional<SessionModel> rotateTokenHash(String tokenHash, String newTokenHash) {
+        try {
+            Document doc = getSessionCollection().findOneAndUpdate(
+                    Filters.and(Filters.eq("tokenHash", tokenHash), Filters.gt("expiresAt", new Date())),
+                    Updates.set("tokenHash", newTokenHash),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            return Optional.ofNullable(documentToSession(doc));
+        } catch (MongoException e) {
+            LOGGER.error("Error al renovar la sesión: {}", e.getMessage());
+            throw CustomException.dbError("Error al renovar la sesión.");
+        }
+    }
+
+    /**
+     * Elimina una sesión por el hash de su refresh token
+     *
+     * @param tokenHash hash SHA-256 del refresh token
+     * @return true si se eliminó correctamente
+     */
+    public boolean deleteSessionByTokenHash(String tokenHash) {
+        try {
+            DeleteResult result = getSessionCollection().deleteOne(Filters.eq("tokenHash", tokenHash));
+            return result.getDeletedCount() > 0;
+        } catch (MongoException e) {
+            LOGGER.error("Error al eliminar la sesión: {}", e.getMessage());
+            throw CustomException.dbError("Error al eliminar la sesión.");
+        }
+    }
+
+    /**
+     * Elimina todas las sesiones de un usuario
+     *
+     * @param userId identificador del usuario
+     * @return número de sesiones eliminadas
+     */
+    public long deleteSessionsByUserId(String userId) {
+        try {
+            return getSessionCollection().deleteMany(Filters.eq("userId", userId)).getDeletedCount();
+        } catch (MongoException e) {
+            LOGGER.error("Error al eliminar las sesiones del usuario {}: {}", userId, e.getMessage());
+            throw CustomException.dbError("Error al eliminar las sesiones del usuario.");
+        }
+    }
+
+    /**
+     * Convierte un SessionModel a un Document de MongoDB
+     *
+     * @param session modelo de la sesión
+     * @return Document para MongoDB
+     */
+    private Document sessionToDocument(SessionModel session) {
+        return new Document()
+                .append("_id", session.getId())
+                .append("tokenHash", session.getTokenHash())
+                .append("userId", session.getUserId())
+                .append("role", session.getRole())
+                .append("email", session.getEmail())
+                .append("name", session.getName())
+                .append("createdAt", ToDate.toDate(session.getCreatedAt()))
+                .append("expiresAt", ToDate.toDate(session.getExpiresAt()));
+    }
+
+    /**
+     * Convierte un Document de MongoDB a un SessionModel
+     *
+     * @param doc Document de MongoDB
+     * @return SessionModel
+     */
+    private SessionModel documentToSession(Document doc) {
+        if (doc == null) return null;
+
+        return new SessionModel(
+                doc.getObjectId("_id"),
+                doc.getString("tokenHash"),
+                doc.getString("userId"),
+                doc.getString("role"),
+                doc.getString("email"),
+                doc.getString("name"),
+                ToDate.toLocalDateTime(doc.getDate("createdAt")),
+                ToDate.toLocalDateTime(doc.getDate("expiresAt")));
+    }
+}
@@ -0,0 +1,42 @@
+package com.destinity.erp.dashboard;
+
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Controlador REST encargado del resumen del inicio.
+ * Reúne en una sola petición los indicadores que antes requerían una
+ * llamada por módulo.
+ */
+@Path("/dashboard")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class DashboardController {
+
+    @Inject
+    private DashboardService dashboardService;
+
+    /**
+     * Obtiene los indicadores del inicio
+     *
+     * @return respuesta con el resumen; los indicadores lentos se omiten
+     */
+    @GET
+    @Path("/summary")
+    public Response getSummary() {
+        try {
+            return Response.ok(dashboardService.getSummary()).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+}
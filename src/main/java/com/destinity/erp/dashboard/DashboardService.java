@@ -0,0 +1,166 @@
+package com.destinity.erp.dashboard;
+
+import com.destinity.erp.analytics.AnalyticsService;
+import com.destinity.erp.analytics.SalesBucketDTO;
+import com.destinity.erp.hr.UserService;
+import com.destinity.erp.inventory.ProductService;
+import com.destinity.erp.sales.SaleService;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.ConfigService;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio que arma el resumen del inicio en una sola llamada.
+ * Cada indicador se consulta en paralelo en el ejecutor administrado y se
+ * espera como máximo DASHBOARD_KPI_TIMEOUT; los que no responden a tiempo
+ * se omiten en lugar de retrasar la respuesta. El resumen se reutiliza
+ * durante DASHBOARD_CACHE_TTL y solo un hilo lo recalcula a la vez; uno
+ * incompleto solo durante DASHBOARD_PARTIAL_CACHE_TTL, para volver a
+ * intentar pronto los indicadores que faltaron.
+ *
+ * Un indicador que no respondió a tiempo sigue ejecutándose: la siguiente
+ * actualización espera esa misma consulta en lugar de iniciar otra, así
+ * que una consulta lenta no se acumula en el ejecutor.
+ */
+@Traced
+@ApplicationScoped
+public class DashboardService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardService.class);
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_PARTIAL_CACHE_TTL = Duration.ofSeconds(1);
+
+    @Inject
+    private ProductService productService;
+
+    @Inject
+    private SaleService saleService;
+
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private AnalyticsService analyticsService;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final Object refreshLock = new Object();
+    private volatile DashboardSummaryDTO cached;
+    private volatile long cachedUntil;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene los indicadores del inicio
+     *
+     * @return conteos de productos, ventas y usuarios e ingresos de hoy
+     */
+    public DashboardSummaryDTO getSummary() {
+        DashboardSummaryDTO summary = cached;
+        if (summary != null && System.currentTimeMillis() < cachedUntil) return summary;
+        synchronized (refreshLock) {
+            summary = cached;
+            if (summary != null && System.currentTimeMillis() < cachedUntil) return summary;
+            summary = computeSummary();
+            Duration ttl = summary.getUnavailable().isEmpty()
+                    ? config.getDuration("DASHBOARD_CACHE_TTL", DEFAULT_CACHE_TTL)
+                    : config.getDuration("DASHBOARD_PARTIAL_CACHE_TTL", DEFAULT_PARTIAL_CACHE_TTL);
+            cached = summary;
+            cachedUntil = System.currentTimeMillis() + ttl.toMillis();
+            return summary;
+        }
+    }
+
+    private DashboardSummaryDTO computeSummary() {
+        CompletableFuture<Long> products = supply("products", productService::getTotalProductCount);
+        CompletableFuture<Long> sales = supply("sales", saleService::getTotalSaleCount);
+        CompletableFuture<Long> users = supply("users", userService::getTotalUserCount);
+        CompletableFuture<SalesBucketDTO> today = supply("today", this::todayTotals);
+
+        long deadline = System.nanoTime() + config.getDuration("DASHBOARD_KPI_TIMEOUT", DEFAULT_TIMEOUT).toNanos();
+        List<String> unavailable = new ArrayList<>();
+        Long productCount = await("products", products, deadline, unavailable);
+        Long saleCount = await("sales", sales, deadline, unavailable);
+        Long userCount = await("users", users, deadline, unavailable);
+        SalesBucketDTO todayTotals = await("today", today, deadline, unavailable);
+
+        return new DashboardSummaryDTO(productCount, saleCount, userCount,
+                todayTotals != null ? todayTotals.getRevenue() : null,
+                todayTotals != null ? todayTotals.getCount() : null,
+                unavailable, LocalDateTime.now());
+    }
+
+    /**
+     * Ingresos y ventas del día según el agregado diario
+     */
+    private SalesBucketDTO todayTotals() {
+        String today = LocalDate.now().toString();
+        SalesBucketDTO total = new SalesBucketDTO(today, 0, 0, 0);
+        for (SalesBucketDTO bucket : analyticsService.getRevenue(today, today, "day")) {
+            total.setRevenue(total.getRevenue() + bucket.getRevenue());
+            total.setUnits(total.getUnits() + bucket.getUnits());
+            total.setCount(total.getCount() + bucket.getCount());
+        }
+        return total;
+    }
+
+    /**
+     * Inicia el indicador, o devuelve su consulta en curso si la anterior
+     * actualización dejó de esperarla. Solo se llama con refreshLock tomado.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> supply(String name, Supplier<T> supplier) {
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.get(name);
+        if (running != null) return running;
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        inFlight.put(name, future);
+        future.whenComplete((result, e) -> inFlight.remove(name, future));
+        return future;
+    }
+
+    /**
+     * Espera un indicador hasta el límite común; todos empezaron al mismo
+     * tiempo, así que el límite aplica a cada uno por separado
+     */
+    private <T> T await(String name, CompletableFuture<T> future, long deadline, List<String> unavailable) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("El indicador {} no respondió a tiempo", name);
+        } catch (ExecutionException e) {
+            LOGGER.warn("Error al obtener el indicador {}: {}",
+                    name, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unavailable.add(name);
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.destinity.erp.dashboard;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone los indicadores del inicio a traves de la API.
+ * Un indicador que no respondió a tiempo queda en null y su nombre
+ * aparece en unavailable.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSummaryDTO {
+
+    private Long products;
+    private Long sales;
+    private Long users;
+    private Double todayRevenue;
+    private Long todaySales;
+    private List<String> unavailable;
+    private LocalDateTime generatedAt;
+}
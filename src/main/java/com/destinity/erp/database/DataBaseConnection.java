@@ -1,13 +1,22 @@
 package com.destinity.erp.database;
 
-import com.destinity.erp.utils.EnvReader;
+import com.destinity.erp.metrics.MongoCommandMetrics;
+import com.destinity.erp.utils.ConfigService;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,45 +24,167 @@ import java.util.logging.Logger;
 public class DataBaseConnection {
 
     private static final Logger LOGGER = Logger.getLogger(DataBaseConnection.class.getName());
+    private static final long CLOSE_GRACE_SECONDS = 30;
 
     @Inject
-    private EnvReader envReader;
+    private ConfigService config;
 
-    private MongoClient mongoClient;
-    private MongoDatabase database;
+    @Inject
+    private MongoCommandMetrics commandMetrics;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Set<Connection> retiring = new CopyOnWriteArraySet<>();
+    private volatile Connection connection;
+
+    /**
+     * Cliente y base de datos publicados juntos, para que quien lee uno no
+     * obtenga el otro de una conexión distinta
+     */
+    private record Connection(MongoClient client, MongoDatabase database) {
+    }
+
+    public DataBaseConnection() {
+    }
+
+    /**
+     * Crea la conexión fuera del contenedor CDI, por ejemplo en la
+     * verificación de planes de consulta
+     *
+     * @param client cliente de MongoDb
+     * @param databaseName nombre de la base de datos
+     */
+    public DataBaseConnection(MongoClient client, String databaseName) {
+        this.connection = new Connection(client, client.getDatabase(databaseName));
+    }
 
     @PostConstruct
     public void init() {
+        connect();
+        config.onChange(c -> reconnect(), "MONGO_URI", "MONGO_DATABASE", "MONGO_MIN_POOL_SIZE",
+                "MONGO_MAX_POOL_SIZE", "MONGO_MAX_WAIT_MS", "MONGO_CONNECT_TIMEOUT_MS", "MONGO_SOCKET_TIMEOUT_MS");
+    }
+
+    /**
+     * Crea el cliente de MongoDb con los parámetros de pool y tiempos de espera configurados
+     *
+     * @return true si la conexión se estableció
+     */
+    private boolean connect() {
         try {
-            String mongoUri = envReader.getProperty("MONGO_URI");
-            String dbName = envReader.getProperty("MONGO_DATABASE");
+            String mongoUri = config.getString("MONGO_URI");
+            String dbName = config.getString("MONGO_DATABASE");
 
             if (mongoUri == null || dbName == null) {
                 LOGGER.log(Level.SEVERE, "Variables de conexión de Mongo no configuradas");
-                return;
+                return false;
             }
             LOGGER.log(Level.INFO, "Conectando a MongoDB Atlas...");
-            mongoClient = MongoClients.create(mongoUri);
-            database = mongoClient.getDatabase(dbName);
+            MongoClient client = MongoClients.create(buildSettings(mongoUri));
+            connection = new Connection(client, client.getDatabase(dbName));
             LOGGER.log(Level.INFO, "Conexión exitosa a la base de datos: {0}", dbName);
+            return true;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error al conectar con MongoDB", e);
+            return false;
+        }
+    }
+
+    /**
+     * Construye la configuración del cliente a partir de la URI y de las propiedades
+     * del pool; los valores no definidos conservan los de la URI o del driver.
+     * Todos los comandos pasan por MongoCommandMetrics.
+     *
+     * @param mongoUri URI de conexión
+     * @return configuración del cliente
+     */
+    private MongoClientSettings buildSettings(String mongoUri) {
+        int minPool = config.getInt("MONGO_MIN_POOL_SIZE", -1);
+        int maxPool = config.getInt("MONGO_MAX_POOL_SIZE", -1);
+        long maxWait = config.getLong("MONGO_MAX_WAIT_MS", -1);
+        long connectTimeout = config.getLong("MONGO_CONNECT_TIMEOUT_MS", -1);
+        long socketTimeout = config.getLong("MONGO_SOCKET_TIMEOUT_MS", -1);
+
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri))
+                .addCommandListener(commandMetrics)
+                .applyToConnectionPoolSettings(pool -> {
+                    if (maxPool > 0) pool.maxSize(maxPool);
+                    if (minPool >= 0) pool.minSize(minPool);
+                    if (maxWait >= 0) pool.maxWaitTime(maxWait, TimeUnit.MILLISECONDS);
+                })
+                .applyToSocketSettings(socket -> {
+                    if (connectTimeout >= 0) socket.connectTimeout((int) connectTimeout, TimeUnit.MILLISECONDS);
+                    if (socketTimeout >= 0) socket.readTimeout((int) socketTimeout, TimeUnit.MILLISECONDS);
+                })
+                .build();
+    }
+
+    /**
+     * Reemplaza el cliente al cambiar la configuración. Los repositorios obtienen la
+     * base de datos en cada operación, así que las nuevas peticiones usan el nuevo
+     * pool; el cliente anterior se cierra tras un periodo de gracia.
+     */
+    private synchronized void reconnect() {
+        Connection previous = connection;
+        if (!connect()) return;
+        if (previous != null) {
+            retiring.add(previous);
+            scheduler.schedule(() -> {
+                retiring.remove(previous);
+                previous.client().close();
+                LOGGER.log(Level.INFO, "Cliente de MongoDB anterior cerrado");
+            }, CLOSE_GRACE_SECONDS, TimeUnit.SECONDS);
         }
     }
 
     @PreDestroy
     public void close() {
-        if (mongoClient != null) {
-            mongoClient.close();
+        Connection current = connection;
+        if (current != null) {
+            current.client().close();
             LOGGER.log(Level.INFO, "Conexión a MongoDB cerrada");
         }
     }
 
     public MongoDatabase getDatabase() {
-        return database;
+        Connection current = connection;
+        return current != null ? current.database() : null;
+    }
+
+    /**
+     * Base de datos del cliente que creó la sesión. Si la configuración se
+     * recargó durante la transacción, sigue devolviendo la del cliente
+     * anterior mientras no se cierre, porque el driver rechaza usar una
+     * sesión con colecciones de otro cliente.
+     *
+     * @param session sesión en curso o null
+     * @return base de datos de la sesión o la actual si no hay sesión
+     */
+    public MongoDatabase getDatabase(ClientSession session) {
+        Connection current = connection;
+        if (session == null || current == null || session.getOriginator() == current.client())
+            return getDatabase();
+        for (Connection previous : retiring) {
+            if (session.getOriginator() == previous.client()) return previous.database();
+        }
+        return current.database();
     }
 
     public MongoClient getMongoClient() {
-        return mongoClient;
+        Connection current = connection;
+        return current != null ? current.client() : null;
+    }
+
+    /**
+     * Inicia una sesión para agrupar escrituras en una transacción. Las
+     * transacciones requieren un replica set o un clúster de Atlas; las
+     * colecciones de la transacción se obtienen con getDatabase(session).
+     *
+     * @return sesión nueva; quien la pide debe cerrarla
+     */
+    public ClientSession startSession() {
+        return connection.client().startSession();
     }
 }
@@ -0,0 +1,121 @@
+package com.destinity.erp.finance;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio de los saldos materializados por mes.
+ * Cada documento de finance_balances tiene como _id el periodo (yyyy-MM) y
+ * acumula con $inc los ingresos, gastos y el desglose por categoría, así la
+ * página de finanzas lee un documento por mes en lugar de sumar el libro.
+ */
+@Traced
+@ApplicationScoped
+public class BalanceRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BalanceRepository.class);
+    private static final String COLLECTION_NAME = "finance_balances";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Obtiene la colección de saldos
+     *
+     * @return MongoCollection de finance_balances
+     */
+    private MongoCollection<Document> getBalanceCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Suma un movimiento al saldo de su periodo
+     *
+     * @param period periodo yyyy-MM
+     * @param type INCOME o EXPENSE
+     * @param category categoría del movimiento
+     * @param amount monto (negativo para reversos)
+     */
+    public void apply(String period, String type, String category, double amount) {
+        String field = LedgerEntryModel.TYPE_INCOME.equals(type) ? "income" : "expenses";
+        try {
+            getBalanceCollection().updateOne(
+                    Filters.eq("_id", period),
+                    Updates.combine(
+                            Updates.inc(field, amount),
+                            Updates.inc(field + "ByCategory." + categoryKey(category), amount)),
+                    new UpdateOptions().upsert(true));
+        } catch (MongoException e) {
+            LOGGER.error("Error al actualizar el saldo de {}: {}", period, e.getMessage());
+            throw CustomException.dbError("Error al actualizar los saldos.");
+        }
+    }
+
+    /**
+     * Saldos de los periodos del rango
+     *
+     * @param from periodo inicial yyyy-MM (inclusive)
+     * @param to periodo final yyyy-MM (inclusive)
+     * @return documentos de saldo ordenados por periodo
+     */
+    public List<Document> findRange(String from, String to) {
+        try {
+            return getBalanceCollection()
+                    .find(Filters.and(Filters.gte("_id", from), Filters.lte("_id", to)))
+                    .sort(Sorts.ascending("_id"))
+                    .into(new ArrayList<>());
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener los saldos: {}", e.getMessage());
+            throw CustomException.dbError("Error al obtener los saldos.");
+        }
+    }
+
+    /**
+     * Reemplaza los saldos por los recalculados desde el libro contable
+     *
+     * @param balances documentos de saldo con _id de periodo
+     */
+    public void replaceAll(Collection<Document> balances) {
+        try {
+            List<String> periods = new ArrayList<>();
+            for (Document balance : balances) {
+                getBalanceCollection().replaceOne(Filters.eq("_id", balance.getString("_id")), balance,
+                        new ReplaceOptions().upsert(true));
+                periods.add(balance.getString("_id"));
+            }
+            getBalanceCollection().deleteMany(Filters.nin("_id", periods));
+        } catch (MongoException e) {
+            LOGGER.error("Error al reemplazar los saldos: {}", e.getMessage());
+            throw CustomException.dbError("Error al reconstruir los saldos.");
+        }
+    }
+
+    /**
+     * Nombre de campo seguro para una categoría: MongoDb no admite puntos
+     * ni un $ inicial en las claves
+     *
+     * @param category categoría original
+     * @return clave utilizable en el desglose
+     */
+    static String categoryKey(String category) {
+        if (category == null || category.isBlank()) return "Sin categoría";
+        String key = category.trim().replace('.', '_');
+        return key.startsWith("$") ? "_" + key.substring(1) : key;
+    }
+}
@@ -0,0 +1,127 @@
+package com.destinity.erp.finance;
+
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST encargado de las peticiones de finanzas.
+ * Expone el registro de gastos, la consulta del libro contable y los
+ * totales precalculados que alimentan la página de finanzas.
+ */
+@Path("/finances")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class FinanceController {
+
+    @Inject
+    private FinanceService financeService;
+
+    /**
+     * Registra un gasto
+     *
+     * @param expense datos del gasto
+     * @return respuesta con el movimiento registrado o error
+     */
+    @POST
+    @Path("/expenses")
+    public Response createExpense(LedgerEntryModel expense) {
+        try {
+            LedgerEntryDTO entry = financeService.recordExpense(expense);
+            return Response.status(Response.Status.CREATED).entity(entry).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene los movimientos más recientes
+     *
+     * @param type income o expense (opcional)
+     * @param before ID del último movimiento recibido, para la siguiente página
+     * @param limit número de movimientos
+     * @return respuesta con la lista de movimientos
+     */
+    @GET
+    @Path("/entries")
+    public Response getEntries(@QueryParam("type") String type, @QueryParam("before") String before,
+            @QueryParam("limit") int limit) {
+        try {
+            List<LedgerEntryDTO> entries = financeService.getEntries(type, before, limit);
+            return Response.ok(entries).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene los ingresos, gastos y desglose por categoría de un rango de meses
+     *
+     * @param from mes inicial (yyyy-MM)
+     * @param to mes final (yyyy-MM)
+     * @return respuesta con el resumen financiero
+     */
+    @GET
+    @Path("/summary")
+    public Response getSummary(@QueryParam("from") String from, @QueryParam("to") String to) {
+        try {
+            FinanceSummaryDTO summary = financeService.getSummary(from, to);
+            return Response.ok(summary).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Recalcula los saldos materializados desde el libro contable
+     *
+     * @return respuesta con el número de meses reconstruidos
+     */
+    @POST
+    @Path("/balances/rebuild")
+    public Response rebuildBalances() {
+        try {
+            int periods = financeService.rebuildBalances();
+            return Response.ok(Map.of("message", "Saldos reconstruidos", "periods", periods)).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Concilia los ingresos del libro contable con las ventas del rango
+     *
+     * @param from mes inicial (yyyy-MM)
+     * @param to mes final (yyyy-MM)
+     * @return respuesta con las ventas revisadas y los movimientos registrados
+     */
+    @POST
+    @Path("/ledger/reconcile")
+    public Response reconcileSales(@QueryParam("from") String from, @QueryParam("to") String to) {
+        try {
+            return Response.ok(financeService.reconcileSales(from, to)).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+}
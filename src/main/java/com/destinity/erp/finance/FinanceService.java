@@ -0,0 +1,356 @@
+package com.destinity.erp.finance;
+
+import com.destinity.erp.inventory.ProductCategoryCache;
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.InputValidator;
+import com.destinity.erp.utils.ToDate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio encargado de la lógica de negocio de finanzas.
+ * Registra los movimientos en el libro contable y actualiza en el mismo paso
+ * el saldo materializado de su mes. Si la actualización del saldo falla, el
+ * movimiento se conserva y el saldo se corrige con la reconstrucción.
+ */
+@Traced
+@ApplicationScoped
+public class FinanceService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FinanceService.class);
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 200;
+    private static final int MAX_RANGE_MONTHS = 120;
+    private static final String SALES_ACCOUNT = "Ventas";
+    private static final String PURCHASES_CATEGORY = "Compras";
+
+    @Inject
+    private LedgerRepository ledgerRepository;
+
+    @Inject
+    private BalanceRepository balanceRepository;
+
+    @Inject
+    private ProductCategoryCache categoryCache;
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    /**
+     * Registra un gasto capturado manualmente
+     *
+     * @param expense datos del gasto
+     * @return DTO del movimiento registrado
+     * @throws CustomException si el gasto no es válido
+     */
+    public LedgerEntryDTO recordExpense(LedgerEntryModel expense) {
+        InputValidator.isNotEmpty(expense.getDescription(), "Descripción");
+        InputValidator.isNotEmpty(expense.getCategory(), "Categoría");
+        if (expense.getAmount() == null || expense.getAmount() <= 0)
+            throw CustomException.business("El monto del gasto debe ser mayor a cero");
+
+        LedgerEntryModel entry = new LedgerEntryModel();
+        entry.setType(LedgerEntryModel.TYPE_EXPENSE);
+        entry.setCategory(expense.getCategory().trim());
+        entry.setDescription(expense.getDescription().trim());
+        entry.setAccount(expense.getAccount());
+        entry.setAmount(expense.getAmount());
+        entry.setSource(LedgerEntryModel.SOURCE_MANUAL);
+        entry.setEntryDate(expense.getEntryDate() != null ? expense.getEntryDate() : LocalDateTime.now());
+
+        post(entry);
+        LOGGER.info("Gasto registrado: {}", entry.getId());
+        return new LedgerEntryDTO(entry);
+    }
+
+    /**
+     * Registra el gasto de una orden de compra recibida, una sola vez por orden
+     *
+     * @param orderId ID de la orden de compra
+     * @param provider empresa del proveedor
+     * @param amount total de la orden
+     * @param date fecha de recepción
+     */
+    public void recordPurchaseExpense(String orderId, String provider, Double amount, LocalDateTime date) {
+        if (amount == null || amount <= 0) return;
+        List<LedgerEntryModel> entries = ledgerRepository.findBySource(LedgerEntryModel.SOURCE_PURCHASE, orderId);
+        if (netAmount(entries) > 0) return;
+
+        LedgerEntryModel entry = new LedgerEntryModel();
+        entry.setType(LedgerEntryModel.TYPE_EXPENSE);
+        entry.setCategory(PURCHASES_CATEGORY);
+        entry.setDescription("Compra " + orderId + (provider != null ? " - " + provider : ""));
+        entry.setAccount(PURCHASES_CATEGORY);
+        entry.setAmount(amount);
+        entry.setSource(LedgerEntryModel.SOURCE_PURCHASE);
+        entry.setSourceId(orderId);
+        entry.setKey(entryKey(LedgerEntryModel.SOURCE_PURCHASE, orderId, entries.size()));
+        entry.setEntryDate(date != null ? date : LocalDateTime.now());
+        post(entry);
+    }
+
+    /**
+     * Registra el ingreso de una venta, a menos que ya tenga un ingreso vigente.
+     * La clave del movimiento depende de cuántos tiene ya la venta, así que
+     * dos registros simultáneos generan la misma clave y el índice único
+     * descarta el segundo.
+     *
+     * @param sale venta cobrada
+     * @return true si se registró el ingreso
+     */
+    public boolean recordSaleIncome(SaleModel sale) {
+        if (sale.getId() == null || sale.getTotalAmount() == null || sale.getTotalAmount() <= 0) return false;
+        String saleId = sale.getId().toHexString();
+        List<LedgerEntryModel> entries = ledgerRepository.findBySource(LedgerEntryModel.SOURCE_SALE, saleId);
+        if (netAmount(entries) > 0) return false;
+
+        LedgerEntryModel entry = new LedgerEntryModel();
+        entry.setType(LedgerEntryModel.TYPE_INCOME);
+        entry.setCategory(categoryCache.getCategory(sale.getProductSold() != null ? sale.getProductSold().getId() : null));
+        entry.setDescription("Venta " + saleId);
+        entry.setAccount(SALES_ACCOUNT);
+        entry.setAmount(sale.getTotalAmount());
+        entry.setSource(LedgerEntryModel.SOURCE_SALE);
+        entry.setSourceId(saleId);
+        entry.setKey(entryKey(LedgerEntryModel.SOURCE_SALE, saleId, entries.size()));
+        entry.setEntryDate(sale.getSaleDate() != null ? sale.getSaleDate() : LocalDateTime.now());
+        return post(entry);
+    }
+
+    /**
+     * Registra el reverso del ingreso vigente de una venta cancelada o eliminada.
+     * El reverso se fecha en el mes de la venta para que el saldo de ese mes
+     * refleje el ingreso neto.
+     *
+     * @param sale venta cancelada o eliminada
+     */
+    public void reverseSaleIncome(SaleModel sale) {
+        if (sale.getId() != null) reverseSaleIncome(sale.getId().toHexString());
+    }
+
+    /**
+     * Registra el reverso del ingreso vigente de una venta, si lo tiene
+     *
+     * @param saleId ID de la venta
+     * @return true si se registró el reverso
+     */
+    private boolean reverseSaleIncome(String saleId) {
+        List<LedgerEntryModel> entries = ledgerRepository.findBySource(LedgerEntryModel.SOURCE_SALE, saleId);
+        double net = netAmount(entries);
+        if (net <= 0) return false;
+
+        LedgerEntryModel original = entries.get(entries.size() - 1);
+        LedgerEntryModel reversal = new LedgerEntryModel();
+        reversal.setType(LedgerEntryModel.TYPE_INCOME);
+        reversal.setCategory(original.getCategory());
+        reversal.setDescription("Reverso venta " + saleId);
+        reversal.setAccount(original.getAccount());
+        reversal.setAmount(-net);
+        reversal.setSource(LedgerEntryModel.SOURCE_SALE);
+        reversal.setSourceId(saleId);
+        reversal.setReversalOf(original.getId());
+        reversal.setKey(entryKey(LedgerEntryModel.SOURCE_SALE, saleId, entries.size()));
+        reversal.setEntryDate(original.getEntryDate());
+        return post(reversal);
+    }
+
+    /**
+     * Concilia el libro contable con las ventas de un rango de meses: registra
+     * el ingreso de las ventas vigentes que no lo tienen y el reverso de las
+     * canceladas o eliminadas que aún lo conservan. Recupera los movimientos
+     * que no se registraron porque el evento de la venta falló; se puede
+     * repetir sin duplicar movimientos.
+     *
+     * @param from mes inicial yyyy-MM, por defecto el mes actual
+     * @param to mes final yyyy-MM inclusive, por defecto igual al inicial
+     * @return ventas revisadas, ingresos y reversos registrados
+     */
+    public Map<String, Object> reconcileSales(String from, String to) {
+        YearMonth[] range = parsePeriods(from, to);
+        Map<String, Double> net = new HashMap<>(
+                ledgerRepository.netBySale(range[0].toString(), range[1].toString()));
+        int[] posted = new int[1];
+        int reversed = 0;
+
+        long sales = saleRepository.forEachSaleInRange(ToDate.toDate(range[0].atDay(1).atStartOfDay()),
+                ToDate.toDate(range[1].plusMonths(1).atDay(1).atStartOfDay()), sale -> {
+            if (sale.getId() == null) return;
+            double current = net.getOrDefault(sale.getId().toHexString(), 0.0);
+            net.remove(sale.getId().toHexString());
+            boolean counted = SaleEvent.isCounted(sale.getStatus());
+            if (counted && current <= 0 && recordSaleIncome(sale)) posted[0]++;
+            if (!counted && current > 0) net.put(sale.getId().toHexString(), current);
+        });
+
+        // Quedan las ventas canceladas con ingreso y las eliminadas
+        for (Map.Entry<String, Double> entry : net.entrySet()) {
+            if (entry.getValue() > 0 && reverseSaleIncome(entry.getKey())) reversed++;
+        }
+        LOGGER.info("Libro contable conciliado del {} al {}: {} ventas, {} ingresos y {} reversos registrados",
+                range[0], range[1], sales, posted[0], reversed);
+        return Map.of("sales", sales, "posted", posted[0], "reversed", reversed);
+    }
+
+    /**
+     * Movimientos recientes del libro contable
+     *
+     * @param type INCOME, EXPENSE o null para todos
+     * @param before ID del último movimiento de la página anterior o null
+     * @param limit número de movimientos
+     * @return movimientos del más reciente al más antiguo
+     */
+    public List<LedgerEntryDTO> getEntries(String type, String before, int limit) {
+        String normalizedType = (type == null || type.isBlank()) ? null : type.toUpperCase();
+        if (normalizedType != null && !LedgerEntryModel.TYPE_INCOME.equals(normalizedType)
+                && !LedgerEntryModel.TYPE_EXPENSE.equals(normalizedType))
+            throw CustomException.business("El tipo no es válido. Usa: income, expense");
+        if (before != null && !before.isBlank() && !ObjectId.isValid(before))
+            throw CustomException.business("El cursor de paginación no es válido");
+
+        List<LedgerEntryModel> entries = ledgerRepository.findEntries(normalizedType,
+                before != null && !before.isBlank() ? new ObjectId(before) : null,
+                limit > 0 ? Math.min(limit, MAX_LIMIT) : DEFAULT_LIMIT);
+        LOGGER.info("Movimientos obtenidos: {}", entries.size());
+        return entries.stream().map(LedgerEntryDTO::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Totales del rango de meses a partir de los saldos materializados
+     *
+     * @param from mes inicial yyyy-MM, por defecto el mes actual
+     * @param to mes final yyyy-MM inclusive, por defecto igual al inicial
+     * @return ingresos, gastos, neto y desglose por categoría
+     */
+    public FinanceSummaryDTO getSummary(String from, String to) {
+        YearMonth[] range = parsePeriods(from, to);
+        YearMonth start = range[0];
+        YearMonth end = range[1];
+
+        double income = 0;
+        double expenses = 0;
+        Map<String, Double> incomeByCategory = new TreeMap<>();
+        Map<String, Double> expensesByCategory = new TreeMap<>();
+        for (Document balance : balanceRepository.findRange(start.toString(), end.toString())) {
+            income += ((Number) balance.get("income", 0.0)).doubleValue();
+            expenses += ((Number) balance.get("expenses", 0.0)).doubleValue();
+            addAll(incomeByCategory, balance.get("incomeByCategory", Document.class));
+            addAll(expensesByCategory, balance.get("expensesByCategory", Document.class));
+        }
+        return new FinanceSummaryDTO(start.toString(), end.toString(), income, expenses, income - expenses,
+                sortByAmount(incomeByCategory), sortByAmount(expensesByCategory));
+    }
+
+    /**
+     * Recalcula todos los saldos a partir del libro contable
+     *
+     * @return número de meses reconstruidos
+     */
+    public int rebuildBalances() {
+        Map<String, Document> balances = new TreeMap<>();
+        ledgerRepository.sumByPeriod(group -> {
+            Document id = group.get("_id", Document.class);
+            String period = id.getString("period");
+            if (period == null) return;
+            String field = LedgerEntryModel.TYPE_INCOME.equals(id.getString("type")) ? "income" : "expenses";
+            double total = ((Number) group.get("total", 0.0)).doubleValue();
+
+            Document balance = balances.computeIfAbsent(period, p -> new Document("_id", p)
+                    .append("income", 0.0).append("expenses", 0.0)
+                    .append("incomeByCategory", new Document()).append("expensesByCategory", new Document()));
+            balance.put(field, balance.getDouble(field) + total);
+            balance.get(field + "ByCategory", Document.class)
+                    .merge(BalanceRepository.categoryKey(id.getString("category")), total, (a, b) -> (Double) a + (Double) b);
+        });
+        balanceRepository.replaceAll(balances.values());
+        LOGGER.info("Saldos reconstruidos: {} meses", balances.size());
+        return balances.size();
+    }
+
+    /**
+     * Registra el movimiento y lo suma al saldo de su mes. Si otro proceso ya
+     * registró un movimiento con la misma clave, no se suma de nuevo.
+     *
+     * @param entry movimiento a registrar
+     * @return true si el movimiento se registró
+     */
+    private boolean post(LedgerEntryModel entry) {
+        entry.setCreatedAt(LocalDateTime.now());
+        if (ledgerRepository.insertEntry(entry) == null) return false;
+        try {
+            balanceRepository.apply(entry.getEntryDate().format(LedgerRepository.PERIOD_FORMAT),
+                    entry.getType(), entry.getCategory(), entry.getAmount());
+        } catch (CustomException e) {
+            LOGGER.error("Movimiento {} registrado sin actualizar el saldo", entry.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Interpreta y valida un rango de meses
+     *
+     * @param from mes inicial yyyy-MM, por defecto el mes actual
+     * @param to mes final yyyy-MM inclusive, por defecto igual al inicial
+     * @return arreglo con el mes inicial y final
+     * @throws CustomException si los periodos no son válidos
+     */
+    private YearMonth[] parsePeriods(String from, String to) {
+        YearMonth start;
+        YearMonth end;
+        try {
+            start = (from == null || from.isBlank()) ? YearMonth.now() : YearMonth.parse(from);
+            end = (to == null || to.isBlank()) ? start : YearMonth.parse(to);
+        } catch (DateTimeParseException e) {
+            throw CustomException.business("Los periodos deben tener el formato yyyy-MM");
+        }
+        if (start.isAfter(end))
+            throw CustomException.business("El periodo inicial no puede ser posterior al final");
+        if (ChronoUnit.MONTHS.between(start, end) > MAX_RANGE_MONTHS)
+            throw CustomException.business("El rango máximo es de " + MAX_RANGE_MONTHS + " meses");
+        return new YearMonth[]{start, end};
+    }
+
+    /**
+     * Clave única de un movimiento automático: origen, documento y número de
+     * movimientos que el documento tenía antes de este
+     */
+    private String entryKey(String source, String sourceId, int sequence) {
+        return source + ":" + sourceId + ":" + sequence;
+    }
+
+    private double netAmount(List<LedgerEntryModel> entries) {
+        return entries.stream().mapToDouble(e -> e.getAmount() != null ? e.getAmount() : 0.0).sum();
+    }
+
+    private void addAll(Map<String, Double> target, Document categories) {
+        if (categories == null) return;
+        categories.forEach((category, amount) ->
+                target.merge(category, ((Number) amount).doubleValue(), Double::sum));
+    }
+
+    private Map<String, Double> sortByAmount(Map<String, Double> categories) {
+        Map<String, Double> sorted = new LinkedHashMap<>();
+        categories.entrySet().stream()
+                .filter(e -> Math.abs(e.getValue()) > 0.005)
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+}
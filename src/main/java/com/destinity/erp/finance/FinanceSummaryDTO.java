@@ -0,0 +1,24 @@
+package com.destinity.erp.finance;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone los totales de ingresos y gastos de uno o varios meses,
+ * con el desglose por categoría, leídos de los saldos precalculados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinanceSummaryDTO {
+
+    private String from;
+    private String to;
+    private double income;
+    private double expenses;
+    private double net;
+    private Map<String, Double> incomeByCategory;
+    private Map<String, Double> expensesByCategory;
+}
@@ -0,0 +1,35 @@
+package com.destinity.erp.finance;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone un movimiento del libro contable a traves de la API.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntryDTO {
+
+    private String id;
+    private String type;
+    private String category;
+    private String description;
+    private String account;
+    private Double amount;
+    private LocalDateTime date;
+
+    public LedgerEntryDTO(LedgerEntryModel entry) {
+        this.id = (entry.getId() != null)
+                ? entry.getId().toHexString()
+                : null;
+        this.type = entry.getType();
+        this.category = entry.getCategory();
+        this.description = entry.getDescription();
+        this.account = entry.getAccount();
+        this.amount = entry.getAmount();
+        this.date = entry.getEntryDate();
+    }
+}
@@ -0,0 +1,39 @@
+package com.destinity.erp.finance;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+/**
+ * Modelo que representa un movimiento del libro contable.
+ * Los movimientos no se modifican ni se eliminan: una corrección se registra
+ * como un nuevo movimiento con el monto contrario que referencia al original.
+ * Los movimientos generados por una venta o una compra llevan una clave única
+ * (origen, documento y secuencia) para que no se registren dos veces.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntryModel {
+
+    public static final String TYPE_INCOME = "INCOME";
+    public static final String TYPE_EXPENSE = "EXPENSE";
+    public static final String SOURCE_SALE = "SALE";
+    public static final String SOURCE_MANUAL = "MANUAL";
+    public static final String SOURCE_PURCHASE = "PURCHASE";
+
+    private ObjectId id;
+    private String type;
+    private String category;
+    private String description;
+    private String account;
+    private Double amount;
+    private String source;
+    private String sourceId;
+    private ObjectId reversalOf;
+    private String key;
+    private LocalDateTime entryDate;
+    private LocalDateTime createdAt;
+}
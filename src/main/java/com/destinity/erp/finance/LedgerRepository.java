@@ -0,0 +1,246 @@
+package com.destinity.erp.finance;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio del libro contable. La colección ledger solo admite inserciones;
+ * no expone operaciones de actualización ni de borrado. Cada documento guarda
+ * además su periodo (yyyy-MM) para reconstruir los saldos sin calcular fechas.
+ */
+@Traced
+@ApplicationScoped
+public class LedgerRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerRepository.class);
+    private static final String COLLECTION_NAME = "ledger";
+    static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Crea los índices de la consulta de movimientos por tipo, de la búsqueda
+     * por documento de origen y por periodo, y el índice único de la clave de
+     * los movimientos automáticos (los manuales no tienen clave)
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getLedgerCollection().createIndex(Indexes.compoundIndex(
+                    Indexes.ascending("type"), Indexes.descending("_id")));
+            getLedgerCollection().createIndex(Indexes.ascending("source", "sourceId"));
+            getLedgerCollection().createIndex(Indexes.ascending("source", "period"));
+            getLedgerCollection().createIndex(Indexes.ascending("key"), new IndexOptions().unique(true)
+                    .partialFilterExpression(Filters.type("key", BsonType.STRING)));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices del libro contable: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección del libro contable
+     *
+     * @return MongoCollection de ledger
+     */
+    private MongoCollection<Document> getLedgerCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Agrega un movimiento al libro contable
+     *
+     * @param entry movimiento a registrar
+     * @return ID del movimiento o null si ya existe un movimiento con la misma clave
+     */
+    public String insertEntry(LedgerEntryModel entry) {
+        try {
+            if (entry.getId() == null) entry.setId(new ObjectId());
+            getLedgerCollection().insertOne(entryToDocument(entry));
+            return entry.getId().toHexString();
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                LOGGER.info("El movimiento {} ya estaba registrado", entry.getKey());
+                return null;
+            }
+            LOGGER.error("Error al registrar el movimiento contable: {}", e.getMessage());
+            throw CustomException.dbError("Error al registrar el movimiento contable.");
+        } catch (MongoException e) {
+            LOGGER.error("Error al registrar el movimiento contable: {}", e.getMessage());
+            throw CustomException.dbError("Error al registrar el movimiento contable.");
+        }
+    }
+
+    /**
+     * Movimientos más recientes, paginados por cursor sobre el _id
+     *
+     * @param type tipo de movimiento o null para todos
+     * @param before ID a partir del cual continuar (exclusivo) o null
+     * @param limit número máximo de movimientos
+     * @return movimientos del más reciente al más antiguo
+     */
+    public List<LedgerEntryModel> findEntries(String type, ObjectId before, int limit) {
+        try {
+            List<Bson> filters = new ArrayList<>();
+            if (type != null) filters.add(Filters.eq("type", type));
+            if (before != null) filters.add(Filters.lt("_id", before));
+            Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
+
+            List<LedgerEntryModel> entries = new ArrayList<>();
+            FindIterable<Document> documents = getLedgerCollection()
+                    .find(filter)
+                    .sort(Sorts.descending("_id"))
+                    .limit(limit);
+
+            for (Document doc : documents) entries.add(documentToEntry(doc));
+            return entries;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener los movimientos contables: {}", e.getMessage());
+            throw CustomException.dbError("Error al obtener los movimientos contables.");
+        }
+    }
+
+    /**
+     * Movimientos registrados para un documento de origen
+     *
+     * @param source origen del movimiento
+     * @param sourceId ID del documento de origen
+     * @return movimientos en orden de registro
+     */
+    public List<LedgerEntryModel> findBySource(String source, String sourceId) {
+        try {
+            List<LedgerEntryModel> entries = new ArrayList<>();
+            FindIterable<Document> documents = getLedgerCollection()
+                    .find(Filters.and(Filters.eq("source", source), Filters.eq("sourceId", sourceId)))
+                    .sort(Sorts.ascending("_id"));
+
+            for (Document doc : documents) entries.add(documentToEntry(doc));
+            return entries;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener los movimientos de {}: {}", sourceId, e.getMessage());
+            throw CustomException.dbError("Error al obtener los movimientos contables.");
+        }
+    }
+
+    /**
+     * Ingreso neto registrado por venta en un rango de periodos, sumado en el
+     * servidor. Se usa para conciliar el libro contable con las ventas.
+     *
+     * @param fromPeriod periodo inicial yyyy-MM (inclusive)
+     * @param toPeriod periodo final yyyy-MM (inclusive)
+     * @return monto neto por ID de venta
+     */
+    public Map<String, Double> netBySale(String fromPeriod, String toPeriod) {
+        try {
+            Map<String, Double> net = new HashMap<>();
+            List<Bson> pipeline = List.of(
+                    new Document("$match", Filters.and(
+                            Filters.eq("source", LedgerEntryModel.SOURCE_SALE),
+                            Filters.gte("period", fromPeriod),
+                            Filters.lte("period", toPeriod))),
+                    new Document("$group", new Document("_id", "$sourceId")
+                            .append("total", new Document("$sum", "$amount"))));
+            for (Document doc : getLedgerCollection().aggregate(pipeline)) {
+                String saleId = doc.getString("_id");
+                if (saleId != null) net.put(saleId, ((Number) doc.get("total", 0.0)).doubleValue());
+            }
+            return net;
+        } catch (MongoException e) {
+            LOGGER.error("Error al sumar los ingresos por venta: {}", e.getMessage());
+            throw CustomException.dbError("Error al conciliar el libro contable.");
+        }
+    }
+
+    /**
+     * Suma los movimientos por periodo, tipo y categoría en el servidor.
+     * Se usa para reconstruir los saldos materializados.
+     *
+     * @param consumer acción por cada grupo con _id {period, type, category} y total
+     */
+    public void sumByPeriod(Consumer<Document> consumer) {
+        try {
+            List<Bson> pipeline = List.of(new Document("$group", new Document("_id",
+                    new Document("period", "$period").append("type", "$type").append("category", "$category"))
+                    .append("total", new Document("$sum", "$amount"))));
+            for (Document doc : getLedgerCollection().aggregate(pipeline)) consumer.accept(doc);
+        } catch (MongoException e) {
+            LOGGER.error("Error al sumar el libro contable: {}", e.getMessage());
+            throw CustomException.dbError("Error al reconstruir los saldos.");
+        }
+    }
+
+    /**
+     * Convierte un LedgerEntryModel a un Document de MongoDB
+     *
+     * @param entry movimiento contable
+     * @return Document para MongoDB
+     */
+    private Document entryToDocument(LedgerEntryModel entry) {
+        return new Document()
+                .append("_id", entry.getId())
+                .append("type", entry.getType())
+                .append("category", entry.getCategory())
+                .append("description", entry.getDescription())
+                .append("account", entry.getAccount())
+                .append("amount", entry.getAmount())
+                .append("source", entry.getSource())
+                .append("sourceId", entry.getSourceId())
+                .append("reversalOf", entry.getReversalOf())
+                .append("key", entry.getKey())
+                .append("period", entry.getEntryDate().format(PERIOD_FORMAT))
+                .append("entryDate", ToDate.toDate(entry.getEntryDate()))
+                .append("createdAt", ToDate.toDate(entry.getCreatedAt()));
+    }
+
+    /**
+     * Convierte un Document de MongoDB a un LedgerEntryModel
+     *
+     * @param doc Document de MongoDB
+     * @return LedgerEntryModel
+     */
+    private LedgerEntryModel documentToEntry(Document doc) {
+        if (doc == null) return null;
+
+        LedgerEntryModel entry = new LedgerEntryModel();
+        entry.setId(doc.getObjectId("_id"));
+        entry.setType(doc.getString("type"));
+        entry.setCategory(doc.getString("category"));
+        entry.setDescription(doc.getString("description"));
+        entry.setAccount(doc.getString("account"));
+        entry.setAmount(doc.getDouble("amount"));
+        entry.setSource(doc.getString("source"));
+        entry.setSourceId(doc.getString("sourceId"));
+        entry.setReversalOf(doc.getObjectId("reversalOf"));
+        entry.setKey(doc.getString("key"));
+        entry.setEntryDate(ToDate.toLocalDateTime(doc.getDate("entryDate")));
+        entry.setCreatedAt(ToDate.toLocalDateTime(doc.getDate("createdAt")));
+        return entry;
+    }
+}
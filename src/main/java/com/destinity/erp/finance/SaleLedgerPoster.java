@@ -0,0 +1,52 @@
+package com.destinity.erp.finance;
+
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registra en el libro contable los ingresos de las ventas.
+ * Una venta creada o reactivada genera un ingreso; una venta cancelada o
+ * eliminada genera el reverso del ingreso vigente. Un fallo no revierte la
+ * venta: se registra en el log y se recupera con la conciliación del libro
+ * (POST /finances/ledger/reconcile).
+ */
+@ApplicationScoped
+public class SaleLedgerPoster {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleLedgerPoster.class);
+
+    @Inject
+    private FinanceService financeService;
+
+    /**
+     * Traduce cada cambio de una venta en movimientos contables
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        SaleModel sale = event.getSale();
+        if (sale == null) return;
+
+        try {
+            switch (event.getType()) {
+                case CREATED -> {
+                    if (SaleEvent.isCounted(sale.getStatus())) financeService.recordSaleIncome(sale);
+                }
+                case DELETED -> financeService.reverseSaleIncome(sale);
+                case UPDATED -> {
+                    boolean wasCounted = SaleEvent.isCounted(event.getPreviousStatus());
+                    boolean isCounted = SaleEvent.isCounted(sale.getStatus());
+                    if (wasCounted && !isCounted) financeService.reverseSaleIncome(sale);
+                    if (!wasCounted && isCounted) financeService.recordSaleIncome(sale);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo registrar en el libro contable la venta {}: {}", sale.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.destinity.erp.health;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Map;
+
+/**
+ * Controlador REST con los endpoint de salud para el balanceador de carga.
+ * La aplicación solo se reporta lista cuando terminó el calentamiento.
+ */
+@Path("/health")
+@Produces(MediaType.APPLICATION_JSON)
+public class HealthController {
+
+    @Inject
+    private WarmupService warmupService;
+
+    /**
+     * Indica que el proceso está vivo
+     *
+     * @return respuesta 200
+     */
+    @GET
+    @Path("/live")
+    public Response live() {
+        return Response.ok(Map.of("status", "UP")).build();
+    }
+
+    /**
+     * Indica si la aplicación puede recibir tráfico. Solo consulta el estado:
+     * si el calentamiento falló, WarmupService lo reintenta por su cuenta.
+     *
+     * @return 200 si está lista, 503 en caso contrario
+     */
+    @GET
+    @Path("/ready")
+    public Response ready() {
+        if (warmupService.isReady()) {
+            return Response.ok(warmupService.getReport()).build();
+        }
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(warmupService.getReport())
+                .build();
+    }
+}
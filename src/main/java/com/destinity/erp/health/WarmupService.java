@@ -0,0 +1,338 @@
+package com.destinity.erp.health;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.hr.UserDTO;
+import com.destinity.erp.hr.UserService;
+import com.destinity.erp.inventory.ProductDTO;
+import com.destinity.erp.inventory.ProductService;
+import com.destinity.erp.sales.SaleDTO;
+import com.destinity.erp.sales.SaleService;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.JwtUtil;
+import com.destinity.erp.utils.PasswordHasher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.Document;
+
+/**
+ * Servicio que calienta la aplicación al iniciar, antes de recibir tráfico.
+ * Abre el mínimo de conexiones del pool de MongoDb, inicializa JwtUtil y
+ * PasswordHasher, ejecuta consultas sintéticas sobre los servicios más usados
+ * (mapeo de documentos y DTOs), serializa las respuestas con JSON-B, ejecuta las
+ * tareas WarmupTask registradas y, si se configura WARMUP_BASE_URL, realiza
+ * peticiones HTTP reales a los endpoints. Hasta que termina, la aplicación
+ * se reporta como no lista; si falla, se reintenta cada WARMUP_RETRY_INTERVAL.
+ */
+@ApplicationScoped
+public class WarmupService {
+
+    private static final Logger LOGGER = Logger.getLogger(WarmupService.class.getName());
+    private static final int DEFAULT_ITERATIONS = 50;
+    private static final int DEFAULT_CONNECTIONS = 2;
+    private static final List<String> HOT_ENDPOINTS = List.of(
+            "/products/all?page=0&size=20",
+            "/sales/all?page=0&size=20",
+            "/users/all?page=0&size=20");
+
+    @Inject
+    private ConfigService config;
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    @Inject
+    private ProductService productService;
+
+    @Inject
+    private SaleService saleService;
+
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    @Inject
+    private JwtUtil jwtUtil;
+
+    @Inject
+    private Instance<WarmupTask> tasks;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Map<String, String> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile WarmupStatus status = WarmupStatus.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile ScheduledFuture<?> retry;
+    private Jsonb jsonb;
+
+    /**
+     * Estados posibles del calentamiento
+     */
+    public enum WarmupStatus {
+        PENDING,
+        WARMING_UP,
+        READY,
+        FAILED
+    }
+
+    @PostConstruct
+    public void init() {
+        jsonb = JsonbBuilder.create();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (retry != null) retry.cancel(false);
+        try {
+            jsonb.close();
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "No se pudo cerrar JSON-B: {0}", e.getMessage());
+        }
+    }
+
+    /**
+     * Inicia el calentamiento al arrancar la aplicación
+     *
+     * @param init evento de inicialización del contexto de aplicación
+     */
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        start();
+    }
+
+    /**
+     * Lanza el calentamiento en el executor administrado si no está en curso
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) return;
+        status = WarmupStatus.WARMING_UP;
+        try {
+            executor.execute(this::run);
+        } catch (RuntimeException e) {
+            running.set(false);
+            status = WarmupStatus.FAILED;
+            LOGGER.log(Level.SEVERE, "No se pudo iniciar el calentamiento: {0}", e.getMessage());
+            scheduleRetry();
+        }
+    }
+
+    /**
+     * Programa un nuevo intento tras WARMUP_RETRY_INTERVAL; el endpoint de
+     * readiness solo consulta el estado
+     */
+    private void scheduleRetry() {
+        long delay = config.getDuration("WARMUP_RETRY_INTERVAL", Duration.ofSeconds(30)).toMillis();
+        try {
+            retry = scheduler.schedule(this::start, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudo programar el reintento del calentamiento: {0}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return status == WarmupStatus.READY;
+    }
+
+    /**
+     * Resumen del calentamiento para el endpoint de readiness
+     *
+     * @return estado, fechas y resultado por paso
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("status", status.name());
+        report.put("startedAt", startedAt != null ? startedAt.toString() : null);
+        report.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        synchronized (steps) {
+            report.put("steps", new LinkedHashMap<>(steps));
+        }
+        return report;
+    }
+
+    private void run() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        steps.clear();
+        long deadline = System.nanoTime() + config.getDuration("WARMUP_TIMEOUT", Duration.ofMinutes(2)).toNanos();
+        try {
+            boolean mongoReady = step("mongo", this::openConnections);
+            step("jwt", this::warmUpJwt);
+            step("bcrypt", () -> passwordHasher.getCost() > 0);
+            if (mongoReady) {
+                step("services", this::warmUpServices);
+                for (WarmupTask task : tasks) {
+                    if (System.nanoTime() > deadline) break;
+                    step(task.name(), () -> {
+                        try {
+                            task.warmUp();
+                            return true;
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e.getMessage(), e);
+                        }
+                    });
+                }
+                step("http", () -> warmUpEndpoints(deadline));
+            }
+            status = mongoReady ? WarmupStatus.READY : WarmupStatus.FAILED;
+        } finally {
+            if (status != WarmupStatus.READY) status = WarmupStatus.FAILED;
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+            LOGGER.log(Level.INFO, "Calentamiento finalizado con estado {0}: {1}", new Object[]{status, steps});
+            if (status == WarmupStatus.FAILED) scheduleRetry();
+        }
+    }
+
+    /**
+     * Ejecuta un paso del calentamiento midiendo su duración
+     *
+     * @param name nombre del paso
+     * @param action acción que indica si el paso fue exitoso
+     * @return true si el paso terminó correctamente
+     */
+    private boolean step(String name, Supplier<Boolean> action) {
+        long start = System.nanoTime();
+        try {
+            boolean ok = Boolean.TRUE.equals(action.get());
+            steps.put(name, (ok ? "OK " : "SKIPPED ") + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return ok;
+        } catch (RuntimeException e) {
+            steps.put(name, "ERROR " + e.getMessage());
+            LOGGER.log(Level.WARNING, "Falló el paso de calentamiento {0}: {1}", new Object[]{name, e.getMessage()});
+            return false;
+        }
+    }
+
+    /**
+     * Abre en paralelo el mínimo de conexiones del pool con comandos ping
+     *
+     * @return true si MongoDb respondió
+     */
+    private boolean openConnections() {
+        if (dbConnection.getDatabase() == null) return false;
+        int connections = Math.max(1, config.getInt("MONGO_MIN_POOL_SIZE", DEFAULT_CONNECTIONS));
+        List<CompletableFuture<Document>> pings = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            pings.add(CompletableFuture.supplyAsync(
+                    () -> dbConnection.getDatabase().runCommand(new Document("ping", 1)), executor));
+        }
+        CompletableFuture.allOf(pings.toArray(CompletableFuture[]::new)).join();
+        return true;
+    }
+
+    private boolean warmUpJwt() {
+        String token = jwtUtil.generateToken("warmup", "warmup", "warmup@destinity", "warmup");
+        return jwtUtil.getAllClaims(token).size() == 4;
+    }
+
+    /**
+     * Ejecuta las lecturas más frecuentes para compilar los mapeadores y
+     * serializa los DTOs resultantes con JSON-B, como lo hace JAX-RS. La
+     * instancia de JSON-B es la misma en cada intento.
+     *
+     * @return true al terminar
+     */
+    private boolean warmUpServices() {
+        int iterations = config.getInt("WARMUP_ITERATIONS", DEFAULT_ITERATIONS);
+        for (int i = 0; i < iterations; i++) {
+            List<ProductDTO> products = quietly(() -> productService.getAllProducts(0, 20));
+            List<SaleDTO> sales = quietly(() -> saleService.getAllSales(0, 20));
+            List<UserDTO> users = quietly(() -> userService.getAllUsers(0, 20, "employee"));
+            jsonb.toJson(products);
+            jsonb.toJson(sales);
+            jsonb.toJson(users);
+        }
+        return true;
+    }
+
+    /**
+     * Hace peticiones HTTP a los endpoints más usados si se configuró WARMUP_BASE_URL
+     * (por ejemplo http://localhost:8080/destinity-erp/api). Reintenta mientras el
+     * despliegue termina de publicar los recursos.
+     *
+     * @param deadline límite de tiempo en nanosegundos
+     * @return true si se ejecutaron, false si no está configurado
+     */
+    private boolean warmUpEndpoints(long deadline) {
+        String baseUrl = config.getString("WARMUP_BASE_URL");
+        if (baseUrl == null || baseUrl.isBlank()) return false;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        int iterations = config.getInt("WARMUP_ITERATIONS", DEFAULT_ITERATIONS);
+        for (String endpoint : HOT_ENDPOINTS) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint))
+                    .timeout(Duration.ofSeconds(10)).GET().build();
+            int done = 0;
+            while (done < iterations && System.nanoTime() < deadline) {
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 404 && done == 0) {
+                        Thread.sleep(1000);
+                        continue;
+                    }
+                    done++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (Exception e) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta una consulta ignorando los errores de negocio (colecciones vacías)
+     *
+     * @param query consulta a ejecutar
+     * @return resultado o lista vacía
+     */
+    private <T> List<T> quietly(Supplier<List<T>> query) {
+        try {
+            return query.get();
+        } catch (CustomException e) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.destinity.erp.health;
+
+/**
+ * Tarea que se ejecuta durante el calentamiento de la aplicación, antes de
+ * reportarla como lista. Los beans CDI que implementen esta interfaz son
+ * descubiertos automáticamente, por ejemplo para precargar cachés.
+ */
+public interface WarmupTask {
+
+    /**
+     * Nombre de la tarea, usado en el reporte de readiness
+     *
+     * @return nombre de la tarea
+     */
+    String name();
+
+    /**
+     * Ejecuta el calentamiento; una excepción se registra sin detener las demás tareas
+     *
+     * @throws Exception si la tarea falla
+     */
+    void warmUp() throws Exception;
+}
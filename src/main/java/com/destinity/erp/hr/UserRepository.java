@@ -1,6 +1,8 @@
 package com.destinity.erp.hr;
 
 import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.reports.ReportRowDTO;
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.ToDate;
 import com.mongodb.MongoException;
@@ -8,10 +10,15 @@ import com.mongodb.MongoWriteException;
 import com.mongodb.WriteError;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.util.ArrayList;
@@ -20,24 +27,51 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Repositorio encargado de la interacción directa con MongoDb.
  * Administra la conversión entre el modelo de usuarios y los
  * documentos almacenados en la base de datos.
  */
+@Traced
 @ApplicationScoped
 public class UserRepository {
 
-    private static final Logger LOGGER = Logger.getLogger(UserRepository.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserRepository.class);
     private static final String COLLECTION_NAME = "hr";
 
+    private static final List<Bson> INDEXES = List.of(
+            Indexes.ascending("email"),
+            Indexes.ascending("userType", "_id"),
+            Indexes.ascending("status", "userType"),
+            Indexes.ascending("employeeData.department"),
+            Indexes.ascending("providerData.serviceType"));
+
     @Inject
     private DataBaseConnection dbConnection;
 
+    /**
+     * Crea los índices de las consultas. {userType, _id} atiende el listado
+     * paginado por tipo y acota la búsqueda por texto a los usuarios del
+     * tipo; {status, userType} atiende el filtro por estatus y la nómina.
+     * Si ya existe un índice con las mismas claves y otras opciones (p. ej.
+     * único) se conserva el existente.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        if (dbConnection.getDatabase() == null) return;
+        for (Bson keys : INDEXES) {
+            try {
+                getUserCollection().createIndex(keys);
+            } catch (MongoException e) {
+                LOGGER.warn("No se pudo crear el índice {} de usuarios: {}", keys, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Obtiene la colección de usuarios
      *
@@ -61,20 +95,20 @@ public class UserRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al insertar al usuario en la base de datos: {0}", e.getMessage());
+                LOGGER.error("Error al insertar al usuario en la base de datos: {}", e.getMessage());
                 throw CustomException.dbError("Error al insertar al usuario en la base de datos.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
 
     /**
-     * Busca todos los empleados o proveedores (con paginación)
+     * Busca todos los empleados o proveedores (con paginación en orden de _id)
      *
      * @param page número de página (empezando desde 0)
      * @param pageSize tamaño de página
@@ -90,13 +124,14 @@ public class UserRepository {
             List<UserModel> users = new ArrayList<>();
             FindIterable<Document> documents = getUserCollection()
                     .find(filter)
+                    .sort(Sorts.ascending("_id"))
                     .skip(page * pageSize)
                     .limit(pageSize);
 
             for (Document doc : documents) users.add(documentToUser(doc));
             return users;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener usuarios - Page" + page + ", Size" + pageSize + " {0}", e);
+            LOGGER.error("Error al obtener usuarios - Page {}, Size {}", page, pageSize, e);
             throw CustomException.dbError("Error al obtener usuarios.");
         }
     }
@@ -110,14 +145,14 @@ public class UserRepository {
     public Optional<UserModel> findUserById(String id) {
         try {
             if (id == null || !ObjectId.isValid(id)) {
-                LOGGER.log(Level.WARNING, "ID inválido recibido: {0}", id);
+                LOGGER.warn("ID inválido recibido: {}", id);
                 return Optional.empty();
             }
             ObjectId objectId = new ObjectId(id);
             Document doc = getUserCollection().find(Filters.eq("_id", objectId)).first();
             return Optional.ofNullable(documentToUser(doc));
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener usuario ID: " + id + " {0}", e);
+            LOGGER.error("Error al obtener usuario ID: {}", id, e);
             throw CustomException.dbError("Error al obtener usuario.");
         }
     }
@@ -134,7 +169,7 @@ public class UserRepository {
                     .find(Filters.eq("email", email)).first();
             return Optional.ofNullable(documentToUser(doc));
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener correo: " + email + " {0}", e);
+            LOGGER.error("Error al obtener correo: {}", email, e);
             throw CustomException.dbError("Error al obtener email.");
         }
     }
@@ -158,7 +193,7 @@ public class UserRepository {
             for (Document doc : documents) users.add(documentToUser(doc));
             return users;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener usuarios del estatus: " + status + " {0}", e);
+            LOGGER.error("Error al obtener usuarios del estatus: {}", status, e);
             throw CustomException.dbError("Error al obtener usuarios del estatus: " + status);
         }
     }
@@ -178,7 +213,7 @@ public class UserRepository {
             for (Document doc : documents) users.add(documentToUser(doc));
             return users;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener empleados del departamento: " + department + " {0}", e);
+            LOGGER.error("Error al obtener empleados del departamento: {}", department, e);
             throw CustomException.dbError("Error al obtener empleados del departamento: " + department);
         }
     }
@@ -198,7 +233,7 @@ public class UserRepository {
             for (Document doc : documents) users.add(documentToUser(doc));
             return users;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener proveedores del servicio: " + serviceType + " {0}", e);
+            LOGGER.error("Error al obtener proveedores del servicio: {}", serviceType, e);
             throw CustomException.dbError("Error al obtener proveedores del servicio: " + serviceType);
         }
     }
@@ -227,7 +262,7 @@ public class UserRepository {
             for (Document doc : documents) users.add(documentToUser(doc));
             return users;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener usuarios: " + searchText + " {0}", e);
+            LOGGER.error("Error al obtener usuarios: {}", searchText, e);
             throw CustomException.dbError("Error al obtener usuarios: " + searchText);
         }
     }
@@ -249,14 +284,35 @@ public class UserRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al actualizar el usuario: {0}", e.getMessage());
+                LOGGER.error("Error al actualizar el usuario: {}", e.getMessage());
                 throw CustomException.dbError("Error al actualizar el usuario.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
+            throw CustomException.dbError("Error general en MongoDB.");
+        }
+    }
+
+    /**
+     * Reemplaza el hash de la contraseña solo si no cambió desde que se leyó
+     *
+     * @param id identificador del usuario
+     * @param expectedHash hash leído previamente
+     * @param newHash nuevo hash de la contraseña
+     * @return true si se actualizó la contraseña
+     */
+    public boolean updatePasswordHash(ObjectId id, String expectedHash, String newHash) {
+        try {
+            UpdateResult result = getUserCollection().updateOne(
+                    Filters.and(Filters.eq("_id", id), Filters.eq("password", expectedHash)),
+                    new Document("$set", new Document("password", newHash))
+            );
+            return result.getModifiedCount() > 0;
+        } catch (MongoException ex) {
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -273,10 +329,10 @@ public class UserRepository {
             DeleteResult result = getUserCollection().deleteOne(Filters.eq("_id", objectId));
             return result.getDeletedCount() > 0;
         } catch (IllegalArgumentException e) {
-            LOGGER.log(Level.WARNING, "Error al eliminar usuario: " + id + " {0}", e);
+            LOGGER.warn("Error al eliminar usuario: {}", id, e);
             throw CustomException.dbError("Error al eliminar usuario.");
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -365,15 +421,43 @@ public class UserRepository {
     }
 
     /**
-     * Cuenta el total de usuarios
+     * Suma los salarios de los empleados activos por departamento
+     *
+     * @return una fila por departamento con el total y el número de empleados
+     */
+    public List<ReportRowDTO> payrollByDepartment() {
+        try {
+            List<ReportRowDTO> rows = new ArrayList<>();
+            List<Bson> pipeline = List.of(
+                    Aggregates.match(Filters.and(Filters.eq("userType", "employee"), Filters.eq("status", "Activo"))),
+                    Aggregates.group("$employeeData.department",
+                            Accumulators.sum("amount", "$employeeData.salary"),
+                            Accumulators.sum("count", 1)),
+                    Aggregates.sort(Sorts.descending("amount")));
+            for (Document doc : getUserCollection().aggregate(pipeline)) {
+                String department = doc.getString("_id");
+                rows.add(new ReportRowDTO(department != null ? department : "SIN DEPARTAMENTO",
+                        ((Number) doc.get("amount", 0)).doubleValue(), 0,
+                        ((Number) doc.get("count", 0)).longValue()));
+            }
+            return rows;
+        } catch (MongoException e) {
+            LOGGER.error("Error al calcular la nómina: {}", e.getMessage());
+            throw CustomException.dbError("Error al calcular la nómina.");
+        }
+    }
+
+    /**
+     * Cuenta el total de usuarios con el conteo de los metadatos de la
+     * colección, sin recorrer los documentos
      *
      * @return número total de usuarios
      */
     public long countUsers() {
         try {
-            return getUserCollection().countDocuments();
+            return getUserCollection().estimatedDocumentCount();
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", e.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", e.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -1,29 +1,34 @@
 package com.destinity.erp.hr;
 
+import com.destinity.erp.auth.AuthService;
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.InputValidator;
 import com.destinity.erp.utils.PasswordHasher;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Servicio encargado de manejar la lógica de negocio de los usuarios.
  * Procesa las operaciones antes de ser delegadas al repositorio y
- * prepara los datos para el controlador.
+ * prepara los datos para el controlador. Al eliminar o desactivar un
+ * usuario, o al cambiar los datos que copian sus sesiones, revoca sus sesiones.
  */
+@Traced
 @ApplicationScoped
 public class UserService {
 
-    private static final Logger LOGGER = Logger.getLogger(UserService.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
     private static final Pattern EMAIL_PATTERN
             = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
     private static final int DEFAULT_PAGE = 0;
@@ -33,6 +38,12 @@ public class UserService {
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private AuthService authService;
+
+    @Inject
+    private PasswordHasher passwordHasher;
+
     /**
      * Crea un nuevo empleado
      *
@@ -52,17 +63,17 @@ public class UserService {
         if (employee.getEmployeeData().getSalary() == null || employee.getEmployeeData().getSalary() <= 0.0)
             throw CustomException.business("El salario debe ser mayor a 0");
         
-        String hashedPassword = PasswordHasher.hashPassword(employee.getPassword());
+        String hashedPassword = passwordHasher.hashPassword(employee.getPassword());
         employee.setPassword(hashedPassword);
         
         String userId = userRepository.saveUser(employee);
         if (userId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo guardar el empleado: {0}", employee.getId());
+            LOGGER.warn("No se pudo guardar el empleado: {}", employee.getId());
             return null;
         }
 
         Optional<UserModel> createdUser = userRepository.findUserById(userId);
-        createdUser.ifPresent(p -> LOGGER.log(Level.INFO, "Empleado creado: {0}", p.getId()));
+        createdUser.ifPresent(p -> LOGGER.info("Empleado creado: {}", p.getId()));
         return createdUser.map(this::convertToDTO).orElse(null);
     }
 
@@ -88,12 +99,12 @@ public class UserService {
 
         String userId = userRepository.saveUser(provider);
         if (userId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo guardar el proveedor: {0}", provider.getId());
+            LOGGER.warn("No se pudo guardar el proveedor: {}", provider.getId());
             return null;
         }
 
         Optional<UserModel> createdUser = userRepository.findUserById(userId);
-        createdUser.ifPresent(p -> LOGGER.log(Level.INFO, "Proveedor creado: {0}", p.getId()));
+        createdUser.ifPresent(p -> LOGGER.info("Proveedor creado: {}", p.getId()));
         return createdUser.map(this::convertToDTO).orElse(null);
     }
 
@@ -112,10 +123,10 @@ public class UserService {
 
         List<UserModel> users = userRepository.findAllUsers(page, pageSize, userType);
         if (users == null || users.isEmpty()) {
-            LOGGER.warning("No hay usuarios registrados");
+            LOGGER.warn("No hay usuarios registrados");
             throw CustomException.notFound("No hay usuarios registrados");
         }
-        LOGGER.log(Level.INFO, "Usuarios obtenidos: {0}", users.size());
+        LOGGER.info("Usuarios obtenidos: {}", users.size());
         return users.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -128,10 +139,10 @@ public class UserService {
     public UserDTO getUserById(String id) {
         Optional<UserModel> user = userRepository.findUserById(id);
         if (user.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el usuario con ID: {0}", id);
+            LOGGER.warn("No se encontró el usuario con ID: {}", id);
             throw CustomException.notFound("No existe el usuario con el identificador proporcionado");
         }
-        LOGGER.log(Level.INFO, "Venta encontrado: {0}", user.get().getId());
+        LOGGER.info("Venta encontrado: {}", user.get().getId());
         return convertToDTO(user.get());
     }
 
@@ -144,10 +155,10 @@ public class UserService {
     public UserDTO getUserByEmail(String email) {
         Optional<UserModel> user = userRepository.findUserByEmail(email);
         if (user.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el usuario con correo: {0}", email);
+            LOGGER.warn("No se encontró el usuario con correo: {}", email);
             throw CustomException.notFound("No existe la usuario con el correo proporcionado");
         }
-        LOGGER.log(Level.INFO, "Usuario encontrado: {0}", user.get().getId());
+        LOGGER.info("Usuario encontrado: {}", user.get().getId());
         return convertToDTO(user.get());
     }
 
@@ -163,11 +174,10 @@ public class UserService {
 
         List<UserModel> users = userRepository.findUserByStatus(status, userType);
         if (users == null || users.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No hay usuarios con el estatus: {0}", status);
+            LOGGER.warn("No hay usuarios con el estatus: {}", status);
             throw CustomException.notFound("No hay usuarios con el estatus" + status);
         }
-        LOGGER.log(Level.INFO, "Usuarios encontrados con el estatus: {0}, cantidad: {1}",
-                new Object[]{status, users.size()});
+        LOGGER.info("Usuarios encontrados con el estatus: {}, cantidad: {}", status, users.size());
         return users.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -180,11 +190,10 @@ public class UserService {
     public List<UserDTO> getEmployeeByDepartment(String department) {
         List<UserModel> users = userRepository.findEmployeeByDepartment(department);
         if (users == null || users.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No hay empleados en el departamento: {0}", department);
+            LOGGER.warn("No hay empleados en el departamento: {}", department);
             throw CustomException.notFound("No hay empleados en el departamento" + department);
         }
-        LOGGER.log(Level.INFO, "Empleados encontrados en el departamento: {0}, cantidad: {1}",
-                new Object[]{department, users.size()});
+        LOGGER.info("Empleados encontrados en el departamento: {}, cantidad: {}", department, users.size());
         return users.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -197,11 +206,10 @@ public class UserService {
     public List<UserDTO> getProvidersByService(String service) {
         List<UserModel> users = userRepository.findEmployeeByDepartment(service);
         if (users == null || users.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No hay proveedores del servicio: {0}", service);
+            LOGGER.warn("No hay proveedores del servicio: {}", service);
             throw CustomException.notFound("No hay proveedores del servicio" + service);
         }
-        LOGGER.log(Level.INFO, "Proveedores encontrados del servicio: {0}, cantidad: {1}",
-                new Object[]{service, users.size()});
+        LOGGER.info("Proveedores encontrados del servicio: {}, cantidad: {}", service, users.size());
         return users.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -214,11 +222,10 @@ public class UserService {
     public List<UserDTO> searchEmployeesByName(String textSearch) {
         List<UserModel> users = userRepository.findUsersByText(textSearch, "employee");
         if (users == null || users.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontraron empleados: {0}", textSearch);
+            LOGGER.warn("No se encontraron empleados: {}", textSearch);
             throw CustomException.notFound("No se encontraron empleados con el texto proporcionado");
         }
-        LOGGER.log(Level.INFO, "Empleados encontrados con el texto: {0}, cantidad: {1}",
-                new Object[]{textSearch, users.size()});
+        LOGGER.info("Empleados encontrados con el texto: {}, cantidad: {}", textSearch, users.size());
         return users.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -233,29 +240,31 @@ public class UserService {
     public UserDTO updateUser(String id, UserModel user) {
         Optional<UserModel> optionalExistingUser = userRepository.findUserById(id);
         if (optionalExistingUser.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el usuario para actualizar con ID: {0}", id);
+            LOGGER.warn("No se encontró el usuario para actualizar con ID: {}", id);
             throw CustomException.notFound("No existe el usuario con el identificador proporcionado");
         }
 
         UserModel existingUser = optionalExistingUser.get();
 
         if (isSameUser(existingUser, user)) {
-            LOGGER.log(Level.WARNING, "No se detectaron cambios al actualizar el usuario con ID: {0}", id);
+            LOGGER.warn("No se detectaron cambios al actualizar el usuario con ID: {}", id);
             throw CustomException.business("No se detectaron cambios. El usuario no fue modificado");
         }
 
         isValidUser(user);
+        List<String> sessionData = sessionData(existingUser);
         applyChanges(existingUser, user);
         existingUser.setUpdatedAt(LocalDateTime.now());
 
         String updatedId = userRepository.updateUser(existingUser);
         if (updatedId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo actualizar el usuario con ID: {0}", id);
+            LOGGER.warn("No se pudo actualizar el usuario con ID: {}", id);
             return null;
         }
+        if (!sessionData.equals(sessionData(existingUser))) authService.revokeUserSessions(updatedId);
 
         Optional<UserModel> updatedUser = userRepository.findUserById(updatedId);
-        updatedUser.ifPresent(p -> LOGGER.log(Level.INFO, "Usuario actualizado: {0}", p.getId()));
+        updatedUser.ifPresent(p -> LOGGER.info("Usuario actualizado: {}", p.getId()));
         return updatedUser.map(this::convertToDTO).orElse(null);
     }
 
@@ -269,14 +278,16 @@ public class UserService {
     public boolean deleteUser(String id) {
         Optional<UserModel> existingUser = userRepository.findUserById(id);
         if (existingUser.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el usuario para eliminar con ID: {0}", id);
+            LOGGER.warn("No se encontró el usuario para eliminar con ID: {}", id);
             throw CustomException.notFound("No existe el usuario con el identificador proporcionado");
         }
 
         boolean deleted = userRepository.deleteUser(id);
         if (!deleted) 
-            LOGGER.log(Level.WARNING, "Error al intentar eliminar la usuario con ID: {0}", id);
-        LOGGER.log(Level.INFO, "Usuario eliminada con ID: {0}", id);
+            LOGGER.warn("Error al intentar eliminar la usuario con ID: {}", id);
+        else
+            authService.revokeUserSessions(existingUser.get().getId().toHexString());
+        LOGGER.info("Usuario eliminada con ID: {}", id);
         return deleted;
     }
 
@@ -287,7 +298,7 @@ public class UserService {
      */
     public long getTotalUserCount() {
         long count = userRepository.countUsers();
-        LOGGER.log(Level.INFO, "Total de usuarios registrados: {0}", count);
+        LOGGER.info("Total de usuarios registrados: {}", count);
         return count;
     }
 
@@ -383,6 +394,21 @@ public class UserService {
         return true;
     }
 
+    /**
+     * Datos del usuario que se copian en sus sesiones, más su estatus; si
+     * alguno cambia, las sesiones abiertas ya no son válidas
+     *
+     * @param user usuario
+     * @return rol, nombre, correo y estatus
+     */
+    private List<String> sessionData(UserModel user) {
+        return Arrays.asList(
+                user.getEmployeeData() != null ? user.getEmployeeData().getRole() : null,
+                user.getFirstName() + " " + user.getLastName() + " " + user.getMiddleName(),
+                user.getEmail(),
+                user.getStatus());
+    }
+
     /**
      * Aplica cambios de un usuario a otro
      *
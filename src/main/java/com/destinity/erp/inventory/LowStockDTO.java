@@ -0,0 +1,28 @@
+package com.destinity.erp.inventory;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone un producto por debajo de su punto de reorden a traves de la API.
+ * Incluye la demanda diaria estimada, los días de inventario restantes y la
+ * cantidad sugerida para la orden de compra.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockDTO {
+
+    private String productId;
+    private String name;
+    private String category;
+    private String provider;
+    private int stock;
+    private double dailyVelocity;
+    private int reorderPoint;
+    private Double daysOfStock;
+    private int suggestedQuantity;
+    private LocalDateTime evaluatedAt;
+}
@@ -0,0 +1,205 @@
+package com.destinity.erp.inventory;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio de la lista de productos con existencias bajas.
+ * La colección low_stock la escribe el cálculo de puntos de reorden: cada
+ * ejecución completa marca sus documentos con un runId y al terminar elimina
+ * los de ejecuciones anteriores; entre ejecuciones se reemplazan solo los
+ * productos que cambiaron, con el runId de la ejecución vigente.
+ */
+@Traced
+@ApplicationScoped
+public class LowStockRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LowStockRepository.class);
+    private static final String COLLECTION_NAME = "low_stock";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Crea el índice de la consulta ordenada por días de inventario
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getLowStockCollection().createIndex(Indexes.ascending("daysOfStock"));
+            getLowStockCollection().createIndex(Indexes.ascending("provider", "daysOfStock"));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de low_stock: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de existencias bajas
+     *
+     * @return MongoCollection de low_stock
+     */
+    private MongoCollection<Document> getLowStockCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Guarda los productos de un lote con una sola escritura por lotes
+     *
+     * @param runId identificador de la ejecución
+     * @param items productos con existencias bajas
+     */
+    public void saveBatch(String runId, List<LowStockDTO> items) {
+        if (items.isEmpty()) return;
+        try {
+            List<WriteModel<Document>> writes = new ArrayList<>(items.size());
+            for (LowStockDTO item : items) {
+                writes.add(new ReplaceOneModel<>(
+                        Filters.eq("_id", item.getProductId()),
+                        itemToDocument(runId, item),
+                        new ReplaceOptions().upsert(true)));
+            }
+            getLowStockCollection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoException e) {
+            LOGGER.error("Error al guardar existencias bajas: {}", e.getMessage());
+            throw CustomException.dbError("Error al guardar las existencias bajas.");
+        }
+    }
+
+    /**
+     * Reemplaza la evaluación de los productos indicados en una sola escritura
+     * por lotes: guarda los que siguen con existencias bajas y elimina los demás
+     *
+     * @param runId identificador de la ejecución vigente
+     * @param productIds productos reevaluados
+     * @param items los que quedaron con existencias bajas
+     */
+    public void replaceProducts(String runId, Collection<String> productIds, List<LowStockDTO> items) {
+        if (productIds.isEmpty()) return;
+        try {
+            Set<String> flagged = new HashSet<>();
+            List<WriteModel<Document>> writes = new ArrayList<>(productIds.size());
+            for (LowStockDTO item : items) {
+                flagged.add(item.getProductId());
+                writes.add(new ReplaceOneModel<>(
+                        Filters.eq("_id", item.getProductId()),
+                        itemToDocument(runId, item),
+                        new ReplaceOptions().upsert(true)));
+            }
+            for (String productId : productIds) {
+                if (!flagged.contains(productId)) writes.add(new DeleteOneModel<>(Filters.eq("_id", productId)));
+            }
+            getLowStockCollection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoException e) {
+            LOGGER.error("Error al actualizar existencias bajas de {} productos: {}", productIds.size(), e.getMessage());
+            throw CustomException.dbError("Error al actualizar las existencias bajas.");
+        }
+    }
+
+    /**
+     * Elimina los productos que no marcó la ejecución indicada
+     *
+     * @param runId identificador de la ejecución vigente
+     * @return número de productos eliminados
+     */
+    public long deleteStale(String runId) {
+        try {
+            return getLowStockCollection().deleteMany(Filters.ne("runId", runId)).getDeletedCount();
+        } catch (MongoException e) {
+            LOGGER.error("Error al depurar existencias bajas: {}", e.getMessage());
+            throw CustomException.dbError("Error al depurar las existencias bajas.");
+        }
+    }
+
+    /**
+     * Productos con existencias bajas, del más urgente al menos urgente
+     *
+     * @param provider proveedor a filtrar o null para todos
+     * @param limit número máximo de productos
+     * @return productos ordenados por días de inventario
+     */
+    public List<LowStockDTO> findLowStock(String provider, int limit) {
+        try {
+            Bson filter = provider != null ? Filters.eq("provider", provider) : new Document();
+            List<LowStockDTO> items = new ArrayList<>();
+            FindIterable<Document> documents = getLowStockCollection()
+                    .find(filter)
+                    .sort(Sorts.ascending("daysOfStock"))
+                    .limit(limit);
+
+            for (Document doc : documents) items.add(documentToItem(doc));
+            return items;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener existencias bajas: {}", e.getMessage());
+            throw CustomException.dbError("Error al obtener las existencias bajas.");
+        }
+    }
+
+    /**
+     * Cuenta los productos con existencias bajas
+     *
+     * @return número de productos
+     */
+    public long countLowStock() {
+        try {
+            return getLowStockCollection().countDocuments();
+        } catch (MongoException e) {
+            LOGGER.error("Error general en MongoDB: {}", e.getMessage());
+            throw CustomException.dbError("Error general en MongoDB.");
+        }
+    }
+
+    private Document itemToDocument(String runId, LowStockDTO item) {
+        return new Document()
+                .append("_id", item.getProductId())
+                .append("runId", runId)
+                .append("name", item.getName())
+                .append("category", item.getCategory())
+                .append("provider", item.getProvider())
+                .append("stock", item.getStock())
+                .append("dailyVelocity", item.getDailyVelocity())
+                .append("reorderPoint", item.getReorderPoint())
+                .append("daysOfStock", item.getDaysOfStock())
+                .append("suggestedQuantity", item.getSuggestedQuantity())
+                .append("evaluatedAt", ToDate.toDate(item.getEvaluatedAt()));
+    }
+
+    private LowStockDTO documentToItem(Document doc) {
+        return new LowStockDTO(
+                doc.getString("_id"),
+                doc.getString("name"),
+                doc.getString("category"),
+                doc.getString("provider"),
+                ((Number) doc.get("stock", 0)).intValue(),
+                ((Number) doc.get("dailyVelocity", 0.0)).doubleValue(),
+                ((Number) doc.get("reorderPoint", 0)).intValue(),
+                doc.get("daysOfStock") != null ? ((Number) doc.get("daysOfStock")).doubleValue() : null,
+                ((Number) doc.get("suggestedQuantity", 0)).intValue(),
+                ToDate.toLocalDateTime(doc.getDate("evaluatedAt")));
+    }
+}
@@ -0,0 +1,76 @@
+package com.destinity.erp.inventory;
+
+import com.destinity.erp.utils.ConfigService;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché en memoria de la categoría de cada producto.
+ * Las ventas solo guardan el ID del producto vendido; los agregados por
+ * categoría la resuelven aquí para no consultar el inventario en cada venta.
+ */
+@ApplicationScoped
+public class ProductCategoryCache {
+
+    private static final int DEFAULT_MAX_SIZE = 50_000;
+    private static final String UNKNOWN_CATEGORY = "SIN CATEGORÍA";
+
+    private final Map<String, String> categories = new ConcurrentHashMap<>();
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    @Inject
+    private ConfigService config;
+
+    @PostConstruct
+    public void init() {
+        maxSize = config.getInt("PRODUCT_CACHE_MAX_SIZE", DEFAULT_MAX_SIZE);
+        config.onChange(c -> maxSize = c.getInt("PRODUCT_CACHE_MAX_SIZE", DEFAULT_MAX_SIZE),
+                "PRODUCT_CACHE_MAX_SIZE");
+    }
+
+    /**
+     * Obtiene la categoría de un producto, consultando el inventario si no está en caché
+     *
+     * @param productId identificador del producto
+     * @return categoría del producto o "SIN CATEGORÍA" si no existe
+     */
+    public String getCategory(String productId) {
+        if (productId == null) return UNKNOWN_CATEGORY;
+        String category = categories.get(productId);
+        if (category != null) return category;
+
+        Optional<ProductModel> product = productRepository.findProductById(productId);
+        category = product.map(ProductModel::getCategory).orElse(UNKNOWN_CATEGORY);
+        if (product.isPresent()) {
+            if (categories.size() >= maxSize) categories.clear();
+            categories.put(productId, category);
+        }
+        return category;
+    }
+
+    /**
+     * Elimina un producto de la caché tras modificarlo o eliminarlo
+     *
+     * @param productId identificador del producto
+     */
+    public void invalidate(String productId) {
+        if (productId != null) categories.remove(productId);
+    }
+
+    /**
+     * Elimina varios productos de la caché
+     *
+     * @param productIds identificadores de los productos
+     */
+    public void invalidateAll(Collection<String> productIds) {
+        productIds.forEach(this::invalidate);
+    }
+}
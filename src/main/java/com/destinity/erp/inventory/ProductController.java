@@ -30,6 +30,9 @@ public class ProductController {
     @Inject
     private ProductService productService;
 
+    @Inject
+    private ReorderService reorderService;
+
     /**
      * Crea un nuevo producto
      *
@@ -50,6 +53,44 @@ public class ProductController {
         }
     }
 
+    /**
+     * Obtiene los productos por debajo de su punto de reorden, calculados
+     * por la tarea programada
+     *
+     * @param provider proveedor a filtrar (opcional)
+     * @param limit número máximo de productos
+     * @return respuesta con los productos ordenados por urgencia
+     */
+    @GET
+    @Path("/low-stock")
+    public Response getLowStock(@QueryParam("provider") String provider, @QueryParam("limit") int limit) {
+        try {
+            List<LowStockDTO> products = reorderService.getLowStock(provider, limit);
+            return Response.ok(products).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Recalcula en el momento la lista de existencias bajas
+     *
+     * @return respuesta con el número de productos evaluados y marcados
+     */
+    @POST
+    @Path("/low-stock/refresh")
+    public Response refreshLowStock() {
+        try {
+            return Response.ok(reorderService.refresh()).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
     /**
      * Obtiene productos paginados
      *
@@ -1,44 +1,81 @@
 package com.destinity.erp.inventory;
 
 import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.reports.ReportRowDTO;
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.ToDate;
 import com.mongodb.ErrorCategory;
 import com.mongodb.MongoException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.WriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Repositorio encargado de la interacción directa con MongoDb.
  * Administra la conversión entre el modelo de producto y los
  * documentos almacenados en la base de datos.
  */
+@Traced
 @ApplicationScoped
 public class ProductRepository {
 
-    private static final Logger LOGGER = Logger.getLogger(ProductRepository.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductRepository.class);
     private static final String COLLECTION_NAME = "inventory";
 
+    private static final List<Bson> INDEXES = List.of(Indexes.ascending("category"));
+
     @Inject
     private DataBaseConnection dbConnection;
 
+    /**
+     * Crea los índices de las consultas por campo. El listado paginado y los
+     * lotes por cursor usan el índice de _id; la búsqueda por texto y el
+     * valor del inventario recorren la colección completa.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        if (dbConnection.getDatabase() == null) return;
+        for (Bson keys : INDEXES) {
+            try {
+                getProductCollection().createIndex(keys);
+            } catch (MongoException e) {
+                LOGGER.warn("No se pudo crear el índice {} de productos: {}", keys, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Obtiene la colección de productos
      *
@@ -62,23 +99,24 @@ public class ProductRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else if (writeError != null && writeError.getCategory() == ErrorCategory.DUPLICATE_KEY) {
-                LOGGER.log(Level.WARNING, "Ya existe un producto con ese nombre: {0}", e.getMessage());
+                LOGGER.warn("Ya existe un producto con ese nombre: {}", e.getMessage());
                 throw CustomException.dbDuplicatedKey("Ya existe un producto con ese nombre.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al insertar el producto en la base de datos: {0}", e.getMessage());
+                LOGGER.error("Error al insertar el producto en la base de datos: {}", e.getMessage());
                 throw CustomException.dbError("Error al insertar el producto en la base de datos.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
 
     /**
-     * Busca todos los productos (con paginación)
+     * Busca todos los productos (con paginación en orden de _id, para que las
+     * páginas sean estables y se lean del índice)
      *
      * @param page número de página (empezando desde 0)
      * @param pageSize tamaño de página
@@ -89,13 +127,62 @@ public class ProductRepository {
             List<ProductModel> products = new ArrayList<>();
             FindIterable<Document> documents = getProductCollection()
                     .find()
+                    .sort(Sorts.ascending("_id"))
                     .skip(page * pageSize)
                     .limit(pageSize);
 
             for (Document doc : documents) products.add(documentToProduct(doc));
             return products;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener productos - Page" + page + ", Size" + pageSize + " {0}", e);
+            LOGGER.error("Error al obtener productos - Page {}, Size {}", page, pageSize, e);
+            throw CustomException.dbError("Error al obtener productos.");
+        }
+    }
+
+    /**
+     * Lote del catálogo en orden de _id, paginado por cursor para no usar skip.
+     * Solo incluye los campos necesarios para evaluar existencias.
+     *
+     * @param after último ID del lote anterior o null para iniciar
+     * @param batchSize tamaño del lote
+     * @return productos del lote
+     */
+    public List<ProductModel> findStockBatch(ObjectId after, int batchSize) {
+        try {
+            List<ProductModel> products = new ArrayList<>(batchSize);
+            FindIterable<Document> documents = getProductCollection()
+                    .find(after != null ? Filters.gt("_id", after) : new Document())
+                    .projection(Projections.include("name", "stock", "category", "provider", "status"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize);
+
+            for (Document doc : documents) products.add(documentToProduct(doc));
+            return products;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener el lote de productos después de {}: {}", after, e.getMessage());
+            throw CustomException.dbError("Error al obtener productos.");
+        }
+    }
+
+    /**
+     * Productos indicados, con los mismos campos que {@link #findStockBatch}.
+     * Se usa para reevaluar las existencias de los productos que cambiaron.
+     *
+     * @param ids identificadores de los productos
+     * @return productos encontrados
+     */
+    public List<ProductModel> findStockByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) return List.of();
+        try {
+            List<ProductModel> products = new ArrayList<>(ids.size());
+            FindIterable<Document> documents = getProductCollection()
+                    .find(Filters.in("_id", ids))
+                    .projection(Projections.include("name", "stock", "category", "provider", "status"));
+
+            for (Document doc : documents) products.add(documentToProduct(doc));
+            return products;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener las existencias de {} productos: {}", ids.size(), e.getMessage());
             throw CustomException.dbError("Error al obtener productos.");
         }
     }
@@ -109,14 +196,14 @@ public class ProductRepository {
     public Optional<ProductModel> findProductById(String id) {
         try {
             if (id == null || !ObjectId.isValid(id)) {
-                LOGGER.log(Level.WARNING, "ID inválido recibido: {0}", id);
+                LOGGER.warn("ID inválido recibido: {}", id);
                 return Optional.empty();
             }
             ObjectId objectId = new ObjectId(id);
             Document doc = getProductCollection().find(Filters.eq("_id", objectId)).first();
             return Optional.ofNullable(documentToProduct(doc));
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener producto ID: " + id + " {0}", e);
+            LOGGER.error("Error al obtener producto ID: {}", id, e);
             throw CustomException.dbError("Error al obtener producto.");
         }
     }
@@ -135,7 +222,7 @@ public class ProductRepository {
             for (Document doc : documents) products.add(documentToProduct(doc));
             return products;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener productos de la categoria: " + category + " {0}", e);
+            LOGGER.error("Error al obtener productos de la categoria: {}", category, e);
             throw CustomException.dbError("Error al obtener productos de la categoria: " + category);
         }
     }
@@ -160,7 +247,7 @@ public class ProductRepository {
             for (Document doc : documents) products.add(documentToProduct(doc));
             return products;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener productos con el texto: " + searchText + " {0}", e);
+            LOGGER.error("Error al obtener productos con el texto: {}", searchText, e);
             throw CustomException.dbError("Error al obtener productos con el texto: " + searchText);
         }
     }
@@ -182,21 +269,48 @@ public class ProductRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else if (writeError != null && writeError.getCategory() == ErrorCategory.DUPLICATE_KEY) {
-                LOGGER.log(Level.WARNING, "Ya existe un producto con ese nombre: {0}", e.getMessage());
+                LOGGER.warn("Ya existe un producto con ese nombre: {}", e.getMessage());
                 throw CustomException.dbDuplicatedKey("Ya existe un producto con ese nombre.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al actualizar el producto: {0}", e.getMessage());
+                LOGGER.error("Error al actualizar el producto: {}", e.getMessage());
                 throw CustomException.dbError("Error al actualizar el producto.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
 
+    /**
+     * Suma existencias a varios productos en una sola operación bulkWrite.
+     * Se ejecuta en la transacción de la sesión: si un producto falla, la
+     * transacción completa se aborta y ninguna existencia cambia.
+     *
+     * @param session sesión con la transacción en curso
+     * @param increments unidades a sumar por ID de producto
+     * @return número de productos encontrados y actualizados
+     */
+    public int incrementStock(ClientSession session, Map<ObjectId, Integer> increments) {
+        if (increments.isEmpty()) return 0;
+        try {
+            Date now = new Date();
+            List<WriteModel<Document>> updates = new ArrayList<>(increments.size());
+            increments.forEach((id, quantity) -> updates.add(new UpdateOneModel<>(
+                    Filters.eq("_id", id),
+                    Updates.combine(Updates.inc("stock", quantity), Updates.set("updatedAt", now)))));
+
+            BulkWriteResult result = dbConnection.getDatabase(session).getCollection(COLLECTION_NAME)
+                    .bulkWrite(session, updates, new BulkWriteOptions().ordered(false));
+            return result.getMatchedCount();
+        } catch (MongoException e) {
+            LOGGER.error("Error al actualizar existencias: {}", e.getMessage());
+            throw CustomException.dbError("Error al actualizar las existencias de los productos.");
+        }
+    }
+
     /**
      * Elimina un producto por su ID
      *
@@ -209,10 +323,10 @@ public class ProductRepository {
             DeleteResult result = getProductCollection().deleteOne(Filters.eq("_id", objectId));
             return result.getDeletedCount() > 0;
         } catch (IllegalArgumentException e) {
-            LOGGER.log(Level.WARNING, "Error al eliminar producto: " + id + " {0}", e);
+            LOGGER.warn("Error al eliminar producto: {}", id, e);
             throw CustomException.dbError("Error al eliminar producto.");
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -267,15 +381,46 @@ public class ProductRepository {
     }
 
     /**
-     * Cuenta el total de productos
+     * Valor del inventario (precio x existencias) por categoría
+     *
+     * @return una fila por categoría con el valor, las unidades y el número de productos
+     */
+    public List<ReportRowDTO> valuationByCategory() {
+        try {
+            List<ReportRowDTO> rows = new ArrayList<>();
+            List<Bson> pipeline = List.of(
+                    Aggregates.group("$category",
+                            Accumulators.sum("amount", new Document("$multiply", List.of(
+                                    new Document("$ifNull", List.of("$price", 0)),
+                                    new Document("$ifNull", List.of("$stock", 0))))),
+                            Accumulators.sum("quantity", "$stock"),
+                            Accumulators.sum("count", 1)),
+                    Aggregates.sort(Sorts.descending("amount")));
+            for (Document doc : getProductCollection().aggregate(pipeline)) {
+                String category = doc.getString("_id");
+                rows.add(new ReportRowDTO(category != null ? category : "SIN CATEGORÍA",
+                        ((Number) doc.get("amount", 0)).doubleValue(),
+                        ((Number) doc.get("quantity", 0)).longValue(),
+                        ((Number) doc.get("count", 0)).longValue()));
+            }
+            return rows;
+        } catch (MongoException e) {
+            LOGGER.error("Error al calcular el valor del inventario: {}", e.getMessage());
+            throw CustomException.dbError("Error al calcular el valor del inventario.");
+        }
+    }
+
+    /**
+     * Cuenta el total de productos con el conteo de los metadatos de la
+     * colección, sin recorrer los documentos
      *
      * @return número total de productos
      */
     public long countProducts() {
         try {
-            return getProductCollection().countDocuments();
+            return getProductCollection().estimatedDocumentCount();
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", e.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", e.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
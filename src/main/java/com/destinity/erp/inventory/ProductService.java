@@ -1,5 +1,6 @@
 package com.destinity.erp.inventory;
 
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.InputValidator;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -7,20 +8,21 @@ import jakarta.inject.Inject;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Servicio encargado de manejar la lógica de negocio de los productos.
  * Procesa las operaciones antes de ser delegadas al repositorio y
  * prepara los datos para el controlador.
  */
+@Traced
 @ApplicationScoped
 public class ProductService {
 
-    private static final Logger LOGGER = Logger.getLogger(ProductService.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductService.class);
     private static final int DEFAULT_PAGE = 0;
     private static final int DEFAULT_PAGE_SIZE = 20;
     private static final List<String> VALID_CATEGORIES = List.of("BLANCOS", "ALIMENTOS", "ELECTRÓNICOS");
@@ -28,6 +30,9 @@ public class ProductService {
     @Inject
     private ProductRepository productRepository;
 
+    @Inject
+    private ProductCategoryCache categoryCache;
+
     /**
      * Crea un nuevo producto
      *
@@ -43,12 +48,12 @@ public class ProductService {
 
         String productId = productRepository.saveProduct(product);
         if (productId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo guardar el producto: {0}", product.getName());
+            LOGGER.warn("No se pudo guardar el producto: {}", product.getName());
             return null;
         }
 
         Optional<ProductModel> createdProduct = productRepository.findProductById(productId);
-        createdProduct.ifPresent(p -> LOGGER.log(Level.INFO, "Producto creado: {0}", p.getName()));
+        createdProduct.ifPresent(p -> LOGGER.info("Producto creado: {}", p.getName()));
         return createdProduct.map(this::convertToDTO).orElse(null);
     }
 
@@ -65,10 +70,10 @@ public class ProductService {
 
         List<ProductModel> products = productRepository.findAllProducts(page, pageSize);
         if (products == null || products.isEmpty()) {
-            LOGGER.warning("No hay productos en el inventario");
+            LOGGER.warn("No hay productos en el inventario");
             throw CustomException.notFound("No hay productos en el inventario");
         }
-        LOGGER.log(Level.INFO, "Productos obtenidos: {0}", products.size());
+        LOGGER.info("Productos obtenidos: {}", products.size());
         return products.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -81,10 +86,10 @@ public class ProductService {
     public ProductDTO getProductById(String id) {
         Optional<ProductModel> product = productRepository.findProductById(id);
         if (product.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el producto con ID: {0}", id);
+            LOGGER.warn("No se encontró el producto con ID: {}", id);
             throw CustomException.notFound("No existe el producto con el identificador proporcionado");
         }
-        LOGGER.log(Level.INFO, "Producto encontrado: {0}", product.get().getName());
+        LOGGER.info("Producto encontrado: {}", product.get().getName());
         return convertToDTO(product.get());
     }
 
@@ -97,11 +102,10 @@ public class ProductService {
     public List<ProductDTO> getProductsByCategory(String category) {
         List<ProductModel> products = productRepository.findProductsByCategory(category);
         if (products == null || products.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No hay productos en la categoría: {0}", category);
+            LOGGER.warn("No hay productos en la categoría: {}", category);
             throw CustomException.notFound("No hay productos en la categoría proporcionada");
         }
-        LOGGER.log(Level.INFO, "Productos encontrados en la categoría: {0}, cantidad: {1}",
-                new Object[]{category, products.size()});
+        LOGGER.info("Productos encontrados en la categoría: {}, cantidad: {}", category, products.size());
         return products.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -114,11 +118,10 @@ public class ProductService {
     public List<ProductDTO> searchProductsByName(String textSearch) {
         List<ProductModel> products = productRepository.findProductsByText(textSearch);
         if (products == null || products.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontraron productos con el texto: {0}", textSearch);
+            LOGGER.warn("No se encontraron productos con el texto: {}", textSearch);
             throw CustomException.notFound("No se encontraron productos con el texto proporcionado");
         }
-        LOGGER.log(Level.INFO, "Productos encontrados con el texto: {0}, cantidad: {1}",
-                new Object[]{textSearch, products.size()});
+        LOGGER.info("Productos encontrados con el texto: {}, cantidad: {}", textSearch, products.size());
         return products.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -133,14 +136,14 @@ public class ProductService {
     public ProductDTO updateProduct(String id, ProductModel product) {
         Optional<ProductModel> optionalExistingProduct = productRepository.findProductById(id);
         if (optionalExistingProduct.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el producto para actualizar con ID: {0}", id);
+            LOGGER.warn("No se encontró el producto para actualizar con ID: {}", id);
             throw CustomException.notFound("No existe el producto con el identificador proporcionado");
         }
 
         ProductModel existingProduct = optionalExistingProduct.get();
 
         if (isSameProduct(product, existingProduct)) {
-            LOGGER.log(Level.WARNING, "No se detectaron cambios al actualizar el producto con ID: {0}", id);
+            LOGGER.warn("No se detectaron cambios al actualizar el producto con ID: {}", id);
             throw CustomException.business("No se detectaron cambios. El producto no fue modificado");
         }
 
@@ -149,13 +152,14 @@ public class ProductService {
         existingProduct.setUpdatedAt(LocalDateTime.now());
 
         String updatedId = productRepository.updateProduct(existingProduct);
+        categoryCache.invalidate(id);
         if (updatedId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo actualizar el producto con ID: {0}", id);
+            LOGGER.warn("No se pudo actualizar el producto con ID: {}", id);
             return null;
         }
 
         Optional<ProductModel> updatedProduct = productRepository.findProductById(updatedId);
-        updatedProduct.ifPresent(p -> LOGGER.log(Level.INFO, "Producto actualizado: {0}", p.getName()));
+        updatedProduct.ifPresent(p -> LOGGER.info("Producto actualizado: {}", p.getName()));
         return updatedProduct.map(this::convertToDTO).orElse(null);
     }
 
@@ -169,14 +173,15 @@ public class ProductService {
     public boolean deleteProduct(String id) {
         Optional<ProductModel> existingProduct = productRepository.findProductById(id);
         if (existingProduct.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró el producto para eliminar con ID: {0}", id);
+            LOGGER.warn("No se encontró el producto para eliminar con ID: {}", id);
             throw CustomException.notFound("No existe el producto con el identificador proporcionado");
         }
 
         boolean deleted = productRepository.deleteProduct(id);
+        categoryCache.invalidate(id);
         if (!deleted)
-            LOGGER.log(Level.WARNING, "Error al intentar eliminar el producto con ID: {0}", id);
-        LOGGER.log(Level.INFO, "Producto eliminado con ID: {0}", id);
+            LOGGER.warn("Error al intentar eliminar el producto con ID: {}", id);
+        LOGGER.info("Producto eliminado con ID: {}", id);
         return deleted;
     }
 
@@ -187,7 +192,7 @@ public class ProductService {
      */
     public long getTotalProductCount() {
         long count = productRepository.countProducts();
-        LOGGER.log(Level.INFO, "Total de productos en inventario: {0}", count);
+        LOGGER.info("Total de productos en inventario: {}", count);
         return count;
     }
 
@@ -0,0 +1,265 @@
+package com.destinity.erp.inventory;
+
+import com.destinity.erp.sales.SaleEvent;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calcula periódicamente qué productos están por debajo de su punto de reorden.
+ * La demanda diaria se obtiene con una sola agregación de las ventas recientes;
+ * el catálogo se recorre en lotes por cursor y cada lote se evalúa y guarda en
+ * paralelo en el ejecutor administrado. El resultado queda en low_stock para
+ * que el inventario lo consulte sin calcularlo.
+ *
+ * Entre ejecuciones, cada venta y cada recepción de compra reevalúan solo los
+ * productos que tocaron, en segundo plano, para que la lista no espere a la
+ * siguiente ejecución programada.
+ *
+ * Punto de reorden = demanda diaria x (REORDER_LEAD_TIME_DAYS + REORDER_SAFETY_DAYS).
+ * Cantidad sugerida = demanda diaria x REORDER_COVER_DAYS + punto de reorden - existencias.
+ */
+@ApplicationScoped
+public class ReorderService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReorderService.class);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofHours(1);
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    @Inject
+    private LowStockRepository lowStockRepository;
+
+    @Inject
+    private SaleRepository saleRepository;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile String runId = UUID.randomUUID().toString();
+    private ScheduledFuture<?> schedule;
+
+    @PostConstruct
+    public void init() {
+        long interval = config.getDuration("REORDER_INTERVAL", DEFAULT_INTERVAL).toMillis();
+        schedule = scheduler.scheduleWithFixedDelay(this::scheduledRun,
+                TimeUnit.MINUTES.toMillis(1), interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (schedule != null) schedule.cancel(false);
+    }
+
+    /**
+     * Productos con existencias bajas según el último cálculo
+     *
+     * @param provider proveedor a filtrar (opcional)
+     * @param limit número máximo de productos
+     * @return productos del más urgente al menos urgente
+     */
+    public List<LowStockDTO> getLowStock(String provider, int limit) {
+        return lowStockRepository.findLowStock(provider == null || provider.isBlank() ? null : provider,
+                limit > 0 ? Math.min(limit, MAX_LIMIT) : DEFAULT_LIMIT);
+    }
+
+    /**
+     * Recalcula la lista de existencias bajas
+     *
+     * @return productos evaluados y productos marcados
+     * @throws CustomException si ya hay un cálculo en curso
+     */
+    public Map<String, Object> refresh() {
+        if (!running.compareAndSet(false, true))
+            throw CustomException.business("El cálculo de existencias bajas ya está en curso");
+        try {
+            return evaluateCatalog();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Reevalúa los productos de una venta creada, modificada o eliminada,
+     * porque la venta cambia su demanda reciente
+     *
+     * @param event evento de la venta
+     */
+    public void onSale(@ObservesAsync SaleEvent event) {
+        SaleModel sale = event.getSale();
+        if (sale == null || sale.getProductSold() == null || sale.getProductSold().getId() == null) return;
+        refreshProducts(List.of(sale.getProductSold().getId()));
+    }
+
+    /**
+     * Reevalúa en segundo plano los productos indicados y reemplaza su entrada
+     * en low_stock. Un fallo solo se registra en el log; la siguiente ejecución
+     * programada vuelve a evaluar todo el catálogo.
+     *
+     * @param productIds IDs de los productos que cambiaron
+     */
+    public void refreshProducts(Collection<String> productIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String productId : productIds) {
+            if (productId != null && ObjectId.isValid(productId)) ids.add(productId);
+        }
+        if (ids.isEmpty()) return;
+        executor.execute(() -> {
+            try {
+                evaluateProducts(ids);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error al reevaluar existencias de {} productos: {}", ids.size(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Evalúa solo los productos indicados con la demanda de la ventana vigente.
+     * Usa el runId de la ejecución completa en curso o de la última, para que
+     * su depuración no elimine estas entradas.
+     */
+    private void evaluateProducts(Set<String> productIds) {
+        int windowDays = windowDays();
+        List<ObjectId> ids = new ArrayList<>(productIds.size());
+        productIds.forEach(productId -> ids.add(new ObjectId(productId)));
+
+        List<ProductModel> products = productRepository.findStockByIds(ids);
+        Map<String, Long> unitsSold = saleRepository.unitsSoldForProductsSince(productIds,
+                ToDate.toDate(LocalDateTime.now().minusDays(windowDays)));
+        List<LowStockDTO> lowStock = evaluateBatch(products, unitsSold, windowDays, policy(), LocalDateTime.now());
+        lowStockRepository.replaceProducts(runId, productIds, lowStock);
+        LOGGER.debug("Existencias reevaluadas: {} productos, {} marcados", productIds.size(), lowStock.size());
+    }
+
+    private void scheduledRun() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            evaluateCatalog();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error al calcular existencias bajas: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Recorre el catálogo por lotes y evalúa cada lote en paralelo. Como
+     * máximo hay tantos lotes en curso como procesadores, para acotar la
+     * memoria; la lista anterior solo se depura si todos los lotes terminaron.
+     */
+    private Map<String, Object> evaluateCatalog() {
+        long start = System.nanoTime();
+        int windowDays = windowDays();
+        int batchSize = Math.max(1, config.getInt("REORDER_BATCH_SIZE", 500));
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Policy policy = policy();
+
+        Map<String, Long> unitsSold = saleRepository.unitsSoldByProductSince(
+                ToDate.toDate(LocalDateTime.now().minusDays(windowDays)));
+        String runId = UUID.randomUUID().toString();
+        this.runId = runId;
+        LocalDateTime evaluatedAt = LocalDateTime.now();
+        AtomicInteger flagged = new AtomicInteger();
+        Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+        int evaluated = 0;
+
+        ObjectId after = null;
+        while (true) {
+            List<ProductModel> batch = productRepository.findStockBatch(after, batchSize);
+            if (batch.isEmpty()) break;
+            after = batch.get(batch.size() - 1).getId();
+            evaluated += batch.size();
+
+            if (inFlight.size() >= parallelism) inFlight.removeFirst().join();
+            inFlight.addLast(CompletableFuture.runAsync(() -> {
+                List<LowStockDTO> lowStock = evaluateBatch(batch, unitsSold, windowDays, policy, evaluatedAt);
+                lowStockRepository.saveBatch(runId, lowStock);
+                flagged.addAndGet(lowStock.size());
+            }, executor));
+            if (batch.size() < batchSize) break;
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        long removed = lowStockRepository.deleteStale(runId);
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOGGER.info("Existencias bajas calculadas: {} productos evaluados, {} marcados, {} depurados en {} ms",
+                evaluated, flagged.get(), removed, elapsed);
+        return Map.of("evaluated", evaluated, "lowStock", flagged.get(), "durationMs", elapsed);
+    }
+
+    /**
+     * Evalúa un lote de productos contra su demanda reciente
+     */
+    private List<LowStockDTO> evaluateBatch(List<ProductModel> batch, Map<String, Long> unitsSold,
+            int windowDays, Policy policy, LocalDateTime evaluatedAt) {
+        List<LowStockDTO> lowStock = new ArrayList<>();
+        for (ProductModel product : batch) {
+            String productId = product.getId().toHexString();
+            int stock = product.getStock() != null ? product.getStock() : 0;
+            double velocity = unitsSold.getOrDefault(productId, 0L) / (double) windowDays;
+            int reorderPoint = (int) Math.ceil(velocity * (policy.leadTimeDays() + policy.safetyDays()));
+
+            boolean belowPoint = velocity > 0 ? stock <= reorderPoint : stock <= 0;
+            if (!belowPoint) continue;
+
+            int suggested = Math.max(0, (int) Math.ceil(velocity * policy.coverDays()) + reorderPoint - stock);
+            Double daysOfStock = velocity > 0 ? Math.max(0, stock) / velocity : 0.0;
+            lowStock.add(new LowStockDTO(productId, product.getName(), product.getCategory(), product.getProvider(),
+                    stock, velocity, reorderPoint, daysOfStock, suggested, evaluatedAt));
+        }
+        return lowStock;
+    }
+
+    private int windowDays() {
+        return Math.max(1, config.getInt("REORDER_WINDOW_DAYS", 30));
+    }
+
+    private Policy policy() {
+        return new Policy(
+                config.getInt("REORDER_LEAD_TIME_DAYS", 7),
+                config.getInt("REORDER_SAFETY_DAYS", 3),
+                config.getInt("REORDER_COVER_DAYS", 30));
+    }
+
+    private record Policy(int leadTimeDays, int safetyDays, int coverDays) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.destinity.erp.logging;
+
+import com.destinity.erp.utils.ConfigService;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import java.io.StringWriter;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Hilo escritor del log asíncrono. Los loggers de SLF4J publican eventos sin
+ * formatear en un {@link LogRingBuffer}; este hilo los toma, construye el
+ * mensaje y lo entrega al logger de java.util.logging del mismo nombre, así
+ * que los handlers y niveles de Payara siguen aplicando. El hilo se crea con
+ * la fábrica administrada del servidor al iniciar la aplicación; antes de eso
+ * los eventos se escriben en el hilo que los emite.
+ *
+ * Con la cola llena, WARN y ERROR se escriben en el hilo que los emite y los
+ * niveles inferiores se descartan; los descartes se cuentan y se informan
+ * en el log cada 10 s. Con LOG_FORMAT=json
+ * (por defecto) el mensaje es un objeto JSON con nivel, logger, hilo,
+ * identificador de correlación y excepción; con LOG_FORMAT=text es el
+ * mensaje con el identificador de correlación como prefijo.
+ */
+final class AsyncLogWriter implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogWriter.class.getName());
+    private static final int DEFAULT_BUFFER_SIZE = 8_192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long STOP_TIMEOUT_MILLIS = 2_000;
+    private static final AsyncLogWriter INSTANCE = new AsyncLogWriter();
+
+    private final LogRingBuffer buffer;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private volatile Thread thread;
+    private volatile boolean idle;
+    private volatile boolean stopped;
+    private volatile boolean json;
+    private long reportedDrops;
+    private long lastDropReport = System.nanoTime();
+
+    private AsyncLogWriter() {
+        ConfigService config = ConfigService.bootstrap();
+        buffer = new LogRingBuffer(Math.max(64, config.getInt("LOG_BUFFER_SIZE", DEFAULT_BUFFER_SIZE)));
+        configure(config);
+    }
+
+    static AsyncLogWriter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Aplica LOG_FORMAT y LOG_SAMPLE_RATES; LOG_BUFFER_SIZE solo se lee al iniciar
+     *
+     * @param config configuración actual
+     */
+    void configure(ConfigService config) {
+        json = !"text".equalsIgnoreCase(config.getString("LOG_FORMAT", "json").trim());
+        LogSampler.configure(config.getString("LOG_SAMPLE_RATES", ""));
+    }
+
+    /**
+     * Publica un evento; si la cola está llena lo escribe en el hilo actual
+     * (WARN y ERROR) o lo descarta
+     *
+     * @param event evento capturado
+     */
+    void publish(LogEvent event) {
+        if (stopped) {
+            write(event);
+            return;
+        }
+        Thread writer = thread;
+        if (writer == null) {
+            write(event);
+            return;
+        }
+        if (buffer.offer(event)) {
+            if (idle) LockSupport.unpark(writer);
+        } else if (event.level.intValue() >= Level.WARNING.intValue()) {
+            write(event);
+        } else {
+            dropped.increment();
+        }
+    }
+
+    void sampledOut() {
+        sampledOut.increment();
+    }
+
+    /**
+     * Inicia el hilo escritor una sola vez
+     *
+     * @param threadFactory fábrica de hilos administrada del servidor
+     */
+    void start(ThreadFactory threadFactory) {
+        if (stopped || !started.compareAndSet(false, true)) return;
+        Thread writer = threadFactory.newThread(this);
+        writer.setName("destinity-log-writer");
+        writer.start();
+        thread = writer;
+    }
+
+    /**
+     * Detiene el hilo después de escribir los eventos pendientes; los eventos
+     * posteriores se escriben en el hilo que los emite
+     */
+    void stop() {
+        stopped = true;
+        Thread writer = thread;
+        if (writer == null) return;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Eventos publicados mientras el hilo terminaba
+        if (writer.isAlive()) return;
+        for (LogEvent event = buffer.poll(); event != null; event = buffer.poll()) write(event);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            LogEvent event = buffer.poll();
+            if (event != null) {
+                write(event);
+                continue;
+            }
+            reportDrops();
+            if (stopped) {
+                if (buffer.isEmpty()) return;
+                continue;
+            }
+            idle = true;
+            if (buffer.isEmpty()) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            idle = false;
+        }
+    }
+
+    private void write(LogEvent event) {
+        try {
+            LogRecord record = new LogRecord(event.level, format(event));
+            record.setLoggerName(event.loggerName);
+            record.setSourceClassName(event.loggerName);
+            record.setInstant(event.instant);
+            record.setThrown(event.thrown);
+            Logger.getLogger(event.loggerName).log(record);
+            written.increment();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudo escribir el evento de log: {0}", e.getMessage());
+        }
+    }
+
+    private String format(LogEvent event) {
+        String message = event.arguments == null || event.arguments.length == 0
+                ? event.pattern : MessageFormatter.basicArrayFormat(event.pattern, event.arguments);
+        if (!json) return event.correlationId != null ? "[" + event.correlationId + "] " + message : message;
+
+        StringWriter out = new StringWriter(128 + (message != null ? message.length() : 0));
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartObject()
+                    .write("timestamp", event.instant.toString())
+                    .write("level", event.level.getName())
+                    .write("logger", event.loggerName)
+                    .write("thread", event.threadName);
+            if (event.correlationId != null) generator.write("correlationId", event.correlationId);
+            generator.write("message", String.valueOf(message));
+            if (event.thrown != null) {
+                generator.write("exception", event.thrown.getClass().getName()
+                        + (event.thrown.getMessage() != null ? ": " + event.thrown.getMessage() : ""));
+            }
+            generator.writeEnd();
+        }
+        return out.toString();
+    }
+
+    private void reportDrops() {
+        long now = System.nanoTime();
+        if (now - lastDropReport < DROP_REPORT_INTERVAL_NANOS) return;
+        lastDropReport = now;
+        long total = dropped.sum();
+        if (total == reportedDrops) return;
+        LOGGER.log(Level.WARNING, "Cola de log llena: {0} eventos descartados en los últimos {1} s (capacidad {2})",
+                new Object[]{total - reportedDrops, TimeUnit.NANOSECONDS.toSeconds(DROP_REPORT_INTERVAL_NANOS),
+                    buffer.capacity()});
+        reportedDrops = total;
+    }
+
+    long getWritten() {
+        return written.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getSampledOut() {
+        return sampledOut.sum();
+    }
+}
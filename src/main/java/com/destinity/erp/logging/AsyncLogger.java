@@ -0,0 +1,117 @@
+package com.destinity.erp.logging;
+
+import com.destinity.erp.tracing.Trace;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.types.ObjectId;
+import org.slf4j.Marker;
+import org.slf4j.helpers.LegacyAbstractLogger;
+
+/**
+ * Logger de SLF4J que no formatea en el hilo que emite el evento. Los
+ * niveles habilitados son los del logger de java.util.logging del mismo
+ * nombre, así que se siguen configurando en Payara. Un evento habilitado
+ * pasa por el muestreo de LOG_SAMPLE_RATES (solo INFO y niveles inferiores)
+ * y se publica con el identificador de correlación de la petición en curso.
+ *
+ * Los argumentos inmutables se guardan tal cual; los demás se convierten a
+ * texto al publicar, porque el objeto podría cambiar antes de que el hilo
+ * escritor formatee el mensaje.
+ */
+final class AsyncLogger extends LegacyAbstractLogger {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Logger delegate;
+    private transient volatile int sampleVersion = -1;
+    private transient volatile double sampleRate = 1;
+
+    AsyncLogger(String name) {
+        this.name = name;
+        this.delegate = Logger.getLogger(name);
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return delegate.isLoggable(Level.FINER);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isLoggable(Level.FINE);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isLoggable(Level.INFO);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isLoggable(Level.WARNING);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isLoggable(Level.SEVERE);
+    }
+
+    @Override
+    protected String getFullyQualifiedCallerName() {
+        return null;
+    }
+
+    @Override
+    protected void handleNormalizedLoggingCall(org.slf4j.event.Level level, Marker marker, String pattern,
+            Object[] arguments, Throwable throwable) {
+        AsyncLogWriter writer = AsyncLogWriter.get();
+        if (level.toInt() <= org.slf4j.event.Level.INFO.toInt() && !sampled()) {
+            writer.sampledOut();
+            return;
+        }
+        writer.publish(new LogEvent(name, toJul(level), Instant.now(), Thread.currentThread().getName(),
+                Trace.currentCorrelationId(), pattern, snapshot(arguments), throwable));
+    }
+
+    private boolean sampled() {
+        if (sampleVersion != LogSampler.version()) {
+            sampleVersion = LogSampler.version();
+            sampleRate = LogSampler.rateFor(name);
+        }
+        double rate = sampleRate;
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static Object[] snapshot(Object[] arguments) {
+        if (arguments == null) return null;
+        Object[] copy = arguments;
+        for (int i = 0; i < arguments.length; i++) {
+            if (isImmutable(arguments[i])) continue;
+            if (copy == arguments) copy = arguments.clone();
+            copy[i] = String.valueOf(arguments[i]);
+        }
+        return copy;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof BigDecimal || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?> || value instanceof TemporalAccessor
+                || value instanceof UUID || value instanceof ObjectId;
+    }
+
+    private static Level toJul(org.slf4j.event.Level level) {
+        return switch (level) {
+            case ERROR -> Level.SEVERE;
+            case WARN -> Level.WARNING;
+            case INFO -> Level.INFO;
+            case DEBUG -> Level.FINE;
+            case TRACE -> Level.FINER;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.destinity.erp.logging;
+
+import com.destinity.erp.utils.ConfigService;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Ciclo de vida del log asíncrono: inicia el hilo escritor con la fábrica
+ * administrada, recarga LOG_FORMAT y LOG_SAMPLE_RATES cuando cambian,
+ * escribe los eventos pendientes al detener la aplicación y expone los
+ * contadores para las métricas.
+ */
+@ApplicationScoped
+public class AsyncLogging {
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * Inicia el hilo escritor y registra la recarga de la configuración al
+     * arrancar la aplicación
+     *
+     * @param init evento de inicialización del contexto de aplicación
+     */
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        AsyncLogWriter.get().start(threadFactory);
+        config.onChange(AsyncLogWriter.get()::configure, "LOG_FORMAT", "LOG_SAMPLE_RATES");
+    }
+
+    @PreDestroy
+    public void close() {
+        AsyncLogWriter.get().stop();
+    }
+
+    public long getWritten() {
+        return AsyncLogWriter.get().getWritten();
+    }
+
+    public long getDropped() {
+        return AsyncLogWriter.get().getDropped();
+    }
+
+    public long getSampledOut() {
+        return AsyncLogWriter.get().getSampledOut();
+    }
+}
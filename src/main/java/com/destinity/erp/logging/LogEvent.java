@@ -0,0 +1,32 @@
+package com.destinity.erp.logging;
+
+import java.time.Instant;
+import java.util.logging.Level;
+
+/**
+ * Evento de log capturado en el hilo que lo emite. Guarda el patrón y los
+ * argumentos sin formatear; el mensaje se construye en el hilo escritor.
+ */
+final class LogEvent {
+
+    final String loggerName;
+    final Level level;
+    final Instant instant;
+    final String threadName;
+    final String correlationId;
+    final String pattern;
+    final Object[] arguments;
+    final Throwable thrown;
+
+    LogEvent(String loggerName, Level level, Instant instant, String threadName, String correlationId,
+            String pattern, Object[] arguments, Throwable thrown) {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.instant = instant;
+        this.threadName = threadName;
+        this.correlationId = correlationId;
+        this.pattern = pattern;
+        this.arguments = arguments;
+        this.thrown = thrown;
+    }
+}
@@ -0,0 +1,80 @@
+package com.destinity.erp.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cola circular acotada de varios productores y un consumidor. Cada casilla
+ * lleva un número de secuencia que indica si está libre para la vuelta
+ * actual del productor o lista para el consumidor, así que publicar un
+ * evento cuesta un CAS y no reserva memoria; si la cola está llena,
+ * offer devuelve false en lugar de bloquear.
+ */
+final class LogRingBuffer {
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param requestedCapacity capacidad mínima; se redondea a potencia de dos
+     */
+    LogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        slots = new LogEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Publica un evento, desde cualquier hilo
+     *
+     * @param event evento a publicar
+     * @return false si la cola está llena
+     */
+    boolean offer(LogEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Toma el siguiente evento; solo lo llama el hilo escritor
+     *
+     * @return evento o null si la cola está vacía
+     */
+    LogEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) return null;
+        LogEvent event = slots[index];
+        slots[index] = null;
+        sequences.set(index, head + slots.length);
+        head++;
+        return event;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,72 @@
+package com.destinity.erp.logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tasas de muestreo de LOG_SAMPLE_RATES, con el formato
+ * "prefijo=tasa,prefijo=tasa". A cada logger le corresponde la tasa del
+ * prefijo más largo que coincide con su nombre, y 1 si ninguno coincide.
+ * Solo se muestrean INFO y niveles inferiores; WARN y ERROR se escriben
+ * siempre.
+ */
+final class LogSampler {
+
+    private static final Logger LOGGER = Logger.getLogger(LogSampler.class.getName());
+
+    private static volatile Map<String, Double> rates = Map.of();
+    private static volatile int version;
+
+    private LogSampler() {
+    }
+
+    /**
+     * Reemplaza las tasas; los loggers las vuelven a resolver en su siguiente evento
+     *
+     * @param spec valor de LOG_SAMPLE_RATES
+     */
+    static synchronized void configure(String spec) {
+        Map<String, Double> parsed = new LinkedHashMap<>();
+        if (spec != null) {
+            for (String entry : spec.split(",")) {
+                if (entry.isBlank()) continue;
+                int separator = entry.indexOf('=');
+                try {
+                    if (separator <= 0) throw new NumberFormatException(entry);
+                    double rate = Double.parseDouble(entry.substring(separator + 1).trim());
+                    parsed.put(entry.substring(0, separator).trim(), Math.max(0, Math.min(1, rate)));
+                } catch (NumberFormatException e) {
+                    LOGGER.log(Level.WARNING, "Entrada inválida en LOG_SAMPLE_RATES: {0}", entry.trim());
+                }
+            }
+        }
+        rates = Map.copyOf(parsed);
+        version++;
+    }
+
+    static int version() {
+        return version;
+    }
+
+    /**
+     * Tasa del prefijo más largo que coincide con el nombre del logger
+     *
+     * @param loggerName nombre del logger
+     * @return tasa entre 0 y 1
+     */
+    static double rateFor(String loggerName) {
+        double rate = 1;
+        int longest = -1;
+        for (Map.Entry<String, Double> entry : rates.entrySet()) {
+            String prefix = entry.getKey();
+            if (prefix.length() > longest && loggerName.startsWith(prefix)
+                    && (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.')) {
+                rate = entry.getValue();
+                longest = prefix.length();
+            }
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,68 @@
+package com.destinity.erp.metrics;
+
+import com.destinity.erp.analytics.LogHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de un comando de MongoDb por colección y método de repositorio
+ * que lo originó: histograma de latencia en microsegundos, suma de
+ * latencias, bytes de respuesta y fallos.
+ */
+final class CommandStats {
+
+    private final String collection;
+    private final String command;
+    private final String origin;
+    private final LogHistogram latencyMicros = new LogHistogram();
+    private final LongAdder latencySumMicros = new LongAdder();
+    private final LongAdder replyBytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    CommandStats(String collection, String command, String origin) {
+        this.collection = collection;
+        this.command = command;
+        this.origin = origin;
+    }
+
+    void succeeded(long elapsedNanos, int bytes) {
+        long micros = elapsedNanos / 1_000;
+        latencyMicros.record(micros);
+        latencySumMicros.add(micros);
+        if (bytes > 0) replyBytes.add(bytes);
+    }
+
+    void failed(long elapsedNanos) {
+        long micros = elapsedNanos / 1_000;
+        latencyMicros.record(micros);
+        latencySumMicros.add(micros);
+        failures.increment();
+    }
+
+    String getCollection() {
+        return collection;
+    }
+
+    String getCommand() {
+        return command;
+    }
+
+    String getOrigin() {
+        return origin;
+    }
+
+    LogHistogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    long getLatencySumMicros() {
+        return latencySumMicros.sum();
+    }
+
+    long getReplyBytes() {
+        return replyBytes.sum();
+    }
+
+    long getFailures() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,71 @@
+package com.destinity.erp.metrics;
+
+import com.destinity.erp.analytics.LogHistogram;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de un método de recurso: histograma de latencia en
+ * microsegundos, suma de latencias, respuestas por código de estado y
+ * peticiones en curso. Todas las actualizaciones son sin bloqueo.
+ */
+final class EndpointMetrics {
+
+    private final String resource;
+    private final String httpMethod;
+    private final LogHistogram latencyMicros = new LogHistogram();
+    private final LongAdder latencySumMicros = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    EndpointMetrics(String resource, String httpMethod) {
+        this.resource = resource;
+        this.httpMethod = httpMethod;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished(int status, long elapsedNanos) {
+        long micros = elapsedNanos / 1_000;
+        inFlight.decrementAndGet();
+        latencyMicros.record(micros);
+        latencySumMicros.add(micros);
+        count(status);
+    }
+
+    /**
+     * Cuenta una respuesta sin latencia, para peticiones que no llegaron a
+     * un método de recurso
+     */
+    void count(int status) {
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    String getResource() {
+        return resource;
+    }
+
+    String getHttpMethod() {
+        return httpMethod;
+    }
+
+    LogHistogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    long getLatencySumMicros() {
+        return latencySumMicros.sum();
+    }
+
+    Map<Integer, LongAdder> getStatuses() {
+        return statuses;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
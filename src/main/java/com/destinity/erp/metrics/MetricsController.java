@@ -0,0 +1,38 @@
+package com.destinity.erp.metrics;
+
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Controlador REST con las métricas de la aplicación para Prometheus.
+ */
+@Path("/admin/metrics")
+public class MetricsController {
+
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    private MetricsService metricsService;
+
+    /**
+     * Obtiene las métricas de peticiones REST y de la JVM
+     *
+     * @return respuesta con la exposición en texto
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics() {
+        try {
+            return Response.ok(metricsService.scrape(), PROMETHEUS_TEXT).build();
+        } catch (Exception e) {
+            return Response.fromResponse(RestExceptionHandler.unexpectedCustomException(e))
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.destinity.erp.metrics;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Filtro que mide cada petición REST desde que se asigna a un método de
+ * recurso hasta que se genera la respuesta. La serialización del cuerpo
+ * ocurre después y no se incluye.
+ */
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+    private static final String ENDPOINT_PROPERTY = MetricsFilter.class.getName() + ".endpoint";
+
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        EndpointMetrics endpoint = requestMetrics.get(resourceInfo.getResourceClass(),
+                resourceInfo.getResourceMethod(), request.getMethod());
+        endpoint.started();
+        request.setProperty(ENDPOINT_PROPERTY, endpoint);
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object start = request.getProperty(START_PROPERTY);
+        if (start == null) {
+            // La petición no llegó a un método de recurso (p. ej. 404)
+            requestMetrics.get(null, null, request.getMethod()).count(response.getStatus());
+            return;
+        }
+        EndpointMetrics endpoint = (EndpointMetrics) request.getProperty(ENDPOINT_PROPERTY);
+        endpoint.finished(response.getStatus(), System.nanoTime() - (Long) start);
+    }
+}
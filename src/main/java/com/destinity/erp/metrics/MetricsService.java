@@ -0,0 +1,178 @@
+package com.destinity.erp.metrics;
+
+import com.destinity.erp.analytics.LogHistogram;
+import com.destinity.erp.logging.AsyncLogging;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servicio que expone las métricas de peticiones, de MongoDb, del log y de la JVM en el formato
+ * de texto de Prometheus. La latencia se publica como histograma con
+ * límites fijos, para poder sumar instancias y calcular percentiles con
+ * histogram_quantile.
+ */
+@ApplicationScoped
+public class MetricsService {
+
+    private static final double[] LATENCY_BOUNDS_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Inject
+    private MongoCommandMetrics mongoCommandMetrics;
+
+    @Inject
+    private AsyncLogging asyncLogging;
+
+    /**
+     * Genera la exposición completa de métricas
+     *
+     * @return texto en formato Prometheus 0.0.4
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16_384);
+        List<EndpointMetrics> endpoints = new ArrayList<>(requestMetrics.getByMethod());
+        endpoints.sort(Comparator.comparing(EndpointMetrics::getResource));
+        List<EndpointMetrics> all = new ArrayList<>(endpoints);
+        all.addAll(requestMetrics.getUnmatched());
+
+        header(out, "http_server_requests_seconds", "histogram", "Latencia de las peticiones REST por método de recurso");
+        for (EndpointMetrics endpoint : endpoints) {
+            histogram(out, "http_server_requests_seconds", labels(endpoint),
+                    endpoint.getLatencyMicros(), endpoint.getLatencySumMicros());
+        }
+
+        header(out, "http_server_responses_total", "counter", "Respuestas REST por método de recurso y código de estado");
+        for (EndpointMetrics endpoint : all) {
+            String labels = labels(endpoint);
+            Map<Integer, LongAdder> statuses = new TreeMap<>(endpoint.getStatuses());
+            statuses.forEach((status, count) ->
+                    sample(out, "http_server_responses_total", labels + ",status=\"" + status + "\"", count.sum()));
+        }
+
+        header(out, "http_server_requests_in_flight", "gauge", "Peticiones REST en curso por método de recurso");
+        for (EndpointMetrics endpoint : endpoints) {
+            sample(out, "http_server_requests_in_flight", labels(endpoint), endpoint.getInFlight());
+        }
+
+        appendMongo(out);
+        appendLogging(out);
+        appendJvm(out);
+        return out.toString();
+    }
+
+    private void appendMongo(StringBuilder out) {
+        List<CommandStats> commands = new ArrayList<>(mongoCommandMetrics.getStats());
+        commands.sort(Comparator.comparing(CommandStats::getCollection)
+                .thenComparing(CommandStats::getCommand)
+                .thenComparing(CommandStats::getOrigin));
+
+        header(out, "mongodb_command_seconds", "histogram", "Latencia de los comandos de MongoDb por colección y origen");
+        for (CommandStats command : commands) {
+            histogram(out, "mongodb_command_seconds", labels(command),
+                    command.getLatencyMicros(), command.getLatencySumMicros());
+        }
+        header(out, "mongodb_command_reply_bytes_total", "counter", "Bytes recibidos en respuestas de MongoDb");
+        for (CommandStats command : commands) {
+            sample(out, "mongodb_command_reply_bytes_total", labels(command), command.getReplyBytes());
+        }
+        header(out, "mongodb_command_failures_total", "counter", "Comandos de MongoDb que fallaron");
+        for (CommandStats command : commands) {
+            sample(out, "mongodb_command_failures_total", labels(command), command.getFailures());
+        }
+    }
+
+    private void appendLogging(StringBuilder out) {
+        header(out, "log_events_total", "counter", "Eventos de log de la aplicación por resultado");
+        sample(out, "log_events_total", "outcome=\"written\"", asyncLogging.getWritten());
+        sample(out, "log_events_total", "outcome=\"dropped\"", asyncLogging.getDropped());
+        sample(out, "log_events_total", "outcome=\"sampled_out\"", asyncLogging.getSampledOut());
+    }
+
+    private void appendJvm(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(out, "jvm_memory_used_bytes", "gauge", "Memoria usada por área");
+        sample(out, "jvm_memory_used_bytes", "area=\"heap\"", heap.getUsed());
+        sample(out, "jvm_memory_used_bytes", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "jvm_memory_committed_bytes", "gauge", "Memoria reservada por área");
+        sample(out, "jvm_memory_committed_bytes", "area=\"heap\"", heap.getCommitted());
+        sample(out, "jvm_memory_committed_bytes", "area=\"nonheap\"", nonHeap.getCommitted());
+        header(out, "jvm_memory_max_bytes", "gauge", "Memoria máxima por área, -1 si no tiene límite");
+        sample(out, "jvm_memory_max_bytes", "area=\"heap\"", heap.getMax());
+        sample(out, "jvm_memory_max_bytes", "area=\"nonheap\"", nonHeap.getMax());
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        header(out, "jvm_gc_collections_total", "counter", "Recolecciones por recolector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            sample(out, "jvm_gc_collections_total", "gc=\"" + escape(gc.getName()) + "\"", Math.max(0, gc.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Tiempo acumulado de recolección por recolector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            sample(out, "jvm_gc_collection_seconds_total", "gc=\"" + escape(gc.getName()) + "\"",
+                    Math.max(0, gc.getCollectionTime()) / 1_000.0);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        header(out, "jvm_threads_current", "gauge", "Hilos vivos");
+        sample(out, "jvm_threads_current", null, threads.getThreadCount());
+        header(out, "jvm_threads_daemon", "gauge", "Hilos daemon vivos");
+        sample(out, "jvm_threads_daemon", null, threads.getDaemonThreadCount());
+        header(out, "jvm_threads_peak", "gauge", "Máximo de hilos vivos desde el inicio");
+        sample(out, "jvm_threads_peak", null, threads.getPeakThreadCount());
+
+        header(out, "process_uptime_seconds", "gauge", "Tiempo desde el inicio de la JVM");
+        sample(out, "process_uptime_seconds", null, ManagementFactory.getRuntimeMXBean().getUptime() / 1_000.0);
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LogHistogram micros, long sumMicros) {
+        for (double bound : LATENCY_BOUNDS_SECONDS) {
+            long count = micros.countAtOrBelow((long) (bound * 1_000_000));
+            sample(out, name + "_bucket", labels + ",le=\"" + bound + "\"", count);
+        }
+        long total = micros.getTotalCount();
+        sample(out, name + "_bucket", labels + ",le=\"+Inf\"", total);
+        sample(out, name + "_sum", labels, sumMicros / 1_000_000.0);
+        sample(out, name + "_count", labels, total);
+    }
+
+    private static String labels(CommandStats command) {
+        return "collection=\"" + escape(command.getCollection()) + "\",command=\"" + escape(command.getCommand())
+                + "\",origin=\"" + escape(command.getOrigin()) + "\"";
+    }
+
+    private static String labels(EndpointMetrics endpoint) {
+        return "resource=\"" + escape(endpoint.getResource()) + "\",method=\"" + endpoint.getHttpMethod() + "\"";
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) out.append((long) value);
+        else out.append(value);
+        out.append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,240 @@
+package com.destinity.erp.metrics;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Trace;
+import com.destinity.erp.tracing.TracingInterceptor;
+import com.destinity.erp.utils.ConfigService;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+/**
+ * Escucha los comandos que el cliente de MongoDb envía al servidor y
+ * registra latencia, bytes de respuesta y fallos por colección, comando y
+ * método de repositorio que lo originó. El origen es el método @Traced en
+ * curso que TracingInterceptor deja en el hilo, porque el driver síncrono
+ * notifica el inicio del comando en ese mismo hilo.
+ *
+ * Los comandos que superan MONGO_SLOW_QUERY_MS se escriben en el log con
+ * la forma del filtro (sin valores). La forma se calcula una sola vez por
+ * colección, comando y origen, con el primer comando de esa combinación;
+ * los métodos con filtros opcionales registran la forma de ese primero.
+ * Con MONGO_SLOW_QUERY_EXPLAIN se ejecuta además explain una vez por
+ * combinación, en segundo plano, con el comando guardado junto a la forma.
+ */
+@ApplicationScoped
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MongoCommandMetrics.class.getName());
+    private static final String UNKNOWN_ORIGIN = "desconocido";
+    private static final int MAX_EXPLAINED = 500;
+    private static final int MAX_PLAN_LENGTH = 2_000;
+
+    @Inject
+    private ConfigService config;
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final Map<Integer, Started> inProgress = new ConcurrentHashMap<>();
+    private final Map<Key, CommandStats> stats = new ConcurrentHashMap<>();
+    private final Map<Key, Shape> shapes = new ConcurrentHashMap<>();
+    private final Set<Key> explained = ConcurrentHashMap.newKeySet();
+
+    private volatile long slowQueryNanos;
+    private volatile boolean explainSlow;
+
+    private record Key(String collection, String command, String origin) {
+    }
+
+    private record Shape(String shape, BsonDocument explainCommand) {
+    }
+
+    private record Started(Key key, String database, Shape shape) {
+    }
+
+    @PostConstruct
+    public void init() {
+        loadSettings();
+        config.onChange(c -> loadSettings(), "MONGO_SLOW_QUERY_MS", "MONGO_SLOW_QUERY_EXPLAIN");
+    }
+
+    private void loadSettings() {
+        long slowMs = config.getLong("MONGO_SLOW_QUERY_MS", 100);
+        slowQueryNanos = slowMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowMs) : Long.MAX_VALUE;
+        explainSlow = config.getBoolean("MONGO_SLOW_QUERY_EXPLAIN", false);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        BsonDocument command = event.getCommand();
+        String origin = TracingInterceptor.currentOrigin();
+        Key key = new Key(collectionOf(commandName, command), commandName, origin != null ? origin : UNKNOWN_ORIGIN);
+        Shape shape = slowQueryNanos != Long.MAX_VALUE && !commandName.equals("explain")
+                ? shapeOf(key, command) : null;
+        inProgress.put(event.getRequestId(), new Started(key, event.getDatabaseName(), shape));
+    }
+
+    /**
+     * Forma del comando para el log de consultas lentas, calculada con el
+     * primer comando de cada combinación, mientras su documento sigue siendo
+     * válido. Si explain se activa después, se vuelve a calcular una vez
+     * para guardar también el comando.
+     */
+    private Shape shapeOf(Key key, BsonDocument command) {
+        Shape shape = shapes.get(key);
+        if (shape != null && (shape.explainCommand() != null || !explainSlow || shape.shape() == null)) return shape;
+        return shapes.compute(key, (k, current) -> {
+            if (current != null && (current.explainCommand() != null || !explainSlow || current.shape() == null))
+                return current;
+            String text = current != null ? current.shape() : QueryShape.of(k.command(), command);
+            return new Shape(text, explainSlow && text != null ? explainable(command) : null);
+        });
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inProgress.remove(event.getRequestId());
+        if (started == null) return;
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        int replyBytes = sizeOf(event.getResponse());
+        statsOf(started.key()).succeeded(elapsed, replyBytes);
+        traceSpan(started, elapsed, replyBytes, false);
+        if (elapsed >= slowQueryNanos) slowQuery(started, elapsed, null);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Started started = inProgress.remove(event.getRequestId());
+        if (started == null) return;
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        statsOf(started.key()).failed(elapsed);
+        traceSpan(started, elapsed, -1, true);
+        if (elapsed >= slowQueryNanos) slowQuery(started, elapsed, event.getThrowable());
+    }
+
+    /**
+     * Métricas acumuladas por colección, comando y origen
+     *
+     * @return métricas registradas
+     */
+    Collection<CommandStats> getStats() {
+        return stats.values();
+    }
+
+    private CommandStats statsOf(Key key) {
+        return stats.computeIfAbsent(key, k -> new CommandStats(k.collection(), k.command(), k.origin()));
+    }
+
+    /**
+     * Agrega el comando como span de la petición muestreada en curso. El
+     * driver síncrono notifica el final en el hilo de la petición.
+     */
+    private static void traceSpan(Started started, long elapsedNanos, int replyBytes, boolean failed) {
+        Trace trace = Trace.current();
+        if (trace == null || !trace.isSampled()) return;
+        Trace.Span span = trace.record("mongodb " + started.key().command(), "CLIENT", elapsedNanos)
+                .attribute("db.mongodb.collection", started.key().collection());
+        if (replyBytes >= 0) span.attribute("db.response.bytes", replyBytes);
+        if (failed) span.attribute("error", "true");
+    }
+
+    private void slowQuery(Started started, long elapsedNanos, Throwable error) {
+        Key key = started.key();
+        Shape shape = started.shape();
+        LOGGER.log(Level.WARNING, "Consulta lenta ({0} ms) {1}.{2} desde {3}{4}{5}", new Object[]{
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos), key.collection(), key.command(), key.origin(),
+            shape != null && shape.shape() != null ? " forma " + shape.shape() : "",
+            error != null ? " error " + error.getMessage() : ""});
+
+        if (!explainSlow || shape == null || shape.explainCommand() == null || explained.size() >= MAX_EXPLAINED) return;
+        if (!explained.add(key)) return;
+        try {
+            executor.submit(() -> explain(started));
+        } catch (RuntimeException e) {
+            explained.remove(key);
+            LOGGER.log(Level.FINE, "No se pudo programar explain", e);
+        }
+    }
+
+    private void explain(Started started) {
+        MongoClient client = dbConnection.getMongoClient();
+        if (client == null) return;
+        try {
+            Document result = client.getDatabase(started.database()).runCommand(
+                    new Document("explain", started.shape().explainCommand()).append("verbosity", "queryPlanner"));
+            Object planner = result.get("queryPlanner");
+            if (planner == null && result.get("stages") instanceof List<?> stages && !stages.isEmpty()
+                    && stages.get(0) instanceof Document cursorStage) {
+                // Las agregaciones reportan el plan dentro de la etapa $cursor
+                Document cursor = cursorStage.get("$cursor", Document.class);
+                planner = cursor != null ? cursor.get("queryPlanner") : null;
+            }
+            Object winningPlan = planner instanceof Document document ? document.get("winningPlan") : result;
+            String plan = winningPlan instanceof Document document ? document.toJson() : String.valueOf(winningPlan);
+            if (plan.length() > MAX_PLAN_LENGTH) plan = plan.substring(0, MAX_PLAN_LENGTH) + "...";
+            LOGGER.log(Level.WARNING, "Plan de la consulta lenta {0}.{1} desde {2}: {3}", new Object[]{
+                started.key().collection(), started.key().command(), started.key().origin(), plan});
+        } catch (MongoException e) {
+            LOGGER.log(Level.WARNING, "No se pudo obtener el plan de {0}: {1}",
+                    new Object[]{started.key().origin(), e.getMessage()});
+        }
+    }
+
+    /**
+     * Colección del comando: la mayoría la lleva como valor del primer campo
+     */
+    private static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue value = commandName.equals("getMore") ? command.get("collection") : command.get(commandName);
+        return value instanceof BsonString string ? string.getValue() : "-";
+    }
+
+    /**
+     * Copia del comando sin los campos de sesión y de transporte, que
+     * explain no acepta
+     */
+    private static BsonDocument explainable(BsonDocument command) {
+        BsonDocument copy = command.clone();
+        copy.keySet().removeIf(name -> name.startsWith("$") || name.equals("lsid") || name.equals("txnNumber")
+                || name.equals("autocommit") || name.equals("startTransaction"));
+        return copy;
+    }
+
+    /**
+     * Tamaño de la respuesta leído del encabezado BSON, sin decodificarla
+     */
+    private static int sizeOf(BsonDocument response) {
+        BsonReader reader = response.asBsonReader();
+        try (reader) {
+            return reader instanceof BsonBinaryReader binary ? binary.getBsonInput().readInt32() : -1;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
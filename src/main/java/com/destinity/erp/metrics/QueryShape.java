@@ -0,0 +1,120 @@
+package com.destinity.erp.metrics;
+
+import java.util.Map;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Forma de un comando de MongoDb: los filtros, ordenamientos y etapas de
+ * agregación con los valores reemplazados por "?". Dos consultas con la
+ * misma forma usan el mismo plan, así que el log de consultas lentas no
+ * expone datos de clientes y se puede agrupar.
+ */
+final class QueryShape {
+
+    private static final int MAX_DEPTH = 6;
+    private static final int MAX_LENGTH = 1_000;
+
+    private QueryShape() {
+    }
+
+    /**
+     * Obtiene la forma del comando. Se debe llamar dentro de commandStarted,
+     * mientras el documento del comando sigue siendo válido.
+     *
+     * @param commandName nombre del comando
+     * @param command documento del comando
+     * @return forma del comando o null si no lleva filtro
+     */
+    static String of(String commandName, BsonDocument command) {
+        StringBuilder out = new StringBuilder(128);
+        switch (commandName) {
+            case "find" -> {
+                field(out, "filter", command.get("filter"));
+                field(out, "sort", command.get("sort"));
+                field(out, "projection", command.get("projection"));
+            }
+            case "aggregate" -> field(out, "pipeline", command.get("pipeline"));
+            case "count", "distinct" -> field(out, "query", command.get("query"));
+            case "findAndModify" -> {
+                field(out, "query", command.get("query"));
+                field(out, "sort", command.get("sort"));
+            }
+            case "update" -> field(out, "q", first(command.get("updates"), "q"));
+            case "delete" -> field(out, "q", first(command.get("deletes"), "q"));
+            default -> {
+                return null;
+            }
+        }
+        if (out.isEmpty()) return null;
+        return out.length() > MAX_LENGTH ? out.substring(0, MAX_LENGTH) + "..." : out.toString();
+    }
+
+    private static BsonValue first(BsonValue statements, String key) {
+        if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) return null;
+        BsonValue statement = statements.asArray().get(0);
+        return statement.isDocument() ? statement.asDocument().get(key) : null;
+    }
+
+    private static void field(StringBuilder out, String name, BsonValue value) {
+        if (value == null) return;
+        if (!out.isEmpty()) out.append(", ");
+        out.append(name).append(": ");
+        append(out, value, 0, name.equals("sort") || name.equals("projection"));
+    }
+
+    /**
+     * Escribe el valor conservando nombres de campos y operadores. Los
+     * valores de sort y projection (1/-1) se conservan porque definen el plan.
+     */
+    private static void append(StringBuilder out, BsonValue value, int depth, boolean keepScalars) {
+        if (depth > MAX_DEPTH) {
+            out.append("...");
+        } else if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+                if (!first) out.append(", ");
+                first = false;
+                out.append(entry.getKey()).append(": ");
+                boolean keep = keepScalars || entry.getKey().equals("$sort") || entry.getKey().equals("$project")
+                        || entry.getKey().equals("$limit") || entry.getKey().equals("$skip");
+                append(out, entry.getValue(), depth + 1, keep);
+            }
+            out.append('}');
+        } else if (value.isArray()) {
+            BsonArray array = value.asArray();
+            // Las listas de valores ($in) se reducen a un marcador; las de
+            // documentos ($and, $or, pipeline) conservan su forma
+            if (!array.isEmpty() && !array.get(0).isDocument() && !array.get(0).isArray()) {
+                out.append("[?]");
+                return;
+            }
+            out.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) out.append(", ");
+                append(out, array.get(i), depth + 1, keepScalars);
+            }
+            out.append(']');
+        } else if (value.isString() && value.asString().getValue().startsWith("$")) {
+            // Referencias a campos como "$category" describen la consulta, no los datos
+            out.append('"').append(value.asString().getValue()).append('"');
+        } else if (keepScalars) {
+            out.append(value.isString() ? "\"" + value.asString().getValue() + "\"" : scalar(value));
+        } else {
+            out.append('?');
+        }
+    }
+
+    private static String scalar(BsonValue value) {
+        return switch (value.getBsonType()) {
+            case INT32 -> String.valueOf(value.asInt32().getValue());
+            case INT64 -> String.valueOf(value.asInt64().getValue());
+            case DOUBLE -> String.valueOf(value.asDouble().getValue());
+            case BOOLEAN -> String.valueOf(value.asBoolean().getValue());
+            default -> "?";
+        };
+    }
+}
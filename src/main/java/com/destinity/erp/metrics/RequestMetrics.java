@@ -0,0 +1,44 @@
+package com.destinity.erp.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de métricas por método de recurso REST. La clave es el método
+ * Java que atendió la petición, no la URL, para que los parámetros de ruta
+ * y de consulta no multipliquen las series.
+ */
+@ApplicationScoped
+public class RequestMetrics {
+
+    static final String UNMATCHED = "unmatched";
+
+    private final Map<Method, EndpointMetrics> byMethod = new ConcurrentHashMap<>();
+    private final Map<String, EndpointMetrics> unmatched = new ConcurrentHashMap<>();
+
+    /**
+     * Métricas del método de recurso indicado
+     *
+     * @param resourceClass clase del controlador, null si ninguno coincidió
+     * @param resourceMethod método del controlador, null si ninguno coincidió
+     * @param httpMethod método HTTP de la petición
+     * @return métricas del endpoint
+     */
+    EndpointMetrics get(Class<?> resourceClass, Method resourceMethod, String httpMethod) {
+        if (resourceClass == null || resourceMethod == null)
+            return unmatched.computeIfAbsent(httpMethod, m -> new EndpointMetrics(UNMATCHED, m));
+        return byMethod.computeIfAbsent(resourceMethod, m -> new EndpointMetrics(
+                resourceClass.getSimpleName() + "." + m.getName(), httpMethod));
+    }
+
+    Collection<EndpointMetrics> getByMethod() {
+        return byMethod.values();
+    }
+
+    Collection<EndpointMetrics> getUnmatched() {
+        return unmatched.values();
+    }
+}
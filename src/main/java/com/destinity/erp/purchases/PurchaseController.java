@@ -0,0 +1,145 @@
+package com.destinity.erp.purchases;
+
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST encargado de las peticiones con las órdenes de compra.
+ * Expone los endpoint de la API para registrar, consultar, aprobar y
+ * recibir compras a proveedores.
+ */
+@Path("/purchases")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class PurchaseController {
+
+    @Inject
+    private PurchaseService purchaseService;
+
+    /**
+     * Crea una nueva orden de compra
+     *
+     * @param order datos de la orden
+     * @return respuesta con la orden creada o error
+     */
+    @POST
+    public Response createOrder(PurchaseOrderModel order) {
+        try {
+            PurchaseOrderDTO created = purchaseService.createOrder(order);
+            return Response.status(Response.Status.CREATED).entity(created).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene órdenes de compra paginadas
+     *
+     * @param page número de página (desde 0)
+     * @param size tamaño de página
+     * @param status estatus a filtrar (opcional)
+     * @return respuesta con la lista paginada de órdenes
+     */
+    @GET
+    @Path("/all")
+    public Response getAllOrders(@QueryParam("page") int page, @QueryParam("size") int size,
+            @QueryParam("status") String status) {
+        try {
+            List<PurchaseOrderDTO> orders = purchaseService.getAllOrders(page, size, status);
+            long totalCount = purchaseService.getTotalOrderCount(status);
+
+            return Response.ok(orders)
+                    .header("X-Total-Count", totalCount)
+                    .header("X-Page", page)
+                    .header("X-Page-Size", size)
+                    .build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene una orden de compra con sus partidas
+     *
+     * @param id identificador de la orden
+     * @return respuesta con la orden o error si no existe
+     */
+    @GET
+    public Response getOrderById(@QueryParam("id") String id) {
+        try {
+            if (id == null || id.trim().isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("El parámetro de búsqueda es requerido")
+                        .build();
+            }
+            PurchaseOrderModel order = purchaseService.getOrderById(id);
+            return Response.ok(order).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Cambia el estatus de una orden (Aprobado, En tránsito o Cancelado)
+     *
+     * @param id identificador de la orden
+     * @param body objeto con el nuevo estatus
+     * @return respuesta con la orden actualizada o error
+     */
+    @PUT
+    @Path("/{id}/status")
+    public Response updateStatus(@PathParam("id") String id, Map<String, String> body) {
+        try {
+            String status = body != null ? body.get("status") : null;
+            if (status == null || status.isBlank()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("El estatus es requerido")
+                        .build();
+            }
+            PurchaseOrderDTO order = purchaseService.updateStatus(id, status);
+            return Response.ok(order).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Recibe una orden y suma sus partidas al inventario
+     *
+     * @param id identificador de la orden
+     * @return respuesta con la orden recibida o error
+     */
+    @POST
+    @Path("/{id}/receive")
+    public Response receiveOrder(@PathParam("id") String id) {
+        try {
+            PurchaseOrderDTO order = purchaseService.receiveOrder(id);
+            return Response.ok(order).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.destinity.erp.purchases;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone información resumida de una orden de compra a traves de la API.
+ * Incluye el número de partidas en lugar del detalle completo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrderDTO {
+
+    private String id;
+    private String provider;
+    private int items;
+    private Double total;
+    private String status;
+    private LocalDateTime created;
+    private LocalDateTime received;
+
+    public PurchaseOrderDTO(PurchaseOrderModel order) {
+        this.id = (order.getId() != null)
+                ? order.getId().toHexString()
+                : null;
+        this.provider = (order.getProvider() != null)
+                ? order.getProvider().getCompany()
+                : null;
+        this.items = (order.getItems() != null)
+                ? order.getItems().size()
+                : 0;
+        this.total = order.getTotalAmount();
+        this.status = order.getStatus();
+        this.created = order.getCreatedAt();
+        this.received = order.getReceivedAt();
+    }
+}
@@ -0,0 +1,62 @@
+package com.destinity.erp.purchases;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+/**
+ * Modelo que representa una orden de compra a un proveedor.
+ * Este modelo esta diseñado para ser almacenado en MongoDb como documento.
+ * Contiene los datos del proveedor y las partidas de productos solicitados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrderModel {
+
+    public static final String STATUS_PENDING = "Pendiente";
+    public static final String STATUS_APPROVED = "Aprobado";
+    public static final String STATUS_IN_TRANSIT = "En tránsito";
+    public static final String STATUS_RECEIVED = "Recibido";
+    public static final String STATUS_CANCELLED = "Cancelado";
+
+    private ObjectId id;
+    private ProviderInfo provider;
+    private List<Item> items;
+    private Double totalAmount;
+    private String status;
+    private LocalDateTime receivedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Subdocumento con los datos básicos del proveedor de la orden.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProviderInfo {
+
+        private String id;
+        private String company;
+        private String email;
+    }
+
+    /**
+     * Subdocumento con una partida de la orden.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        private String productId;
+        private String name;
+        private Integer quantity;
+        private Double unitCost;
+        private Double subTotal;
+    }
+}
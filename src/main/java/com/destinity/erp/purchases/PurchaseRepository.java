@@ -0,0 +1,260 @@
+package com.destinity.erp.purchases;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.ToDate;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repositorio encargado de la interacción directa con MongoDb.
+ * Administra la conversión entre el modelo de orden de compra y los
+ * documentos almacenados en la base de datos.
+ */
+@Traced
+@ApplicationScoped
+public class PurchaseRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PurchaseRepository.class);
+    private static final String COLLECTION_NAME = "purchases";
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Crea el índice del listado por estatus y fecha
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            getPurchaseCollection().createIndex(Indexes.compoundIndex(
+                    Indexes.ascending("status"), Indexes.descending("createdAt")));
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de compras: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la colección de órdenes de compra
+     *
+     * @return MongoCollection de compras
+     */
+    private MongoCollection<Document> getPurchaseCollection() {
+        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * Guarda una nueva orden de compra
+     *
+     * @param order orden a guardar
+     * @return ID de la orden guardada
+     */
+    public String saveOrder(PurchaseOrderModel order) {
+        try {
+            getPurchaseCollection().insertOne(orderToDocument(order));
+            return order.getId().toHexString();
+        } catch (MongoException e) {
+            LOGGER.error("Error al insertar la orden de compra: {}", e.getMessage());
+            throw CustomException.dbError("Error al insertar la orden de compra en la base de datos.");
+        }
+    }
+
+    /**
+     * Busca órdenes de compra (con paginación), de la más reciente a la más antigua
+     *
+     * @param page número de página (empezando desde 0)
+     * @param pageSize tamaño de página
+     * @param status estatus a filtrar o null para todos
+     * @return Lista de órdenes
+     */
+    public List<PurchaseOrderModel> findAllOrders(int page, int pageSize, String status) {
+        try {
+            Bson filter = status != null ? Filters.eq("status", status) : new Document();
+            List<PurchaseOrderModel> orders = new ArrayList<>();
+            FindIterable<Document> documents = getPurchaseCollection()
+                    .find(filter)
+                    .sort(Sorts.descending("createdAt"))
+                    .skip(page * pageSize)
+                    .limit(pageSize);
+
+            for (Document doc : documents) orders.add(documentToOrder(doc));
+            return orders;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener órdenes de compra: {}", e.getMessage());
+            throw CustomException.dbError("Error al obtener órdenes de compra.");
+        }
+    }
+
+    /**
+     * Busca una orden de compra por su ID
+     *
+     * @param id identificador de la orden
+     * @return Optional con la orden encontrada o vacío si no existe
+     */
+    public Optional<PurchaseOrderModel> findOrderById(String id) {
+        try {
+            if (id == null || !ObjectId.isValid(id)) {
+                LOGGER.warn("ID inválido recibido: {}", id);
+                return Optional.empty();
+            }
+            Document doc = getPurchaseCollection().find(Filters.eq("_id", new ObjectId(id))).first();
+            return Optional.ofNullable(documentToOrder(doc));
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener la orden de compra {}: {}", id, e.getMessage());
+            throw CustomException.dbError("Error al obtener la orden de compra.");
+        }
+    }
+
+    /**
+     * Cambia el estatus de una orden solo si su estatus actual es uno de los
+     * esperados. Así dos peticiones simultáneas no pueden recibir la misma orden.
+     *
+     * @param id identificador de la orden
+     * @param expected estatus desde los que se permite el cambio
+     * @param status nuevo estatus
+     * @return orden actualizada o vacío si no existe o su estatus ya cambió
+     */
+    public Optional<PurchaseOrderModel> transitionStatus(ObjectId id, Collection<String> expected, String status) {
+        return transitionStatus(null, id, expected, status);
+    }
+
+    /**
+     * Cambia el estatus de una orden dentro de la transacción de la sesión
+     *
+     * @param session sesión de la transacción o null para escribir sin ella
+     * @param id identificador de la orden
+     * @param expected estatus desde los que se permite el cambio
+     * @param status nuevo estatus
+     * @return orden actualizada o vacío si no existe o su estatus ya cambió
+     */
+    public Optional<PurchaseOrderModel> transitionStatus(ClientSession session, ObjectId id,
+            Collection<String> expected, String status) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Bson update = PurchaseOrderModel.STATUS_RECEIVED.equals(status)
+                    ? Updates.combine(Updates.set("status", status),
+                            Updates.set("receivedAt", ToDate.toDate(now)),
+                            Updates.set("updatedAt", ToDate.toDate(now)))
+                    : Updates.combine(Updates.set("status", status), Updates.set("updatedAt", ToDate.toDate(now)));
+            Bson filter = Filters.and(Filters.eq("_id", id), Filters.in("status", expected));
+            FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+            MongoCollection<Document> collection = dbConnection.getDatabase(session).getCollection(COLLECTION_NAME);
+            Document doc = session != null
+                    ? collection.findOneAndUpdate(session, filter, update, options)
+                    : collection.findOneAndUpdate(filter, update, options);
+            return Optional.ofNullable(documentToOrder(doc));
+        } catch (MongoException e) {
+            LOGGER.error("Error al actualizar la orden de compra {}: {}", id, e.getMessage());
+            throw CustomException.dbError("Error al actualizar la orden de compra.");
+        }
+    }
+
+    /**
+     * Cuenta las órdenes de compra
+     *
+     * @param status estatus a filtrar o null para todas
+     * @return número de órdenes
+     */
+    public long countOrders(String status) {
+        try {
+            return status != null
+                    ? getPurchaseCollection().countDocuments(Filters.eq("status", status))
+                    : getPurchaseCollection().countDocuments();
+        } catch (MongoException e) {
+            LOGGER.error("Error general en MongoDB: {}", e.getMessage());
+            throw CustomException.dbError("Error general en MongoDB.");
+        }
+    }
+
+    /**
+     * Convierte un PurchaseOrderModel a un Document de MongoDB
+     *
+     * @param order orden de compra
+     * @return Document para MongoDB
+     */
+    private Document orderToDocument(PurchaseOrderModel order) {
+        List<Document> items = new ArrayList<>();
+        for (PurchaseOrderModel.Item item : order.getItems()) {
+            items.add(new Document()
+                    .append("productId", item.getProductId())
+                    .append("name", item.getName())
+                    .append("quantity", item.getQuantity())
+                    .append("unitCost", item.getUnitCost())
+                    .append("subTotal", item.getSubTotal()));
+        }
+        Document providerDoc = new Document()
+                .append("id", order.getProvider().getId())
+                .append("company", order.getProvider().getCompany())
+                .append("email", order.getProvider().getEmail());
+
+        return new Document()
+                .append("_id", order.getId())
+                .append("provider", providerDoc)
+                .append("items", items)
+                .append("totalAmount", order.getTotalAmount())
+                .append("status", order.getStatus())
+                .append("receivedAt", ToDate.toDate(order.getReceivedAt()))
+                .append("createdAt", ToDate.toDate(order.getCreatedAt()))
+                .append("updatedAt", ToDate.toDate(order.getUpdatedAt()));
+    }
+
+    /**
+     * Convierte un Document de MongoDB a un PurchaseOrderModel
+     *
+     * @param doc Document de MongoDB
+     * @return PurchaseOrderModel
+     */
+    private PurchaseOrderModel documentToOrder(Document doc) {
+        if (doc == null) return null;
+
+        PurchaseOrderModel order = new PurchaseOrderModel();
+        order.setId(doc.getObjectId("_id"));
+        order.setTotalAmount(doc.getDouble("totalAmount"));
+        order.setStatus(doc.getString("status"));
+        order.setReceivedAt(ToDate.toLocalDateTime(doc.getDate("receivedAt")));
+        order.setCreatedAt(ToDate.toLocalDateTime(doc.getDate("createdAt")));
+        order.setUpdatedAt(ToDate.toLocalDateTime(doc.getDate("updatedAt")));
+
+        if (doc.containsKey("provider")) {
+            Document prov = doc.get("provider", Document.class);
+            order.setProvider(new PurchaseOrderModel.ProviderInfo(
+                    prov.getString("id"),
+                    prov.getString("company"),
+                    prov.getString("email")));
+        }
+        List<PurchaseOrderModel.Item> items = new ArrayList<>();
+        for (Document item : doc.getList("items", Document.class, List.of())) {
+            items.add(new PurchaseOrderModel.Item(
+                    item.getString("productId"),
+                    item.getString("name"),
+                    item.getInteger("quantity"),
+                    item.getDouble("unitCost"),
+                    item.getDouble("subTotal")));
+        }
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,239 @@
+package com.destinity.erp.purchases;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.finance.FinanceService;
+import com.destinity.erp.hr.UserModel;
+import com.destinity.erp.hr.UserRepository;
+import com.destinity.erp.inventory.ProductCategoryCache;
+import com.destinity.erp.inventory.ProductRepository;
+import com.destinity.erp.inventory.ReorderService;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.CustomException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio encargado de manejar la lógica de negocio de las compras.
+ * Valida las órdenes contra los proveedores registrados en recursos humanos
+ * y, al recibirlas, suma las existencias de todas las partidas en una sola
+ * escritura por lotes al inventario, en la misma transacción que marca la
+ * orden como recibida.
+ */
+@Traced
+@ApplicationScoped
+public class PurchaseService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PurchaseService.class);
+    private static final int DEFAULT_PAGE = 0;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_ITEMS = 2_000;
+    private static final String PROVIDER_TYPE = "provider";
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            PurchaseOrderModel.STATUS_PENDING, Set.of(PurchaseOrderModel.STATUS_APPROVED, PurchaseOrderModel.STATUS_CANCELLED),
+            PurchaseOrderModel.STATUS_APPROVED, Set.of(PurchaseOrderModel.STATUS_IN_TRANSIT, PurchaseOrderModel.STATUS_CANCELLED),
+            PurchaseOrderModel.STATUS_IN_TRANSIT, Set.of(PurchaseOrderModel.STATUS_CANCELLED));
+    private static final Set<String> RECEIVABLE = Set.of(
+            PurchaseOrderModel.STATUS_APPROVED, PurchaseOrderModel.STATUS_IN_TRANSIT);
+
+    @Inject
+    private PurchaseRepository purchaseRepository;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    @Inject
+    private ProductCategoryCache categoryCache;
+
+    @Inject
+    private ReorderService reorderService;
+
+    @Inject
+    private FinanceService financeService;
+
+    @Inject
+    private DataBaseConnection dbConnection;
+
+    /**
+     * Crea una nueva orden de compra en estatus Pendiente
+     *
+     * @param order orden con el ID del proveedor y sus partidas
+     * @return DTO de la orden creada
+     * @throws CustomException si el proveedor o las partidas no son válidos
+     */
+    public PurchaseOrderDTO createOrder(PurchaseOrderModel order) {
+        String providerId = order.getProvider() != null ? order.getProvider().getId() : null;
+        UserModel provider = userRepository.findUserById(providerId)
+                .filter(u -> PROVIDER_TYPE.equals(u.getUserType()))
+                .orElseThrow(() -> CustomException.business("El proveedor no existe"));
+
+        List<PurchaseOrderModel.Item> items = order.getItems();
+        if (items == null || items.isEmpty())
+            throw CustomException.business("La orden debe tener al menos una partida");
+        if (items.size() > MAX_ITEMS)
+            throw CustomException.business("La orden no puede tener más de " + MAX_ITEMS + " partidas");
+
+        double total = 0;
+        for (PurchaseOrderModel.Item item : items) {
+            if (item.getProductId() == null || !ObjectId.isValid(item.getProductId()))
+                throw CustomException.business("Cada partida debe indicar un producto válido");
+            if (item.getQuantity() == null || item.getQuantity() <= 0)
+                throw CustomException.business("La cantidad de cada partida debe ser mayor a cero");
+            if (item.getUnitCost() == null || item.getUnitCost() < 0)
+                throw CustomException.business("El costo de cada partida no puede ser negativo");
+            item.setSubTotal(item.getUnitCost() * item.getQuantity());
+            total += item.getSubTotal();
+        }
+
+        String company = provider.getProviderData() != null ? provider.getProviderData().getCompany() : null;
+        order.setId(new ObjectId());
+        order.setProvider(new PurchaseOrderModel.ProviderInfo(providerId, company, provider.getEmail()));
+        order.setTotalAmount(total);
+        order.setStatus(PurchaseOrderModel.STATUS_PENDING);
+        order.setReceivedAt(null);
+        order.setCreatedAt(LocalDateTime.now());
+
+        purchaseRepository.saveOrder(order);
+        LOGGER.info("Orden de compra creada: {}", order.getId());
+        return new PurchaseOrderDTO(order);
+    }
+
+    /**
+     * Obtiene órdenes de compra paginadas
+     *
+     * @param page número de página (desde 0)
+     * @param pageSize tamaño de página
+     * @param status estatus a filtrar (opcional)
+     * @return lista de DTOs de órdenes
+     */
+    public List<PurchaseOrderDTO> getAllOrders(int page, int pageSize, String status) {
+        if (page < 0) page = DEFAULT_PAGE;
+        if (pageSize <= 0) pageSize = DEFAULT_PAGE_SIZE;
+
+        List<PurchaseOrderModel> orders = purchaseRepository.findAllOrders(page, pageSize,
+                status == null || status.isBlank() ? null : status);
+        if (orders.isEmpty()) {
+            LOGGER.warn("No hay órdenes de compra registradas");
+            throw CustomException.notFound("No hay órdenes de compra registradas");
+        }
+        LOGGER.info("Órdenes de compra obtenidas: {}", orders.size());
+        return orders.stream().map(PurchaseOrderDTO::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene una orden de compra con sus partidas
+     *
+     * @param id identificador de la orden
+     * @return orden completa
+     */
+    public PurchaseOrderModel getOrderById(String id) {
+        return purchaseRepository.findOrderById(id).orElseThrow(() -> {
+            LOGGER.warn("No se encontró la orden de compra con ID: {}", id);
+            return CustomException.notFound("No existe la orden de compra con el identificador proporcionado");
+        });
+    }
+
+    /**
+     * Cambia el estatus de una orden. La recepción tiene su propio método
+     * porque además actualiza el inventario.
+     *
+     * @param id identificador de la orden
+     * @param status nuevo estatus
+     * @return DTO de la orden actualizada
+     */
+    public PurchaseOrderDTO updateStatus(String id, String status) {
+        PurchaseOrderModel order = getOrderById(id);
+        Set<String> allowed = TRANSITIONS.getOrDefault(order.getStatus(), Set.of());
+        if (!allowed.contains(status))
+            throw CustomException.business("No se puede cambiar la orden de " + order.getStatus() + " a " + status);
+
+        PurchaseOrderModel updated = purchaseRepository
+                .transitionStatus(order.getId(), Set.of(order.getStatus()), status)
+                .orElseThrow(() -> CustomException.business("La orden fue modificada por otro usuario, intenta de nuevo"));
+        LOGGER.info("Orden de compra {} cambió a {}", id, status);
+        return new PurchaseOrderDTO(updated);
+    }
+
+    /**
+     * Recibe una orden: la marca como recibida y suma las cantidades de todas
+     * sus partidas al inventario con un solo bulkWrite, ambos en una sola
+     * transacción. Si algo falla, la transacción se aborta y la orden conserva
+     * su estatus sin haber sumado existencias, así que se puede reintentar sin
+     * contar dos veces. Después se reevalúan las existencias bajas de los
+     * productos recibidos.
+     *
+     * @param id identificador de la orden
+     * @return DTO de la orden recibida
+     */
+    public PurchaseOrderDTO receiveOrder(String id) {
+        PurchaseOrderModel order = getOrderById(id);
+        if (!RECEIVABLE.contains(order.getStatus()))
+            throw CustomException.business("Solo se pueden recibir órdenes aprobadas o en tránsito");
+
+        Map<ObjectId, Integer> increments = new LinkedHashMap<>();
+        for (PurchaseOrderModel.Item item : order.getItems())
+            increments.merge(new ObjectId(item.getProductId()), item.getQuantity(), Integer::sum);
+
+        Receipt receipt;
+        try (ClientSession session = dbConnection.startSession()) {
+            receipt = session.withTransaction(() -> {
+                PurchaseOrderModel claimed = purchaseRepository
+                        .transitionStatus(session, order.getId(), Set.of(order.getStatus()),
+                                PurchaseOrderModel.STATUS_RECEIVED)
+                        .orElseThrow(() -> CustomException.business(
+                                "La orden fue modificada por otro usuario, intenta de nuevo"));
+                return new Receipt(claimed, productRepository.incrementStock(session, increments));
+            });
+        } catch (MongoException e) {
+            LOGGER.error("Error en la transacción de recepción de la orden {}: {}", id, e.getMessage());
+            throw CustomException.dbError("Error al recibir la orden de compra.");
+        }
+
+        List<String> productIds = new ArrayList<>(increments.size());
+        increments.keySet().forEach(productId -> productIds.add(productId.toHexString()));
+        categoryCache.invalidateAll(productIds);
+        reorderService.refreshProducts(productIds);
+
+        if (receipt.updated() < increments.size())
+            LOGGER.warn("Orden {}: {} de {} productos no existen en el inventario",
+                    id, increments.size() - receipt.updated(), increments.size());
+        LOGGER.info("Orden de compra recibida: {}, productos actualizados: {}", id, receipt.updated());
+
+        PurchaseOrderModel received = receipt.order();
+        try {
+            financeService.recordPurchaseExpense(received.getId().toHexString(),
+                    order.getProvider() != null ? order.getProvider().getCompany() : null,
+                    order.getTotalAmount(), received.getReceivedAt());
+        } catch (RuntimeException e) {
+            LOGGER.warn("No se pudo registrar el gasto de la orden {}: {}", id, e.getMessage());
+        }
+        return new PurchaseOrderDTO(received);
+    }
+
+    /**
+     * Obtiene el conteo de órdenes de compra
+     *
+     * @param status estatus a filtrar (opcional)
+     * @return número de órdenes
+     */
+    public long getTotalOrderCount(String status) {
+        return purchaseRepository.countOrders(status == null || status.isBlank() ? null : status);
+    }
+
+    private record Receipt(PurchaseOrderModel order, int updated) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.destinity.erp.reports;
+
+import com.destinity.erp.utils.CustomException;
+import com.destinity.erp.utils.RestExceptionHandler;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Controlador REST encargado de las peticiones de reportes.
+ * La solicitud responde de inmediato con el trabajo en cola; el cliente
+ * consulta su estado hasta que esté Completado para obtener las filas.
+ */
+@Path("/reports")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class ReportController {
+
+    @Inject
+    private ReportService reportService;
+
+    /**
+     * Solicita un reporte
+     *
+     * @param request tipo de reporte y rango de fechas
+     * @return respuesta 202 con el trabajo, o 200 si ya está completado
+     */
+    @POST
+    public Response submitReport(ReportRequest request) {
+        try {
+            ReportJobDTO job = reportService.submit(request);
+            Response.Status status = ReportService.STATUS_COMPLETED.equals(job.getStatus())
+                    ? Response.Status.OK
+                    : Response.Status.ACCEPTED;
+            return Response.status(status).entity(job).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene el estado de un reporte y sus filas cuando termina
+     *
+     * @param id identificador del trabajo
+     * @return respuesta con el trabajo o error si no existe
+     */
+    @GET
+    @Path("/{id}")
+    public Response getReport(@PathParam("id") String id) {
+        try {
+            return Response.ok(reportService.getJob(id)).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.destinity.erp.reports;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone el estado de un trabajo de reporte a traves de la API.
+ * Las filas solo están presentes cuando el estado es Completado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+
+    private String id;
+    private String type;
+    private String from;
+    private String to;
+    private String status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+    private List<ReportRowDTO> rows;
+    private String error;
+}
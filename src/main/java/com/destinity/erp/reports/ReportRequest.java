@@ -0,0 +1,19 @@
+package com.destinity.erp.reports;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Solicitud de un reporte. Las fechas (yyyy-MM-dd) solo aplican a los
+ * reportes de ventas; los demás son una foto del estado actual.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportRequest {
+
+    private String type;
+    private String from;
+    private String to;
+}
@@ -0,0 +1,21 @@
+package com.destinity.erp.reports;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO expone una fila de un reporte a traves de la API.
+ * La clave depende del reporte: categoría o departamento; el importe es
+ * el ingreso, la nómina o el valor del inventario según corresponda.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportRowDTO {
+
+    private String key;
+    private double amount;
+    private long quantity;
+    private long count;
+}
@@ -0,0 +1,274 @@
+package com.destinity.erp.reports;
+
+import com.destinity.erp.analytics.AnalyticsService;
+import com.destinity.erp.analytics.SalesBucketDTO;
+import com.destinity.erp.hr.UserRepository;
+import com.destinity.erp.inventory.ProductRepository;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.ConfigService;
+import com.destinity.erp.utils.CustomException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio de reportes asíncronos.
+ * Cada solicitud devuelve un trabajo que se calcula en el ejecutor
+ * administrado, fuera del hilo de la petición. Los trabajos se identifican
+ * por su tipo y parámetros: una solicitud igual a otra pendiente o a un
+ * resultado vigente reutiliza ese trabajo en lugar de calcularlo de nuevo.
+ * Los resultados se conservan REPORT_CACHE_TTL desde que terminan.
+ */
+@Traced
+@ApplicationScoped
+public class ReportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportService.class);
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    public static final String TYPE_SALES_BY_CATEGORY = "sales-by-category";
+    public static final String TYPE_PAYROLL = "payroll";
+    public static final String TYPE_INVENTORY_VALUATION = "inventory-valuation";
+    private static final Set<String> VALID_TYPES = Set.of(TYPE_SALES_BY_CATEGORY, TYPE_PAYROLL, TYPE_INVENTORY_VALUATION);
+
+    public static final String STATUS_PENDING = "Pendiente";
+    public static final String STATUS_RUNNING = "En proceso";
+    public static final String STATUS_COMPLETED = "Completado";
+    public static final String STATUS_FAILED = "Fallido";
+
+    @Inject
+    private AnalyticsService analyticsService;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    @Inject
+    private ConfigService config;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<String, Job> jobsById = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobsByKey = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> sweepTask;
+
+    @PostConstruct
+    public void init() {
+        sweepTask = scheduler.scheduleWithFixedDelay(this::sweep,
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sweepTask != null) sweepTask.cancel(false);
+    }
+
+    /**
+     * Solicita un reporte. Si ya existe un trabajo con los mismos parámetros
+     * pendiente, en proceso o con un resultado vigente, se devuelve ese trabajo.
+     *
+     * @param request tipo de reporte y rango de fechas
+     * @throws CustomException si el tipo o las fechas no son válidos
+     * @return estado del trabajo
+     */
+    public ReportJobDTO submit(ReportRequest request) {
+        String type = request != null && request.getType() != null ? request.getType().trim().toLowerCase() : "";
+        if (!VALID_TYPES.contains(type))
+            throw CustomException.business("El tipo de reporte no es válido. Usa: " + String.join(", ", VALID_TYPES));
+
+        LocalDate[] range = TYPE_SALES_BY_CATEGORY.equals(type)
+                ? parseRange(request.getFrom(), request.getTo())
+                : new LocalDate[]{null, null};
+        String from = range[0] != null ? range[0].toString() : null;
+        String to = range[1] != null ? range[1].toString() : null;
+        String key = type + "|" + from + "|" + to;
+        long now = System.currentTimeMillis();
+
+        Job job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && existing.isReusable(now)) return existing;
+            return new Job(UUID.randomUUID().toString(), type, k, from, to);
+        });
+        if (job.started.compareAndSet(false, true)) {
+            jobsById.put(job.id, job);
+            try {
+                executor.submit(() -> run(job));
+                LOGGER.info("Reporte {} en cola: {}", type, job.id);
+            } catch (RejectedExecutionException e) {
+                fail(job, "No hay capacidad para generar el reporte, intenta más tarde");
+            }
+        }
+        return job.toDTO();
+    }
+
+    /**
+     * Obtiene el estado de un trabajo y, si terminó, sus filas
+     *
+     * @param id identificador del trabajo
+     * @throws CustomException si el trabajo no existe o ya expiró
+     * @return estado del trabajo
+     */
+    public ReportJobDTO getJob(String id) {
+        Job job = id != null ? jobsById.get(id) : null;
+        if (job == null || job.isExpired(System.currentTimeMillis()))
+            throw CustomException.notFound("No existe el reporte con el identificador proporcionado");
+        return job.toDTO();
+    }
+
+    private void run(Job job) {
+        job.status = STATUS_RUNNING;
+        long start = System.nanoTime();
+        try {
+            List<ReportRowDTO> rows = compute(job);
+            job.rows = rows;
+            job.finish(STATUS_COMPLETED, ttlMillis());
+            LOGGER.info("Reporte {} generado en {} ms: {} filas",
+                    job.type, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rows.size());
+        } catch (CustomException e) {
+            fail(job, e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Error al generar el reporte {}", job.type, e);
+            fail(job, "Error al generar el reporte");
+        }
+    }
+
+    private List<ReportRowDTO> compute(Job job) {
+        return switch (job.type) {
+            case TYPE_SALES_BY_CATEGORY -> {
+                List<SalesBucketDTO> buckets = analyticsService.getTopCategories(job.from, job.to, Integer.MAX_VALUE);
+                List<ReportRowDTO> rows = new ArrayList<>(buckets.size());
+                for (SalesBucketDTO bucket : buckets) {
+                    rows.add(new ReportRowDTO(bucket.getKey(), bucket.getRevenue(), bucket.getUnits(), bucket.getCount()));
+                }
+                yield rows;
+            }
+            case TYPE_PAYROLL -> userRepository.payrollByDepartment();
+            case TYPE_INVENTORY_VALUATION -> productRepository.valuationByCategory();
+            default -> throw CustomException.business("El tipo de reporte no es válido");
+        };
+    }
+
+    private void fail(Job job, String message) {
+        job.error = message;
+        job.finish(STATUS_FAILED, ttlMillis());
+        LOGGER.warn("Reporte {} fallido: {}", job.type, message);
+    }
+
+    /**
+     * Descarta los trabajos cuyo resultado ya expiró
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        jobsById.values().removeIf(job -> {
+            if (!job.isExpired(now)) return false;
+            jobsByKey.remove(job.key, job);
+            return true;
+        });
+    }
+
+    private long ttlMillis() {
+        return config.getDuration("REPORT_CACHE_TTL", DEFAULT_TTL).toMillis();
+    }
+
+    /**
+     * Interpreta el rango de fechas; por defecto, del inicio del mes a hoy
+     */
+    private LocalDate[] parseRange(String from, String to) {
+        try {
+            LocalDate end = (to == null || to.isBlank()) ? LocalDate.now() : LocalDate.parse(to);
+            LocalDate start = (from == null || from.isBlank()) ? end.withDayOfMonth(1) : LocalDate.parse(from);
+            if (start.isAfter(end)) throw CustomException.business("La fecha inicial no puede ser posterior a la final");
+            return new LocalDate[]{start, end};
+        } catch (DateTimeParseException e) {
+            throw CustomException.business("Las fechas deben tener el formato yyyy-MM-dd");
+        }
+    }
+
+    /**
+     * Trabajo de reporte en memoria. El estado lo escribe un solo hilo del
+     * ejecutor y se publica con campos volátiles.
+     */
+    private static final class Job {
+
+        private final String id;
+        private final String type;
+        private final String key;
+        private final String from;
+        private final String to;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile String status = STATUS_PENDING;
+        private volatile LocalDateTime completedAt;
+        private volatile long expiresAtMillis = Long.MAX_VALUE;
+        private volatile List<ReportRowDTO> rows;
+        private volatile String error;
+
+        private Job(String id, String type, String key, String from, String to) {
+            this.id = id;
+            this.type = type;
+            this.key = key;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Marca el trabajo como terminado; el estado se escribe al final para
+         * que quien lo lea vea también las filas o el error
+         */
+        private void finish(String finalStatus, long ttlMillis) {
+            completedAt = LocalDateTime.now();
+            expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+            status = finalStatus;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+
+        /**
+         * Un trabajo fallido no se reutiliza: la siguiente solicitud lo reintenta
+         */
+        private boolean isReusable(long now) {
+            return !STATUS_FAILED.equals(status) && !isExpired(now);
+        }
+
+        private ReportJobDTO toDTO() {
+            String current = status;
+            boolean finished = STATUS_COMPLETED.equals(current) || STATUS_FAILED.equals(current);
+            LocalDateTime finishedAt = finished ? completedAt : null;
+            LocalDateTime expiresAt = finished
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault())
+                    : null;
+            return new ReportJobDTO(id, type, from, to, current, submittedAt, finishedAt, expiresAt,
+                    STATUS_COMPLETED.equals(current) ? rows : null, finished ? error : null);
+        }
+    }
+}
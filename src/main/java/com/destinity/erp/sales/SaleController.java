@@ -76,6 +76,81 @@ public class SaleController {
         }
     }
 
+    /**
+     * Obtiene las ventas de un rango de fechas, de la más reciente a la más antigua.
+     * El cursor de la siguiente página se devuelve en el encabezado X-Next-Cursor.
+     *
+     * @param from fecha inicial (yyyy-MM-dd)
+     * @param to fecha final inclusive (yyyy-MM-dd)
+     * @param status estatus a filtrar (opcional)
+     * @param cursor cursor de la página anterior (opcional)
+     * @param size tamaño de página
+     * @return respuesta con la lista de ventas
+     */
+    @GET
+    @Path("/range")
+    public Response getSalesByRange(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("status") String status, @QueryParam("cursor") String cursor, @QueryParam("size") int size) {
+        try {
+            SalePageDTO page = saleService.getSalesByRange(from, to, status, cursor, size);
+            Response.ResponseBuilder response = Response.ok(page.getSales());
+            if (page.getNextCursor() != null) response.header("X-Next-Cursor", page.getNextCursor());
+            return response.build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Obtiene el modo de almacenamiento de ventas y el tamaño de sus colecciones
+     *
+     * @return respuesta con las estadísticas
+     */
+    @GET
+    @Path("/storage")
+    public Response getStorageStats() {
+        try {
+            return Response.ok(saleService.getStorageStats()).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
+    /**
+     * Copia las ventas al modo de almacenamiento indicado. La respuesta indica
+     * cuántas ventas había en el origen, cuántas se copiaron, a cuántas se les
+     * completó saleDate con createdAt y cuántas se omitieron.
+     *
+     * La aplicación usa el nuevo modo después de reiniciar con
+     * SALES_STORAGE_MODE apuntando a él; si alguna venta cambió desde la
+     * copia, sigue en el modo anterior y hay que repetir la copia.
+     *
+     * Limitaciones de timeseries: sales_ts no tiene un índice único de _id,
+     * así que MongoDb no impide dos ventas con el mismo _id (la aplicación
+     * siempre genera uno nuevo y al volver a collection se conserva la más
+     * reciente); y si el servidor no admite validadores en
+     * series de tiempo, la respuesta trae validator=false y sales_ts acepta
+     * documentos que el esquema de sales rechazaría.
+     *
+     * @param to collection o timeseries
+     * @return respuesta con los conteos de la copia
+     */
+    @POST
+    @Path("/storage/migrate")
+    public Response migrateStorage(@QueryParam("to") String to) {
+        try {
+            return Response.ok(saleService.migrateStorage(to)).build();
+        } catch (CustomException ex) {
+            return RestExceptionHandler.handleCustomException(ex);
+        } catch (Exception e) {
+            return RestExceptionHandler.unexpectedCustomException(e);
+        }
+    }
+
     /**
      * Obtiene un venta por su ID
      *
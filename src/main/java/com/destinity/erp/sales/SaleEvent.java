@@ -0,0 +1,39 @@
+package com.destinity.erp.sales;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento CDI que se dispara al crear, actualizar o eliminar una venta.
+ * Permite mantener sincronizadas las estructuras derivadas (agregados,
+ * analíticas) sin acoplar el servicio de ventas a cada una de ellas.
+ * Se entrega con fireAsync en un ejecutor administrado, así que los
+ * observadores usan @ObservesAsync y no suman latencia a la petición.
+ */
+@Getter
+@AllArgsConstructor
+public class SaleEvent {
+
+    private final Type type;
+    private final SaleModel sale;
+    private final String previousStatus;
+
+    /**
+     * Tipo de operación realizada sobre la venta
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * Indica si la venta cuenta para los totales (no está cancelada)
+     *
+     * @param status estatus de la venta
+     * @return true si la venta suma en ingresos y unidades
+     */
+    public static boolean isCounted(String status) {
+        return !SaleModel.STATUS_CANCELLED.equalsIgnoreCase(status);
+    }
+}
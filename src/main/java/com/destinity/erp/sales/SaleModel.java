@@ -16,6 +16,9 @@ import org.bson.types.ObjectId;
 @AllArgsConstructor
 public class SaleModel {
 
+    public static final String STATUS_COMPLETED = "Completada";
+    public static final String STATUS_CANCELLED = "Cancelada";
+
     private ObjectId id;
     private CustomerInfo customerInfo;
     private ProductSold productSold;
@@ -0,0 +1,19 @@
+package com.destinity.erp.sales;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con una página de ventas y el cursor para solicitar la siguiente.
+ * El cursor es null cuando no hay más ventas en el rango.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalePageDTO {
+
+    private List<SaleDTO> sales;
+    private String nextCursor;
+}
@@ -1,6 +1,8 @@
 package com.destinity.erp.sales;
 
 import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.tracing.Traced;
+import com.destinity.erp.utils.ConfigService;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.ToDate;
 import com.mongodb.MongoException;
@@ -8,43 +10,362 @@ import com.mongodb.MongoWriteException;
 import com.mongodb.WriteError;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import org.bson.BsonType;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Repositorio encargado de la interacción directa con MongoDb.
  * Administra la conversión entre el modelo de ventas y los
  * documentos almacenados en la base de datos.
  */
+@Traced
 @ApplicationScoped
 public class SaleRepository {
 
-    private static final Logger LOGGER = Logger.getLogger(SaleRepository.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleRepository.class);
     private static final String COLLECTION_NAME = "sales";
+    private static final String TIMESERIES_COLLECTION_NAME = "sales_ts";
+    private static final String STORAGE_STATE_COLLECTION = "sales_storage";
+    public static final String MODE_COLLECTION = "collection";
+    public static final String MODE_TIMESERIES = "timeseries";
 
     @Inject
     private DataBaseConnection dbConnection;
 
+    @Inject
+    private ConfigService config;
+
+    private volatile String storageMode = MODE_COLLECTION;
+
+    /**
+     * Crea los índices usados por las consultas por rango de fechas.
+     * {status, saleDate, _id} sigue el orden igualdad, orden y rango: con un
+     * estatus recorre solo las ventas de ese estatus ya ordenadas por fecha.
+     * {saleDate, _id} atiende los rangos sin estatus y reemplaza al índice
+     * simple de saleDate, que queda cubierto por su prefijo.
+     * {productSold.id, saleDate} atiende la demanda reciente de un producto
+     * con la que se reevalúan sus existencias después de cada venta.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        storageMode = resolveStorageMode();
+        LOGGER.info("Almacenamiento de ventas: {}", getCollectionName());
+        config.onChange(c -> {
+            String requested = readStorageMode();
+            if (!requested.equals(storageMode))
+                LOGGER.warn("SALES_STORAGE_MODE cambió a {}; las ventas siguen en {} hasta reiniciar la aplicación",
+                        requested, getCollectionName());
+        }, "SALES_STORAGE_MODE");
+        prepareCollection();
+    }
+
+    /**
+     * Decide el modo de almacenamiento al arrancar; no cambia mientras la
+     * aplicación corre. Un SALES_STORAGE_MODE distinto del modo con el que
+     * arrancó la última vez solo se aplica si existe una copia completa hacia
+     * ese modo (copyToStorage) y desde entonces no se agregó, eliminó ni
+     * actualizó ninguna venta en el origen; si no, se mantiene el modo anterior
+     * para no dejar de leer ventas que no se copiaron. El modo elegido se
+     * guarda en sales_storage.
+     *
+     * @return collection o timeseries
+     */
+    private String resolveStorageMode() {
+        String requested = readStorageMode();
+        if (dbConnection.getDatabase() == null) return requested;
+        try {
+            MongoCollection<Document> state = dbConnection.getDatabase().getCollection(STORAGE_STATE_COLLECTION);
+            Document active = state.find(Filters.eq("_id", "active")).first();
+            String mode = requested;
+            // Sin registro previo se respeta la configuración, como antes de guardar el modo
+            String previous = active != null ? active.getString("mode") : requested;
+            if (!requested.equals(previous) && !isCopyCurrent(state.find(Filters.eq("_id", requested)).first(), previous)) {
+                LOGGER.error("SALES_STORAGE_MODE={} ignorado: no hay una copia completa y vigente desde {}; "
+                        + "ejecuta POST /sales/storage/migrate?to={} y reinicia. Se mantiene {}",
+                        requested, collectionFor(previous), requested, previous);
+                mode = previous;
+            }
+            state.replaceOne(Filters.eq("_id", "active"),
+                    new Document("_id", "active").append("mode", mode).append("since", new Date()),
+                    new ReplaceOptions().upsert(true));
+            return mode;
+        } catch (MongoException e) {
+            LOGGER.error("No se pudo verificar el modo de almacenamiento de ventas: {}", e.getMessage());
+            return requested;
+        }
+    }
+
+    /**
+     * Verifica que la última copia hacia un modo salió del modo activo y que
+     * el origen no cambió después de iniciarla
+     */
+    private boolean isCopyCurrent(Document copy, String previousMode) {
+        if (copy == null || copy.getDate("copiedAt") == null) return false;
+        String source = collectionFor(previousMode);
+        if (!source.equals(copy.getString("source"))) return false;
+        MongoCollection<Document> sourceCollection = dbConnection.getDatabase().getCollection(source);
+        if (sourceCollection.countDocuments() != ((Number) copy.get("sourceCount", 0L)).longValue()) return false;
+        return sourceCollection.find(Filters.gte("updatedAt", copy.getDate("copiedAt")))
+                .projection(new Document("_id", 1)).first() == null;
+    }
+
+    private static String collectionFor(String mode) {
+        return MODE_TIMESERIES.equals(mode) ? TIMESERIES_COLLECTION_NAME : COLLECTION_NAME;
+    }
+
+    /**
+     * Crea la colección activa si hace falta y sus índices. En modo timeseries
+     * la colección sales_ts agrupa las ventas en buckets por saleDate y estatus;
+     * como no tiene índice único de _id, se crea uno secundario para las
+     * búsquedas por ID.
+     */
+    private void prepareCollection() {
+        try {
+            if (dbConnection.getDatabase() == null) return;
+            if (MODE_TIMESERIES.equals(storageMode)) {
+                createTimeSeriesCollection();
+                getSaleCollection().createIndex(Indexes.ascending("_id", "saleDate"));
+            }
+            getSaleCollection().createIndex(Indexes.ascending("status", "saleDate", "_id"));
+            getSaleCollection().createIndex(Indexes.ascending("saleDate", "_id"));
+            getSaleCollection().createIndex(Indexes.ascending("productSold.id", "saleDate"));
+            if (MODE_COLLECTION.equals(storageMode)) dropIndexIfExists("saleDate_1");
+        } catch (MongoException e) {
+            LOGGER.error("Error al crear los índices de ventas: {}", e.getMessage());
+        }
+    }
+
+    private void createTimeSeriesCollection() {
+        for (String name : dbConnection.getDatabase().listCollectionNames()) {
+            if (TIMESERIES_COLLECTION_NAME.equals(name)) return;
+        }
+        dbConnection.getDatabase().createCollection(TIMESERIES_COLLECTION_NAME, new CreateCollectionOptions()
+                .timeSeriesOptions(timeSeriesOptions()));
+        copyValidator(COLLECTION_NAME, TIMESERIES_COLLECTION_NAME);
+        LOGGER.info("Colección de series de tiempo creada: {}", TIMESERIES_COLLECTION_NAME);
+    }
+
+    private static TimeSeriesOptions timeSeriesOptions() {
+        return new TimeSeriesOptions("saleDate").metaField("status").granularity(TimeSeriesGranularity.HOURS);
+    }
+
+    private String readStorageMode() {
+        String mode = config.getString("SALES_STORAGE_MODE", MODE_COLLECTION).toLowerCase();
+        if (!MODE_COLLECTION.equals(mode) && !MODE_TIMESERIES.equals(mode)) {
+            LOGGER.warn("SALES_STORAGE_MODE inválido: {}, se usa collection", mode);
+            return MODE_COLLECTION;
+        }
+        return mode;
+    }
+
+    private void dropIndexIfExists(String name) {
+        for (Document index : getSaleCollection().listIndexes()) {
+            if (name.equals(index.getString("name"))) {
+                getSaleCollection().dropIndex(name);
+                LOGGER.info("Índice redundante eliminado: {}", name);
+                return;
+            }
+        }
+    }
+
     /**
      * Obtiene la colección de ventas
      *
      * @return MongoCollection de ventas
      */
     private MongoCollection<Document> getSaleCollection() {
-        return dbConnection.getDatabase().getCollection(COLLECTION_NAME);
+        return dbConnection.getDatabase().getCollection(getCollectionName());
+    }
+
+    /**
+     * Modo de almacenamiento activo
+     *
+     * @return collection o timeseries
+     */
+    public String getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * Nombre de la colección de ventas según SALES_STORAGE_MODE, para las
+     * agregaciones de otros módulos que leen las ventas directamente
+     *
+     * @return sales o sales_ts
+     */
+    public String getCollectionName() {
+        return collectionFor(storageMode);
+    }
+
+    /**
+     * Copia todas las ventas al almacenamiento indicado con una sola agregación
+     * $out en el servidor, reemplazando el contenido del destino, así que
+     * repetirla no duplica ventas. Al terminar registra la copia en
+     * sales_storage; el destino se usa al reiniciar con SALES_STORAGE_MODE
+     * apuntando a él y solo si el origen no cambió desde que empezó la copia.
+     * Requiere MongoDb 7.0.3 o superior para escribir en series de tiempo.
+     *
+     * sales_ts no tiene índice único de _id: al copiar desde ella, de las
+     * ventas con el mismo _id se conserva la de updatedAt más reciente, para
+     * que $out no falle por _id duplicado en sales.
+     *
+     * Las series de tiempo exigen saleDate de tipo fecha: las ventas sin ella
+     * toman createdAt o, si tampoco la tienen, la fecha de su ObjectId. Solo se
+     * omiten las que no tienen ninguna de las tres. El validador de esquema de
+     * la colección origen se copia al destino cuando el servidor lo admite.
+     *
+     * @param targetMode collection o timeseries
+     * @return ventas en el origen, copiadas, con fecha completada y omitidas
+     * (sin fecha o con _id repetido), y si el destino quedó con validador
+     */
+    public Map<String, Object> copyToStorage(String targetMode) {
+        String source = MODE_TIMESERIES.equals(targetMode) ? COLLECTION_NAME : TIMESERIES_COLLECTION_NAME;
+        String target = collectionFor(targetMode);
+        try {
+            Date copiedAt = new Date();
+            MongoCollection<Document> sourceCollection = dbConnection.getDatabase().getCollection(source);
+            long sourceCount = sourceCollection.countDocuments();
+            long backfilled = sourceCollection.countDocuments(Filters.not(Filters.type("saleDate", BsonType.DATE_TIME)));
+
+            Document out = new Document("db", dbConnection.getDatabase().getName()).append("coll", target);
+            if (MODE_TIMESERIES.equals(targetMode)) {
+                out.append("timeseries", new Document("timeField", "saleDate")
+                        .append("metaField", "status")
+                        .append("granularity", "hours"));
+            }
+            List<Bson> pipeline = new ArrayList<>(List.of(
+                    Aggregates.set(new Field<>("saleDate", saleDateOrFallback())),
+                    Aggregates.match(Filters.type("saleDate", BsonType.DATE_TIME))));
+            if (TIMESERIES_COLLECTION_NAME.equals(source)) {
+                pipeline.add(Aggregates.sort(Sorts.descending("updatedAt")));
+                pipeline.add(Aggregates.group("$_id", Accumulators.first("sale", "$$ROOT")));
+                pipeline.add(Aggregates.replaceRoot("$sale"));
+            }
+            pipeline.add(new Document("$out", out));
+            sourceCollection.aggregate(pipeline).allowDiskUse(true).toCollection();
+
+            long copied = dbConnection.getDatabase().getCollection(target).countDocuments();
+            long skipped = sourceCount - copied;
+            boolean validator = copyValidator(source, target);
+            if (skipped != 0)
+                LOGGER.warn("Ventas omitidas al copiar de {} a {}: {} (sin saleDate, createdAt ni ObjectId)",
+                        source, target, skipped);
+            LOGGER.info("Ventas copiadas de {} a {}: {} de {}, {} con fecha completada",
+                    source, target, copied, sourceCount, backfilled);
+            dbConnection.getDatabase().getCollection(STORAGE_STATE_COLLECTION).replaceOne(
+                    Filters.eq("_id", targetMode),
+                    new Document("_id", targetMode).append("source", source).append("sourceCount", sourceCount)
+                            .append("copied", copied).append("copiedAt", copiedAt),
+                    new ReplaceOptions().upsert(true));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("source", source);
+            result.put("target", target);
+            result.put("sourceCount", sourceCount);
+            result.put("copied", copied);
+            result.put("backfilled", backfilled);
+            result.put("skipped", skipped);
+            result.put("validator", validator);
+            return result;
+        } catch (MongoException e) {
+            LOGGER.error("Error al copiar ventas de {} a {}: {}", source, target, e.getMessage());
+            throw CustomException.dbError("Error al migrar el almacenamiento de ventas.");
+        }
+    }
+
+    /**
+     * saleDate si es una fecha; si no, createdAt si es una fecha; si no, la
+     * fecha del ObjectId, o null si _id no es un ObjectId
+     */
+    private static Document saleDateOrFallback() {
+        Document idDate = new Document("$convert", new Document("input", "$_id")
+                .append("to", "date").append("onError", null).append("onNull", null));
+        return new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", "$saleDate"), "date")),
+                "$saleDate",
+                new Document("$cond", List.of(
+                        new Document("$eq", List.of(new Document("$type", "$createdAt"), "date")),
+                        "$createdAt",
+                        idDate))));
+    }
+
+    /**
+     * Copia el validador de esquema de una colección a otra con collMod. Algunas
+     * versiones no admiten validadores en series de tiempo; en ese caso el
+     * destino queda sin validador y solo se registra en el log.
+     *
+     * @return true si el destino quedó con el validador del origen o el origen no tiene
+     */
+    private boolean copyValidator(String source, String target) {
+        Document info = dbConnection.getDatabase().listCollections()
+                .filter(Filters.eq("name", source)).first();
+        Document options = info != null ? info.get("options", Document.class) : null;
+        Document validator = options != null ? options.get("validator", Document.class) : null;
+        if (validator == null) return true;
+        try {
+            Document collMod = new Document("collMod", target).append("validator", validator);
+            if (options.containsKey("validationLevel")) collMod.append("validationLevel", options.get("validationLevel"));
+            if (options.containsKey("validationAction")) collMod.append("validationAction", options.get("validationAction"));
+            dbConnection.getDatabase().runCommand(collMod);
+            return true;
+        } catch (MongoException e) {
+            LOGGER.warn("No se pudo copiar el validador de {} a {}: {}", source, target, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Tamaño de ambas colecciones de ventas, para comparar los modos
+     *
+     * @return modo activo, modo configurado (se aplica al reiniciar) y por
+     * colección: documentos, tamaño de datos, almacenamiento e índices en bytes
+     */
+    public Map<String, Object> storageStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", storageMode);
+        stats.put("configuredMode", readStorageMode());
+        for (String name : List.of(COLLECTION_NAME, TIMESERIES_COLLECTION_NAME)) {
+            try {
+                Document result = dbConnection.getDatabase().runCommand(new Document("collStats", name));
+                stats.put(name, Map.of(
+                        "count", ((Number) result.get("count", 0)).longValue(),
+                        "size", ((Number) result.get("size", 0)).longValue(),
+                        "storageSize", ((Number) result.get("storageSize", 0)).longValue(),
+                        "totalIndexSize", ((Number) result.get("totalIndexSize", 0)).longValue()));
+            } catch (MongoException e) {
+                LOGGER.debug("Sin estadísticas para {}: {}", name, e.getMessage());
+            }
+        }
+        return stats;
     }
 
     /**
@@ -61,20 +382,20 @@ public class SaleRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al insertar la venta en la base de datos: {0}", e.getMessage());
+                LOGGER.error("Error al insertar la venta en la base de datos: {}", e.getMessage());
                 throw CustomException.dbError("Error al insertar la venta en la base de datos.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
 
     /**
-     * Busca todas las ventas (con paginación)
+     * Busca todas las ventas (con paginación en orden de _id)
      *
      * @param page número de página (empezando desde 0)
      * @param pageSize tamaño de página
@@ -85,17 +406,155 @@ public class SaleRepository {
             List<SaleModel> sales = new ArrayList<>();
             FindIterable<Document> documents = getSaleCollection()
                     .find()
+                    .sort(Sorts.ascending("_id"))
                     .skip(page * pageSize)
                     .limit(pageSize);
 
             for (Document doc : documents) sales.add(documentToSale(doc));
             return sales;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener ventas - Page" + page + ", Size" + pageSize + " {0}", e);
+            LOGGER.error("Error al obtener ventas - Page {}, Size {}", page, pageSize, e);
+            throw CustomException.dbError("Error al obtener ventas.");
+        }
+    }
+
+    /**
+     * Recorre las ventas desde una fecha en orden cronológico, sin cargarlas
+     * todas en memoria
+     *
+     * @param since fecha inicial (inclusive)
+     * @param consumer acción a ejecutar por cada venta
+     * @return número de ventas recorridas
+     */
+    public long forEachSaleSince(Date since, Consumer<SaleModel> consumer) {
+        return forEachSaleInRange(since, null, consumer);
+    }
+
+    /**
+     * Recorre las ventas de un rango en orden cronológico, sin cargarlas
+     * todas en memoria
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva) o null para no acotar
+     * @param consumer acción a ejecutar por cada venta
+     * @return número de ventas recorridas
+     */
+    public long forEachSaleInRange(Date from, Date to, Consumer<SaleModel> consumer) {
+        try {
+            long count = 0;
+            Bson filter = to == null ? Filters.gte("saleDate", from)
+                    : Filters.and(Filters.gte("saleDate", from), Filters.lt("saleDate", to));
+            FindIterable<Document> documents = getSaleCollection()
+                    .find(filter)
+                    .sort(Sorts.ascending("saleDate"))
+                    .batchSize(1000);
+
+            for (Document doc : documents) {
+                consumer.accept(documentToSale(doc));
+                count++;
+            }
+            return count;
+        } catch (MongoException e) {
+            LOGGER.error("Error al recorrer ventas desde: {}", from);
             throw CustomException.dbError("Error al obtener ventas.");
         }
     }
 
+    /**
+     * Busca ventas en un rango de fechas, de la más reciente a la más antigua,
+     * paginadas por cursor sobre (saleDate, _id) en lugar de skip
+     *
+     * @param from fecha inicial (inclusive)
+     * @param to fecha final (exclusiva)
+     * @param status estatus a filtrar o null para todos
+     * @param afterDate fecha de la última venta de la página anterior o null
+     * @param afterId ID de la última venta de la página anterior o null
+     * @param limit número máximo de ventas
+     * @return Lista de ventas
+     */
+    public List<SaleModel> findSalesByRange(Date from, Date to, String status, Date afterDate, ObjectId afterId, int limit) {
+        try {
+            List<Bson> filters = new ArrayList<>();
+            if (status != null) filters.add(Filters.eq("status", status));
+            filters.add(Filters.gte("saleDate", from));
+            filters.add(Filters.lt("saleDate", to));
+            if (afterDate != null && afterId != null) {
+                filters.add(Filters.or(
+                        Filters.lt("saleDate", afterDate),
+                        Filters.and(Filters.eq("saleDate", afterDate), Filters.lt("_id", afterId))));
+            }
+
+            List<SaleModel> sales = new ArrayList<>();
+            FindIterable<Document> documents = getSaleCollection()
+                    .find(Filters.and(filters))
+                    .sort(Sorts.descending("saleDate", "_id"))
+                    .limit(limit);
+
+            for (Document doc : documents) sales.add(documentToSale(doc));
+            return sales;
+        } catch (MongoException e) {
+            LOGGER.error("Error al obtener ventas del {} al {}: {}", from, to, e.getMessage());
+            throw CustomException.dbError("Error al obtener ventas por rango de fechas.");
+        }
+    }
+
+    /**
+     * Unidades vendidas por producto desde una fecha, sumadas en el servidor.
+     * Las ventas canceladas no se cuentan.
+     *
+     * @param since fecha inicial (inclusive)
+     * @return unidades por ID de producto
+     */
+    public Map<String, Long> unitsSoldByProductSince(Date since) {
+        try {
+            Map<String, Long> units = new HashMap<>();
+            List<Bson> pipeline = List.of(
+                    Aggregates.match(Filters.and(
+                            Filters.gte("saleDate", since),
+                            Filters.ne("status", SaleModel.STATUS_CANCELLED))),
+                    Aggregates.group("$productSold.id", Accumulators.sum("units", "$productSold.quantity")));
+            for (Document doc : getSaleCollection().aggregate(pipeline)) {
+                Object productId = doc.get("_id");
+                if (productId != null) units.put(productId.toString(), ((Number) doc.get("units", 0)).longValue());
+            }
+            return units;
+        } catch (MongoException e) {
+            LOGGER.error("Error al sumar unidades vendidas desde {}: {}", since, e.getMessage());
+            throw CustomException.dbError("Error al obtener las unidades vendidas.");
+        }
+    }
+
+    /**
+     * Unidades vendidas desde una fecha de los productos indicados. Usa el
+     * índice {productSold.id, saleDate}, así que solo lee las ventas de esos
+     * productos; las ventas canceladas no se cuentan.
+     *
+     * @param productIds IDs de los productos
+     * @param since fecha inicial (inclusive)
+     * @return unidades por ID de producto; los productos sin ventas no aparecen
+     */
+    public Map<String, Long> unitsSoldForProductsSince(Collection<String> productIds, Date since) {
+        if (productIds.isEmpty()) return Map.of();
+        try {
+            Map<String, Long> units = new HashMap<>();
+            List<Bson> pipeline = List.of(
+                    Aggregates.match(Filters.and(
+                            Filters.in("productSold.id", productIds),
+                            Filters.gte("saleDate", since),
+                            Filters.ne("status", SaleModel.STATUS_CANCELLED))),
+                    Aggregates.group("$productSold.id", Accumulators.sum("units", "$productSold.quantity")));
+            for (Document doc : getSaleCollection().aggregate(pipeline)) {
+                Object productId = doc.get("_id");
+                if (productId != null) units.put(productId.toString(), ((Number) doc.get("units", 0)).longValue());
+            }
+            return units;
+        } catch (MongoException e) {
+            LOGGER.error("Error al sumar unidades vendidas de {} productos desde {}: {}",
+                    productIds.size(), since, e.getMessage());
+            throw CustomException.dbError("Error al obtener las unidades vendidas.");
+        }
+    }
+
     /**
      * Busca una venta por su ID
      *
@@ -105,14 +564,14 @@ public class SaleRepository {
     public Optional<SaleModel> findSaleById(String id) {
         try {
             if (id == null || !ObjectId.isValid(id)) {
-                LOGGER.log(Level.WARNING, "ID inválido recibido: {0}", id);
+                LOGGER.warn("ID inválido recibido: {}", id);
                 return Optional.empty();
             }
             ObjectId objectId = new ObjectId(id);
             Document doc = getSaleCollection().find(Filters.eq("_id", objectId)).first();
             return Optional.ofNullable(documentToSale(doc));
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener venta ID: " + id + " {0}", e);
+            LOGGER.error("Error al obtener venta ID: {}", id, e);
             throw CustomException.dbError("Error al obtener venta.");
         }
     }
@@ -131,7 +590,7 @@ public class SaleRepository {
             for (Document doc : documents) sales.add(documentToSale(doc));
             return sales;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener ventas del estatus: " + status + " {0}", e);
+            LOGGER.error("Error al obtener ventas del estatus: {}", status, e);
             throw CustomException.dbError("Error al obtener ventas del estatus: " + status);
         }
     }
@@ -155,7 +614,7 @@ public class SaleRepository {
             for (Document doc : documents) sales.add(documentToSale(doc));
             return sales;
         } catch (MongoException e) {
-            LOGGER.log(Level.SEVERE, "Error al obtener ventas con el texto: " + searchText + " {0}", e);
+            LOGGER.error("Error al obtener ventas con el texto: {}", searchText, e);
             throw CustomException.dbError("Error al obtener ventas con el texto: " + searchText);
         }
     }
@@ -177,14 +636,14 @@ public class SaleRepository {
         } catch (MongoWriteException e) {
             WriteError writeError = e.getError();
             if (writeError != null && writeError.getCode() == 121) {
-                LOGGER.log(Level.WARNING, "El documento no cumple con el esquema definido: {0}", e.getMessage());
+                LOGGER.warn("El documento no cumple con el esquema definido: {}", e.getMessage());
                 throw CustomException.dbValidationFailed("El documento no cumple con el esquema definido.");
             } else {
-                LOGGER.log(Level.SEVERE, "Error al actualizar el venta: {0}", e.getMessage());
+                LOGGER.error("Error al actualizar el venta: {}", e.getMessage());
                 throw CustomException.dbError("Error al actualizar el venta.");
             }
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -201,10 +660,10 @@ public class SaleRepository {
             DeleteResult result = getSaleCollection().deleteOne(Filters.eq("_id", objectId));
             return result.getDeletedCount() > 0;
         } catch (IllegalArgumentException e) {
-            LOGGER.log(Level.WARNING, "Error al eliminar venta: " + id + " {0}", e);
+            LOGGER.warn("Error al eliminar venta: {}", id, e);
             throw CustomException.dbError("Error al eliminar venta.");
         } catch (MongoException ex) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", ex.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", ex.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
@@ -287,15 +746,18 @@ public class SaleRepository {
     }
 
     /**
-     * Cuenta el total de ventas
+     * Cuenta el total de ventas. En modo collection usa el conteo de los
+     * metadatos; sales_ts es una vista sobre los buckets y se cuenta con
+     * countDocuments.
      *
      * @return número total de ventas
      */
     public long countSales() {
         try {
+            if (MODE_COLLECTION.equals(storageMode)) return getSaleCollection().estimatedDocumentCount();
             return getSaleCollection().countDocuments();
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error general en MongoDB: {0}", e.getMessage());
+            LOGGER.error("Error general en MongoDB: {}", e.getMessage());
             throw CustomException.dbError("Error general en MongoDB.");
         }
     }
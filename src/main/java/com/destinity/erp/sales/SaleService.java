@@ -1,32 +1,60 @@
 package com.destinity.erp.sales;
 
+import com.destinity.erp.tracing.Traced;
 import com.destinity.erp.utils.CustomException;
 import com.destinity.erp.utils.InputValidator;
+import com.destinity.erp.utils.ToDate;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.NotificationOptions;
 import jakarta.inject.Inject;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Servicio encargado de manejar la lógica de negocio de las ventas.
  * Procesa las operaciones antes de ser delegadas al repositorio y
  * prepara los datos para el controlador.
  */
+@Traced
 @ApplicationScoped
 public class SaleService {
 
-    private static final Logger LOGGER = Logger.getLogger(SaleService.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleService.class);
     private static final int DEFAULT_PAGE = 0;
     private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_RANGE_DAYS = 7;
 
     @Inject
     private SaleRepository saleRepository;
 
+    @Inject
+    private Event<SaleEvent> saleEvents;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final Object eventLock = new Object();
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private CompletionStage<?> lastEvent = CompletableFuture.completedFuture(null);
+
     /**
      * Crea una nueva venta
      *
@@ -34,18 +62,29 @@ public class SaleService {
      * @return DTO de la venta creado o null si falla
      */
     public SaleDTO createSale(SaleModel sale) {
+        publishLock.readLock().lock();
+        try {
+            return create(sale);
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    private SaleDTO create(SaleModel sale) {
         if (sale.getId() == null) sale.setId(new ObjectId());
-        if (sale.getStatus() == null || sale.getStatus().isBlank()) sale.setStatus("Completada");
+        if (sale.getStatus() == null || sale.getStatus().isBlank()) sale.setStatus(SaleModel.STATUS_COMPLETED);
         if (sale.getCreatedAt() == null) sale.setCreatedAt(LocalDateTime.now());
+        if (sale.getSaleDate() == null) sale.setSaleDate(sale.getCreatedAt());
 
         String saleId = saleRepository.saveSale(sale);
         if (saleId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo guardar la venta: {0}", sale.getId());
+            LOGGER.warn("No se pudo guardar la venta: {}", sale.getId());
             return null;
         }
 
         Optional<SaleModel> createdSale = saleRepository.findSaleById(saleId);
-        createdSale.ifPresent(p -> LOGGER.log(Level.INFO, "Venta creada: {0}", p.getId()));
+        createdSale.ifPresent(p -> LOGGER.info("Venta creada: {}", p.getId()));
+        publish(new SaleEvent(SaleEvent.Type.CREATED, createdSale.orElse(sale), null));
         return createdSale.map(this::convertToDTO).orElse(null);
     }
 
@@ -62,10 +101,10 @@ public class SaleService {
 
         List<SaleModel> sales = saleRepository.findAllSales(page, pageSize);
         if (sales == null || sales.isEmpty()) {
-            LOGGER.warning("No hay ventas registradas");
+            LOGGER.warn("No hay ventas registradas");
             throw CustomException.notFound("No hay ventas registradas");
         }
-        LOGGER.log(Level.INFO, "Ventas obtenidas: {0}", sales.size());
+        LOGGER.info("Ventas obtenidas: {}", sales.size());
         return sales.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -78,10 +117,10 @@ public class SaleService {
     public SaleDTO getSaleById(String id) {
         Optional<SaleModel> sale = saleRepository.findSaleById(id);
         if (sale.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró la venta con ID: {0}", id);
+            LOGGER.warn("No se encontró la venta con ID: {}", id);
             throw CustomException.notFound("No existe la venta con el identificador proporcionado");
         }
-        LOGGER.log(Level.INFO, "Venta encontrada: {0}", sale.get().getId());
+        LOGGER.info("Venta encontrada: {}", sale.get().getId());
         return convertToDTO(sale.get());
     }
 
@@ -94,14 +133,63 @@ public class SaleService {
     public List<SaleDTO> getSalesByStatus(String status) {
         List<SaleModel> sales = saleRepository.findSalesByStatus(status);
         if (sales == null || sales.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No hay ventas con el estatus: {0}", status);
+            LOGGER.warn("No hay ventas con el estatus: {}", status);
             throw CustomException.notFound("No hay ventas con el estatus" + status);
         }
-        LOGGER.log(Level.INFO, "Ventas encontradas con el estatus: {0}, cantidad: {1}",
-                new Object[]{status, sales.size()});
+        LOGGER.info("Ventas encontradas con el estatus: {}, cantidad: {}", status, sales.size());
         return sales.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene las ventas de un rango de fechas con paginación por cursor
+     *
+     * @param from fecha inicial ISO (yyyy-MM-dd), por defecto hace 6 días
+     * @param to fecha final ISO inclusive, por defecto hoy
+     * @param status estatus a filtrar (opcional)
+     * @param cursor cursor devuelto por la página anterior (opcional)
+     * @param pageSize tamaño de página
+     * @return página de ventas y cursor de la siguiente
+     * @throws CustomException si las fechas o el cursor no son válidos
+     */
+    public SalePageDTO getSalesByRange(String from, String to, String status, String cursor, int pageSize) {
+        LocalDate end;
+        LocalDate start;
+        try {
+            end = (to == null || to.isBlank()) ? LocalDate.now() : LocalDate.parse(to);
+            start = (from == null || from.isBlank()) ? end.minusDays(DEFAULT_RANGE_DAYS - 1) : LocalDate.parse(from);
+        } catch (DateTimeParseException e) {
+            throw CustomException.business("Las fechas deben tener el formato yyyy-MM-dd");
+        }
+        if (start.isAfter(end))
+            throw CustomException.business("La fecha inicial no puede ser posterior a la final");
+        if (pageSize <= 0) pageSize = DEFAULT_PAGE_SIZE;
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        Date afterDate = null;
+        ObjectId afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("_", 2);
+            try {
+                afterDate = new Date(Long.parseLong(parts[0]));
+                afterId = new ObjectId(parts[1]);
+            } catch (RuntimeException e) {
+                throw CustomException.business("El cursor de paginación no es válido");
+            }
+        }
+
+        List<SaleModel> sales = saleRepository.findSalesByRange(
+                ToDate.toDate(start.atStartOfDay()), ToDate.toDate(end.plusDays(1).atStartOfDay()),
+                status == null || status.isBlank() ? null : status, afterDate, afterId, pageSize);
+        LOGGER.info("Ventas obtenidas del {} al {}: {}", start, end, sales.size());
+
+        String nextCursor = null;
+        if (sales.size() == pageSize) {
+            SaleModel last = sales.get(sales.size() - 1);
+            nextCursor = ToDate.toDate(last.getSaleDate()).getTime() + "_" + last.getId().toHexString();
+        }
+        return new SalePageDTO(sales.stream().map(this::convertToDTO).collect(Collectors.toList()), nextCursor);
+    }
+
     /**
      * Busqueda general por texto (coincidencia parcial)
      *
@@ -111,11 +199,10 @@ public class SaleService {
     public List<SaleDTO> searchSalesByClient(String textSearch) {
         List<SaleModel> sales = saleRepository.findSalesByText(textSearch);
         if (sales == null || sales.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontraron ventas con el texto: {0}", textSearch);
+            LOGGER.warn("No se encontraron ventas con el texto: {}", textSearch);
             throw CustomException.notFound("No se encontraron ventas con el texto proporcionado");
         }
-        LOGGER.log(Level.INFO, "Ventas encontrados con el texto: {0}, cantidad: {1}",
-                new Object[]{textSearch, sales.size()});
+        LOGGER.info("Ventas encontrados con el texto: {}, cantidad: {}", textSearch, sales.size());
         return sales.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
@@ -128,31 +215,42 @@ public class SaleService {
      * @return DTO del venta actualizado o null si falla
      */
     public SaleDTO updateSale(String id, SaleModel sale) {
+        publishLock.readLock().lock();
+        try {
+            return update(id, sale);
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    private SaleDTO update(String id, SaleModel sale) {
         Optional<SaleModel> optionalExistingSale = saleRepository.findSaleById(id);
         if (optionalExistingSale.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró la venta para actualizar con ID: {0}", id);
+            LOGGER.warn("No se encontró la venta para actualizar con ID: {}", id);
             throw CustomException.notFound("No existe la venta con el identificador proporcionado");
         }
 
         SaleModel existingSale = optionalExistingSale.get();
 
         if (sale.getStatus().equals(existingSale.getStatus())) {
-            LOGGER.log(Level.WARNING, "No se detectaron cambios al actualizar la venta con ID: {0}", id);
+            LOGGER.warn("No se detectaron cambios al actualizar la venta con ID: {}", id);
             throw CustomException.business("No se detectaron cambios. La venta no fue modificada");
         }
 
         InputValidator.isNotEmpty(sale.getStatus(), "Estatus");
+        String previousStatus = existingSale.getStatus();
         existingSale.setStatus(sale.getStatus());
         existingSale.setUpdatedAt(LocalDateTime.now());
 
         String updatedId = saleRepository.updateSale(existingSale);
         if (updatedId == null) {
-            LOGGER.log(Level.WARNING, "No se pudo actualizar la venta con ID: {0}", id);
+            LOGGER.warn("No se pudo actualizar la venta con ID: {}", id);
             return null;
         }
 
         Optional<SaleModel> updatedSale = saleRepository.findSaleById(updatedId);
-        updatedSale.ifPresent(p -> LOGGER.log(Level.INFO, "Venta actualizada: {0}", p.getId()));
+        updatedSale.ifPresent(p -> LOGGER.info("Venta actualizada: {}", p.getId()));
+        publish(new SaleEvent(SaleEvent.Type.UPDATED, updatedSale.orElse(existingSale), previousStatus));
         return updatedSale.map(this::convertToDTO).orElse(null);
     }
 
@@ -164,16 +262,28 @@ public class SaleService {
      * @return true si se eliminó correctamente
      */
     public boolean deleteSale(String id) {
+        publishLock.readLock().lock();
+        try {
+            return delete(id);
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    private boolean delete(String id) {
         Optional<SaleModel> existingSale = saleRepository.findSaleById(id);
         if (existingSale.isEmpty()) {
-            LOGGER.log(Level.WARNING, "No se encontró la venta para eliminar con ID: {0}", id);
+            LOGGER.warn("No se encontró la venta para eliminar con ID: {}", id);
             throw CustomException.notFound("No existe la venta con el identificador proporcionado");
         }
 
         boolean deleted = saleRepository.deleteSale(id);
-        if (!deleted)
-            LOGGER.log(Level.WARNING, "Error al intentar eliminar la venta con ID: {0}", id);
-        LOGGER.log(Level.INFO, "Venta eliminada con ID: {0}", id);
+        if (!deleted) {
+            LOGGER.warn("Error al intentar eliminar la venta con ID: {}", id);
+            return false;
+        }
+        LOGGER.info("Venta eliminada con ID: {}", id);
+        publish(new SaleEvent(SaleEvent.Type.DELETED, existingSale.get(), existingSale.get().getStatus()));
         return deleted;
     }
 
@@ -184,10 +294,39 @@ public class SaleService {
      */
     public long getTotalSaleCount() {
         long count = saleRepository.countSales();
-        LOGGER.log(Level.INFO, "Total de ventas registradas: {0}", count);
+        LOGGER.info("Total de ventas registradas: {}", count);
         return count;
     }
 
+    /**
+     * Copia las ventas al modo de almacenamiento indicado. El modo activo no
+     * cambia: el destino se usa al reiniciar con SALES_STORAGE_MODE apuntando
+     * a él, siempre que ninguna venta haya cambiado desde la copia.
+     *
+     * @param mode collection o timeseries
+     * @throws CustomException si el modo no es válido
+     * @return conteos de la copia: en el origen, copiadas, con fecha completada y omitidas
+     */
+    public Map<String, Object> migrateStorage(String mode) {
+        String target = mode != null ? mode.trim().toLowerCase() : "";
+        if (!SaleRepository.MODE_COLLECTION.equals(target) && !SaleRepository.MODE_TIMESERIES.equals(target)) {
+            throw CustomException.business("El modo de almacenamiento debe ser collection o timeseries");
+        }
+        if (target.equals(saleRepository.getStorageMode())) {
+            throw CustomException.business("Las ventas ya se almacenan en el modo " + target);
+        }
+        return saleRepository.copyToStorage(target);
+    }
+
+    /**
+     * Obtiene el modo activo y el tamaño de las colecciones de ventas
+     *
+     * @return estadísticas de almacenamiento
+     */
+    public Map<String, Object> getStorageStats() {
+        return saleRepository.storageStats();
+    }
+
     /**
      * Convierte un modelo a DTO
      *
@@ -198,4 +337,56 @@ public class SaleService {
         if (sale == null) return null;
         return new SaleDTO(sale);
     }
+
+    /**
+     * Ejecuta un paso en la cadena de eventos, después de que los
+     * observadores procesaron los eventos de todas las ventas ya guardadas y
+     * antes de procesar los de las siguientes. Espera a que terminen las
+     * escrituras en curso, que guardan y publican su evento con publishLock
+     * de lectura, así que el paso no se adelanta a ninguna venta guardada.
+     *
+     * @param step paso a ejecutar; debe ser breve porque detiene los eventos siguientes
+     * @return resultado del paso
+     */
+    public <T> CompletionStage<T> afterPublished(Supplier<T> step) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        publishLock.writeLock().lock();
+        try {
+            synchronized (eventLock) {
+                lastEvent = lastEvent
+                        .exceptionally(e -> null)
+                        .thenRun(() -> {
+                            try {
+                                result.complete(step.get());
+                            } catch (RuntimeException e) {
+                                result.completeExceptionally(e);
+                            }
+                        });
+            }
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Notifica el cambio de una venta a los observadores asíncronos
+     * (agregados, libro contable, analíticas), fuera del hilo de la petición.
+     * Los eventos se encadenan para que cada uno se procese después del
+     * anterior, en el mismo orden en que se guardaron las ventas; un
+     * observador que falla no detiene a los demás ni al siguiente evento.
+     *
+     * @param event evento de la venta
+     */
+    private void publish(SaleEvent event) {
+        synchronized (eventLock) {
+            lastEvent = lastEvent
+                    .exceptionally(e -> null)
+                    .thenCompose(previous -> saleEvents.fireAsync(event, NotificationOptions.ofExecutor(executor)))
+                    .whenComplete((result, e) -> {
+                        if (e != null) LOGGER.warn("Error al procesar el evento {} de la venta {}: {}",
+                                event.getType(), event.getSale().getId(), e.getMessage());
+                    });
+        }
+    }
 }
@@ -0,0 +1,234 @@
+package com.destinity.erp.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traza de una petición: identificador de correlación, identificadores
+ * W3C (traceparent) y, si la petición está muestreada, los spans medidos.
+ * La traza vive en un ThreadLocal mientras el hilo atiende la petición;
+ * las tareas enviadas a otros hilos no la heredan.
+ */
+public final class Trace {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SPANS = 500;
+
+    private final String traceId;
+    private final String correlationId;
+    private final String parentSpanId;
+    private final boolean sampled;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final List<Span> spans;
+    private final Deque<Span> open;
+    private int dropped;
+
+    /**
+     * Span de la traza
+     */
+    public static final class Span {
+
+        private final String spanId;
+        private final String parentSpanId;
+        private final String name;
+        private final String kind;
+        private final long startNanos;
+        private long endNanos;
+        private Map<String, Object> attributes;
+        private String error;
+
+        private Span(String parentSpanId, String name, String kind, long startNanos) {
+            this.spanId = randomHex(16);
+            this.parentSpanId = parentSpanId;
+            this.name = name;
+            this.kind = kind;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Agrega un atributo al span
+         *
+         * @param key nombre del atributo
+         * @param value valor (texto o número)
+         * @return el mismo span
+         */
+        public Span attribute(String key, Object value) {
+            if (attributes == null) attributes = new LinkedHashMap<>();
+            attributes.put(key, value);
+            return this;
+        }
+
+        void markError(String message) {
+            error = message;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        String getParentSpanId() {
+            return parentSpanId;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getKind() {
+            return kind;
+        }
+
+        long getStartNanos() {
+            return startNanos;
+        }
+
+        long getEndNanos() {
+            return endNanos;
+        }
+
+        Map<String, Object> getAttributes() {
+            return attributes == null ? Collections.emptyMap() : attributes;
+        }
+
+        String getError() {
+            return error;
+        }
+    }
+
+    Trace(String traceId, String correlationId, String parentSpanId, boolean sampled) {
+        this.traceId = traceId;
+        this.correlationId = correlationId;
+        this.parentSpanId = parentSpanId;
+        this.sampled = sampled;
+        this.startEpochNanos = System.currentTimeMillis() * 1_000_000;
+        this.startNanos = System.nanoTime();
+        this.spans = sampled ? new ArrayList<>() : List.of();
+        this.open = sampled ? new ArrayDeque<>() : null;
+    }
+
+    /**
+     * Traza de la petición que atiende el hilo actual
+     *
+     * @return traza o null fuera de una petición REST
+     */
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Identificador de correlación de la petición en curso
+     *
+     * @return identificador o null fuera de una petición REST
+     */
+    public static String currentCorrelationId() {
+        Trace trace = CURRENT.get();
+        return trace != null ? trace.correlationId : null;
+    }
+
+    static void bind(Trace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Abre un span hijo del span abierto más reciente
+     *
+     * @param name nombre del span
+     * @param kind SERVER, INTERNAL o CLIENT
+     * @return span abierto, que se debe cerrar con {@link #end(Span, Throwable)}
+     */
+    public synchronized Span start(String name, String kind) {
+        Span parent = open.peek();
+        Span span = new Span(parent != null ? parent.spanId : parentSpanId, name, kind, System.nanoTime());
+        open.push(span);
+        return span;
+    }
+
+    /**
+     * Cierra un span abierto
+     *
+     * @param span span a cerrar
+     * @param error excepción que terminó el span, o null
+     */
+    public synchronized void end(Span span, Throwable error) {
+        span.endNanos = System.nanoTime();
+        if (error != null) span.error = error.getClass().getSimpleName() + ": " + error.getMessage();
+        open.remove(span);
+        add(span);
+    }
+
+    /**
+     * Registra un span ya terminado, hijo del span abierto más reciente,
+     * para operaciones medidas por otros componentes (p. ej. comandos de
+     * MongoDb)
+     *
+     * @param name nombre del span
+     * @param kind SERVER, INTERNAL o CLIENT
+     * @param durationNanos duración; el span termina en este momento
+     * @return span registrado, para agregar atributos
+     */
+    public synchronized Span record(String name, String kind, long durationNanos) {
+        long end = System.nanoTime();
+        Span parent = open.peek();
+        Span span = new Span(parent != null ? parent.spanId : parentSpanId, name, kind, end - durationNanos);
+        span.endNanos = end;
+        add(span);
+        return span;
+    }
+
+    private void add(Span span) {
+        if (spans.size() < MAX_SPANS) spans.add(span);
+        else dropped++;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    synchronized int getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Convierte un instante de System.nanoTime a nanosegundos desde la época
+     */
+    long toEpochNanos(long nanos) {
+        return startEpochNanos + (nanos - startNanos);
+    }
+
+    static String randomHex(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder hex = new StringBuilder(length);
+        while (hex.length() < length) {
+            String part = Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+            hex.append(part, 0, Math.min(part.length(), length - hex.length()));
+        }
+        return hex.toString();
+    }
+}
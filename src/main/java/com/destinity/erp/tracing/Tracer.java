@@ -0,0 +1,134 @@
+package com.destinity.erp.tracing;
+
+import com.destinity.erp.utils.ConfigService;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Crea y exporta las trazas de las peticiones REST. Cada petición recibe un
+ * identificador de correlación (el del encabezado X-Correlation-Id o uno
+ * nuevo) y se muestrea con probabilidad TRACE_SAMPLE_RATE, o siempre que
+ * el encabezado traceparent del cliente venga muestreado.
+ *
+ * Las trazas muestreadas se escriben en el logger com.destinity.erp.tracing.spans
+ * como una línea JSON con los nombres de campo de OTLP (traceId, spanId,
+ * parentSpanId, startTimeUnixNano, endTimeUnixNano, attributes, status),
+ * para poder enviarlas a un colector sin transformar su estructura.
+ */
+@ApplicationScoped
+public class Tracer {
+
+    private static final Logger SPANS_LOGGER = Logger.getLogger("com.destinity.erp.tracing.spans");
+    private static final Pattern CORRELATION_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+
+    @Inject
+    private ConfigService config;
+
+    private volatile double sampleRate;
+    private volatile long minDurationNanos;
+
+    @PostConstruct
+    public void init() {
+        loadSettings();
+        config.onChange(c -> loadSettings(), "TRACE_SAMPLE_RATE", "TRACE_MIN_DURATION_MS");
+    }
+
+    private void loadSettings() {
+        double rate;
+        try {
+            rate = Double.parseDouble(config.getString("TRACE_SAMPLE_RATE", "0"));
+        } catch (NumberFormatException e) {
+            rate = 0;
+        }
+        sampleRate = Math.max(0, Math.min(1, rate));
+        minDurationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getLong("TRACE_MIN_DURATION_MS", 0)));
+    }
+
+    /**
+     * Crea la traza de una petición a partir de sus encabezados
+     *
+     * @param correlationHeader valor de X-Correlation-Id, puede ser null
+     * @param traceparentHeader valor de traceparent, puede ser null
+     * @return traza, muestreada o no
+     */
+    Trace begin(String correlationHeader, String traceparentHeader) {
+        String traceId = null;
+        String parentSpanId = null;
+        boolean sampled = sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (traceparentHeader != null) {
+            var matcher = TRACEPARENT.matcher(traceparentHeader.trim());
+            if (matcher.matches() && !matcher.group(1).equals(INVALID_TRACE_ID)) {
+                traceId = matcher.group(1);
+                parentSpanId = matcher.group(2);
+                sampled |= (Integer.parseInt(matcher.group(3), 16) & 1) == 1;
+            }
+        }
+        if (traceId == null) traceId = Trace.randomHex(32);
+        String correlationId = correlationHeader != null && CORRELATION_ID.matcher(correlationHeader).matches()
+                ? correlationHeader : traceId;
+        return new Trace(traceId, correlationId, parentSpanId, sampled);
+    }
+
+    /**
+     * Escribe la traza si está muestreada y duró al menos TRACE_MIN_DURATION_MS
+     *
+     * @param trace traza terminada
+     * @param root span raíz de la petición
+     */
+    void export(Trace trace, Trace.Span root) {
+        if (!trace.isSampled() || !SPANS_LOGGER.isLoggable(Level.INFO)) return;
+        if (root.getEndNanos() - root.getStartNanos() < minDurationNanos) return;
+        SPANS_LOGGER.log(Level.INFO, toJson(trace));
+    }
+
+    private static String toJson(Trace trace) {
+        StringWriter out = new StringWriter(1_024);
+        List<Trace.Span> spans = trace.getSpans();
+        try (JsonGenerator json = Json.createGenerator(out)) {
+            json.writeStartObject()
+                    .write("traceId", trace.getTraceId())
+                    .write("correlationId", trace.getCorrelationId());
+            if (trace.getDropped() > 0) json.write("droppedSpans", trace.getDropped());
+            json.writeStartArray("spans");
+            for (Trace.Span span : spans) {
+                json.writeStartObject()
+                        .write("spanId", span.getSpanId())
+                        .write("name", span.getName())
+                        .write("kind", span.getKind())
+                        .write("startTimeUnixNano", String.valueOf(trace.toEpochNanos(span.getStartNanos())))
+                        .write("endTimeUnixNano", String.valueOf(trace.toEpochNanos(span.getEndNanos())))
+                        .write("durationMs", (span.getEndNanos() - span.getStartNanos()) / 1_000_000.0);
+                if (span.getParentSpanId() != null) json.write("parentSpanId", span.getParentSpanId());
+                if (!span.getAttributes().isEmpty()) {
+                    json.writeStartObject("attributes");
+                    for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                        if (attribute.getValue() instanceof Number number) json.write(attribute.getKey(), number.longValue());
+                        else json.write(attribute.getKey(), String.valueOf(attribute.getValue()));
+                    }
+                    json.writeEnd();
+                }
+                json.writeStartObject("status");
+                if (span.getError() != null) json.write("code", "ERROR").write("message", span.getError());
+                else json.write("code", "OK");
+                json.writeEnd();
+                json.writeEnd();
+            }
+            json.writeEnd();
+            json.writeEnd();
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.destinity.erp.tracing;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Filtro que asigna la traza a cada petición REST y devuelve su
+ * identificador en X-Correlation-Id y traceparent. Es el primer filtro de
+ * entrada y el último de salida, y como interceptor de escritura mide la
+ * serialización del cuerpo, así que el span raíz cubre todo el trabajo de
+ * la aplicación.
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 100)
+public class TracingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final String CORRELATION_HEADER = "X-Correlation-Id";
+    static final String TRACEPARENT_HEADER = "traceparent";
+    private static final String TRACE_PROPERTY = TracingFilter.class.getName() + ".trace";
+    private static final String ROOT_PROPERTY = TracingFilter.class.getName() + ".root";
+
+    @Inject
+    private Tracer tracer;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Trace trace = tracer.begin(request.getHeaderString(CORRELATION_HEADER), request.getHeaderString(TRACEPARENT_HEADER));
+        Trace.bind(trace);
+        request.setProperty(TRACE_PROPERTY, trace);
+        if (!trace.isSampled()) return;
+
+        String name = resourceInfo.getResourceMethod() != null
+                ? resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName()
+                : request.getMethod() + " " + request.getUriInfo().getPath();
+        Trace.Span root = trace.start(name, "SERVER")
+                .attribute("http.method", request.getMethod())
+                .attribute("http.target", "/" + request.getUriInfo().getPath());
+        request.setProperty(ROOT_PROPERTY, root);
+    }
+
+    /**
+     * Agrega los encabezados de la traza y libera el hilo. La traza y el span
+     * raíz siguen disponibles como propiedades de la petición, que es lo que
+     * usa aroundWriteTo, así que el ThreadLocal se limpia siempre aquí aunque
+     * el cuerpo se serialice después o en otro hilo.
+     */
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        try {
+            Trace trace = (Trace) request.getProperty(TRACE_PROPERTY);
+            if (trace == null) return;
+            response.getHeaders().putSingle(CORRELATION_HEADER, trace.getCorrelationId());
+
+            Trace.Span root = (Trace.Span) request.getProperty(ROOT_PROPERTY);
+            response.getHeaders().putSingle(TRACEPARENT_HEADER, "00-" + trace.getTraceId() + "-"
+                    + (root != null ? root.getSpanId() : Trace.randomHex(16)) + (trace.isSampled() ? "-01" : "-00"));
+            if (root == null) return;
+            root.attribute("http.status_code", response.getStatus());
+            if (response.getStatus() >= 500) root.markError("HTTP " + response.getStatus());
+            // Con cuerpo, la traza termina después de serializarlo en aroundWriteTo
+            if (!response.hasEntity()) finish(trace, root);
+        } finally {
+            Trace.unbind();
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Trace.Span root = (Trace.Span) context.getProperty(ROOT_PROPERTY);
+        Trace trace = (Trace) context.getProperty(TRACE_PROPERTY);
+        if (root == null || trace == null) {
+            context.proceed();
+            return;
+        }
+        Trace.Span serialize = trace.start("serialize", "INTERNAL")
+                .attribute("type", context.getType().getSimpleName());
+        Throwable error = null;
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            trace.end(serialize, error);
+            finish(trace, root);
+        }
+    }
+
+    private void finish(Trace trace, Trace.Span root) {
+        trace.end(root, null);
+        tracer.export(trace, root);
+    }
+}
@@ -0,0 +1,61 @@
+package com.destinity.erp.tracing;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interceptor que abre un span por cada método de un bean @Traced. Si la
+ * petición no está muestreada solo consulta el ThreadLocal y continúa.
+ * En ambos casos deja el método en curso como origen del hilo, para que
+ * MongoCommandMetrics atribuya cada comando al repositorio que lo emitió
+ * sin recorrer el stack.
+ */
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class TracingInterceptor {
+
+    private static final ThreadLocal<String> ORIGIN = new ThreadLocal<>();
+    private static final Map<Method, String> NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * Método @Traced más interno que se está ejecutando en el hilo, por
+     * ejemplo ProductRepository.findProductById
+     *
+     * @return Clase.método o null fuera de un bean @Traced
+     */
+    public static String currentOrigin() {
+        return ORIGIN.get();
+    }
+
+    @AroundInvoke
+    public Object trace(InvocationContext context) throws Exception {
+        String name = NAMES.computeIfAbsent(context.getMethod(),
+                method -> method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        String outer = ORIGIN.get();
+        ORIGIN.set(name);
+        try {
+            Trace trace = Trace.current();
+            if (trace == null || !trace.isSampled()) return context.proceed();
+
+            Trace.Span span = trace.start(name, "INTERNAL");
+            Throwable error = null;
+            try {
+                return context.proceed();
+            } catch (Exception e) {
+                error = e;
+                throw e;
+            } finally {
+                trace.end(span, error);
+            }
+        } finally {
+            if (outer != null) ORIGIN.set(outer);
+            else ORIGIN.remove();
+        }
+    }
+}
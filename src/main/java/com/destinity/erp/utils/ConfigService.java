@@ -0,0 +1,318 @@
+package com.destinity.erp.utils;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servicio de configuración tipada que reemplaza la lectura directa de env.properties.
+ * Las propiedades se cargan una sola vez y se mantienen en caché; un observador del
+ * sistema de archivos recarga el archivo cuando cambia y notifica a los componentes
+ * registrados solo las claves que cambiaron, para ajustar en caliente tamaños de pool,
+ * cachés, lotes y tiempos de espera sin volver a desplegar.
+ *
+ * Orden de precedencia: propiedad del sistema, variable de entorno y env.properties.
+ * La ruta del archivo puede indicarse con DESTINITY_CONFIG; si no, se usa el classpath.
+ *
+ * Los componentes lo obtienen por inyección. El observador corre en un hilo
+ * administrado que arranca con el contexto de aplicación y se detiene con él.
+ */
+@ApplicationScoped
+public class ConfigService {
+
+    private static final Logger LOGGER = Logger.getLogger(ConfigService.class.getName());
+    private static final String FILE_NAME = "env.properties";
+    private static final String CONFIG_PATH_KEY = "DESTINITY_CONFIG";
+    private static final ConfigService BOOTSTRAP = new ConfigService();
+
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private volatile Properties properties;
+    private volatile Path configFile;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private volatile WatchService watchService;
+
+    /**
+     * Acceso exclusivo del proveedor de SLF4J, que se crea antes que el
+     * contenedor CDI. Es una instancia aparte que lee el mismo archivo pero
+     * no lo observa; el resto del código debe inyectar el servicio.
+     *
+     * @return instancia para el arranque del log
+     */
+    public static ConfigService bootstrap() {
+        return BOOTSTRAP;
+    }
+
+    public String getString(String key) {
+        String value = System.getProperty(key);
+        if (value == null) value = System.getenv(key);
+        if (value == null) value = snapshot().getProperty(key);
+        return value != null ? value.trim() : null;
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = getString(key);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Valor entero inválido para {0}: {1}", new Object[]{key, value});
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Valor numérico inválido para {0}: {1}", new Object[]{key, value});
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) return defaultValue;
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Obtiene una duración. Acepta sufijos ms, s, m, h y d; sin sufijo se
+     * interpreta en milisegundos.
+     *
+     * @param key clave de la propiedad
+     * @param defaultValue valor por defecto
+     * @return duración configurada
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        String value = getString(key);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            String v = value.toLowerCase();
+            if (v.endsWith("ms")) return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2).trim()));
+            if (v.endsWith("s")) return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+            if (v.endsWith("m")) return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+            if (v.endsWith("h")) return Duration.ofHours(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+            if (v.endsWith("d")) return Duration.ofDays(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+            return Duration.ofMillis(Long.parseLong(v));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Duración inválida para {0}: {1}", new Object[]{key, value});
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Registra un componente para recibir cambios de configuración. El listener
+     * se invoca en el hilo del observador cuando cambia alguna de las claves.
+     *
+     * @param listener acción a ejecutar con el servicio actualizado
+     * @param keys claves observadas
+     */
+    public void onChange(Consumer<ConfigService> listener, String... keys) {
+        listeners.add(new Registration(Set.copyOf(Arrays.asList(keys)), listener));
+        snapshot();
+    }
+
+    /**
+     * Vuelve a leer el archivo y notifica las claves que cambiaron
+     *
+     * @return claves modificadas
+     */
+    public Set<String> reload() {
+        Set<String> changed;
+        synchronized (lock) {
+            Properties previous = properties != null ? properties : new Properties();
+            Properties current = loadProperties();
+            properties = current;
+            changed = diff(previous, current);
+        }
+        if (!changed.isEmpty()) {
+            LOGGER.log(Level.INFO, "Configuración recargada, claves modificadas: {0}", changed);
+            notifyListeners(changed);
+        }
+        return changed;
+    }
+
+    /**
+     * Inicia el observador del archivo al arrancar la aplicación
+     *
+     * @param init evento de inicialización del contexto de aplicación
+     */
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        snapshot();
+        startWatcher();
+    }
+
+    @PreDestroy
+    public void close() {
+        listeners.clear();
+        WatchService watcher = watchService;
+        watchService = null;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error al cerrar el observador de configuración", e);
+            }
+        }
+    }
+
+    /**
+     * Devuelve las propiedades en caché, cargándolas la primera vez
+     *
+     * @return propiedades cargadas
+     */
+    private Properties snapshot() {
+        Properties current = properties;
+        if (current != null) return current;
+        synchronized (lock) {
+            if (properties == null) properties = loadProperties();
+            return properties;
+        }
+    }
+
+    /**
+     * Carga env.properties desde la ruta configurada o desde el classpath.
+     * Si no se encuentra o ocurre un error, se registra en el log del sistema.
+     *
+     * @return propiedades leídas
+     */
+    private Properties loadProperties() {
+        Properties loaded = new Properties();
+        Path file = resolveConfigFile();
+        try (InputStream input = file != null
+                ? Files.newInputStream(file)
+                : ConfigService.class.getClassLoader().getResourceAsStream(FILE_NAME)) {
+            if (input == null) {
+                LOGGER.log(Level.SEVERE, "No se pudo encontrar el archivo env.properties");
+                return loaded;
+            }
+            loaded.load(input);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error al cargar el archivo env.properties", e);
+        }
+        return loaded;
+    }
+
+    /**
+     * Resuelve el archivo de configuración en el sistema de archivos, si existe
+     *
+     * @return ruta del archivo o null si solo está disponible en el classpath
+     */
+    private Path resolveConfigFile() {
+        if (configFile != null) return configFile;
+        String explicit = System.getProperty(CONFIG_PATH_KEY, System.getenv(CONFIG_PATH_KEY));
+        if (explicit != null && !explicit.isBlank()) {
+            configFile = Paths.get(explicit.trim()).toAbsolutePath();
+            return configFile;
+        }
+        URL resource = ConfigService.class.getClassLoader().getResource(FILE_NAME);
+        if (resource != null && "file".equals(resource.getProtocol())) {
+            try {
+                configFile = Paths.get(resource.toURI());
+            } catch (URISyntaxException e) {
+                LOGGER.log(Level.WARNING, "Ruta de configuración inválida: {0}", resource);
+            }
+        }
+        return configFile;
+    }
+
+    /**
+     * Inicia un hilo administrado que observa el directorio del archivo de configuración
+     */
+    private synchronized void startWatcher() {
+        Path file = configFile;
+        if (file == null || file.getParent() == null || watchService != null) return;
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+            watchService = watcher;
+            Thread thread = threadFactory.newThread(() -> watch(watcher, file));
+            thread.setName("config-watcher");
+            thread.start();
+            LOGGER.log(Level.INFO, "Observando cambios de configuración en: {0}", file);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.log(Level.WARNING, "No se pudo observar el archivo de configuración: {0}", e.getMessage());
+        }
+    }
+
+    private void watch(WatchService watcher, Path file) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())) relevant = true;
+                }
+                key.reset();
+                if (relevant) {
+                    Thread.sleep(100);
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.log(Level.FINE, "Observador de configuración detenido");
+        }
+    }
+
+    private static Set<String> diff(Properties previous, Properties current) {
+        Set<String> keys = new HashSet<>(previous.stringPropertyNames());
+        keys.addAll(current.stringPropertyNames());
+        keys.removeIf(k -> Objects.equals(previous.getProperty(k), current.getProperty(k)));
+        return keys;
+    }
+
+    private void notifyListeners(Set<String> changed) {
+        for (Registration registration : listeners) {
+            if (registration.keys().stream().noneMatch(changed::contains)) continue;
+            try {
+                registration.listener().accept(this);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Error al aplicar cambios de configuración: {0}", e.getMessage());
+            }
+        }
+    }
+
+    private record Registration(Set<String> keys, Consumer<ConfigService> listener) {
+    }
+}
@@ -24,7 +24,8 @@ public class CustomException extends RuntimeException {
         VALIDATION_FAILED,
         NOT_FOUND,
         BUSINESS_RULE,
-        INVALID_INPUT
+        INVALID_INPUT,
+        UNAVAILABLE
     }
     
     public ExceptionType getType(){
@@ -50,6 +51,10 @@ public class CustomException extends RuntimeException {
         return new CustomException(ExceptionType.NOT_FOUND, message);
     }
 
+    public static CustomException unavailable(String message) {
+        return new CustomException(ExceptionType.UNAVAILABLE, message);
+    }
+
     public static CustomException invalidInput(String property, String entity) {
         return new CustomException(ExceptionType.INVALID_INPUT, property + " del " + entity + " es requerido");
     }
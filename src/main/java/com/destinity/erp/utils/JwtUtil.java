@@ -4,26 +4,48 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Clase utilitaria para la generación y validación de tokens JWT.
+ * Servicio para la generación y validación de tokens JWT.
  *  Utiliza el algoritmo HMAC256 y contiene claims personalizados.
+ *  Los tokens de acceso duran 15 minutos y se renuevan con el refresh token.
  */
+@ApplicationScoped
 public class JwtUtil {
 
-    private static final String SECRET_KEY;
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 8;
-    private static final Algorithm algorithm;
+    private static final long EXPIRATION_TIME = 1000 * 60 * 15;
 
-    static {
-        SECRET_KEY = new EnvReader().getProperty("SECRET_KEY");
-        if (SECRET_KEY == null || SECRET_KEY.isBlank()) {
+    @Inject
+    private ConfigService config;
+
+    private Algorithm algorithm;
+
+    public JwtUtil() {
+    }
+
+    /**
+     * Crea el servicio fuera del contenedor CDI, por ejemplo en los benchmarks
+     *
+     * @param config configuración con SECRET_KEY
+     */
+    public JwtUtil(ConfigService config) {
+        this.config = config;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        String secretKey = config.getString("SECRET_KEY");
+        if (secretKey == null || secretKey.isBlank()) {
             throw new IllegalStateException("SECRET_KEY no definido en env.properties");
         }
-        algorithm = Algorithm.HMAC256(SECRET_KEY);
+        algorithm = Algorithm.HMAC256(secretKey);
     }
 
     /**
@@ -35,7 +57,7 @@ public class JwtUtil {
      * @param name nombre completo del usuario
      * @return token JWT generado
      */
-    public static String generateToken(String userId, String role, String email, String name) {
+    public String generateToken(String userId, String role, String email, String name) {
         return JWT.create()
                 .withSubject(userId)
                 .withClaim("role", role)
@@ -53,7 +75,7 @@ public class JwtUtil {
      * @return objeto DecodedJWT con los claims del token
      * @throws RuntimeException si el token es inválido o no puede verificarse
      */
-    public static DecodedJWT verifyToken(String token) {
+    public DecodedJWT verifyToken(String token) {
         JWTVerifier verifier = JWT.require(algorithm).build();
         return verifier.verify(token);
     }
@@ -64,7 +86,7 @@ public class JwtUtil {
      * @param token token JWT
      * @return ID del usuario
      */
-    public static String getUserIdFromToken(String token) {
+    public String getUserIdFromToken(String token) {
         return verifyToken(token).getSubject();
     }
 
@@ -74,7 +96,7 @@ public class JwtUtil {
      * @param token token JWT
      * @return rol del usuario
      */
-    public static String getRoleFromToken(String token) {
+    public String getRoleFromToken(String token) {
         return verifyToken(token).getClaim("role").asString();
     }
 
@@ -84,7 +106,7 @@ public class JwtUtil {
      * @param token token JWT
      * @return email del usuario
      */
-    public static String getEmailFromToken(String token) {
+    public String getEmailFromToken(String token) {
         return verifyToken(token).getClaim("email").asString();
     }
 
@@ -94,7 +116,7 @@ public class JwtUtil {
      * @param token token JWT
      * @return nombre completo del usuario
      */
-    public static String getNameFromToken(String token) {
+    public String getNameFromToken(String token) {
         return verifyToken(token).getClaim("name").asString();
     }
 
@@ -104,7 +126,7 @@ public class JwtUtil {
      * @param token token JWT
      * @return mapa con userId, role, email y name
      */
-    public static Map<String, String> getAllClaims(String token) {
+    public Map<String, String> getAllClaims(String token) {
         DecodedJWT jwt = verifyToken(token);
         Map<String, String> claims = new HashMap<>();
         claims.put("userId", jwt.getSubject());
@@ -1,23 +1,53 @@
 package com.destinity.erp.utils;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.mindrot.jbcrypt.BCrypt;
 
 /**
- * Clase utilitaria para el manejo seguro de contraseñas usando BCrypt.
+ * Servicio para el manejo seguro de contraseñas usando BCrypt.
  *
  * BCrypt para hashing con sal incorporada, lo que protege contra ataques por
- * diccionario y rainbow tables usada para almacenar contraseñas.
+ * diccionario y rainbow tables usada para almacenar contraseñas. El costo
+ * (log2 de las rondas) se configura con la propiedad BCRYPT_COST.
  */
+@ApplicationScoped
 public class PasswordHasher {
 
+    private static final int DEFAULT_COST = 10;
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+    private volatile int cost = DEFAULT_COST;
+
+    @Inject
+    private ConfigService config;
+
+    @PostConstruct
+    public void init() {
+        applyConfiguredCost(config);
+        config.onChange(this::applyConfiguredCost, "BCRYPT_COST");
+    }
+
     /**
      * Hashea una contraseña en texto plano utilizando BCrypt con una sal.
      *
      * @param plainPassword contraseña en texto plano ingresada por el usuario.
      * @return hash de la contraseña, seguro para almacenar en la base de datos.
      */
-    public static String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(10));
+    public String hashPassword(String plainPassword) {
+        return hashPassword(plainPassword, cost);
+    }
+
+    /**
+     * Hashea una contraseña con un costo específico.
+     *
+     * @param plainPassword contraseña en texto plano.
+     * @param logRounds costo de BCrypt (log2 de las rondas).
+     * @return hash de la contraseña.
+     */
+    public static String hashPassword(String plainPassword, int logRounds) {
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(logRounds));
     }
 
     /**
@@ -30,4 +60,55 @@ public class PasswordHasher {
     public static boolean checkPassword(String plainPassword, String hashedPassword) {
         return BCrypt.checkpw(plainPassword, hashedPassword);
     }
+
+    /**
+     * Obtiene el costo con el que fue generado un hash ($2a$10$...).
+     *
+     * @param hashedPassword hash almacenado en la base de datos.
+     * @return costo del hash o -1 si el formato no es válido.
+     */
+    public static int getCost(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$')
+            return -1;
+        try {
+            return Integer.parseInt(hashedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Indica si un hash fue generado con un costo distinto al configurado.
+     *
+     * @param hashedPassword hash almacenado en la base de datos.
+     * @return true si conviene volver a hashear la contraseña.
+     */
+    public boolean needsRehash(String hashedPassword) {
+        int hashCost = getCost(hashedPassword);
+        return hashCost > 0 && hashCost != cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Cambia el costo objetivo para los nuevos hashes.
+     *
+     * @param logRounds costo entre 4 y 31.
+     * @throws IllegalArgumentException si el costo está fuera de rango.
+     */
+    public void setCost(int logRounds) {
+        if (logRounds < MIN_COST || logRounds > MAX_COST)
+            throw new IllegalArgumentException("BCRYPT_COST debe estar entre " + MIN_COST + " y " + MAX_COST);
+        cost = logRounds;
+    }
+
+    private void applyConfiguredCost(ConfigService config) {
+        try {
+            setCost(config.getInt("BCRYPT_COST", DEFAULT_COST));
+        } catch (IllegalArgumentException e) {
+            cost = DEFAULT_COST;
+        }
+    }
 }
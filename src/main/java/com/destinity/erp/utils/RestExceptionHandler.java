@@ -2,8 +2,8 @@ package com.destinity.erp.utils;
 
 import jakarta.ws.rs.core.Response;
 import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Clase utilitaria para manejar excepciones dentro de los servicios REST.
@@ -14,7 +14,7 @@ import java.util.logging.Logger;
  */
 public class RestExceptionHandler {
 
-    private static final Logger LOGGER = Logger.getLogger(RestExceptionHandler.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestExceptionHandler.class);
 
     /**
      * Mapea y obtiene el tipo de excepción
@@ -32,6 +32,8 @@ public class RestExceptionHandler {
                 Response.Status.CONFLICT;
             case DATABASE_ERROR, DUPLICATED_KEY ->
                 Response.Status.INTERNAL_SERVER_ERROR;
+            case UNAVAILABLE ->
+                Response.Status.SERVICE_UNAVAILABLE;
             default ->
                 Response.Status.INTERNAL_SERVER_ERROR;
         };
@@ -44,7 +46,7 @@ public class RestExceptionHandler {
      * @return respuesta con el mensaje y el tipo
      */
     public static Response handleCustomException(CustomException e) {
-        LOGGER.log(Level.WARNING, "[{0}] {1}", new Object[]{e.getType(), e.getMessage()});
+        LOGGER.warn("[{}] {}", e.getType(), e.getMessage());
         return Response.status(mapStatusFromType(e.getType()))
                 .entity(Map.of(
                         "message", e.getMessage(),
@@ -59,7 +61,7 @@ public class RestExceptionHandler {
      * @return respuesta con el mensaje y el tipo
      */
     public static Response unexpectedCustomException(Exception e) {
-        LOGGER.log(Level.SEVERE, "Error inesperado", e);
+        LOGGER.error("Error inesperado", e);
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                 .entity(Map.of(
                         "message", "Error interno inesperado",
@@ -0,0 +1,67 @@
+/**
+ * @file fetchAnalytics.js
+ * @description Controlador de analíticas que consulta las ventas agregadas en el servidor
+ * y dibuja las gráficas de ganancias por día y de categorías más populares.
+ *
+ * Este archivo depende de Chart.js, cargado globalmente en el layout.
+ */
+document.addEventListener('DOMContentLoaded', async function () {
+  const BASE_API = window.location.origin + '/destinity-erp';
+
+  /**
+   * Consulta un endpoint de analíticas
+   * @param {string} path - Ruta relativa a /api/analytics
+   * @returns {Promise<Array>} grupos agregados o arreglo vacío si falla
+   */
+  async function fetchBuckets(path) {
+    try {
+      const response = await fetch(`${BASE_API}/api/analytics${path}`);
+      if (!response.ok) return [];
+      return await response.json();
+    } catch (error) {
+      console.error('Error al obtener analíticas:', error);
+      return [];
+    }
+  }
+
+  const [revenue, categories] = await Promise.all([
+    fetchBuckets('/revenue?granularity=day'),
+    fetchBuckets('/categories?limit=5'),
+  ]);
+
+  const revenueCanvas = document.getElementById('gananciasChart');
+  if (revenueCanvas) {
+    new Chart(revenueCanvas, {
+      type: 'line',
+      data: {
+        labels: revenue.map((b) => b.key),
+        datasets: [
+          {
+            label: 'Ingresos',
+            data: revenue.map((b) => b.revenue),
+            borderColor: '#2563eb',
+            backgroundColor: 'rgba(37, 99, 235, 0.15)',
+            fill: true,
+            tension: 0.3,
+          },
+        ],
+      },
+    });
+  }
+
+  const categoriesCanvas = document.getElementById('categoriasChart');
+  if (categoriesCanvas) {
+    new Chart(categoriesCanvas, {
+      type: 'doughnut',
+      data: {
+        labels: categories.map((b) => b.key),
+        datasets: [
+          {
+            data: categories.map((b) => b.revenue),
+            backgroundColor: ['#2563eb', '#16a34a', '#f59e0b', '#dc2626', '#7c3aed'],
+          },
+        ],
+      },
+    });
+  }
+});
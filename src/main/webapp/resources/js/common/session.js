@@ -0,0 +1,127 @@
+/**
+ * @file session.js
+ * @description Mantiene la sesión del usuario en el navegador.
+ * El token de acceso dura pocos minutos; antes de que expire se renueva con
+ * el refresh token guardado. Cada renovación entrega un refresh token nuevo
+ * que reemplaza al anterior, que deja de ser válido. Si la sesión ya no es
+ * válida (expiró o fue revocada) se limpia el almacenamiento y se vuelve al login.
+ */
+
+import { decodeJWT } from './decode_jwt.js';
+
+const API_BASE = window.location.origin + '/destinity-erp';
+const REFRESH_MARGIN_MS = 60 * 1000;
+
+let refreshTimer = null;
+let pendingRefresh = null;
+
+/**
+ * Limpia los tokens guardados y redirige al login
+ */
+function endSession() {
+  if (refreshTimer) clearTimeout(refreshTimer);
+  sessionStorage.removeItem('authToken');
+  sessionStorage.removeItem('refreshToken');
+  window.location.href = API_BASE;
+}
+
+/**
+ * Milisegundos que faltan para que expire el token de acceso
+ * @param {string} token - token JWT
+ * @returns {number} tiempo restante; 0 si no tiene expiración legible
+ */
+function msUntilExpiry(token) {
+  try {
+    const claims = decodeJWT(token);
+    return claims && claims.exp ? claims.exp * 1000 - Date.now() : 0;
+  } catch (error) {
+    return 0;
+  }
+}
+
+/**
+ * Solicita un nuevo token de acceso. Las llamadas simultáneas comparten la
+ * misma petición.
+ * @returns {Promise<string>} nuevo token de acceso
+ */
+export function refreshAccessToken() {
+  if (pendingRefresh) return pendingRefresh;
+
+  const refreshToken = sessionStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    endSession();
+    return Promise.reject(new Error('No hay una sesión activa'));
+  }
+
+  pendingRefresh = fetch(`${API_BASE}/api/auth/refresh`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({ refreshToken }),
+  })
+    .then(async (response) => {
+      const data = await response.json().catch(() => ({}));
+      if (response.status === 404 || response.status === 400) {
+        endSession();
+        throw new Error(data.message || 'La sesión ha expirado');
+      }
+      if (!response.ok || !data.token)
+        throw new Error(data.message || 'No se pudo renovar la sesión');
+      sessionStorage.setItem('authToken', data.token);
+      if (data.refreshToken) sessionStorage.setItem('refreshToken', data.refreshToken);
+      scheduleTokenRefresh();
+      return data.token;
+    })
+    .finally(() => {
+      pendingRefresh = null;
+    });
+  return pendingRefresh;
+}
+
+/**
+ * Devuelve un token de acceso vigente, renovándolo si está por expirar
+ * @returns {Promise<string>} token de acceso
+ */
+export async function getAccessToken() {
+  const token = sessionStorage.getItem('authToken');
+  if (token && msUntilExpiry(token) > REFRESH_MARGIN_MS) return token;
+  return refreshAccessToken();
+}
+
+/**
+ * Programa la renovación del token un minuto antes de que expire. Si la
+ * renovación falla por la red se reintenta en el siguiente margen.
+ */
+export function scheduleTokenRefresh() {
+  if (refreshTimer) clearTimeout(refreshTimer);
+  const token = sessionStorage.getItem('authToken');
+  if (!token) return;
+
+  const delay = Math.max(0, msUntilExpiry(token) - REFRESH_MARGIN_MS);
+  refreshTimer = setTimeout(() => {
+    refreshAccessToken().catch((error) => {
+      console.error('Error al renovar la sesión:', error);
+      refreshTimer = setTimeout(scheduleTokenRefresh, REFRESH_MARGIN_MS);
+    });
+  }, delay);
+}
+
+/**
+ * Cierra la sesión: revoca el refresh token en el servidor y vuelve al login.
+ * Aunque la petición falle, la sesión local se limpia.
+ */
+export async function logout() {
+  const refreshToken = sessionStorage.getItem('refreshToken');
+  try {
+    if (refreshToken) {
+      await fetch(`${API_BASE}/api/auth/logout`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+      });
+    }
+  } catch (error) {
+    console.error('Error al cerrar la sesión:', error);
+  } finally {
+    endSession();
+  }
+}
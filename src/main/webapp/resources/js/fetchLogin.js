@@ -5,7 +5,8 @@
  * - Validación de campos del formulario
  * - Comunicación con el API de autenticación
  * - Manejo de respuestas y errores
- * - Almacenamiento del token de sesión
+ * - Almacenamiento del token de sesión y del refresh token, que
+ *   common/session.js usa para renovar el token y cerrar la sesión
  * - Redirección tras inicio de sesión exitoso
  */
 import {
@@ -66,6 +67,7 @@ document.addEventListener('DOMContentLoaded', function () {
         if (!token)
           showGeneralError(generalError, 'No se pudo completar el inicio de sesión.');
         sessionStorage.setItem('authToken', token);
+        sessionStorage.setItem('refreshToken', loginData.refreshToken);
         window.location.href = `${API_BASE}/pages/home.xhtml`;
       })
       .catch((error) => {
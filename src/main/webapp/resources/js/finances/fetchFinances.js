@@ -0,0 +1,88 @@
+/**
+ * @file fetchFinances.js
+ * @description Controlador de finanzas que muestra los totales del mes, el
+ * desglose de gastos y los movimientos recientes del libro contable.
+ *
+ * Este archivo depende de los módulos:
+ * - renderTable (para renderizar las filas de movimientos)
+ * - formatDate (para formatear timestamps)
+ */
+import { renderTable } from '../common/table_render.js';
+import { formatDate } from '../common/toDate.js';
+
+document.addEventListener('DOMContentLoaded', async function () {
+  const BASE_API = window.location.origin + '/destinity-erp';
+  const currency = new Intl.NumberFormat('es-MX', {
+    style: 'currency',
+    currency: 'MXN',
+  });
+
+  const columns = [
+    { content: (e) => formatDate(e.date) ?? '-' },
+    { content: (e) => e.description ?? '-' },
+    { content: (e) => e.account ?? '-' },
+    {
+      className: 'p-4',
+      content: (e) =>
+        e.type === 'EXPENSE'
+          ? `<span class="text-red-600">- ${currency.format(e.amount)}</span>`
+          : `<span class="text-green-600">${currency.format(e.amount)}</span>`,
+    },
+    {
+      content: (e) =>
+        e.type === 'EXPENSE'
+          ? '<span class="bg-red-100 text-red-800 px-3 py-1 rounded-full text-sm font-medium">Gasto</span>'
+          : '<span class="bg-green-100 text-green-800 px-3 py-1 rounded-full text-sm font-medium">Ingreso</span>',
+    },
+  ];
+
+  /**
+   * Consulta un endpoint de finanzas
+   * @param {string} path - Ruta relativa a /api/finances
+   * @returns {Promise<any>} respuesta JSON o null si falla
+   */
+  async function fetchFinance(path) {
+    try {
+      const response = await fetch(`${BASE_API}/api/finances${path}`);
+      if (!response.ok) return null;
+      return await response.json();
+    } catch (error) {
+      console.error('Error al obtener finanzas:', error);
+      return null;
+    }
+  }
+
+  function setText(id, value) {
+    const element = document.getElementById(id);
+    if (element) element.textContent = value;
+  }
+
+  const [summary, entries] = await Promise.all([
+    fetchFinance('/summary'),
+    fetchFinance('/entries?limit=10'),
+  ]);
+
+  if (summary) {
+    setText('finance-income', currency.format(summary.income));
+    setText('finance-expenses', currency.format(summary.expenses));
+    setText('finance-net', currency.format(summary.net));
+
+    const breakdown = document.getElementById('finance-expense-breakdown');
+    if (breakdown) {
+      breakdown.innerHTML = '';
+      Object.entries(summary.expensesByCategory ?? {}).forEach(([category, amount]) => {
+        const item = document.createElement('li');
+        item.className = 'py-3 flex justify-between items-center';
+        const name = document.createElement('span');
+        name.textContent = category;
+        const total = document.createElement('p');
+        total.className = 'font-bold text-purple-600';
+        total.textContent = currency.format(amount);
+        item.append(name, total);
+        breakdown.appendChild(item);
+      });
+    }
+  }
+
+  if (entries) renderTable('tbodyFinances', entries, columns);
+});
@@ -0,0 +1,43 @@
+/**
+ * @file fetchBestSellers.js
+ * @description Muestra en el inicio los productos más vendidos de la última
+ * hora, día o semana. Los datos se calculan en memoria en el servidor.
+ */
+document.addEventListener('DOMContentLoaded', function () {
+  const BASE_API = window.location.origin + '/destinity-erp';
+  const list = document.getElementById('best-sellers-list');
+  const selector = document.getElementById('best-sellers-window');
+  if (!list || !selector) return;
+
+  /**
+   * Consulta y dibuja los productos más vendidos de la ventana seleccionada
+   * @param {string} window - hour, day o week
+   */
+  async function loadBestSellers(window) {
+    try {
+      const response = await fetch(`${BASE_API}/api/analytics/best-sellers?window=${window}&limit=5`);
+      const products = response.ok ? await response.json() : [];
+      list.innerHTML = '';
+      if (products.length === 0) {
+        list.innerHTML = '<li class="text-gray-500">Sin ventas en este periodo</li>';
+        return;
+      }
+      products.forEach((product) => {
+        const item = document.createElement('li');
+        item.className = 'flex justify-between py-2 border-b border-gray-100';
+        const name = document.createElement('span');
+        name.textContent = product.name || product.productId;
+        const units = document.createElement('span');
+        units.className = 'font-semibold text-gray-700';
+        units.textContent = `${product.units} uds.`;
+        item.append(name, units);
+        list.appendChild(item);
+      });
+    } catch (error) {
+      console.error('Error al obtener los más vendidos:', error);
+    }
+  }
+
+  selector.addEventListener('change', () => loadBestSellers(selector.value));
+  loadBestSellers(selector.value);
+});
@@ -0,0 +1,38 @@
+/**
+ * @file fetchDashboard.js
+ * @description Muestra en el inicio los indicadores generales con una sola
+ * petición al resumen del servidor. Los indicadores que no respondieron a
+ * tiempo se dejan como "-".
+ */
+document.addEventListener('DOMContentLoaded', async function () {
+  const BASE_API = window.location.origin + '/destinity-erp';
+  const currency = new Intl.NumberFormat('es-MX', { style: 'currency', currency: 'MXN' });
+  const number = new Intl.NumberFormat('es-MX');
+
+  /**
+   * Escribe un valor en el elemento indicado si existe
+   * @param {string} id - id del elemento
+   * @param {number|null} value - valor del indicador
+   * @param {Intl.NumberFormat} format - formato del valor
+   */
+  function setValue(id, value, format) {
+    const element = document.getElementById(id);
+    if (element) element.textContent = value == null ? '-' : format.format(value);
+  }
+
+  try {
+    const response = await fetch(`${BASE_API}/api/dashboard/summary`);
+    if (!response.ok) return;
+    const summary = await response.json();
+    setValue('dashboard-today-revenue', summary.todayRevenue, currency);
+    setValue('dashboard-sales', summary.sales, number);
+    setValue('dashboard-products', summary.products, number);
+    setValue('dashboard-users', summary.users, number);
+    const todaySales = document.getElementById('dashboard-today-sales');
+    if (todaySales && summary.todaySales != null) {
+      todaySales.textContent = `${number.format(summary.todaySales)} ventas`;
+    }
+  } catch (error) {
+    console.error('Error al obtener el resumen:', error);
+  }
+});
@@ -92,6 +92,22 @@ document.addEventListener('DOMContentLoaded', async function () {
       loadPage
     );
   }
+  /**
+   * Muestra el número de productos con existencias bajas, calculado
+   * periódicamente en el servidor
+   */
+  async function loadLowStockCount() {
+    try {
+      const response = await fetch(`${BASE_API}/api/products/low-stock?limit=500`);
+      if (!response.ok) return;
+      const lowStock = await response.json();
+      document.getElementById('low-stock-count').textContent = lowStock.length;
+    } catch (error) {
+      console.error('Error al obtener existencias bajas:', error);
+    }
+  }
+
+  loadLowStockCount();
   await fetchAllProducts();
   loadPage(1);
 });
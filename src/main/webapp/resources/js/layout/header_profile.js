@@ -1,9 +1,11 @@
 /**
  * @file header_profile.js
  * @description Manejo del menú de perfil de usuario en el encabezado.
+ * También programa la renovación del token de acceso y el cierre de sesión.
  */
 
 import { decodeJWT } from '../common/decode_jwt.js';
+import { logout, scheduleTokenRefresh } from '../common/session.js';
 
 /**
  * Error personalizado para operaciones del perfil de usuario
@@ -31,6 +33,7 @@ export function initializeProfileMenu() {
 
     const nameEl = profileMenu.querySelector('.profile-user');
     const emailEl = profileMenu.querySelector('.profile-email');
+    const logoutButton = document.getElementById('logout-button');
 
     if (!nameEl || !emailEl)
       throw new ProfileError('Elementos para mostrar información del usuario no encontrados');
@@ -52,6 +55,9 @@ export function initializeProfileMenu() {
       throw new ProfileError('Sesión no válida. Redirigiendo al login');
     }
 
+    scheduleTokenRefresh();
+    if (logoutButton) logoutButton.addEventListener('click', logout);
+
     profileButton.addEventListener('click', (e) => {
       e.stopPropagation();
       profileMenu.classList.toggle('opacity-0');
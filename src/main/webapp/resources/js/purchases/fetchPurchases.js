@@ -0,0 +1,66 @@
+/**
+ * @file fetchPurchases.js
+ * @description Controlador de compras que carga las órdenes de compra desde la API,
+ * renderiza la tabla y permite recibir las órdenes aprobadas o en tránsito.
+ *
+ * Este archivo depende de los módulos:
+ * - renderTable (para renderizar las filas de órdenes)
+ * - formatDate (para formatear timestamps)
+ */
+import { renderTable } from '../common/table_render.js';
+import { formatDate } from '../common/toDate.js';
+
+document.addEventListener('DOMContentLoaded', async function () {
+  const BASE_API = window.location.origin + '/destinity-erp';
+  const RECEIVABLE = ['Aprobado', 'En tránsito'];
+
+  const columns = [
+    {
+      className: 'p-4 font-medium text-blue-600',
+      content: (o) => `#OC-${o.id.slice(-6).toUpperCase()}`,
+    },
+    { content: (o) => o.provider ?? '-' },
+    { content: (o) => formatDate(o.created) ?? '-' },
+    { className: 'p-4 font-medium', content: (o) => `$${o.total}` },
+    {
+      content: (o) =>
+        `<span class="bg-amber-100 text-amber-800 px-3 py-1 rounded-full text-sm font-medium w-fit">${o.status}</span>`,
+    },
+    { content: (o) => `${o.items} partidas` },
+    {
+      className: 'p-4 text-center',
+      content: (o) =>
+        RECEIVABLE.includes(o.status)
+          ? `<button class="text-green-600 bg-green-100 p-2 rounded" title="Recibir" data-receive="${o.id}">
+               <i class="ph ph-package"></i>
+             </button>`
+          : '',
+    },
+  ];
+
+  async function loadOrders() {
+    try {
+      const response = await fetch(`${BASE_API}/api/purchases/all`);
+      const orders = response.ok ? await response.json() : [];
+      renderTable('tbodyPurchases', orders, columns);
+    } catch (error) {
+      console.error('Error al obtener órdenes de compra:', error);
+    }
+  }
+
+  document.getElementById('tbodyPurchases')?.addEventListener('click', async (event) => {
+    const button = event.target.closest('[data-receive]');
+    if (!button) return;
+    try {
+      const response = await fetch(`${BASE_API}/api/purchases/${button.dataset.receive}/receive`, {
+        method: 'POST',
+      });
+      if (!response.ok) console.error('No se pudo recibir la orden');
+      await loadOrders();
+    } catch (error) {
+      console.error('Error al recibir la orden:', error);
+    }
+  });
+
+  await loadOrders();
+});
@@ -0,0 +1,158 @@
+package com.destinity.erp.queryplans;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+/**
+ * Registra los comandos de lectura y modificación que emite un repositorio y
+ * obtiene su plan con explain en modo executionStats. explain no aplica las
+ * escrituras, así que los update y delete se pueden revisar sin cambiar los
+ * datos sembrados.
+ */
+final class PlanInspector implements CommandListener {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of(
+            "find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    private static final Set<String> SESSION_FIELDS = Set.of("lsid", "txnNumber", "autocommit", "startTransaction");
+    private static final Set<String> INDEX_STAGES = Set.of("IXSCAN", "IDHACK", "COUNT_SCAN", "DISTINCT_SCAN",
+            "CLUSTERED_IXSCAN", "EXPRESS_IXSCAN", "EXPRESS_CLUSTERED_IXSCAN", "EXPRESS_UPDATE", "EXPRESS_DELETE");
+
+    private final List<BsonDocument> recorded = new ArrayList<>();
+    private volatile boolean recording;
+
+    /**
+     * Plan de un comando
+     *
+     * @param command nombre del comando
+     * @param collection colección consultada
+     * @param stages etapas del plan ganador, de la raíz a las hojas
+     * @param docsExamined documentos examinados
+     * @param keysExamined claves de índice examinadas
+     */
+    record Plan(String command, String collection, List<String> stages, long docsExamined, long keysExamined) {
+
+        boolean isCollectionScan() {
+            return stages.contains("COLLSCAN");
+        }
+
+        boolean usesIndex() {
+            return stages.stream().anyMatch(INDEX_STAGES::contains);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!recording || !QUERY_COMMANDS.contains(event.getCommandName())) return;
+        synchronized (recorded) {
+            recorded.add(event.getCommand().clone());
+        }
+    }
+
+    /**
+     * Ejecuta una llamada y devuelve los comandos que emitió
+     *
+     * @param call llamada al repositorio
+     * @return comandos, sin campos de sesión, con un solo enunciado por update o delete
+     */
+    List<BsonDocument> record(Runnable call) {
+        synchronized (recorded) {
+            recorded.clear();
+        }
+        recording = true;
+        try {
+            call.run();
+        } finally {
+            recording = false;
+        }
+        List<BsonDocument> commands = new ArrayList<>();
+        synchronized (recorded) {
+            for (BsonDocument command : recorded) commands.addAll(explainable(command));
+        }
+        return commands;
+    }
+
+    /**
+     * Obtiene el plan ganador y las estadísticas de ejecución de un comando
+     *
+     * @param database base de datos del comando
+     * @param command comando registrado
+     * @return plan del comando
+     */
+    Plan explain(MongoDatabase database, BsonDocument command) {
+        BsonDocument result = database.runCommand(new BsonDocument("explain", command)
+                .append("verbosity", new BsonString("executionStats")), BsonDocument.class);
+        List<String> stages = new ArrayList<>();
+        collectStages(result, false, stages);
+        String name = command.getFirstKey();
+        BsonValue collection = command.get(name);
+        return new Plan(name, collection.isString() ? collection.asString().getValue() : String.valueOf(collection),
+                List.copyOf(new LinkedHashSet<>(stages)), max(result, "totalDocsExamined"), max(result, "totalKeysExamined"));
+    }
+
+    private static List<BsonDocument> explainable(BsonDocument command) {
+        BsonDocument clean = new BsonDocument();
+        for (var entry : command.entrySet()) {
+            if (entry.getKey().startsWith("$") || SESSION_FIELDS.contains(entry.getKey())) continue;
+            clean.put(entry.getKey(), entry.getValue());
+        }
+        String statements = switch (clean.getFirstKey()) {
+            case "update" -> "updates";
+            case "delete" -> "deletes";
+            default -> null;
+        };
+        if (statements == null || !clean.containsKey(statements)) return List.of(clean);
+
+        // explain acepta un solo enunciado por update o delete
+        List<BsonDocument> single = new ArrayList<>();
+        for (BsonValue statement : clean.getArray(statements)) {
+            BsonDocument copy = clean.clone();
+            copy.put(statements, new BsonArray(List.of(statement)));
+            single.add(copy);
+        }
+        return single;
+    }
+
+    /**
+     * Recorre la salida de explain y junta las etapas de los planes ganadores,
+     * ya sea en queryPlanner, en la etapa $cursor de una agregación o en un shard
+     */
+    private static void collectStages(BsonValue value, boolean inWinningPlan, List<String> stages) {
+        if (value.isArray()) {
+            for (BsonValue item : value.asArray()) collectStages(item, inWinningPlan, stages);
+        } else if (value.isDocument()) {
+            for (var entry : value.asDocument().entrySet()) {
+                String key = entry.getKey();
+                if (key.equals("rejectedPlans") || key.equals("slotBasedPlan")) continue;
+                if (inWinningPlan && key.equals("stage") && entry.getValue().isString()) {
+                    stages.add(entry.getValue().asString().getValue());
+                }
+                collectStages(entry.getValue(), inWinningPlan || key.equals("winningPlan"), stages);
+            }
+        }
+    }
+
+    private static long max(BsonValue value, String field) {
+        long max = 0;
+        if (value.isArray()) {
+            for (BsonValue item : value.asArray()) max = Math.max(max, max(item, field));
+        } else if (value.isDocument()) {
+            for (var entry : value.asDocument().entrySet()) {
+                if (entry.getKey().equals(field) && entry.getValue().isNumber()) {
+                    max = Math.max(max, entry.getValue().asNumber().longValue());
+                } else if (!entry.getKey().equals("allPlansExecution")) {
+                    max = Math.max(max, max(entry.getValue(), field));
+                }
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,142 @@
+package com.destinity.erp.queryplans;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * Llena la base de datos de la verificación con productos, usuarios y ventas
+ * con la misma forma que escriben los repositorios. Los valores de cada campo
+ * consultado se reparten de forma uniforme, así que los límites de documentos
+ * examinados se pueden expresar con las constantes de esta clase.
+ */
+final class PlanSeeder {
+
+    static final int PRODUCTS = 4_000;
+    static final int EMPLOYEES = 1_500;
+    static final int PROVIDERS = 500;
+    static final int SALES = 20_000;
+    static final int SALE_HISTORY_DAYS = 365;
+
+    static final String[] CATEGORIES = {"ABARROTES", "BEBIDAS", "LÁCTEOS", "LIMPIEZA", "ELECTRÓNICA",
+        "PANADERÍA", "CARNES", "FRUTAS Y VERDURAS", "HIGIENE", "MASCOTAS"};
+    static final String[] DEPARTMENTS = {"Ventas", "Almacén", "Compras", "Finanzas", "Recursos Humanos"};
+    static final String[] SERVICE_TYPES = {"Transporte", "Limpieza", "Mantenimiento", "Papelería", "Sistemas"};
+    static final String STATUS_ACTIVE = "Activo";
+    static final String STATUS_INACTIVE = "Inactivo";
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final String[] NOUNS = {"Arroz", "Frijol", "Leche", "Queso", "Jabón", "Detergente", "Pan",
+        "Refresco", "Agua", "Café"};
+    private static final String[] FIRST_NAMES = {"María", "José", "Juan", "Guadalupe", "Luis", "Ana", "Carlos",
+        "Fernanda", "Miguel", "Sofía"};
+    private static final String[] LAST_NAMES = {"Hernández", "García", "Martínez", "López", "González",
+        "Pérez", "Rodríguez", "Sánchez", "Ramírez", "Cruz"};
+    private static final String[] PAYMENT_METHODS = {"Efectivo", "Tarjeta", "Transferencia"};
+
+    private PlanSeeder() {
+    }
+
+    /**
+     * Borra la base de datos y la vuelve a llenar con una semilla fija
+     *
+     * @param database base de datos de la verificación
+     */
+    static void seed(MongoDatabase database) {
+        Random random = new Random(20240601L);
+        database.drop();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Document> products = new ArrayList<>(PRODUCTS);
+        List<ObjectId> productIds = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            ObjectId id = new ObjectId();
+            String name = NOUNS[i % NOUNS.length] + " " + (100 + i) + "g";
+            productIds.add(id);
+            products.add(new Document("_id", id)
+                    .append("name", name)
+                    .append("price", Math.round((10 + random.nextDouble() * 2_000) * 100) / 100.0)
+                    .append("stock", random.nextInt(500))
+                    .append("category", CATEGORIES[i % CATEGORIES.length])
+                    .append("description", "Producto " + name + ", presentación individual.")
+                    .append("image", "https://res.cloudinary.com/destinity/image/upload/products/" + id + ".webp")
+                    .append("provider", new ObjectId().toHexString())
+                    .append("status", STATUS_ACTIVE)
+                    .append("createdAt", toDate(now.minusDays(random.nextInt(365))))
+                    .append("updatedAt", toDate(now.minusDays(random.nextInt(30)))));
+        }
+        insert(database.getCollection("inventory"), products);
+
+        List<Document> users = new ArrayList<>(EMPLOYEES + PROVIDERS);
+        for (int i = 0; i < EMPLOYEES + PROVIDERS; i++) {
+            boolean employee = i < EMPLOYEES;
+            Document user = new Document("_id", new ObjectId())
+                    .append("firstName", FIRST_NAMES[random.nextInt(FIRST_NAMES.length)])
+                    .append("lastName", LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                    .append("middleName", LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                    .append("email", (employee ? "empleado" : "proveedor") + i + "@queryplans.destinity.mx")
+                    .append("password", "$2a$10$queryplans.sin.uso.en.esta.verificacion")
+                    .append("userType", employee ? "employee" : "provider")
+                    .append("status", i % 4 == 0 ? STATUS_INACTIVE : STATUS_ACTIVE)
+                    .append("createdAt", toDate(now.minusDays(400)))
+                    .append("updatedAt", toDate(now.minusDays(10)));
+            if (employee) {
+                user.append("employeeData", new Document("role", "Cajero")
+                        .append("department", DEPARTMENTS[i % DEPARTMENTS.length])
+                        .append("salary", 12_000.0 + random.nextInt(8_000)));
+            } else {
+                user.append("providerData", new Document("company", "Proveedor " + i)
+                        .append("serviceType", SERVICE_TYPES[i % SERVICE_TYPES.length])
+                        .append("phone", "55" + (10_000_000 + i)));
+            }
+            users.add(user);
+        }
+        insert(database.getCollection("hr"), users);
+
+        MongoCollection<Document> salesCollection = database.getCollection("sales");
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < SALES; i++) {
+            ObjectId product = productIds.get(random.nextInt(productIds.size()));
+            int quantity = 1 + random.nextInt(5);
+            double price = Math.round((10 + random.nextDouble() * 2_000) * 100) / 100.0;
+            LocalDateTime saleDate = now.minusMinutes(random.nextInt(SALE_HISTORY_DAYS * 24 * 60));
+            String customer = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            batch.add(new Document("_id", new ObjectId())
+                    .append("paymentMethod", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)])
+                    .append("totalAmount", price * quantity)
+                    .append("status", i % 25 == 0 ? "Cancelada" : "Completada")
+                    .append("saleDate", toDate(saleDate))
+                    .append("createdAt", toDate(saleDate))
+                    .append("updatedAt", toDate(saleDate))
+                    .append("customerInfo", new Document("id", "C" + random.nextInt(20_000))
+                            .append("name", customer)
+                            .append("email", customer.toLowerCase().replace(' ', '.') + "@correo.mx"))
+                    .append("productSold", new Document("id", product.toHexString())
+                            .append("name", "Producto")
+                            .append("price", price)
+                            .append("quantity", quantity)
+                            .append("subTotal", price * quantity)));
+            if (batch.size() == BATCH_SIZE) {
+                insert(salesCollection, batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        insert(salesCollection, batch);
+    }
+
+    private static void insert(MongoCollection<Document> collection, List<Document> documents) {
+        if (!documents.isEmpty()) collection.insertMany(documents);
+    }
+
+    static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,425 @@
+package com.destinity.erp.queryplans;
+
+import com.destinity.erp.database.DataBaseConnection;
+import com.destinity.erp.hr.UserModel;
+import com.destinity.erp.hr.UserRepository;
+import com.destinity.erp.inventory.ProductModel;
+import com.destinity.erp.inventory.ProductRepository;
+import com.destinity.erp.sales.SaleModel;
+import com.destinity.erp.sales.SaleRepository;
+import com.destinity.erp.utils.ConfigService;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * Verificación de planes de consulta de ProductRepository, SaleRepository y
+ * UserRepository. Siembra un mongod local (o el de QUERYPLANS_MONGO_URI),
+ * crea los repositorios con sus índices, ejecuta cada método público y
+ * revisa con explain cada comando que emite:
+ *
+ * - el plan ganador no puede contener COLLSCAN, salvo en los métodos de
+ *   {@link #FULL_SCANS}, que recorren la colección por diseño;
+ * - los documentos examinados no pueden superar el límite del caso, que
+ *   depende de los documentos que la consulta debe devolver y no del tamaño
+ *   de la colección.
+ *
+ * Los casos de SaleRepository se repiten con SALES_STORAGE_MODE=timeseries,
+ * después de copiar las ventas a sales_ts, porque las series de tiempo usan
+ * otros índices y planes. Un método público nuevo sin caso también falla,
+ * para que toda consulta nueva pase por esta revisión. Cualquier falla termina con excepción y
+ * hace fallar mvn -Pqueryplans verify.
+ */
+public final class QueryPlanCheck {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryPlanCheck.class.getName());
+    private static final String DATABASE = "destinity_queryplans";
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Métodos que recorren la colección completa y por qué
+     */
+    private static final Map<String, String> FULL_SCANS = Map.of(
+            "ProductRepository.findProductsByText", "regex sin ancla y sin distinguir mayúsculas en cuatro campos",
+            "ProductRepository.valuationByCategory", "reporte que agrega todo el catálogo",
+            "SaleRepository.findSalesByText", "regex sin ancla y sin distinguir mayúsculas en tres campos");
+
+    /**
+     * Métodos que solo recorren la colección completa en series de tiempo
+     */
+    private static final Map<String, String> TIMESERIES_FULL_SCANS = Map.of(
+            "SaleRepository.countSales", "las series de tiempo no guardan el conteo y se cuentan todos los buckets");
+
+    /**
+     * Métodos públicos que no emiten consultas con plan
+     */
+    private static final Set<String> NOT_QUERIES = Set.of(
+            "ProductRepository.ensureIndexes", "ProductRepository.saveProduct",
+            "UserRepository.ensureIndexes", "UserRepository.saveUser",
+            "SaleRepository.ensureIndexes", "SaleRepository.saveSale",
+            "SaleRepository.getStorageMode", "SaleRepository.getCollectionName",
+            // Administración: copia la colección completa y lee collStats
+            "SaleRepository.copyToStorage", "SaleRepository.storageStats");
+
+    private final PlanInspector inspector;
+    private final MongoDatabase database;
+    private final Set<String> checked = new TreeSet<>();
+    private final List<String> failures = new ArrayList<>();
+    private final Map<String, String> report = new LinkedHashMap<>();
+    private String storageMode = SaleRepository.MODE_COLLECTION;
+
+    private QueryPlanCheck(PlanInspector inspector, MongoDatabase database) {
+        this.inspector = inspector;
+        this.database = database;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Sin implementación de JSON-P fuera del servidor, el log de la aplicación se escribe como texto
+        System.setProperty("LOG_FORMAT", "text");
+        String externalUri = System.getProperty("queryplans.mongo.uri", System.getenv("QUERYPLANS_MONGO_URI"));
+
+        TransitionWalker.ReachedState<RunningMongodProcess> process = null;
+        String uri = externalUri;
+        if (uri == null) {
+            process = Mongod.instance().start(Version.Main.V7_0);
+            ServerAddress address = process.current().getServerAddress();
+            uri = "mongodb://" + address.getHost() + ":" + address.getPort();
+            LOGGER.log(Level.INFO, "mongod local iniciado en {0}", uri);
+        }
+
+        PlanInspector inspector = new PlanInspector();
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .addCommandListener(inspector)
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            MongoDatabase database = client.getDatabase(DATABASE);
+            PlanSeeder.seed(database);
+            new QueryPlanCheck(inspector, database).run(client);
+        } finally {
+            if (process != null) process.close();
+        }
+    }
+
+    private void run(MongoClient client) throws ReflectiveOperationException {
+        DataBaseConnection connection = new DataBaseConnection(client, database.getName());
+
+        ProductRepository products = new ProductRepository();
+        inject(products, "dbConnection", connection);
+        products.ensureIndexes();
+        UserRepository users = new UserRepository();
+        inject(users, "dbConnection", connection);
+        users.ensureIndexes();
+        SaleRepository sales = new SaleRepository();
+        inject(sales, "dbConnection", connection);
+        inject(sales, "config", new ConfigService());
+        sales.ensureIndexes();
+
+        checkProducts(products, client);
+        checkUsers(users);
+        checkSales(sales);
+        checkTimeSeriesSales(sales, connection);
+        checkCoverage(ProductRepository.class, UserRepository.class, SaleRepository.class);
+
+        report.forEach((name, line) -> LOGGER.log(Level.INFO, "{0}: {1}", new Object[]{name, line}));
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Planes de consulta con regresión:\n  " + String.join("\n  ", failures));
+        }
+        LOGGER.log(Level.INFO, "Planes de consulta verificados: {0} métodos", checked.size());
+    }
+
+    private void checkProducts(ProductRepository repository, MongoClient client) {
+        String repo = "ProductRepository";
+        String category = PlanSeeder.CATEGORIES[3];
+        int perCategory = PlanSeeder.PRODUCTS / PlanSeeder.CATEGORIES.length;
+
+        check(repo, "findAllProducts", () -> {
+            repository.findAllProducts(3, PAGE_SIZE);
+            return 4L * PAGE_SIZE;
+        });
+        check(repo, "findStockBatch", () -> {
+            List<ProductModel> first = repository.findStockBatch(null, 500);
+            repository.findStockBatch(first.get(first.size() - 1).getId(), 500);
+            return 500;
+        });
+        ProductModel product = repository.findProductsByCategory(category).get(0);
+        List<ObjectId> someIds = repository.findProductsByCategory(category).stream()
+                .limit(20).map(ProductModel::getId).toList();
+        check(repo, "findStockByIds", () -> repository.findStockByIds(someIds).size());
+        check(repo, "findProductById", () -> {
+            repository.findProductById(product.getId().toHexString());
+            return 1;
+        });
+        check(repo, "findProductsByCategory", () -> {
+            repository.findProductsByCategory(category);
+            return perCategory;
+        });
+        scan(repo, "findProductsByText", () -> repository.findProductsByText("Café"));
+        scan(repo, "valuationByCategory", repository::valuationByCategory);
+        check(repo, "updateProduct", () -> {
+            product.setStock(product.getStock() + 1);
+            repository.updateProduct(product);
+            return 1;
+        });
+        check(repo, "incrementStock", () -> {
+            try (ClientSession session = client.startSession()) {
+                repository.incrementStock(session, Map.of(product.getId(), 5, new ObjectId(), 1));
+            }
+            return 1;
+        });
+        check(repo, "countProducts", () -> {
+            repository.countProducts();
+            return 0;
+        });
+        check(repo, "deleteProduct", () -> {
+            repository.deleteProduct(product.getId().toHexString());
+            return 1;
+        });
+    }
+
+    private void checkUsers(UserRepository repository) {
+        String repo = "UserRepository";
+        String department = PlanSeeder.DEPARTMENTS[1];
+        String serviceType = PlanSeeder.SERVICE_TYPES[2];
+
+        check(repo, "findAllUsers", () -> {
+            repository.findAllUsers(2, PAGE_SIZE, null);
+            repository.findAllUsers(2, PAGE_SIZE, "employee");
+            return 3L * PAGE_SIZE;
+        });
+        UserModel user = repository.findEmployeeByDepartment(department).get(0);
+        check(repo, "findUserById", () -> {
+            repository.findUserById(user.getId().toHexString());
+            return 1;
+        });
+        check(repo, "findUserByEmail", () -> {
+            repository.findUserByEmail(user.getEmail());
+            return 1;
+        });
+        check(repo, "findUserByStatus", () ->
+                repository.findUserByStatus(PlanSeeder.STATUS_INACTIVE, "employee").size());
+        check(repo, "findEmployeeByDepartment", () -> repository.findEmployeeByDepartment(department).size());
+        check(repo, "findProviderByServiceType", () -> repository.findProviderByServiceType(serviceType).size());
+        // La regex no usa índice, pero el tipo de usuario acota el recorrido
+        check(repo, "findUsersByText", () -> {
+            repository.findUsersByText("ar", "provider");
+            return PlanSeeder.PROVIDERS;
+        });
+        long activeEmployees = database.getCollection("hr").countDocuments(Filters.and(
+                Filters.eq("userType", "employee"), Filters.eq("status", PlanSeeder.STATUS_ACTIVE)));
+        check(repo, "payrollByDepartment", () -> {
+            repository.payrollByDepartment();
+            return activeEmployees;
+        });
+        check(repo, "updateUser", () -> {
+            user.setStatus(PlanSeeder.STATUS_ACTIVE);
+            repository.updateUser(user);
+            return 1;
+        });
+        check(repo, "updatePasswordHash", () -> {
+            repository.updatePasswordHash(user.getId(), user.getPassword(), user.getPassword());
+            return 1;
+        });
+        check(repo, "countUsers", () -> {
+            repository.countUsers();
+            return 0;
+        });
+        check(repo, "deleteUser", () -> {
+            repository.deleteUser(user.getId().toHexString());
+            return 1;
+        });
+    }
+
+    /**
+     * Copia las ventas a sales_ts y repite los casos de SaleRepository con un
+     * repositorio que arranca en modo timeseries
+     */
+    private void checkTimeSeriesSales(SaleRepository collection, DataBaseConnection connection)
+            throws ReflectiveOperationException {
+        collection.copyToStorage(SaleRepository.MODE_TIMESERIES);
+        System.setProperty("SALES_STORAGE_MODE", SaleRepository.MODE_TIMESERIES);
+        try {
+            SaleRepository timeseries = new SaleRepository();
+            inject(timeseries, "dbConnection", connection);
+            inject(timeseries, "config", new ConfigService());
+            timeseries.ensureIndexes();
+            if (!SaleRepository.MODE_TIMESERIES.equals(timeseries.getStorageMode())) {
+                failures.add("SaleRepository: no arrancó en timeseries después de copyToStorage");
+                return;
+            }
+            storageMode = SaleRepository.MODE_TIMESERIES;
+            checkSales(timeseries);
+        } finally {
+            storageMode = SaleRepository.MODE_COLLECTION;
+            System.clearProperty("SALES_STORAGE_MODE");
+        }
+    }
+
+    private void checkSales(SaleRepository repository) {
+        String repo = "SaleRepository";
+        LocalDateTime now = LocalDateTime.now();
+        Date monthAgo = PlanSeeder.toDate(now.minusDays(30));
+        Date weekAgo = PlanSeeder.toDate(now.minusDays(7));
+        Date today = PlanSeeder.toDate(now.plusDays(1));
+
+        check(repo, "findAllSales", () -> {
+            repository.findAllSales(3, PAGE_SIZE);
+            return 4L * PAGE_SIZE;
+        });
+        check(repo, "forEachSaleSince", () -> repository.forEachSaleSince(weekAgo, sale -> {
+        }));
+        check(repo, "forEachSaleInRange", () -> repository.forEachSaleInRange(monthAgo, weekAgo, sale -> {
+        }));
+        check(repo, "findSalesByRange", () -> {
+            List<SaleModel> page = repository.findSalesByRange(monthAgo, today, null, null, null, PAGE_SIZE);
+            SaleModel last = page.get(page.size() - 1);
+            repository.findSalesByRange(monthAgo, today, SaleModel.STATUS_COMPLETED, null, null, PAGE_SIZE);
+            // La página siguiente puede volver a leer las ventas con la misma fecha que la última
+            repository.findSalesByRange(monthAgo, today, null, PlanSeeder.toDate(last.getSaleDate()), last.getId(),
+                    PAGE_SIZE);
+            return 2L * PAGE_SIZE;
+        });
+        MongoCollection<Document> stored = database.getCollection(repository.getCollectionName());
+        long lastMonth = stored.countDocuments(Filters.gte("saleDate", monthAgo));
+        check(repo, "unitsSoldByProductSince", () -> {
+            repository.unitsSoldByProductSince(monthAgo);
+            return lastMonth;
+        });
+        List<String> soldProducts = List.of(repository.findSalesByRange(monthAgo, today, null, null, null, 1)
+                .get(0).getProductSold().getId());
+        long soldLastMonth = stored.countDocuments(Filters.and(
+                Filters.in("productSold.id", soldProducts), Filters.gte("saleDate", monthAgo)));
+        check(repo, "unitsSoldForProductsSince", () -> {
+            repository.unitsSoldForProductsSince(soldProducts, monthAgo);
+            return soldLastMonth;
+        });
+        SaleModel sale = repository.findSalesByStatus(SaleModel.STATUS_CANCELLED).get(0);
+        check(repo, "findSaleById", () -> {
+            repository.findSaleById(sale.getId().toHexString());
+            return 1;
+        });
+        check(repo, "findSalesByStatus", () -> repository.findSalesByStatus(SaleModel.STATUS_CANCELLED).size());
+        scan(repo, "findSalesByText", () -> repository.findSalesByText("Tarjeta"));
+        check(repo, "updateSale", () -> {
+            repository.updateSale(sale);
+            return 1;
+        });
+        if (SaleRepository.MODE_TIMESERIES.equals(storageMode)) {
+            scan(repo, "countSales", repository::countSales);
+        } else {
+            check(repo, "countSales", () -> {
+                repository.countSales();
+                return 0;
+            });
+        }
+        check(repo, "deleteSale", () -> {
+            repository.deleteSale(sale.getId().toHexString());
+            return 1;
+        });
+    }
+
+    /**
+     * Ejecuta un método y revisa el plan de cada comando que emite
+     *
+     * @param repository nombre del repositorio
+     * @param method método verificado
+     * @param call llamada que devuelve el máximo de documentos examinados por comando
+     */
+    private void check(String repository, String method, LongSupplier call) {
+        String name = repository + "." + method;
+        checked.add(name);
+        String label = label(name);
+        long[] maxDocs = new long[1];
+        List<BsonDocument> commands = inspector.record(() -> maxDocs[0] = call.getAsLong());
+        if (commands.isEmpty()) {
+            failures.add(label + ": no emitió ninguna consulta");
+            return;
+        }
+        for (BsonDocument command : commands) {
+            PlanInspector.Plan plan = inspector.explain(database, command);
+            String line = describe(plan) + ", límite " + maxDocs[0];
+            if (plan.isCollectionScan()) {
+                failures.add(label + ": COLLSCAN en " + describe(plan));
+            } else if (plan.docsExamined() > maxDocs[0]) {
+                failures.add(label + ": examinó " + plan.docsExamined() + " documentos, límite " + maxDocs[0]
+                        + " (" + describe(plan) + ")");
+            }
+            report.merge(label, line, (a, b) -> a + "; " + b);
+        }
+    }
+
+    /**
+     * Ejecuta un método que recorre la colección por diseño; solo se reporta su plan
+     */
+    private void scan(String repository, String method, Runnable call) {
+        String name = repository + "." + method;
+        checked.add(name);
+        String reason = FULL_SCANS.get(name);
+        if (reason == null && SaleRepository.MODE_TIMESERIES.equals(storageMode)) reason = TIMESERIES_FULL_SCANS.get(name);
+        if (reason == null) {
+            failures.add(label(name) + ": recorrido completo no permitido");
+            return;
+        }
+        for (BsonDocument command : inspector.record(call)) {
+            report.merge(label(name), describe(inspector.explain(database, command)) + " (permitido: " + reason + ")",
+                    (a, b) -> a + "; " + b);
+        }
+    }
+
+    /**
+     * Nombre del método en el reporte, con el modo de almacenamiento en la pasada de series de tiempo
+     */
+    private String label(String name) {
+        return SaleRepository.MODE_TIMESERIES.equals(storageMode) ? name + " [timeseries]" : name;
+    }
+
+    private void checkCoverage(Class<?>... repositories) {
+        for (Class<?> repository : repositories) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!Modifier.isPublic(method.getModifiers()) || method.isSynthetic()) continue;
+                String name = repository.getSimpleName() + "." + method.getName();
+                if (!checked.contains(name) && !NOT_QUERIES.contains(name)) {
+                    failures.add(name + ": método público sin caso en QueryPlanCheck");
+                }
+            }
+        }
+    }
+
+    private static String describe(PlanInspector.Plan plan) {
+        return plan.command() + " " + plan.collection() + " " + plan.stages() + " docs=" + plan.docsExamined()
+                + " keys=" + plan.keysExamined();
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}